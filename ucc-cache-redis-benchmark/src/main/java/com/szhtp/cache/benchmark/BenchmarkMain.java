@@ -0,0 +1,32 @@
+package com.szhtp.cache.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * 性能测试入口，参数与 JMH 命令行一致。
+ * 未指定 -t 时依次以 1、4、16 个线程运行，便于比较并发下的表现。
+ *
+ * @author null
+ */
+public class BenchmarkMain {
+
+    private static final int[] DEFAULT_THREADS = {1, 4, 16};
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListProfilers() || cmd.shouldListResultFormats()
+                || cmd.getThreads().hasValue()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        for (int threads : DEFAULT_THREADS) {
+            new Runner(new OptionsBuilder().parent(cmd).threads(threads).build()).run();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.szhtp.cache.benchmark;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 性能测试用的业务对象，content 长度即 payload 大小
+ *
+ * @author null
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BenchmarkPayload {
+
+    private long id;
+
+    private String name;
+
+    private Date createTime;
+
+    private List<String> tags;
+
+    private String content;
+
+    /**
+     * 构造指定 payload 大小的对象
+     *
+     * @param id   编号
+     * @param size content 字符数
+     * @return 对象
+     */
+    public static BenchmarkPayload of(long id, int size) {
+        BenchmarkPayload payload = new BenchmarkPayload();
+        payload.setId(id);
+        payload.setName("payload-" + id);
+        payload.setCreateTime(new Date(1500000000000L + id));
+        payload.setTags(new ArrayList<>(Arrays.asList("a", "b", "c")));
+        payload.setContent(text(size));
+        return payload;
+    }
+
+    /**
+     * 指定长度的字符串
+     */
+    public static String text(int size) {
+        char[] chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            chars[i] = (char) ('a' + i % 26);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 指定元素个数的集合
+     */
+    public static List<BenchmarkPayload> list(int count, int size) {
+        List<BenchmarkPayload> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(of(i, size));
+        }
+        return list;
+    }
+}
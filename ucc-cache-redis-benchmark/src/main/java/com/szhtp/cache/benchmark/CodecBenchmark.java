@@ -0,0 +1,74 @@
+package com.szhtp.cache.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * fastjson 编解码开销，与 {@link JedisServiceBenchmark} 对照可以区分网络与序列化的耗时
+ *
+ * @author null
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"64", "4096"})
+    public int payloadSize;
+
+    @Param({"50"})
+    public int listSize;
+
+    private BenchmarkPayload object;
+
+    private String objectJson;
+
+    private List<BenchmarkPayload> list;
+
+    private String listJson;
+
+    @Setup
+    public void setUp() {
+        object = BenchmarkPayload.of(1, payloadSize);
+        objectJson = JSON.toJSONString(object);
+        list = BenchmarkPayload.list(listSize, Math.max(1, payloadSize / listSize));
+        listJson = JSONArray.toJSONString(list);
+    }
+
+    @Benchmark
+    public String encodeObject() {
+        return JSON.toJSONString(object);
+    }
+
+    @Benchmark
+    public BenchmarkPayload decodeObject() {
+        return JSON.parseObject(objectJson, BenchmarkPayload.class);
+    }
+
+    @Benchmark
+    public String encodeList() {
+        return JSONArray.toJSONString(list);
+    }
+
+    @Benchmark
+    public List<BenchmarkPayload> decodeList() {
+        return JSONArray.parseArray(listJson, BenchmarkPayload.class);
+    }
+}
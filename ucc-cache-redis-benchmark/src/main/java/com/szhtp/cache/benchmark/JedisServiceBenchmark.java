@@ -0,0 +1,225 @@
+package com.szhtp.cache.benchmark;
+
+import com.szhtp.cache.benchmark.server.RespCluster;
+import com.szhtp.cache.benchmark.server.RespServer;
+import com.szhtp.cache.jedis.JedisHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JedisService 各实现的读写性能测试，连接进程内的 {@link RespServer} 或 {@link RespCluster}，不依赖外部 redis。
+ * 线程数通过 -t 指定，或使用 {@link BenchmarkMain} 依次跑多个线程数。
+ *
+ * @author null
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JedisServiceBenchmark {
+
+    private static final String MASTER_NAME = "benchmaster";
+
+    private static final int EXPIRE_SECONDS = 600;
+
+    /**
+     * JedisHelper 部署模式
+     */
+    @Param({"standalone", "sentinel", "cluster", "sharded"})
+    public String mode;
+
+    /**
+     * 服务端注入的每命令延迟，毫秒，模拟跨机房网络
+     */
+    @Param({"0"})
+    public long latencyMillis;
+
+    /**
+     * 单个值的字符数
+     */
+    @Param({"64", "4096"})
+    public int payloadSize;
+
+    /**
+     * list 元素个数
+     */
+    @Param({"50"})
+    public int listSize;
+
+    /**
+     * 批量操作的 key 数量
+     */
+    @Param({"20"})
+    public int batchSize;
+
+    private RespServer server;
+
+    private RespCluster cluster;
+
+    private RespServer[] shards;
+
+    private JedisHelper helper;
+
+    private String value;
+
+    private BenchmarkPayload object;
+
+    private List<BenchmarkPayload> list;
+
+    private String[] batchKeys;
+
+    private List<String> batchKeyList;
+
+    private Map<String, String> batchValues;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        helper = new JedisHelper();
+        if ("cluster".equals(mode)) {
+            cluster = new RespCluster(3, 0);
+            cluster.start();
+            for (RespServer node : cluster.getNodes()) {
+                node.getFaults().setLatencyMillis(latencyMillis);
+            }
+            helper.setServers(cluster.getServers());
+            helper.setPort(cluster.getPorts());
+        } else if ("sharded".equals(mode)) {
+            shards = new RespServer[3];
+            StringBuilder servers = new StringBuilder();
+            StringBuilder ports = new StringBuilder();
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = new RespServer();
+                shards[i].getFaults().setLatencyMillis(latencyMillis);
+                shards[i].start();
+                servers.append(i == 0 ? "" : ",").append(shards[i].getHost());
+                ports.append(i == 0 ? "" : ",").append(shards[i].getPort());
+            }
+            helper.setServers(servers.toString());
+            helper.setPort(ports.toString());
+        } else {
+            server = new RespServer();
+            server.setSentinelMasterName(MASTER_NAME);
+            server.getFaults().setLatencyMillis(latencyMillis);
+            server.start();
+            helper.setServers(server.getHost());
+            helper.setPort(String.valueOf(server.getPort()));
+        }
+        helper.setPrefix("bench_");
+        helper.setMode(mode);
+        helper.setMasterName(MASTER_NAME);
+        helper.setMaxActive(256);
+        helper.initialPool();
+
+        value = BenchmarkPayload.text(payloadSize);
+        object = BenchmarkPayload.of(1, payloadSize);
+        list = BenchmarkPayload.list(listSize, Math.max(1, payloadSize / listSize));
+        batchKeys = new String[batchSize];
+        batchValues = new LinkedHashMap<>();
+        for (int i = 0; i < batchSize; i++) {
+            batchKeys[i] = "batch_" + i;
+            batchValues.put(batchKeys[i], value);
+            helper.setString(batchKeys[i], value, EXPIRE_SECONDS);
+        }
+        batchKeyList = Arrays.asList(batchKeys);
+        helper.setString("string", value, EXPIRE_SECONDS);
+        helper.setObject("object", object, EXPIRE_SECONDS);
+        helper.setList("list", list, EXPIRE_SECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // 先关闭客户端，否则 sentinel 的 MasterListener 线程在 -f 0 时会继续重连已停止的服务端
+        helper.destroy();
+        if (cluster != null) {
+            cluster.stop();
+        }
+        if (server != null) {
+            server.stop();
+        }
+        if (shards != null) {
+            for (RespServer shard : shards) {
+                shard.stop();
+            }
+        }
+    }
+
+    @Benchmark
+    public String getString() {
+        return helper.getString("string");
+    }
+
+    @Benchmark
+    public boolean setString() {
+        return helper.setString("string_w", value, EXPIRE_SECONDS);
+    }
+
+    @Benchmark
+    public BenchmarkPayload getObject() {
+        return helper.getObject("object", BenchmarkPayload.class);
+    }
+
+    @Benchmark
+    public boolean setObject() {
+        return helper.setObject("object_w", object, EXPIRE_SECONDS);
+    }
+
+    @Benchmark
+    public List<BenchmarkPayload> getList() {
+        return helper.getList("list", BenchmarkPayload.class);
+    }
+
+    @Benchmark
+    public void setList() {
+        helper.setList("list_w", list, EXPIRE_SECONDS);
+    }
+
+    @Benchmark
+    public void batchGet(Blackhole bh) {
+        for (String key : batchKeys) {
+            bh.consume(helper.getString(key));
+        }
+    }
+
+    @Benchmark
+    public void batchSet(Blackhole bh) {
+        for (String key : batchKeys) {
+            bh.consume(helper.setString(key, value, EXPIRE_SECONDS));
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> getStrings() {
+        return helper.getStrings(batchKeyList);
+    }
+
+    @Benchmark
+    public void setStrings() {
+        helper.setStrings(batchValues, EXPIRE_SECONDS);
+    }
+
+    @Benchmark
+    public Long incr() {
+        return helper.incr("counter");
+    }
+}
@@ -0,0 +1,111 @@
+package com.szhtp.cache.benchmark;
+
+import com.szhtp.cache.benchmark.server.RespCluster;
+import com.szhtp.cache.benchmark.server.RespServer;
+import com.szhtp.cache.jedis.JedisHelper;
+import com.szhtp.cache.jedis.WorkloadReplayer;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 回放 JedisHelper.captureFile 记录的负载轨迹并输出吞吐量和延迟分位数。
+ * 目标为进程内的 {@link RespServer}（embedded）、{@link RespCluster}（embedded-cluster），
+ * 或按 --servers/--ports 连接的 standalone、sentinel、cluster、sharded 部署。
+ * <p>
+ * java -cp benchmarks.jar com.szhtp.cache.benchmark.ReplayMain trace.bin [--speed 1] [--threads 16]
+ * [--mode embedded] [--servers h1,h2] [--ports p1,p2] [--password p] [--master name] [--prefix replay:]
+ *
+ * @author null
+ */
+public class ReplayMain {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args[0].startsWith("-")) {
+            System.err.println("usage: ReplayMain trace [--speed x] [--threads n] [--mode embedded|embedded-cluster|standalone|sentinel|cluster|sharded]"
+                    + " [--servers hosts] [--ports ports] [--password p] [--master name] [--prefix p]");
+            System.exit(2);
+        }
+        double speed = 1;
+        int threads = 16;
+        String mode = "embedded";
+        String servers = null;
+        String ports = null;
+        String password = null;
+        String master = null;
+        String prefix = "replay:";
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("missing value for " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--speed":
+                    speed = Double.parseDouble(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--mode":
+                    mode = value;
+                    break;
+                case "--servers":
+                    servers = value;
+                    break;
+                case "--ports":
+                    ports = value;
+                    break;
+                case "--password":
+                    password = value;
+                    break;
+                case "--master":
+                    master = value;
+                    break;
+                case "--prefix":
+                    prefix = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        RespServer server = null;
+        RespCluster cluster = null;
+        JedisHelper helper = new JedisHelper();
+        try {
+            if ("embedded".equals(mode)) {
+                server = new RespServer();
+                server.start();
+                helper.setServers(server.getHost());
+                helper.setPort(String.valueOf(server.getPort()));
+                helper.setMode("standalone");
+            } else if ("embedded-cluster".equals(mode)) {
+                cluster = new RespCluster(3, 0);
+                cluster.start();
+                helper.setServers(cluster.getServers());
+                helper.setPort(cluster.getPorts());
+                helper.setMode("cluster");
+            } else {
+                helper.setServers(servers);
+                helper.setPort(ports);
+                helper.setPassword(password);
+                if (master != null) {
+                    helper.setMasterName(master);
+                }
+                helper.setMode(mode);
+            }
+            helper.setPrefix("");
+            helper.setMaxActive(Math.max(8, threads * 2));
+            helper.initialPool();
+            WorkloadReplayer.Report report = new WorkloadReplayer(helper, prefix, speed, threads).replay(new File(args[0]));
+            System.out.print(report);
+        } finally {
+            helper.destroy();
+            if (server != null) {
+                server.stop();
+            }
+            if (cluster != null) {
+                cluster.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.szhtp.cache.benchmark.server;
+
+import com.szhtp.cache.jedis.BitScripts;
+import com.szhtp.cache.jedis.HashScripts;
+import com.szhtp.cache.jedis.KeyProfiler;
+import com.szhtp.cache.jedis.KeySweeper;
+import com.szhtp.cache.jedis.ListScripts;
+import com.szhtp.cache.jedis.SortedScripts;
+import com.szhtp.cache.jedis.VersionScripts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.szhtp.cache.benchmark.server.RespProtocol.bytes;
+import static com.szhtp.cache.benchmark.server.RespProtocol.string;
+
+/**
+ * ucc-cache-redis 客户端使用的脚本在内嵌服务中的实现，存储创建时自动注册
+ *
+ * @author null
+ */
+final class ClientScripts {
+
+    private ClientScripts() {
+    }
+
+    static void register(RespStore store) {
+        store.registerScript(HashScripts.REPLACE.getScript(), new ScriptHandler() {
+            @Override
+            public Object eval(ScriptContext redis, List<String> keys, List<byte[]> args) {
+                redis.call("DEL", keys.get(0));
+                if (args.size() > 1) {
+                    redis.call(command("HMSET", keys.get(0), args.subList(1, args.size())));
+                }
+                if (Long.parseLong(string(args.get(0))) > 0) {
+                    redis.call("EXPIRE", keys.get(0), string(args.get(0)));
+                }
+                return 1L;
+            }
+        });
+        store.registerScript(HashScripts.UPDATE.getScript(), new ScriptHandler() {
+            @Override
+            public Object eval(ScriptContext redis, List<String> keys, List<byte[]> args) {
+                if (Long.valueOf(0).equals(redis.call("EXISTS", keys.get(0)))) {
+                    return 0L;
+                }
+                int n = Integer.parseInt(string(args.get(0)));
+                if (n > 0) {
+                    redis.call(command("HMSET", keys.get(0), args.subList(1, 1 + n * 2)));
+                }
+                if (args.size() > 1 + n * 2) {
+                    redis.call(command("HDEL", keys.get(0), args.subList(1 + n * 2, args.size())));
+                }
+                return 1L;
+            }
+        });
+        registerList(store);
+        store.registerScript(KeySweeper.UNLINK.getScript(), new ScriptHandler() {
+            @Override
+            public Object eval(ScriptContext redis, List<String> keys, List<byte[]> args) {
+                return redis.call("UNLINK", keys.get(0));
+            }
+        });
+        // 内嵌服务没有 MEMORY USAGE，与脚本的退回路径一致：字符串取 STRLEN，其它类型为 -1
+        store.registerScript(KeyProfiler.PROBE.getScript(), new ScriptHandler() {
+            @Override
+            public Object eval(ScriptContext redis, List<String> keys, List<byte[]> args) {
+                String type = ((RespProtocol.Status) redis.call("TYPE", keys.get(0))).text;
+                if ("none".equals(type)) {
+                    return Arrays.<Object>asList(bytes(type), -2L, -1L);
+                }
+                Object size = "string".equals(type) ? redis.call("STRLEN", keys.get(0)) : -1L;
+                return Arrays.asList(bytes(type), redis.call("PTTL", keys.get(0)), size);
+            }
+        });
+        store.registerScript(BitScripts.SET.getScript(), new ScriptHandler() {
+            @Override
+            public Object eval(ScriptContext redis, List<String> keys, List<byte[]> args) {
+                for (byte[] offset : args) {
+                    redis.call("SETBIT", keys.get(0), string(offset), "1");
+                }
+                return (long) args.size();
+            }
+        });
+        store.registerScript(BitScripts.GET.getScript(), new ScriptHandler() {
+            @Override
+            public Object eval(ScriptContext redis, List<String> keys, List<byte[]> args) {
+                List<Object> bits = new ArrayList<>(args.size());
+                for (byte[] offset : args) {
+                    bits.add(redis.call("GETBIT", keys.get(0), string(offset)));
+                }
+                return bits;
+            }
+        });
+        store.registerScript(VersionScripts.COMPARE_AND_SET.getScript(), new ScriptHandler() {
+            @Override
+            public Object eval(ScriptContext redis, List<String> keys, List<byte[]> args) {
+                Object current = redis.call("HGET", keys.get(0), "v");
+                long version = current == null ? 0 : Long.parseLong(string((byte[]) current));
+                if (version != Long.parseLong(string(args.get(0)))) {
+                    return 0L;
+                }
+                redis.call(command("HMSET", keys.get(0), Arrays.asList(bytes("v"), bytes(Long.toString(version + 1)),
+                        bytes("d"), args.get(1))));
+                if (Long.parseLong(string(args.get(2))) > 0) {
+                    redis.call("EXPIRE", keys.get(0), string(args.get(2)));
+                }
+                return version + 1;
+            }
+        });
+    }
+
+    private static void registerList(RespStore store) {
+        store.registerScript(ListScripts.MIGRATE.getScript(), new ScriptHandler() {
+            @Override
+            public Object eval(ScriptContext redis, List<String> keys, List<byte[]> args) {
+                Object current = redis.call("GET", keys.get(0));
+                if (!(current instanceof byte[]) || !Arrays.equals((byte[]) current, args.get(0))) {
+                    return 0L;
+                }
+                redis.call("DEL", keys.get(0));
+                if (args.size() > 2) {
+                    redis.call(command("RPUSH", keys.get(0), args.subList(2, args.size())));
+                }
+                if (Long.parseLong(string(args.get(1))) > 0) {
+                    redis.call("PEXPIRE", keys.get(0), string(args.get(1)));
+                }
+                return 1L;
+            }
+        });
+        store.registerScript(ListScripts.PUSH.getScript(), new ScriptHandler() {
+            @Override
+            public Object eval(ScriptContext redis, List<String> keys, List<byte[]> args) {
+                Object size = redis.call(command("RPUSH", keys.get(0), args.subList(1, args.size())));
+                if (Long.parseLong(string(args.get(0))) > 0) {
+                    redis.call("EXPIRE", keys.get(0), string(args.get(0)));
+                }
+                return size;
+            }
+        });
+        store.registerScript(SortedScripts.ADD.getScript(), new ScriptHandler() {
+            @Override
+            public Object eval(ScriptContext redis, List<String> keys, List<byte[]> args) {
+                Object added = redis.call(command("ZADD", keys.get(0), args.subList(1, args.size())));
+                if (Long.parseLong(string(args.get(0))) > 0) {
+                    redis.call("EXPIRE", keys.get(0), string(args.get(0)));
+                }
+                return added;
+            }
+        });
+    }
+
+    private static List<byte[]> command(String name, String key, List<byte[]> args) {
+        List<byte[]> command = new ArrayList<>(args.size() + 2);
+        command.add(bytes(name));
+        command.add(bytes(key));
+        command.addAll(args);
+        return command;
+    }
+}
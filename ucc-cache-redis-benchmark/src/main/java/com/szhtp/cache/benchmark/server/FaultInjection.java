@@ -0,0 +1,167 @@
+package com.szhtp.cache.benchmark.server;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 延迟及故障注入配置，运行中可随时修改。
+ * 用于在单机上测试故障转移、熔断、管道等场景。
+ *
+ * @author null
+ */
+public class FaultInjection {
+
+    /**
+     * 每条命令的固定网络延迟，毫秒，不阻塞其它连接
+     */
+    private volatile long latencyMillis;
+
+    /**
+     * 在固定延迟上叠加的随机延迟上限，毫秒
+     */
+    private volatile long latencyJitterMillis;
+
+    /**
+     * 命令执行时占用服务的时间，毫秒，期间所有连接都被阻塞，模拟慢命令
+     */
+    private volatile long blockingMillis;
+
+    /**
+     * 返回错误的概率 0~1
+     */
+    private volatile double errorRate;
+
+    /**
+     * 直接断开连接的概率 0~1
+     */
+    private volatile double dropRate;
+
+    /**
+     * 整个服务暂停到该时间点，模拟 GC 停顿
+     */
+    private volatile long pauseUntil;
+
+    /**
+     * 注入生效的命令，为空表示所有命令
+     */
+    private volatile Set<String> commands = Collections.emptySet();
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public long getLatencyJitterMillis() {
+        return latencyJitterMillis;
+    }
+
+    public void setLatencyJitterMillis(long latencyJitterMillis) {
+        this.latencyJitterMillis = latencyJitterMillis;
+    }
+
+    public long getBlockingMillis() {
+        return blockingMillis;
+    }
+
+    public void setBlockingMillis(long blockingMillis) {
+        this.blockingMillis = blockingMillis;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public double getDropRate() {
+        return dropRate;
+    }
+
+    public void setDropRate(double dropRate) {
+        this.dropRate = dropRate;
+    }
+
+    public Set<String> getCommands() {
+        return commands;
+    }
+
+    /**
+     * 限定注入生效的命令
+     *
+     * @param commands 命令名，不区分大小写，不传表示所有命令
+     */
+    public void setCommands(String... commands) {
+        Set<String> set = new HashSet<>();
+        for (String command : commands) {
+            set.add(command.toUpperCase(Locale.ENGLISH));
+        }
+        this.commands = Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * 暂停整个服务
+     *
+     * @param millis 暂停时长
+     */
+    public void pause(long millis) {
+        pauseUntil = System.currentTimeMillis() + millis;
+    }
+
+    /**
+     * 清除所有注入
+     */
+    public void reset() {
+        latencyMillis = 0;
+        latencyJitterMillis = 0;
+        blockingMillis = 0;
+        errorRate = 0;
+        dropRate = 0;
+        pauseUntil = 0;
+        commands = Collections.emptySet();
+    }
+
+    boolean matches(String command) {
+        Set<String> current = commands;
+        return current.isEmpty() || current.contains(command);
+    }
+
+    /**
+     * 命令执行前的停顿与延迟
+     */
+    void beforeCommand(String command) throws InterruptedException {
+        long wait = pauseUntil - System.currentTimeMillis();
+        if (wait > 0) {
+            Thread.sleep(wait);
+        }
+        if (!matches(command)) {
+            return;
+        }
+        long delay = latencyMillis;
+        if (latencyJitterMillis > 0) {
+            delay += ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1);
+        }
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+    boolean shouldFail(String command) {
+        return errorRate > 0 && matches(command) && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    boolean shouldDrop(String command) {
+        return dropRate > 0 && matches(command) && ThreadLocalRandom.current().nextDouble() < dropRate;
+    }
+
+    long blockingMillis(String command) {
+        return blockingMillis > 0 && matches(command) ? blockingMillis : 0;
+    }
+}
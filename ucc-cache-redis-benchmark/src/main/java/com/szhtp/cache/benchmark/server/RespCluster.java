@@ -0,0 +1,197 @@
+package com.szhtp.cache.benchmark.server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.szhtp.cache.benchmark.server.RespProtocol.bytes;
+
+/**
+ * 模拟 redis 集群：若干 master 平分 16384 个 slot，每个 master 可带只读副本。
+ * 副本与 master 共用存储，相当于复制零延迟；不属于本节点的 key 返回 MOVED。
+ *
+ * @author null
+ */
+public class RespCluster {
+
+    static final int SLOTS = 16384;
+
+    private final List<RespServer> masters = new ArrayList<>();
+
+    private final List<RespServer> replicas = new ArrayList<>();
+
+    /**
+     * slot -> master 下标
+     */
+    private final int[] slotOwner = new int[SLOTS];
+
+    /**
+     * @param masterCount       master 数量
+     * @param replicasPerMaster 每个 master 的副本数量
+     */
+    public RespCluster(int masterCount, int replicasPerMaster) {
+        if (masterCount < 1) {
+            throw new IllegalArgumentException("masterCount must be positive");
+        }
+        for (int i = 0; i < masterCount; i++) {
+            RespServer master = new RespServer();
+            master.joinCluster(this, null);
+            masters.add(master);
+            for (int j = 0; j < replicasPerMaster; j++) {
+                RespServer replica = new RespServer(0, master.getStore());
+                replica.joinCluster(this, master);
+                replicas.add(replica);
+            }
+        }
+        for (int slot = 0; slot < SLOTS; slot++) {
+            slotOwner[slot] = (int) ((long) slot * masterCount / SLOTS);
+        }
+    }
+
+    public synchronized void start() throws IOException {
+        for (RespServer node : getNodes()) {
+            node.start();
+        }
+    }
+
+    public synchronized void stop() {
+        for (RespServer node : getNodes()) {
+            node.stop();
+        }
+    }
+
+    public List<RespServer> getMasters() {
+        return Collections.unmodifiableList(masters);
+    }
+
+    public List<RespServer> getReplicas() {
+        return Collections.unmodifiableList(replicas);
+    }
+
+    /**
+     * 所有节点，master 在前
+     */
+    public List<RespServer> getNodes() {
+        List<RespServer> nodes = new ArrayList<>(masters);
+        nodes.addAll(replicas);
+        return nodes;
+    }
+
+    /**
+     * 逗号分隔的 master 地址，可直接设置到 JedisHelper.servers
+     */
+    public String getServers() {
+        StringBuilder sb = new StringBuilder();
+        for (RespServer master : masters) {
+            sb.append(sb.length() == 0 ? "" : ",").append(master.getHost());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 逗号分隔的 master 端口，与 {@link #getServers()} 一一对应
+     */
+    public String getPorts() {
+        StringBuilder sb = new StringBuilder();
+        for (RespServer master : masters) {
+            sb.append(sb.length() == 0 ? "" : ",").append(master.getPort());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 在所有节点注册 EVAL 脚本实现
+     */
+    public void registerScript(String script, ScriptHandler handler) {
+        for (RespServer master : masters) {
+            master.getStore().registerScript(script, handler);
+        }
+    }
+
+    public void flushAll() {
+        for (RespServer master : masters) {
+            master.flushAll();
+        }
+    }
+
+    RespServer masterForSlot(int slot) {
+        return masters.get(slotOwner[slot]);
+    }
+
+    /**
+     * 集群内广播，与 redis 集群的 PUBLISH 语义一致
+     */
+    long publish(String channel, byte[] message) {
+        long receivers = 0;
+        for (RespServer node : getNodes()) {
+            receivers += node.publish(channel, message);
+        }
+        return receivers;
+    }
+
+    /**
+     * CLUSTER SLOTS 回复
+     */
+    List<Object> slotsReply() {
+        List<Object> reply = new ArrayList<>();
+        int start = 0;
+        for (int slot = 1; slot <= SLOTS; slot++) {
+            if (slot < SLOTS && slotOwner[slot] == slotOwner[start]) {
+                continue;
+            }
+            RespServer master = masters.get(slotOwner[start]);
+            List<Object> range = new ArrayList<>();
+            range.add((long) start);
+            range.add((long) slot - 1);
+            range.add(node(master));
+            for (RespServer replica : replicas) {
+                if (replica.getReplicaOf() == master) {
+                    range.add(node(replica));
+                }
+            }
+            reply.add(range);
+            start = slot;
+        }
+        return reply;
+    }
+
+    /**
+     * CLUSTER NODES 回复
+     */
+    String nodesReply(RespServer self) {
+        StringBuilder sb = new StringBuilder();
+        for (RespServer node : getNodes()) {
+            RespServer master = node.getReplicaOf();
+            sb.append(node.getNodeId()).append(' ')
+                    .append(node.getHost()).append(':').append(node.getPort())
+                    .append('@').append(node.getPort() + 10000).append(' ')
+                    .append(node == self ? "myself," : "").append(master == null ? "master" : "slave").append(' ')
+                    .append(master == null ? "-" : master.getNodeId())
+                    .append(" 0 0 0 ").append(node.isRunning() ? "connected" : "disconnected");
+            if (master == null) {
+                int index = masters.indexOf(node);
+                int first = -1;
+                for (int slot = 0; slot <= SLOTS; slot++) {
+                    boolean owned = slot < SLOTS && slotOwner[slot] == index;
+                    if (owned && first < 0) {
+                        first = slot;
+                    } else if (!owned && first >= 0) {
+                        sb.append(' ').append(first).append('-').append(slot - 1);
+                        first = -1;
+                    }
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static List<Object> node(RespServer server) {
+        List<Object> node = new ArrayList<>(3);
+        node.add(bytes(server.getHost()));
+        node.add((long) server.getPort());
+        node.add(bytes(server.getNodeId()));
+        return node;
+    }
+}
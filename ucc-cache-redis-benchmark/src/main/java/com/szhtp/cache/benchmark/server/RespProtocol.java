@@ -0,0 +1,176 @@
+package com.szhtp.cache.benchmark.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RESP 协议编解码
+ *
+ * @author null
+ */
+final class RespProtocol {
+
+    /**
+     * key 按字节原样保存，ISO-8859-1 保证 byte[] 与 String 之间可逆
+     */
+    static final Charset RAW = Charset.forName("ISO-8859-1");
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private RespProtocol() {
+    }
+
+    static byte[] bytes(String s) {
+        return s.getBytes(RAW);
+    }
+
+    static String string(byte[] b) {
+        return new String(b, RAW);
+    }
+
+    /**
+     * 读取一条命令
+     *
+     * @return 参数列表，连接关闭时返回 null
+     */
+    static List<byte[]> readCommand(InputStream in) throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            return null;
+        }
+        if (b != '*') {
+            // inline 命令，按空格分隔
+            String line = (char) b + readLine(in);
+            List<byte[]> args = new ArrayList<>();
+            for (String part : line.trim().split("\\s+")) {
+                if (!part.isEmpty()) {
+                    args.add(bytes(part));
+                }
+            }
+            return args;
+        }
+        int count = Integer.parseInt(readLine(in));
+        List<byte[]> args = new ArrayList<>(Math.max(count, 0));
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("protocol error: expected bulk string");
+            }
+            int len = Integer.parseInt(readLine(in));
+            byte[] data = new byte[len];
+            int off = 0;
+            while (off < len) {
+                int n = in.read(data, off, len - off);
+                if (n == -1) {
+                    throw new IOException("unexpected end of stream");
+                }
+                off += n;
+            }
+            // \r\n
+            in.read();
+            in.read();
+            args.add(data);
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\r') {
+                in.read();
+                break;
+            }
+            sb.append((char) b);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 状态回复
+     */
+    static final class Status {
+
+        static final Status OK = new Status("OK");
+
+        final String text;
+
+        Status(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * 错误回复
+     */
+    static final class Error {
+
+        final String text;
+
+        Error(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * 回复写出到内存缓冲，由连接统一刷到 socket
+     */
+    static final class Writer {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+
+        /**
+         * 写出回复：byte[] 为 bulk，Number 为整数，List 为数组，null 为 nil，
+         * Status/Error 为状态和错误回复，其它对象按 toString 作为 bulk
+         */
+        void reply(Object reply) {
+            if (reply == null) {
+                write("$-1\r\n");
+            } else if (reply instanceof Status) {
+                line('+', ((Status) reply).text);
+            } else if (reply instanceof Error) {
+                line('-', ((Error) reply).text);
+            } else if (reply instanceof byte[]) {
+                byte[] data = (byte[]) reply;
+                line('$', Integer.toString(data.length));
+                buffer.write(data, 0, data.length);
+                buffer.write(CRLF, 0, 2);
+            } else if (reply instanceof Number) {
+                line(':', Long.toString(((Number) reply).longValue()));
+            } else if (reply instanceof List) {
+                List<?> items = (List<?>) reply;
+                line('*', Integer.toString(items.size()));
+                for (Object item : items) {
+                    reply(item);
+                }
+            } else {
+                reply(bytes(reply.toString()));
+            }
+        }
+
+        boolean isEmpty() {
+            return buffer.size() == 0;
+        }
+
+        byte[] drain() {
+            byte[] data = buffer.toByteArray();
+            buffer.reset();
+            return data;
+        }
+
+        private void line(char type, String text) {
+            buffer.write(type);
+            write(text);
+            buffer.write(CRLF, 0, 2);
+        }
+
+        private void write(String s) {
+            byte[] b = bytes(s);
+            buffer.write(b, 0, b.length);
+        }
+    }
+}
@@ -0,0 +1,650 @@
+package com.szhtp.cache.benchmark.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.util.JedisClusterCRC16;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.szhtp.cache.benchmark.server.RespProtocol.bytes;
+import static com.szhtp.cache.benchmark.server.RespProtocol.string;
+
+/**
+ * 进程内 RESP 协议服务，只监听 loopback 地址，用于在没有真实 redis 的情况下做压测和延迟测试。
+ * 支持 JedisService 与 RedisSessionManager 用到的命令、发布订阅、哨兵查询、
+ * 集群模拟（见 {@link RespCluster}）以及延迟和故障注入（见 {@link FaultInjection}）。
+ *
+ * @author null
+ */
+public class RespServer {
+
+    private static final Logger log = LoggerFactory.getLogger(RespServer.class);
+
+    /**
+     * 集群模式下只读副本可以直接处理的命令
+     */
+    private static final Set<String> READ_COMMANDS = new HashSet<>(Arrays.asList(
+            "GET", "MGET", "GETBIT", "GETRANGE", "STRLEN", "EXISTS", "TTL", "PTTL", "TYPE", "HGET", "HMGET", "HGETALL", "HLEN", "HEXISTS",
+            "LRANGE", "LLEN", "ZRANGE", "ZREVRANGE", "ZRANGEBYSCORE", "ZCARD", "ZSCORE"));
+
+    private final String host = "127.0.0.1";
+
+    private int port;
+
+    private final RespStore store;
+
+    private final FaultInjection faults = new FaultInjection();
+
+    /**
+     * 非空时同时充当该 master 的哨兵，get-master-addr-by-name 返回本服务地址
+     */
+    private String sentinelMasterName;
+
+    /**
+     * 作为哨兵时上报的副本
+     */
+    private final List<RespServer> sentinelReplicas = new CopyOnWriteArrayList<>();
+
+    /**
+     * 所属集群，单机时为空
+     */
+    private RespCluster cluster;
+
+    /**
+     * 集群中的副本所对应的 master，master 本身为空
+     */
+    private RespServer replicaOf;
+
+    private final String nodeId;
+
+    private ServerSocket serverSocket;
+
+    private ExecutorService workers;
+
+    private Future<?> acceptor;
+
+    private volatile boolean running;
+
+    private final Set<Connection> connections = Collections.newSetFromMap(new ConcurrentHashMap<Connection, Boolean>());
+
+    private final Map<String, Set<Connection>> channels = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<Connection>> patterns = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger NODE_SEQ = new AtomicInteger();
+
+    public RespServer() {
+        this(0);
+    }
+
+    /**
+     * @param port 监听端口，0 表示随机端口
+     */
+    public RespServer(int port) {
+        this(port, new RespStore());
+    }
+
+    /**
+     * @param port  监听端口，0 表示随机端口
+     * @param store 数据存储，可与其它服务共用
+     */
+    public RespServer(int port, RespStore store) {
+        this.port = port;
+        this.store = store;
+        this.nodeId = String.format("%040x", NODE_SEQ.incrementAndGet());
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public RespStore getStore() {
+        return store;
+    }
+
+    /**
+     * 延迟及故障注入配置
+     */
+    public FaultInjection getFaults() {
+        return faults;
+    }
+
+    public String getSentinelMasterName() {
+        return sentinelMasterName;
+    }
+
+    public void setSentinelMasterName(String sentinelMasterName) {
+        this.sentinelMasterName = sentinelMasterName;
+    }
+
+    /**
+     * 作为哨兵时登记一个副本，SENTINEL slaves 会返回它；副本停止后标记为 s_down
+     */
+    public void addSentinelReplica(RespServer replica) {
+        sentinelReplicas.add(replica);
+    }
+
+    public void removeSentinelReplica(RespServer replica) {
+        sentinelReplicas.remove(replica);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+
+    RespServer getReplicaOf() {
+        return replicaOf;
+    }
+
+    void joinCluster(RespCluster cluster, RespServer replicaOf) {
+        this.cluster = cluster;
+        this.replicaOf = replicaOf;
+    }
+
+    /**
+     * 启动服务，停止后可再次启动并沿用原端口和数据，用于模拟节点宕机与恢复
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(InetAddress.getByName(host), port));
+        port = serverSocket.getLocalPort();
+        workers = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "resp-server-" + port + "-" + index.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        running = true;
+        acceptor = workers.submit(new Runnable() {
+            @Override
+            public void run() {
+                acceptLoop();
+            }
+        });
+        log.info("[RespServer] started -> " + host + " : " + port);
+    }
+
+    /**
+     * 停止服务并断开所有客户端，数据保留
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        closeQuietly(serverSocket);
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        connections.clear();
+        channels.clear();
+        patterns.clear();
+        workers.shutdownNow();
+        // 阻塞在 accept 的线程退出后端口才真正释放，等待后才能以原端口重启
+        try {
+            acceptor.get(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | CancellationException e) {
+            // ignore
+        }
+        log.info("[RespServer] stopped -> " + host + " : " + port);
+    }
+
+    /**
+     * 清空所有数据
+     */
+    public void flushAll() {
+        store.flushAll();
+    }
+
+    /**
+     * 指定库中的 key 数量
+     */
+    public int dbSize(int index) {
+        return store.dbSize(index);
+    }
+
+    /**
+     * 当前客户端连接数
+     */
+    public int connectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * 向订阅者推送消息
+     *
+     * @return 收到消息的订阅者数量
+     */
+    public long publish(String channel, byte[] message) {
+        long receivers = 0;
+        Set<Connection> subscribers = channels.get(channel);
+        if (subscribers != null) {
+            List<Object> push = Arrays.<Object>asList(bytes("message"), bytes(channel), message);
+            for (Connection subscriber : subscribers) {
+                subscriber.push(push);
+                receivers++;
+            }
+        }
+        for (Map.Entry<String, Set<Connection>> e : patterns.entrySet()) {
+            if (!RespStore.GlobMatcher.matches(e.getKey(), channel)) {
+                continue;
+            }
+            List<Object> push = Arrays.<Object>asList(bytes("pmessage"), bytes(e.getKey()), bytes(channel), message);
+            for (Connection subscriber : e.getValue()) {
+                subscriber.push(push);
+                receivers++;
+            }
+        }
+        return receivers;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                final Connection connection = new Connection(socket);
+                connections.add(connection);
+                workers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        connection.serve();
+                    }
+                });
+            } catch (IOException e) {
+                if (running) {
+                    log.error("[RespServer] accept error : " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 集群模式下检查 key 是否由本节点负责
+     *
+     * @return null 表示可以处理，否则为 MOVED/CROSSSLOT 错误
+     */
+    private RespProtocol.Error redirect(String name, List<byte[]> args, boolean readonly) {
+        List<byte[]> keys = keysOf(name, args);
+        if (keys.isEmpty()) {
+            return null;
+        }
+        int slot = JedisClusterCRC16.getSlot(keys.get(0));
+        for (int i = 1; i < keys.size(); i++) {
+            if (JedisClusterCRC16.getSlot(keys.get(i)) != slot) {
+                return new RespProtocol.Error("CROSSSLOT Keys in request don't hash to the same slot");
+            }
+        }
+        RespServer master = cluster.masterForSlot(slot);
+        if (master == this || (master == replicaOf && readonly && READ_COMMANDS.contains(name))) {
+            return null;
+        }
+        return new RespProtocol.Error("MOVED " + slot + " " + master.getHost() + ":" + master.getPort());
+    }
+
+    private static List<byte[]> keysOf(String name, List<byte[]> args) {
+        switch (name) {
+            case "MGET":
+            case "DEL":
+            case "UNLINK":
+            case "EXISTS":
+                return args.subList(1, args.size());
+            case "MSET": {
+                List<byte[]> keys = new ArrayList<>();
+                for (int i = 1; i < args.size(); i += 2) {
+                    keys.add(args.get(i));
+                }
+                return keys;
+            }
+            case "EVAL":
+            case "EVALSHA": {
+                int numKeys = args.size() > 2 ? Integer.parseInt(string(args.get(2))) : 0;
+                return args.subList(3, Math.min(args.size(), 3 + numKeys));
+            }
+            case "KEYS":
+            case "SCAN":
+            case "DBSIZE":
+            case "FLUSHDB":
+            case "FLUSHALL":
+            case "SCRIPT":
+                return Collections.emptyList();
+            default:
+                return args.size() > 1 ? args.subList(1, 2) : Collections.<byte[]>emptyList();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * 客户端连接，回复先写入缓冲，再整体写到 socket，与发布线程的推送互不交错
+     */
+    private final class Connection {
+
+        private final Socket socket;
+
+        private volatile OutputStream out;
+
+        private final RespProtocol.Writer writer = new RespProtocol.Writer();
+
+        private int db;
+
+        private boolean readonly;
+
+        private final Set<String> subscribedChannels = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        private final Set<String> subscribedPatterns = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        void serve() {
+            try {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                out = new BufferedOutputStream(socket.getOutputStream());
+                List<byte[]> command;
+                while (running && (command = RespProtocol.readCommand(in)) != null) {
+                    if (command.isEmpty()) {
+                        continue;
+                    }
+                    boolean keep = handle(command);
+                    // 管道中还有未读命令时合并写出
+                    send(!keep || in.available() == 0);
+                    if (!keep) {
+                        break;
+                    }
+                }
+            } catch (SocketException e) {
+                // 客户端断开
+            } catch (IOException e) {
+                if (running) {
+                    log.error("[RespServer] connection error : " + e);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * @return false 表示需要关闭连接
+         */
+        private boolean handle(List<byte[]> args) throws InterruptedException {
+            String name = string(args.get(0)).toUpperCase(Locale.ENGLISH);
+            if (faults.shouldDrop(name)) {
+                return false;
+            }
+            faults.beforeCommand(name);
+            if (faults.shouldFail(name)) {
+                writer.reply(new RespProtocol.Error("ERR injected failure"));
+                return true;
+            }
+            switch (name) {
+                case "PING":
+                    writer.reply(args.size() > 1 ? args.get(1) : new RespProtocol.Status("PONG"));
+                    return true;
+                case "ECHO":
+                    writer.reply(args.get(1));
+                    return true;
+                case "AUTH":
+                case "CLIENT":
+                    writer.reply(RespProtocol.Status.OK);
+                    return true;
+                case "READONLY":
+                case "READWRITE":
+                    readonly = "READONLY".equals(name);
+                    writer.reply(RespProtocol.Status.OK);
+                    return true;
+                case "QUIT":
+                    writer.reply(RespProtocol.Status.OK);
+                    return false;
+                case "SELECT": {
+                    int index = Integer.parseInt(string(args.get(1)));
+                    if (index < 0 || index >= RespStore.DATABASES) {
+                        writer.reply(new RespProtocol.Error("ERR DB index is out of range"));
+                    } else {
+                        db = index;
+                        writer.reply(RespProtocol.Status.OK);
+                    }
+                    return true;
+                }
+                case "INFO":
+                    writer.reply(bytes("# Server\r\nredis_version:3.2.0\r\nredis_mode:"
+                            + (cluster == null ? "standalone" : "cluster") + "\r\n"
+                            + "# Replication\r\nrole:" + (replicaOf == null ? "master" : "slave") + "\r\n"));
+                    return true;
+                case "SENTINEL":
+                    sentinel(args);
+                    return true;
+                case "CLUSTER":
+                    clusterCommand(args);
+                    return true;
+                case "SUBSCRIBE":
+                case "PSUBSCRIBE":
+                    subscribe("PSUBSCRIBE".equals(name), args);
+                    return true;
+                case "UNSUBSCRIBE":
+                case "PUNSUBSCRIBE":
+                    unsubscribe("PUNSUBSCRIBE".equals(name), args);
+                    return true;
+                case "PUBLISH":
+                    writer.reply(cluster == null ? publish(string(args.get(1)), args.get(2))
+                            : cluster.publish(string(args.get(1)), args.get(2)));
+                    return true;
+                default:
+                    break;
+            }
+            if (cluster != null) {
+                RespProtocol.Error moved = redirect(name, args, readonly);
+                if (moved != null) {
+                    writer.reply(moved);
+                    return true;
+                }
+            }
+            writer.reply(store.execute(db, args, faults.blockingMillis(name)));
+            return true;
+        }
+
+        private void sentinel(List<byte[]> args) {
+            String sub = string(args.get(1)).toLowerCase(Locale.ENGLISH);
+            boolean known = args.size() > 2 && sentinelMasterName != null && sentinelMasterName.equals(string(args.get(2)));
+            if ("get-master-addr-by-name".equals(sub)) {
+                writer.reply(known ? Arrays.<Object>asList(bytes(host), bytes(Integer.toString(port))) : null);
+            } else if ("slaves".equals(sub) || "replicas".equals(sub)) {
+                if (!known) {
+                    writer.reply(new RespProtocol.Error("ERR No such master with that name"));
+                    return;
+                }
+                List<Object> slaves = new ArrayList<>();
+                for (RespServer replica : sentinelReplicas) {
+                    String address = replica.getHost() + ":" + replica.getPort();
+                    slaves.add(Arrays.<Object>asList(
+                            bytes("name"), bytes(address),
+                            bytes("ip"), bytes(replica.getHost()),
+                            bytes("port"), bytes(Integer.toString(replica.getPort())),
+                            bytes("flags"), bytes(replica.isRunning() ? "slave" : "s_down,slave,disconnected"),
+                            bytes("master-link-status"), bytes(replica.isRunning() ? "ok" : "err"),
+                            bytes("master-host"), bytes(host),
+                            bytes("master-port"), bytes(Integer.toString(port))));
+                }
+                writer.reply(slaves);
+            } else {
+                writer.reply(new RespProtocol.Error("ERR Unknown sentinel subcommand '" + sub + "'"));
+            }
+        }
+
+        private void clusterCommand(List<byte[]> args) {
+            if (cluster == null) {
+                writer.reply(new RespProtocol.Error("ERR This instance has cluster support disabled"));
+                return;
+            }
+            String sub = string(args.get(1)).toUpperCase(Locale.ENGLISH);
+            switch (sub) {
+                case "SLOTS":
+                    writer.reply(cluster.slotsReply());
+                    break;
+                case "NODES":
+                    writer.reply(bytes(cluster.nodesReply(RespServer.this)));
+                    break;
+                case "INFO":
+                    writer.reply(bytes("cluster_state:ok\r\ncluster_slots_assigned:16384\r\ncluster_known_nodes:"
+                            + cluster.getNodes().size() + "\r\n"));
+                    break;
+                case "KEYSLOT":
+                    writer.reply((long) JedisClusterCRC16.getSlot(args.get(2)));
+                    break;
+                default:
+                    writer.reply(new RespProtocol.Error("ERR Unknown CLUSTER subcommand '" + sub + "'"));
+                    break;
+            }
+        }
+
+        private void subscribe(boolean pattern, List<byte[]> args) {
+            Map<String, Set<Connection>> registry = pattern ? patterns : channels;
+            Set<String> own = pattern ? subscribedPatterns : subscribedChannels;
+            for (int i = 1; i < args.size(); i++) {
+                String channel = string(args.get(i));
+                Set<Connection> subscribers = registry.get(channel);
+                if (subscribers == null) {
+                    synchronized (registry) {
+                        subscribers = registry.get(channel);
+                        if (subscribers == null) {
+                            subscribers = Collections.newSetFromMap(new ConcurrentHashMap<Connection, Boolean>());
+                            registry.put(channel, subscribers);
+                        }
+                    }
+                }
+                subscribers.add(this);
+                own.add(channel);
+                writer.reply(Arrays.<Object>asList(bytes(pattern ? "psubscribe" : "subscribe"), args.get(i),
+                        (long) (subscribedChannels.size() + subscribedPatterns.size())));
+            }
+        }
+
+        private void unsubscribe(boolean pattern, List<byte[]> args) {
+            Map<String, Set<Connection>> registry = pattern ? patterns : channels;
+            Set<String> own = pattern ? subscribedPatterns : subscribedChannels;
+            List<String> targets = new ArrayList<>();
+            for (int i = 1; i < args.size(); i++) {
+                targets.add(string(args.get(i)));
+            }
+            if (targets.isEmpty()) {
+                targets.addAll(own);
+            }
+            String type = pattern ? "punsubscribe" : "unsubscribe";
+            if (targets.isEmpty()) {
+                writer.reply(Arrays.<Object>asList(bytes(type), null, 0L));
+                return;
+            }
+            for (String channel : targets) {
+                Set<Connection> subscribers = registry.get(channel);
+                if (subscribers != null) {
+                    subscribers.remove(this);
+                }
+                own.remove(channel);
+                writer.reply(Arrays.<Object>asList(bytes(type), bytes(channel),
+                        (long) (subscribedChannels.size() + subscribedPatterns.size())));
+            }
+        }
+
+        private void send(boolean flush) throws IOException {
+            if (writer.isEmpty() && !flush) {
+                return;
+            }
+            byte[] data = writer.drain();
+            synchronized (this) {
+                out.write(data);
+                if (flush) {
+                    out.flush();
+                }
+            }
+        }
+
+        void push(List<Object> message) {
+            RespProtocol.Writer pushWriter = new RespProtocol.Writer();
+            pushWriter.reply(message);
+            byte[] data = pushWriter.drain();
+            synchronized (this) {
+                try {
+                    out.write(data);
+                    out.flush();
+                } catch (IOException e) {
+                    close();
+                }
+            }
+        }
+
+        void close() {
+            connections.remove(this);
+            for (String channel : subscribedChannels) {
+                Set<Connection> subscribers = channels.get(channel);
+                if (subscribers != null) {
+                    subscribers.remove(this);
+                }
+            }
+            for (String pattern : subscribedPatterns) {
+                Set<Connection> subscribers = patterns.get(pattern);
+                if (subscribers != null) {
+                    subscribers.remove(this);
+                }
+            }
+            closeQuietly(socket);
+        }
+    }
+}
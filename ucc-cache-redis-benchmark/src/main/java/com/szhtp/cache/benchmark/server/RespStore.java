@@ -0,0 +1,1008 @@
+package com.szhtp.cache.benchmark.server;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.szhtp.cache.benchmark.server.RespProtocol.bytes;
+import static com.szhtp.cache.benchmark.server.RespProtocol.string;
+
+/**
+ * 内嵌服务的数据存储，命令在一把锁内串行执行，和 redis 单线程模型保持一致。
+ * 集群模拟中 master 与其 replica 共用同一个存储。
+ *
+ * @author null
+ */
+public class RespStore {
+
+    static final int DATABASES = 16;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final Database[] databases = new Database[DATABASES];
+
+    /**
+     * sha1 -> 脚本实现
+     */
+    private final Map<String, ScriptHandler> scripts = new ConcurrentHashMap<>();
+
+    public RespStore() {
+        for (int i = 0; i < DATABASES; i++) {
+            databases[i] = new Database();
+        }
+        ClientScripts.register(this);
+    }
+
+    /**
+     * 注册 EVAL 脚本的实现
+     *
+     * @param script  脚本原文，与客户端发送的内容一致
+     * @param handler 实现
+     * @return 脚本 sha1，可用于 EVALSHA
+     */
+    public String registerScript(String script, ScriptHandler handler) {
+        String sha = sha1(script.getBytes(UTF8));
+        scripts.put(sha, handler);
+        return sha;
+    }
+
+    /**
+     * 清空所有数据
+     */
+    public synchronized void flushAll() {
+        for (Database db : databases) {
+            db.clear();
+        }
+    }
+
+    /**
+     * 指定库中未过期的 key 数量
+     */
+    public synchronized int dbSize(int index) {
+        return databases[index].size(System.currentTimeMillis());
+    }
+
+    /**
+     * 执行数据类命令
+     *
+     * @param db           库序号
+     * @param args         命令及参数
+     * @param stallMillis  持锁停顿时间，模拟慢命令
+     * @return 回复内容，出错时为 {@link RespProtocol.Error}
+     */
+    synchronized Object execute(int db, List<byte[]> args, long stallMillis) {
+        if (stallMillis > 0) {
+            try {
+                Thread.sleep(stallMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        String name = string(args.get(0)).toUpperCase(Locale.ENGLISH);
+        try {
+            return run(databases[db], name, args);
+        } catch (CommandException e) {
+            return new RespProtocol.Error(e.getMessage());
+        } catch (NumberFormatException e) {
+            return new RespProtocol.Error("ERR value is not an integer or out of range");
+        } catch (IndexOutOfBoundsException e) {
+            return new RespProtocol.Error("ERR wrong number of arguments for '"
+                    + name.toLowerCase(Locale.ENGLISH) + "' command");
+        }
+    }
+
+    private Object run(final Database db, String name, List<byte[]> args) {
+        long now = System.currentTimeMillis();
+        switch (name) {
+            case "GET":
+                return db.string(key(args, 1), now);
+            case "MGET": {
+                List<Object> values = new ArrayList<>(args.size() - 1);
+                for (int i = 1; i < args.size(); i++) {
+                    Entry e = db.get(key(args, i), now);
+                    values.add(e != null && e.value instanceof byte[] ? e.value : null);
+                }
+                return values;
+            }
+            case "STRLEN": {
+                byte[] value = db.string(key(args, 1), now);
+                return value == null ? 0L : (long) value.length;
+            }
+            case "GETRANGE": {
+                byte[] value = db.string(key(args, 1), now);
+                int size = value == null ? 0 : value.length;
+                long start = Long.parseLong(str(args, 2));
+                long end = Long.parseLong(str(args, 3));
+                // 与 redis 一致，结束下标倒数超过开头时按 0 处理
+                int[] range = range(size, start, end < 0 ? Math.max(0, size + end) : end);
+                return range[0] > range[1] ? new byte[0] : Arrays.copyOfRange(value, range[0], range[1] + 1);
+            }
+            case "SET": {
+                String key = key(args, 1);
+                long expireAt = 0;
+                boolean nx = false;
+                boolean xx = false;
+                for (int i = 3; i < args.size(); i++) {
+                    String opt = str(args, i).toUpperCase(Locale.ENGLISH);
+                    if ("EX".equals(opt)) {
+                        expireAt = now + positive(str(args, ++i), "set") * 1000L;
+                    } else if ("PX".equals(opt)) {
+                        expireAt = now + positive(str(args, ++i), "set");
+                    } else if ("NX".equals(opt)) {
+                        nx = true;
+                    } else if ("XX".equals(opt)) {
+                        xx = true;
+                    } else {
+                        throw new CommandException("ERR syntax error");
+                    }
+                }
+                boolean exists = db.get(key, now) != null;
+                if ((nx && exists) || (xx && !exists)) {
+                    return null;
+                }
+                db.put(key, args.get(2), expireAt);
+                return RespProtocol.Status.OK;
+            }
+            case "SETEX":
+                db.put(key(args, 1), args.get(3), now + positive(str(args, 2), "setex") * 1000L);
+                return RespProtocol.Status.OK;
+            case "PSETEX":
+                db.put(key(args, 1), args.get(3), now + positive(str(args, 2), "psetex"));
+                return RespProtocol.Status.OK;
+            case "MSET":
+                for (int i = 1; i + 1 < args.size(); i += 2) {
+                    db.put(key(args, i), args.get(i + 1), 0);
+                }
+                return RespProtocol.Status.OK;
+            case "SETNX": {
+                String key = key(args, 1);
+                if (db.get(key, now) != null) {
+                    return 0L;
+                }
+                db.put(key, args.get(2), 0);
+                return 1L;
+            }
+            case "GETSET": {
+                String key = key(args, 1);
+                byte[] old = db.string(key, now);
+                db.put(key, args.get(2), 0);
+                return old;
+            }
+            case "APPEND": {
+                String key = key(args, 1);
+                byte[] old = db.string(key, now);
+                byte[] tail = args.get(2);
+                if (old == null) {
+                    db.put(key, tail, 0);
+                    return (long) tail.length;
+                }
+                byte[] value = Arrays.copyOf(old, old.length + tail.length);
+                System.arraycopy(tail, 0, value, old.length, tail.length);
+                db.get(key, now).value = value;
+                return (long) value.length;
+            }
+            case "SETBIT": {
+                String key = key(args, 1);
+                long offset = Long.parseLong(str(args, 2));
+                String bit = str(args, 3);
+                if (offset < 0 || offset >= 1L << 32 || !("0".equals(bit) || "1".equals(bit))) {
+                    throw new CommandException("ERR bit offset is not an integer or out of range");
+                }
+                byte[] old = db.string(key, now);
+                int index = (int) (offset >>> 3);
+                byte[] value = old == null ? new byte[index + 1] : old.length > index ? old : Arrays.copyOf(old, index + 1);
+                int mask = 0x80 >>> (int) (offset & 7);
+                long previous = (value[index] & mask) != 0 ? 1 : 0;
+                if ("1".equals(bit)) {
+                    value[index] |= mask;
+                } else {
+                    value[index] &= ~mask;
+                }
+                if (old == null) {
+                    db.put(key, value, 0);
+                } else {
+                    db.get(key, now).value = value;
+                }
+                return previous;
+            }
+            case "GETBIT": {
+                byte[] value = db.string(key(args, 1), now);
+                long offset = Long.parseLong(str(args, 2));
+                int index = (int) (offset >>> 3);
+                if (value == null || offset < 0 || index >= value.length) {
+                    return 0L;
+                }
+                return (value[index] & (0x80 >>> (int) (offset & 7))) != 0 ? 1L : 0L;
+            }
+            case "HSET":
+            case "HMSET": {
+                String key = key(args, 1);
+                if (args.size() < 4 || args.size() % 2 != 0) {
+                    throw new IndexOutOfBoundsException();
+                }
+                Map<String, byte[]> hash = db.hash(key, now, true);
+                long added = 0;
+                for (int i = 2; i + 1 < args.size(); i += 2) {
+                    if (hash.put(str(args, i), args.get(i + 1)) == null) {
+                        added++;
+                    }
+                }
+                return "HMSET".equals(name) ? RespProtocol.Status.OK : (Object) added;
+            }
+            case "HGET": {
+                Map<String, byte[]> hash = db.hash(key(args, 1), now, false);
+                return hash == null ? null : hash.get(str(args, 2));
+            }
+            case "HMGET": {
+                Map<String, byte[]> hash = db.hash(key(args, 1), now, false);
+                List<Object> values = new ArrayList<>(args.size() - 2);
+                for (int i = 2; i < args.size(); i++) {
+                    values.add(hash == null ? null : hash.get(str(args, i)));
+                }
+                return values;
+            }
+            case "HGETALL": {
+                Map<String, byte[]> hash = db.hash(key(args, 1), now, false);
+                List<Object> values = new ArrayList<>();
+                if (hash != null) {
+                    for (Map.Entry<String, byte[]> e : hash.entrySet()) {
+                        values.add(bytes(e.getKey()));
+                        values.add(e.getValue());
+                    }
+                }
+                return values;
+            }
+            case "HDEL": {
+                String key = key(args, 1);
+                Map<String, byte[]> hash = db.hash(key, now, false);
+                long removed = 0;
+                for (int i = 2; hash != null && i < args.size(); i++) {
+                    if (hash.remove(str(args, i)) != null) {
+                        removed++;
+                    }
+                }
+                if (hash != null && hash.isEmpty()) {
+                    db.remove(key);
+                }
+                return removed;
+            }
+            case "HLEN": {
+                Map<String, byte[]> hash = db.hash(key(args, 1), now, false);
+                return hash == null ? 0L : (long) hash.size();
+            }
+            case "HEXISTS": {
+                Map<String, byte[]> hash = db.hash(key(args, 1), now, false);
+                return hash != null && hash.containsKey(str(args, 2)) ? 1L : 0L;
+            }
+            case "HINCRBY": {
+                Map<String, byte[]> hash = db.hash(key(args, 1), now, true);
+                byte[] old = hash.get(str(args, 2));
+                long value = (old == null ? 0 : Long.parseLong(string(old))) + Long.parseLong(str(args, 3));
+                hash.put(str(args, 2), bytes(Long.toString(value)));
+                return value;
+            }
+            case "RPUSH":
+            case "LPUSH": {
+                List<byte[]> list = db.list(key(args, 1), now, true);
+                for (int i = 2; i < args.size(); i++) {
+                    if ("RPUSH".equals(name)) {
+                        list.add(args.get(i));
+                    } else {
+                        list.add(0, args.get(i));
+                    }
+                }
+                return (long) list.size();
+            }
+            case "LRANGE": {
+                List<byte[]> list = db.list(key(args, 1), now, false);
+                List<Object> values = new ArrayList<>();
+                if (list != null) {
+                    int[] range = range(list.size(), Long.parseLong(str(args, 2)), Long.parseLong(str(args, 3)));
+                    for (int i = range[0]; i <= range[1]; i++) {
+                        values.add(list.get(i));
+                    }
+                }
+                return values;
+            }
+            case "LTRIM": {
+                String key = key(args, 1);
+                List<byte[]> list = db.list(key, now, false);
+                if (list != null) {
+                    int[] range = range(list.size(), Long.parseLong(str(args, 2)), Long.parseLong(str(args, 3)));
+                    List<byte[]> kept = new ArrayList<>(list.subList(range[0], Math.max(range[0], range[1] + 1)));
+                    list.clear();
+                    list.addAll(kept);
+                    if (list.isEmpty()) {
+                        db.remove(key);
+                    }
+                }
+                return RespProtocol.Status.OK;
+            }
+            case "LLEN": {
+                List<byte[]> list = db.list(key(args, 1), now, false);
+                return list == null ? 0L : (long) list.size();
+            }
+            case "ZADD": {
+                SortedSet zset = db.zset(key(args, 1), now, true);
+                long added = 0;
+                for (int i = 2; i + 1 < args.size(); i += 2) {
+                    if (zset.add(str(args, i + 1), bound(str(args, i)))) {
+                        added++;
+                    }
+                }
+                return added;
+            }
+            case "ZRANGE":
+            case "ZREVRANGE": {
+                SortedSet zset = db.zset(key(args, 1), now, false);
+                List<Object> values = new ArrayList<>();
+                if (zset != null) {
+                    List<SortedSet.Member> members = zset.ordered("ZREVRANGE".equals(name));
+                    int[] range = range(members.size(), Long.parseLong(str(args, 2)), Long.parseLong(str(args, 3)));
+                    boolean withScores = args.size() > 4 && "WITHSCORES".equalsIgnoreCase(str(args, 4));
+                    for (int i = range[0]; i <= range[1]; i++) {
+                        values.add(bytes(members.get(i).name));
+                        if (withScores) {
+                            values.add(bytes(score(members.get(i).score)));
+                        }
+                    }
+                }
+                return values;
+            }
+            case "ZRANGEBYSCORE": {
+                SortedSet zset = db.zset(key(args, 1), now, false);
+                List<Object> values = new ArrayList<>();
+                if (zset != null) {
+                    double min = bound(str(args, 2));
+                    double max = bound(str(args, 3));
+                    int offset = 0;
+                    int count = -1;
+                    if (args.size() > 6 && "LIMIT".equalsIgnoreCase(str(args, 4))) {
+                        offset = Integer.parseInt(str(args, 5));
+                        count = Integer.parseInt(str(args, 6));
+                    }
+                    for (SortedSet.Member m : zset.ordered(false)) {
+                        if (m.score >= min && m.score <= max && offset-- <= 0) {
+                            if (count-- == 0) {
+                                break;
+                            }
+                            values.add(bytes(m.name));
+                        }
+                    }
+                }
+                return values;
+            }
+            case "ZREMRANGEBYRANK": {
+                String key = key(args, 1);
+                SortedSet zset = db.zset(key, now, false);
+                if (zset == null) {
+                    return 0L;
+                }
+                List<SortedSet.Member> members = zset.ordered(false);
+                int[] range = range(members.size(), Long.parseLong(str(args, 2)), Long.parseLong(str(args, 3)));
+                long removed = 0;
+                for (int i = range[0]; i <= range[1]; i++) {
+                    zset.remove(members.get(i).name);
+                    removed++;
+                }
+                if (zset.size() == 0) {
+                    db.remove(key);
+                }
+                return removed;
+            }
+            case "ZCARD": {
+                SortedSet zset = db.zset(key(args, 1), now, false);
+                return zset == null ? 0L : (long) zset.size();
+            }
+            case "ZSCORE": {
+                SortedSet zset = db.zset(key(args, 1), now, false);
+                Double score = zset == null ? null : zset.score(str(args, 2));
+                return score == null ? null : bytes(score(score));
+            }
+            case "INCR":
+                return incrBy(db, key(args, 1), 1, now);
+            case "INCRBY":
+                return incrBy(db, key(args, 1), Long.parseLong(str(args, 2)), now);
+            case "DECR":
+                return incrBy(db, key(args, 1), -1, now);
+            case "DECRBY":
+                return incrBy(db, key(args, 1), -Long.parseLong(str(args, 2)), now);
+            case "DEL":
+            case "UNLINK": {
+                long count = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    if (db.get(key(args, i), now) != null) {
+                        count++;
+                    }
+                    db.remove(key(args, i));
+                }
+                return count;
+            }
+            case "EXISTS": {
+                long count = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    if (db.get(key(args, i), now) != null) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+            case "EXPIRE":
+            case "PEXPIRE": {
+                Entry e = db.get(key(args, 1), now);
+                if (e == null) {
+                    return 0L;
+                }
+                long ttl = Long.parseLong(str(args, 2));
+                e.expireAt = now + ("EXPIRE".equals(name) ? ttl * 1000L : ttl);
+                if (ttl <= 0) {
+                    db.remove(key(args, 1));
+                }
+                return 1L;
+            }
+            case "PERSIST": {
+                Entry e = db.get(key(args, 1), now);
+                if (e == null || e.expireAt == 0) {
+                    return 0L;
+                }
+                e.expireAt = 0;
+                return 1L;
+            }
+            case "TTL":
+            case "PTTL": {
+                Entry e = db.get(key(args, 1), now);
+                if (e == null) {
+                    return -2L;
+                }
+                if (e.expireAt == 0) {
+                    return -1L;
+                }
+                long left = e.expireAt - now;
+                return "TTL".equals(name) ? (left + 999) / 1000 : left;
+            }
+            case "TYPE": {
+                Entry e = db.get(key(args, 1), now);
+                return new RespProtocol.Status(e == null ? "none" : e.type());
+            }
+            case "KEYS": {
+                String pattern = str(args, 1);
+                List<Object> keys = new ArrayList<>();
+                for (String key : db.keys(now)) {
+                    if (GlobMatcher.matches(pattern, key)) {
+                        keys.add(bytes(key));
+                    }
+                }
+                return keys;
+            }
+            case "SCAN":
+                return scan(db, args, now);
+            case "DBSIZE":
+                return (long) db.size(now);
+            case "FLUSHDB":
+                db.clear();
+                return RespProtocol.Status.OK;
+            case "FLUSHALL":
+                for (Database each : databases) {
+                    each.clear();
+                }
+                return RespProtocol.Status.OK;
+            case "EVAL":
+                return eval(db, handler(sha1(args.get(1)), "ERR unsupported script, register it with RespStore.registerScript"), args);
+            case "EVALSHA":
+                return eval(db, handler(str(args, 1).toLowerCase(Locale.ENGLISH), "NOSCRIPT No matching script. Please use EVAL."), args);
+            case "SCRIPT":
+                return script(args);
+            default:
+                throw new CommandException("ERR unknown command '" + name.toLowerCase(Locale.ENGLISH) + "'");
+        }
+    }
+
+    /**
+     * redis 风格的下标区间，负数从尾部倒数，结果截断到 [0, size - 1]，为空区间时 start > end
+     */
+    private static int[] range(int size, long start, long end) {
+        if (start < 0) {
+            start = Math.max(0, size + start);
+        }
+        if (end < 0) {
+            end = size + end;
+        }
+        end = Math.min(end, size - 1);
+        return new int[]{(int) Math.min(start, size), (int) end};
+    }
+
+    /**
+     * 分数或分数区间的边界，支持 -inf、+inf，不支持开区间
+     */
+    private static double bound(String text) {
+        if ("-inf".equalsIgnoreCase(text)) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        if ("+inf".equalsIgnoreCase(text) || "inf".equalsIgnoreCase(text)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (text.startsWith("(")) {
+            throw new CommandException("ERR exclusive score ranges are not supported");
+        }
+        return Double.parseDouble(text);
+    }
+
+    private static String score(double score) {
+        return score == Math.rint(score) && !Double.isInfinite(score) ? Long.toString((long) score) : Double.toString(score);
+    }
+
+    private long incrBy(Database db, String key, long delta, long now) {
+        byte[] old = db.string(key, now);
+        long value = delta;
+        if (old != null) {
+            try {
+                value = Long.parseLong(string(old)) + delta;
+            } catch (NumberFormatException ex) {
+                throw new CommandException("ERR value is not an integer or out of range");
+            }
+        }
+        Entry e = db.get(key, now);
+        if (e == null) {
+            db.put(key, bytes(Long.toString(value)), 0);
+        } else {
+            e.value = bytes(Long.toString(value));
+        }
+        return value;
+    }
+
+    /**
+     * SCAN cursor [MATCH pattern] [COUNT count] [TYPE type]
+     * 游标为 key 的写入序号，遍历期间一直存在的 key 一定会被返回
+     */
+    private Object scan(Database db, List<byte[]> args, long now) {
+        long cursor = Long.parseLong(str(args, 1));
+        String pattern = null;
+        String type = null;
+        int count = 10;
+        for (int i = 2; i < args.size(); i++) {
+            String opt = str(args, i).toUpperCase(Locale.ENGLISH);
+            if ("MATCH".equals(opt)) {
+                pattern = str(args, ++i);
+            } else if ("COUNT".equals(opt)) {
+                count = Integer.parseInt(str(args, ++i));
+            } else if ("TYPE".equals(opt)) {
+                type = str(args, ++i);
+            } else {
+                throw new CommandException("ERR syntax error");
+            }
+        }
+        List<Object> keys = new ArrayList<>();
+        long next = 0;
+        int examined = 0;
+        Iterator<Map.Entry<Long, String>> it = db.order.tailMap(cursor).entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, String> item = it.next();
+            if (examined++ >= count) {
+                next = item.getKey();
+                break;
+            }
+            Entry e = db.entries.get(item.getValue());
+            if (e == null || e.expired(now)) {
+                continue;
+            }
+            if ((pattern == null || GlobMatcher.matches(pattern, item.getValue()))
+                    && (type == null || type.equalsIgnoreCase(e.type()))) {
+                keys.add(bytes(item.getValue()));
+            }
+        }
+        List<Object> reply = new ArrayList<>(2);
+        reply.add(bytes(Long.toString(next)));
+        reply.add(keys);
+        return reply;
+    }
+
+    private ScriptHandler handler(String sha, String missing) {
+        ScriptHandler handler = scripts.get(sha);
+        if (handler == null) {
+            throw new CommandException(missing);
+        }
+        return handler;
+    }
+
+    private Object eval(final Database db, ScriptHandler handler, List<byte[]> args) {
+        int numKeys = Integer.parseInt(str(args, 2));
+        List<String> keys = new ArrayList<>(numKeys);
+        for (int i = 0; i < numKeys; i++) {
+            keys.add(key(args, 3 + i));
+        }
+        List<byte[]> argv = new ArrayList<>(args.subList(3 + numKeys, args.size()));
+        return handler.eval(new ScriptHandler.ScriptContext() {
+            @Override
+            public Object call(String... command) {
+                List<byte[]> list = new ArrayList<>(command.length);
+                for (String each : command) {
+                    list.add(bytes(each));
+                }
+                return call(list);
+            }
+
+            @Override
+            public Object call(List<byte[]> command) {
+                return run(db, string(command.get(0)).toUpperCase(Locale.ENGLISH), command);
+            }
+
+            @Override
+            public Object ok() {
+                return RespProtocol.Status.OK;
+            }
+        }, keys, argv);
+    }
+
+    private Object script(List<byte[]> args) {
+        String sub = str(args, 1).toUpperCase(Locale.ENGLISH);
+        switch (sub) {
+            case "LOAD": {
+                String sha = sha1(args.get(2));
+                if (!scripts.containsKey(sha)) {
+                    throw new CommandException("ERR unsupported script, register it with RespStore.registerScript");
+                }
+                return bytes(sha);
+            }
+            case "EXISTS": {
+                List<Object> exists = new ArrayList<>();
+                for (int i = 2; i < args.size(); i++) {
+                    exists.add(scripts.containsKey(str(args, i).toLowerCase(Locale.ENGLISH)) ? 1L : 0L);
+                }
+                return exists;
+            }
+            case "FLUSH":
+                return RespProtocol.Status.OK;
+            default:
+                throw new CommandException("ERR Unknown SCRIPT subcommand '" + sub + "'");
+        }
+    }
+
+    private static long positive(String value, String command) {
+        long n = Long.parseLong(value);
+        if (n <= 0) {
+            throw new CommandException("ERR invalid expire time in " + command);
+        }
+        return n;
+    }
+
+    static String str(List<byte[]> args, int i) {
+        return string(args.get(i));
+    }
+
+    static String key(List<byte[]> args, int i) {
+        return string(args.get(i));
+    }
+
+    static String sha1(byte[] script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script);
+            StringBuilder sb = new StringBuilder(40);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 命令执行错误，message 即返回给客户端的错误信息
+     */
+    public static class CommandException extends RuntimeException {
+        public CommandException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 存储的值及过期时间，expireAt 为 0 表示永不过期
+     */
+    static final class Entry {
+        Object value;
+        long expireAt;
+        final long seq;
+
+        Entry(Object value, long expireAt, long seq) {
+            this.value = value;
+            this.expireAt = expireAt;
+            this.seq = seq;
+        }
+
+        boolean expired(long now) {
+            return expireAt != 0 && expireAt <= now;
+        }
+
+        String type() {
+            if (value instanceof Map) {
+                return "hash";
+            }
+            if (value instanceof List) {
+                return "list";
+            }
+            return value instanceof SortedSet ? "zset" : "string";
+        }
+    }
+
+    /**
+     * 单个库，order 按写入序号保存 key，用作 SCAN 游标
+     */
+    static final class Database {
+        final Map<String, Entry> entries = new HashMap<>();
+        final SortedMap<Long, String> order = new TreeMap<>();
+        private long nextSeq = 1;
+
+        Entry get(String key, long now) {
+            Entry e = entries.get(key);
+            if (e != null && e.expired(now)) {
+                remove(key);
+                return null;
+            }
+            return e;
+        }
+
+        byte[] string(String key, long now) {
+            Entry e = get(key, now);
+            if (e == null) {
+                return null;
+            }
+            if (!(e.value instanceof byte[])) {
+                throw new CommandException("WRONGTYPE Operation against a key holding the wrong kind of value");
+            }
+            return (byte[]) e.value;
+        }
+
+        /**
+         * hash 类型的值
+         *
+         * @param create 不存在时是否创建
+         * @return 不存在且不创建时返回 null
+         */
+        @SuppressWarnings("unchecked")
+        Map<String, byte[]> hash(String key, long now, boolean create) {
+            Entry e = get(key, now);
+            if (e == null) {
+                if (!create) {
+                    return null;
+                }
+                Map<String, byte[]> hash = new LinkedHashMap<>();
+                put(key, hash, 0);
+                return hash;
+            }
+            if (!(e.value instanceof Map)) {
+                throw new CommandException("WRONGTYPE Operation against a key holding the wrong kind of value");
+            }
+            return (Map<String, byte[]>) e.value;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<byte[]> list(String key, long now, boolean create) {
+            Entry e = get(key, now);
+            if (e == null) {
+                if (!create) {
+                    return null;
+                }
+                List<byte[]> list = new ArrayList<>();
+                put(key, list, 0);
+                return list;
+            }
+            if (!(e.value instanceof List)) {
+                throw new CommandException("WRONGTYPE Operation against a key holding the wrong kind of value");
+            }
+            return (List<byte[]>) e.value;
+        }
+
+        SortedSet zset(String key, long now, boolean create) {
+            Entry e = get(key, now);
+            if (e == null) {
+                if (!create) {
+                    return null;
+                }
+                SortedSet zset = new SortedSet();
+                put(key, zset, 0);
+                return zset;
+            }
+            if (!(e.value instanceof SortedSet)) {
+                throw new CommandException("WRONGTYPE Operation against a key holding the wrong kind of value");
+            }
+            return (SortedSet) e.value;
+        }
+
+        void put(String key, Object value, long expireAt) {
+            Entry old = entries.get(key);
+            if (old != null) {
+                entries.put(key, new Entry(value, expireAt, old.seq));
+                return;
+            }
+            long seq = nextSeq++;
+            entries.put(key, new Entry(value, expireAt, seq));
+            order.put(seq, key);
+        }
+
+        void remove(String key) {
+            Entry e = entries.remove(key);
+            if (e != null) {
+                order.remove(e.seq);
+            }
+        }
+
+        List<String> keys(long now) {
+            List<String> keys = new ArrayList<>(entries.size());
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                if (!e.getValue().expired(now)) {
+                    keys.add(e.getKey());
+                }
+            }
+            return keys;
+        }
+
+        int size(long now) {
+            int size = 0;
+            for (Entry e : entries.values()) {
+                if (!e.expired(now)) {
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        void clear() {
+            entries.clear();
+            order.clear();
+        }
+    }
+
+    /**
+     * sorted set，按分数、成员名排序
+     */
+    static final class SortedSet {
+
+        private final Map<String, Double> scores = new HashMap<>();
+
+        private final TreeSet<Member> ordered = new TreeSet<>();
+
+        /**
+         * @return 是否新增
+         */
+        boolean add(String name, double score) {
+            Double old = scores.put(name, score);
+            if (old != null) {
+                ordered.remove(new Member(name, old));
+            }
+            ordered.add(new Member(name, score));
+            return old == null;
+        }
+
+        void remove(String name) {
+            Double old = scores.remove(name);
+            if (old != null) {
+                ordered.remove(new Member(name, old));
+            }
+        }
+
+        Double score(String name) {
+            return scores.get(name);
+        }
+
+        int size() {
+            return scores.size();
+        }
+
+        List<Member> ordered(boolean reverse) {
+            return new ArrayList<>(reverse ? ordered.descendingSet() : ordered);
+        }
+
+        static final class Member implements Comparable<Member> {
+            final String name;
+            final double score;
+
+            Member(String name, double score) {
+                this.name = name;
+                this.score = score;
+            }
+
+            @Override
+            public int compareTo(Member o) {
+                int c = Double.compare(score, o.score);
+                return c != 0 ? c : name.compareTo(o.name);
+            }
+        }
+    }
+
+    /**
+     * redis 风格的 glob 匹配：* ? [abc] [^a-z] 以及 \ 转义
+     */
+    static final class GlobMatcher {
+
+        private GlobMatcher() {
+        }
+
+        static boolean matches(String pattern, String text) {
+            return match(pattern, 0, text, 0);
+        }
+
+        private static boolean match(String p, int pi, String s, int si) {
+            while (pi < p.length()) {
+                char c = p.charAt(pi);
+                switch (c) {
+                    case '*':
+                        while (pi + 1 < p.length() && p.charAt(pi + 1) == '*') {
+                            pi++;
+                        }
+                        if (pi + 1 == p.length()) {
+                            return true;
+                        }
+                        for (int i = si; i <= s.length(); i++) {
+                            if (match(p, pi + 1, s, i)) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    case '?':
+                        if (si >= s.length()) {
+                            return false;
+                        }
+                        si++;
+                        pi++;
+                        break;
+                    case '[': {
+                        if (si >= s.length()) {
+                            return false;
+                        }
+                        int end = p.indexOf(']', pi + 1);
+                        if (end < 0) {
+                            end = p.length();
+                        }
+                        boolean not = pi + 1 < end && p.charAt(pi + 1) == '^';
+                        boolean hit = false;
+                        char ch = s.charAt(si);
+                        for (int i = pi + (not ? 2 : 1); i < end; i++) {
+                            if (p.charAt(i) == '\\' && i + 1 < end) {
+                                hit |= p.charAt(++i) == ch;
+                            } else if (i + 2 < end && p.charAt(i + 1) == '-') {
+                                char lo = p.charAt(i);
+                                char hi = p.charAt(i + 2);
+                                hit |= ch >= Math.min(lo, hi) && ch <= Math.max(lo, hi);
+                                i += 2;
+                            } else {
+                                hit |= p.charAt(i) == ch;
+                            }
+                        }
+                        if (hit == not) {
+                            return false;
+                        }
+                        si++;
+                        pi = end + 1;
+                        break;
+                    }
+                    case '\\':
+                        if (pi + 1 < p.length()) {
+                            pi++;
+                            c = p.charAt(pi);
+                        }
+                        // fall through
+                    default:
+                        if (si >= s.length() || s.charAt(si) != c) {
+                            return false;
+                        }
+                        si++;
+                        pi++;
+                        break;
+                }
+            }
+            return si == s.length();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.szhtp.cache.benchmark.server;
+
+import java.util.List;
+
+/**
+ * EVAL 脚本的 java 实现。
+ * 内嵌服务不解释 lua，需要按脚本原文注册对应的实现，执行时与其它命令互斥，保证原子性。
+ *
+ * @author null
+ */
+public interface ScriptHandler {
+
+    /**
+     * 执行脚本
+     *
+     * @param redis 等同脚本中的 redis.call
+     * @param keys  KEYS
+     * @param args  ARGV
+     * @return 回复内容：byte[]、Long、List、null 或 {@link ScriptContext#ok()}
+     */
+    Object eval(ScriptContext redis, List<String> keys, List<byte[]> args);
+
+    /**
+     * 脚本内执行命令的上下文
+     */
+    interface ScriptContext {
+
+        /**
+         * 执行一条命令，命令出错时抛出 {@link RespStore.CommandException}
+         *
+         * @param args 命令及参数
+         * @return 回复内容
+         */
+        Object call(String... args);
+
+        /**
+         * 执行一条二进制参数的命令
+         */
+        Object call(List<byte[]> args);
+
+        /**
+         * 状态回复 OK
+         */
+        Object ok();
+    }
+}
@@ -0,0 +1,113 @@
+package com.szhtp.cache.benchmark;
+
+import com.szhtp.cache.jedis.JedisService;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * JedisService 各实现共同遵守的语义，与 redis 命令的行为一致。子类提供待测的实现
+ *
+ * @author null
+ */
+public abstract class JedisServiceContract {
+
+    private static final List<String> LETTERS = Arrays.asList("a", "b", "c", "d", "e");
+
+    protected abstract JedisService service();
+
+    @Test
+    public void incr() {
+        assertEquals(Long.valueOf(1), service().incr("counter"));
+        assertEquals(Long.valueOf(2), service().incr("counter"));
+        assertEquals("2", service().getString("counter"));
+        assertEquals(Long.valueOf(1), service().incr("counter_ttl", 60));
+        service().setString("text", "abc");
+        assertNull(service().incr("text"));
+        assertEquals("abc", service().getString("text"));
+    }
+
+    @Test
+    public void setnx() {
+        assertEquals(Long.valueOf(1), service().setnxString("lock", "a", 60));
+        assertEquals(Long.valueOf(0), service().setnxString("lock", "b", 60));
+        assertEquals("a", service().getString("lock"));
+    }
+
+    @Test
+    public void getSet() {
+        service().setString("key", "old");
+        assertEquals("old", service().getSet("key", "new", 60));
+        assertEquals("new", service().getString("key"));
+    }
+
+    @Test
+    public void append() {
+        assertEquals(Long.valueOf(3), service().append("text", "abc"));
+        assertEquals(Long.valueOf(6), service().append("text", "def"));
+        assertEquals("abcdef", service().getString("text"));
+    }
+
+    @Test
+    public void expire() throws InterruptedException {
+        assertEquals(Long.valueOf(0), service().expire("missing", 60));
+        service().setString("key", "value");
+        assertEquals(Long.valueOf(1), service().expire("key", 60));
+        assertEquals("value", service().getString("key"));
+        assertEquals(Long.valueOf(1), service().expire("key", 1));
+        Thread.sleep(1100);
+        assertNull(service().getString("key"));
+        assertEquals(Long.valueOf(0), service().expire("key", 60));
+    }
+
+    @Test
+    public void rangeListBounds() {
+        assertEquals(Collections.emptyList(), service().rangeList("list", 0, -1, String.class));
+        service().pushList("list", LETTERS, 60);
+        assertEquals(LETTERS, service().rangeList("list", 0, -1, String.class));
+        assertEquals(Arrays.asList("b", "c"), service().rangeList("list", 1, 2, String.class));
+        assertEquals(Arrays.asList("d", "e"), service().rangeList("list", -2, -1, String.class));
+        assertEquals(Arrays.asList("a", "b"), service().rangeList("list", -100, 1, String.class));
+        assertEquals(LETTERS, service().rangeList("list", 0, 100, String.class));
+        assertEquals(Collections.emptyList(), service().rangeList("list", 3, 1, String.class));
+        assertEquals(Collections.emptyList(), service().rangeList("list", 10, 20, String.class));
+    }
+
+    @Test
+    public void rangeSortedBounds() {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (int i = 0; i < LETTERS.size(); i++) {
+            scores.put(LETTERS.get(i), (double) i);
+        }
+        service().addSorted("zset", scores, 60);
+        assertEquals(LETTERS, service().rangeSorted("zset", 0, -1, false, String.class));
+        assertEquals(Arrays.asList("b", "c"), service().rangeSorted("zset", 1, 2, false, String.class));
+        assertEquals(Arrays.asList("d", "e"), service().rangeSorted("zset", -2, -1, false, String.class));
+        assertEquals(Arrays.asList("e", "d"), service().rangeSorted("zset", 0, 1, true, String.class));
+        assertEquals(Arrays.asList("a", "b"), service().rangeSorted("zset", -100, 1, false, String.class));
+        assertEquals(LETTERS, service().rangeSorted("zset", 0, 100, false, String.class));
+        assertEquals(Collections.emptyList(), service().rangeSorted("zset", 3, 1, false, String.class));
+        assertEquals(Collections.emptyList(), service().rangeSorted("zset", 10, 20, false, String.class));
+    }
+
+    @Test
+    public void wrongType() {
+        service().pushList("list", LETTERS, 60);
+        service().setString("text", "abc");
+        assertNull(service().getString("list"));
+        assertNull(service().incr("list"));
+        assertEquals(Long.valueOf(0), service().append("list", "x"));
+        assertNull(service().rangeList("text", 0, -1, String.class));
+        assertNull(service().rangeSorted("text", 0, -1, false, String.class));
+        assertNull(service().rangeSorted("list", 0, -1, false, String.class));
+        assertEquals(LETTERS, service().rangeList("list", 0, -1, String.class));
+        assertEquals("abc", service().getString("text"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.szhtp.cache.benchmark;
+
+import com.szhtp.cache.jedis.JedisService;
+import com.szhtp.cache.jedis.LocalJedisServiceImpl;
+import org.junit.After;
+import org.junit.Before;
+
+/**
+ * 进程内的 {@link LocalJedisServiceImpl}
+ *
+ * @author null
+ */
+public class LocalJedisServiceContractTest extends JedisServiceContract {
+
+    private LocalJedisServiceImpl local;
+
+    @Before
+    public void setUp() {
+        local = new LocalJedisServiceImpl("contract_", 0, 0, 10);
+    }
+
+    @After
+    public void tearDown() {
+        local.close();
+    }
+
+    @Override
+    protected JedisService service() {
+        return local;
+    }
+}
@@ -0,0 +1,44 @@
+package com.szhtp.cache.benchmark;
+
+import com.szhtp.cache.benchmark.server.RespServer;
+import com.szhtp.cache.jedis.JedisHelper;
+import com.szhtp.cache.jedis.JedisService;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+
+/**
+ * 通过 JedisHelper 连接内嵌的 {@link RespServer}
+ *
+ * @author null
+ */
+public class RespServerContractTest extends JedisServiceContract {
+
+    private RespServer server;
+
+    private JedisHelper helper;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new RespServer();
+        server.start();
+        helper = new JedisHelper();
+        helper.setServers(server.getHost());
+        helper.setPort(String.valueOf(server.getPort()));
+        helper.setPrefix("contract_");
+        helper.setMode("standalone");
+        helper.initialPool();
+    }
+
+    @After
+    public void tearDown() {
+        helper.destroy();
+        server.stop();
+    }
+
+    @Override
+    protected JedisService service() {
+        return helper;
+    }
+}
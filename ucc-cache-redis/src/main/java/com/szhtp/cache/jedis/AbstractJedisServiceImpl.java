@@ -6,15 +6,31 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.Pool;
+import redis.clients.util.SafeEncoder;
 
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * jedis 抽象实现类，减少重复代码
  *
  * @author heguixing
  */
-public abstract class AbstractJedisServiceImpl implements JedisService {
+public abstract class AbstractJedisServiceImpl implements JedisService, RawSupport, PubSubSupport, ProfileSupport, Closeable {
 
     private static final Logger log = LoggerFactory.getLogger(AbstractJedisServiceImpl.class);
 
@@ -23,6 +39,26 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
      */
     protected String prefix = "ucc_";
 
+    /**
+     * 读副本路由，为空时所有读操作走 master
+     */
+    protected ReplicaRouter replicaRouter;
+
+    /**
+     * 本前缀的连接使用统计，共享客户端时由子类替换为注册表中的统计
+     */
+    protected PrefixMetrics metrics = new PrefixMetrics();
+
+    /**
+     * 是否与其它前缀共用同一端点的客户端
+     */
+    protected boolean shared = true;
+
+    /**
+     * 批量删除 key 的清理器
+     */
+    protected KeySweeper sweeper = new KeySweeper(500, 5000);
+
     public String getPrefix() {
         return prefix;
     }
@@ -31,6 +67,28 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
         this.prefix = prefix;
     }
 
+    public ReplicaRouter getReplicaRouter() {
+        return replicaRouter;
+    }
+
+    public PrefixMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setSweeper(KeySweeper sweeper) {
+        this.sweeper = sweeper;
+    }
+
+    /**
+     * 释放客户端和副本连接，子类覆盖时需调用父类方法
+     */
+    @Override
+    public void close() {
+        if (replicaRouter != null) {
+            replicaRouter.stop();
+        }
+    }
+
     /**
      * 同步获取Jedis实例
      *
@@ -38,6 +96,16 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
      */
     public abstract Jedis getJedis();
 
+    /**
+     * 获取 key 所在节点的Jedis实例，分片实现按 key 路由，其它实现与 {@link #getJedis()} 相同
+     *
+     * @param realKey 真实 key
+     * @return Jedis
+     */
+    protected Jedis getJedis(String realKey) {
+        return getJedis();
+    }
+
     /**
      * 释放jedis资源
      *
@@ -45,17 +113,111 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
      */
     private void returnResource(Jedis jedis) {
         if (jedis != null) {
+            HedgedCall.detach(jedis);
+            metricsFor(jedis).returned();
+            if (Deadline.current() != null) {
+                Deadline.restore(jedis);
+            }
             jedis.close();
         }
     }
 
+    /**
+     * 取得连接并计入统计
+     *
+     * @param realKey 真实 key，为空时取默认节点
+     * @return Jedis
+     */
+    private Jedis borrow(String realKey) {
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            deadline.check("borrow");
+        }
+        return track(realKey == null ? getJedis() : getJedis(realKey));
+    }
+
+    /**
+     * 计入一次取连接，子类直接取连接时使用，之后需通过 {@link #release(Jedis)} 归还。
+     * 当前线程有调用期限时把 socket 超时收紧到剩余时间
+     *
+     * @param jedis 取得的连接，可为空
+     * @return jedis
+     */
+    protected Jedis track(Jedis jedis) {
+        if (jedis == null) {
+            metrics.failed();
+            return null;
+        }
+        metricsFor(jedis).borrowed();
+        HedgedCall.attach(jedis);
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            try {
+                deadline.limit(jedis);
+            } catch (RuntimeException e) {
+                returnResource(jedis);
+                throw e;
+            }
+        }
+        return jedis;
+    }
+
+    /**
+     * 从连接池取连接，当前线程有调用期限时等待时间不超过剩余时间，
+     * 期限内未取到连接时抛出 {@link DeadlineExceededException}
+     *
+     * @param pool 连接池
+     * @return Jedis
+     */
+    protected Jedis borrowFrom(Pool<Jedis> pool) {
+        Deadline deadline = Deadline.current();
+        if (deadline == null || !(pool instanceof ManagedPool)) {
+            return pool.getResource();
+        }
+        deadline.check("borrow");
+        try {
+            return ((ManagedPool) pool).getResource(deadline.remainingMillis());
+        } catch (JedisException e) {
+            if (deadline.isExpired()) {
+                throw deadline.exceeded("borrow");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 连接所属端点上本前缀的统计，多端点的实现按连接地址区分
+     */
+    protected PrefixMetrics metricsFor(Jedis jedis) {
+        return metrics;
+    }
+
+    /**
+     * 注册表中的端点名称，不共用客户端时附加实例标识
+     *
+     * @param name 端点名称
+     * @return 端点名称
+     */
+    protected String endpoint(String name) {
+        return shared ? name : name + "@" + Integer.toHexString(System.identityHashCode(this));
+    }
+
+    /**
+     * 释放jedis资源，供子类使用
+     *
+     * @param jedis jedis
+     */
+    protected void release(Jedis jedis) {
+        returnResource(jedis);
+    }
+
     /**
      * 组装redis真实KEY
      *
      * @param key 未加前缀的key
      * @return 加了前缀的key
      */
-    private String realKey(String key) {
+    protected String realKey(String key) {
         return StringUtils.isBlank(prefix) ? key : prefix + key;
     }
 
@@ -63,7 +225,7 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
     public void setString(String key, String value) {
         Jedis js = null;
         try {
-            js = getJedis();
+            js = borrow(realKey(key));
             if (js != null) {
                 value = StringUtils.isBlank(value) ? "" : value;
                 js.set(realKey(key), value);
@@ -79,7 +241,7 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
     public boolean setString(String key, String value, int seconds) {
         Jedis js = null;
         try {
-            js = getJedis();
+            js = borrow(realKey(key));
             value = StringUtils.isEmpty(value) ? "" : value;
             String result = js.setex(realKey(key), seconds, value);
             return "OK".equals(result);
@@ -96,7 +258,7 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
         Long ret = 0L;
         Jedis js = null;
         try {
-            js = getJedis();
+            js = borrow(realKey(key));
             if (js != null) {
                 value = StringUtils.isEmpty(value) ? "" : value;
                 ret = js.setnx(realKey(key), value);
@@ -112,15 +274,31 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
 
     @Override
     public String getString(String key) {
+        if (replicaRouter != null) {
+            RedisNode node = replicaRouter.route(key, realKey(key));
+            if (node != null) {
+                try {
+                    return replicaRouter.get(node, realKey(key));
+                } catch (Exception e) {
+                    if (HedgedCall.isAborted()) {
+                        return null;
+                    }
+                    log.warn("get -> [" + key + "] from replica " + node + " error, fallback to master : " + e);
+                }
+            }
+        }
         String ret = null;
         Jedis js = null;
         try {
-            js = getJedis();
+            js = borrow(realKey(key));
             if (js != null) {
                 ret = js.get(realKey(key));
             }
         } catch (Exception e) {
-            log.error("get -> [" + key + "] error : " + e);
+            // 被对冲请求取代时连接已被关闭，结果不再使用
+            if (!HedgedCall.isAborted()) {
+                log.error("get -> [" + key + "] error : " + e);
+            }
         } finally {
             returnResource(js);
         }
@@ -160,12 +338,44 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
         return null;
     }
 
+    @Override
+    public <T> Iterator<T> iterateList(String key, Class<T> clazz) {
+        byte[] raw = null;
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                raw = js.get(SafeEncoder.encode(realKey(key)));
+            }
+        } catch (Exception e) {
+            log.error("get -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        try {
+            return JsonArrays.iterator(raw, clazz);
+        } catch (Exception e) {
+            log.error("iterateList -> [" + key + "] error : " + e);
+            return null;
+        }
+    }
+
+    @Override
+    public <T> long streamList(String key, Class<T> clazz, ElementConsumer<T> consumer) {
+        try {
+            return JsonArrays.forEach(iterateList(key, clazz), consumer);
+        } catch (Exception e) {
+            log.error("streamList -> [" + key + "] error : " + e);
+            return -1;
+        }
+    }
+
     @Override
     public Long append(String key, String str) {
         Jedis js = null;
         Long res = 0L;
         try {
-            js = getJedis();
+            js = borrow(realKey(key));
             if (js != null) {
                 res = js.append(realKey(key), str);
             }
@@ -182,7 +392,7 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
         Long ret = null;
         Jedis js = null;
         try {
-            js = getJedis();
+            js = borrow(realKey(key));
             if (js != null) {
                 ret = js.del(realKey(key));
             }
@@ -194,11 +404,160 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
         return ret;
     }
 
+    @Override
+    public Long expire(String key, int seconds) {
+        Long ret = null;
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                ret = js.expire(realKey(key), seconds);
+            }
+        } catch (Exception e) {
+            log.error("expire -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return ret;
+    }
+
+    @Override
+    public Long delKeys(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return 0L;
+        }
+        Jedis js = null;
+        try {
+            js = borrow(null);
+            if (js != null) {
+                return js.del(realKeys(keys));
+            }
+        } catch (Exception e) {
+            log.error("del -> " + keys + " error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean expireKeys(List<String> keys, int seconds) {
+        if (keys == null || keys.isEmpty()) {
+            return true;
+        }
+        Jedis js = null;
+        try {
+            js = borrow(null);
+            if (js != null) {
+                return pipelineExpire(js, keys, seconds);
+            }
+        } catch (Exception e) {
+            log.error("expire -> " + keys + " error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return false;
+    }
+
+    @Override
+    public long deleteByPattern(String pattern) {
+        if (StringUtils.isBlank(pattern)) {
+            return -1;
+        }
+        return sweep(KeySweeper.escape(realKey("")) + pattern);
+    }
+
+    @Override
+    public long deleteByPrefix(String keyPrefix) {
+        if (StringUtils.isBlank(keyPrefix)) {
+            return -1;
+        }
+        return sweep(KeySweeper.escape(realKey(keyPrefix)) + "*");
+    }
+
+    /**
+     * 分片实现覆盖为并行分析各分片
+     */
+    @Override
+    public KeyProfile profileKeys(KeyProfiler profiler, String pattern) {
+        String realPattern = KeySweeper.escape(realKey("")) + pattern;
+        Jedis js = null;
+        try {
+            js = borrow(null);
+            if (js != null) {
+                return profiler.profile(js, realPattern);
+            }
+        } catch (Exception e) {
+            log.error("profileKeys -> [" + realPattern + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public Long publish(String channel, String message) {
+        Jedis js = null;
+        try {
+            js = borrow(null);
+            if (js != null) {
+                return js.publish(realKey(channel), message);
+            }
+        } catch (Exception e) {
+            log.error("publish -> [" + channel + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    /**
+     * 订阅期间占用一个连接，分片实现使用第一个分片
+     */
+    @Override
+    public void subscribe(JedisPubSub listener, String... channels) {
+        String[] realChannels = new String[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            realChannels[i] = realKey(channels[i]);
+        }
+        Jedis js = null;
+        try {
+            js = borrow(null);
+            if (js == null) {
+                throw new JedisConnectionException("no connection for subscribe");
+            }
+            js.subscribe(listener, realChannels);
+        } finally {
+            returnResource(js);
+        }
+    }
+
+    /**
+     * 删除匹配的 key，分片实现覆盖为并行清理各分片
+     *
+     * @param pattern 已包含前缀的模式
+     * @return 删除的 key 数，异常返回 -1
+     */
+    protected long sweep(String pattern) {
+        Jedis js = null;
+        try {
+            js = borrow(null);
+            if (js != null) {
+                return sweeper.sweep(js, pattern);
+            }
+        } catch (Exception e) {
+            log.error("sweep -> [" + pattern + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return -1;
+    }
+
     @Override
     public Long incr(String key, int expire) {
         Jedis js = null;
         try {
-            js = getJedis();
+            js = borrow(realKey(key));
             if (js != null) {
                 // expire 秒后过期
                 js.expire(realKey(key), expire);
@@ -216,7 +575,7 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
     public Long incr(String key) {
         Jedis js = null;
         try {
-            js = getJedis();
+            js = borrow(realKey(key));
             if (js != null) {
                 return js.incr(realKey(key));
             }
@@ -228,18 +587,472 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
         return null;
     }
 
+    @Override
+    public Map<String, String> getStrings(List<String> keys) {
+        Map<String, String> ret = new LinkedHashMap<>();
+        if (keys == null || keys.isEmpty()) {
+            return ret;
+        }
+        Jedis js = null;
+        try {
+            js = borrow(null);
+            if (js != null) {
+                mget(js, keys, ret);
+            }
+        } catch (Exception e) {
+            log.error("mget -> " + keys + " error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return ret;
+    }
+
+    @Override
+    public boolean setStrings(Map<String, String> values, int seconds) {
+        if (values == null || values.isEmpty()) {
+            return true;
+        }
+        Jedis js = null;
+        try {
+            js = borrow(null);
+            if (js != null) {
+                return pipelineSet(js, values, seconds);
+            }
+        } catch (Exception e) {
+            log.error("mset -> " + values.keySet() + " error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return false;
+    }
+
+    @Override
+    public <T> boolean setObjectAsHash(String key, T obj, int seconds) {
+        if (obj == null) {
+            return false;
+        }
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                List<String> args = HashScripts.replaceArgs(BeanFields.of(obj.getClass()).toHash(obj), seconds);
+                return Long.valueOf(1).equals(HashScripts.REPLACE.eval(js, Collections.singletonList(realKey(key)), args));
+            }
+        } catch (Exception e) {
+            log.error("hmset -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return false;
+    }
+
+    @Override
+    public <T> T getObjectFromHash(String key, Class<T> clazz) {
+        return getFields(key, clazz);
+    }
+
+    @Override
+    public <T> T getFields(String key, Class<T> clazz, String... fields) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                Map<String, String> hash;
+                if (fields == null || fields.length == 0) {
+                    hash = js.hgetAll(realKey(key));
+                } else {
+                    hash = zip(fields, js.hmget(realKey(key), fields));
+                }
+                return hash.isEmpty() ? null : BeanFields.of(clazz).<T>fromHash(hash);
+            }
+        } catch (Exception e) {
+            log.error("hmget -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> boolean updateFields(String key, T obj, String... fields) {
+        if (obj == null || fields == null || fields.length == 0) {
+            return false;
+        }
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                List<String> args = HashScripts.updateArgs(BeanFields.of(obj.getClass()).toHash(obj, fields));
+                return Long.valueOf(1).equals(HashScripts.UPDATE.eval(js, Collections.singletonList(realKey(key)), args));
+            }
+        } catch (Exception e) {
+            log.error("hupdate -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return false;
+    }
+
+    @Override
+    public <T> Long pushList(String key, List<T> elements, int seconds) {
+        if (elements == null || elements.isEmpty()) {
+            return listSize(key);
+        }
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                List<String> args = ListScripts.pushArgs(ValueCodec.encodeAll(elements), seconds);
+                return (Long) ListScripts.PUSH.eval(js, Collections.singletonList(realKey(key)), args);
+            }
+        } catch (Exception e) {
+            log.error("rpush -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> List<T> rangeList(String key, long start, long end, Class<T> clazz) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                return ValueCodec.decodeAll(js.lrange(realKey(key), start, end), clazz);
+            }
+        } catch (Exception e) {
+            log.error("lrange -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean trimList(String key, long start, long end) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                return "OK".equals(js.ltrim(realKey(key), start, end));
+            }
+        } catch (Exception e) {
+            log.error("ltrim -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return false;
+    }
+
+    @Override
+    public Long listSize(String key) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                return js.llen(realKey(key));
+            }
+        } catch (Exception e) {
+            log.error("llen -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> Long addSorted(String key, Map<T, Double> elements, int seconds) {
+        if (elements == null || elements.isEmpty()) {
+            return 0L;
+        }
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                Map<String, Double> members = new LinkedHashMap<>();
+                for (Map.Entry<T, Double> e : elements.entrySet()) {
+                    members.put(ValueCodec.encode(e.getKey()), e.getValue());
+                }
+                List<String> args = SortedScripts.addArgs(members, seconds);
+                return (Long) SortedScripts.ADD.eval(js, Collections.singletonList(realKey(key)), args);
+            }
+        } catch (Exception e) {
+            log.error("zadd -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> List<T> rangeSorted(String key, long start, long end, boolean descending, Class<T> clazz) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                Set<String> members = descending ? js.zrevrange(realKey(key), start, end) : js.zrange(realKey(key), start, end);
+                return ValueCodec.decodeAll(members, clazz);
+            }
+        } catch (Exception e) {
+            log.error("zrange -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> List<T> rangeSortedByScore(String key, double min, double max, int offset, int count, Class<T> clazz) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                return ValueCodec.decodeAll(js.zrangeByScore(realKey(key), min, max, offset, count), clazz);
+            }
+        } catch (Exception e) {
+            log.error("zrangeByScore -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public Long trimSorted(String key, long maxSize) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                return js.zremrangeByRank(realKey(key), 0, -Math.max(0, maxSize) - 1);
+            }
+        } catch (Exception e) {
+            log.error("zremrangeByRank -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public Long sortedSize(String key) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                return js.zcard(realKey(key));
+            }
+        } catch (Exception e) {
+            log.error("zcard -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> boolean migrateToList(String key, Class<T> clazz) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                String type = js.type(realKey(key));
+                if ("list".equals(type)) {
+                    return true;
+                }
+                if (!"string".equals(type)) {
+                    return false;
+                }
+                String original = js.get(realKey(key));
+                Long ttl = js.pttl(realKey(key));
+                List<T> elements = StringUtils.isBlank(original) ? Collections.<T>emptyList() : JSONArray.parseArray(original, clazz);
+                List<String> args = ListScripts.migrateArgs(original, ttl == null ? -1 : ttl, Arrays.asList(ValueCodec.encodeAll(elements)));
+                return Long.valueOf(1).equals(ListScripts.MIGRATE.eval(js, Collections.singletonList(realKey(key)), args));
+            }
+        } catch (Exception e) {
+            log.error("migrateToList -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean setBits(String key, long... offsets) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                Pipeline pipeline = js.pipelined();
+                for (long offset : offsets) {
+                    pipeline.setbit(realKey(key), offset, true);
+                }
+                pipeline.sync();
+                return true;
+            }
+        } catch (Exception e) {
+            log.error("setbit -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean[] getBits(String key, long... offsets) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                Pipeline pipeline = js.pipelined();
+                List<Response<Boolean>> responses = new ArrayList<>(offsets.length);
+                for (long offset : offsets) {
+                    responses.add(pipeline.getbit(realKey(key), offset));
+                }
+                pipeline.sync();
+                boolean[] bits = new boolean[offsets.length];
+                for (int i = 0; i < bits.length; i++) {
+                    bits[i] = Boolean.TRUE.equals(responses.get(i).get());
+                }
+                return bits;
+            }
+        } catch (Exception e) {
+            log.error("getbit -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public byte[] getBytes(String key) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                byte[] value = js.get(SafeEncoder.encode(realKey(key)));
+                return value == null ? new byte[0] : value;
+            }
+        } catch (Exception e) {
+            log.error("get -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public String getRange(String key, long start, long end) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                return js.getrange(realKey(key), start, end);
+            }
+        } catch (Exception e) {
+            if (!isWrongType(e)) {
+                log.error("getrange -> [" + key + "] error : " + e);
+            }
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    /**
+     * 是否为 key 类型不符的错误，调用方按约定返回 null，不记错误日志
+     */
+    static boolean isWrongType(Exception e) {
+        return e instanceof JedisDataException && e.getMessage() != null && e.getMessage().startsWith("WRONGTYPE");
+    }
+
+    /**
+     * HMGET 的结果与字段名组合，值为空的字段不放入
+     */
+    static Map<String, String> zip(String[] fields, List<String> values) {
+        Map<String, String> hash = new LinkedHashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            if (values.get(i) != null) {
+                hash.put(fields[i], values.get(i));
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 一次 MGET 读取一组 key，结果按原 key 放入 ret
+     */
+    protected void mget(Jedis js, List<String> keys, Map<String, String> ret) {
+        String[] realKeys = realKeys(keys);
+        List<String> values = js.mget(realKeys);
+        for (int i = 0; i < realKeys.length; i++) {
+            ret.put(keys.get(i), values.get(i));
+        }
+    }
+
+    /**
+     * 通过 pipeline 写入一组 key
+     */
+    protected boolean pipelineSet(Jedis js, Map<String, String> values, int seconds) {
+        Pipeline pipeline = js.pipelined();
+        for (Map.Entry<String, String> e : values.entrySet()) {
+            String value = StringUtils.isEmpty(e.getValue()) ? "" : e.getValue();
+            if (seconds > 0) {
+                pipeline.setex(realKey(e.getKey()), seconds, value);
+            } else {
+                pipeline.set(realKey(e.getKey()), value);
+            }
+        }
+        // 出错的命令在结果中是异常对象
+        for (Object reply : pipeline.syncAndReturnAll()) {
+            if (!"OK".equals(reply)) {
+                log.error("mset -> " + values.keySet() + " error : " + reply);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 通过 pipeline 设置一组 key 的过期时间
+     */
+    protected boolean pipelineExpire(Jedis js, List<String> keys, int seconds) {
+        Pipeline pipeline = js.pipelined();
+        for (String key : keys) {
+            pipeline.expire(realKey(key), seconds);
+        }
+        for (Object reply : pipeline.syncAndReturnAll()) {
+            if (reply instanceof Exception) {
+                log.error("expire -> " + keys + " error : " + reply);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 一组 key 加上前缀
+     */
+    protected String[] realKeys(List<String> keys) {
+        String[] realKeys = new String[keys.size()];
+        for (int i = 0; i < realKeys.length; i++) {
+            realKeys[i] = realKey(keys.get(i));
+        }
+        return realKeys;
+    }
+
     @Override
     public String getSet(String key, String value, int seconds) {
         String ret = null;
         Jedis js = null;
         try {
-            js = getJedis();
-            if (js != null && js.exists(key.getBytes())) {
+            js = borrow(realKey(key));
+            if (js != null && js.exists(realKey(key))) {
                 if (value == null) {
                     value = "";
                 }
-                ret = js.getSet(key, value);
-                js.expire(key, seconds);
+                ret = js.getSet(realKey(key), value);
+                js.expire(realKey(key), seconds);
             }
         } catch (Exception e) {
             log.error("getSet -> [" + key + "] error : " + e);
@@ -249,4 +1062,42 @@ public abstract class AbstractJedisServiceImpl implements JedisService {
         return ret;
     }
 
+    @Override
+    public <T> Versioned<T> getVersioned(String key, Class<T> clazz) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                List<String> values = js.hmget(realKey(key), VersionScripts.VERSION_FIELD, VersionScripts.DATA_FIELD);
+                if (values.get(0) == null) {
+                    return new Versioned<>(0, null);
+                }
+                T value = values.get(1) == null ? null : JSON.parseObject(values.get(1), clazz);
+                return new Versioned<>(Long.parseLong(values.get(0)), value);
+            }
+        } catch (Exception e) {
+            log.error("getVersioned -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> long compareAndSet(String key, long expectedVersion, T obj, int seconds) {
+        Jedis js = null;
+        try {
+            js = borrow(realKey(key));
+            if (js != null) {
+                List<String> args = Arrays.asList(Long.toString(expectedVersion), JSON.toJSONString(obj), Integer.toString(seconds));
+                Object result = VersionScripts.COMPARE_AND_SET.eval(js, Collections.singletonList(realKey(key)), args);
+                return result instanceof Long ? (Long) result : -1;
+            }
+        } catch (Exception e) {
+            log.error("compareAndSet -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return -1;
+    }
 }
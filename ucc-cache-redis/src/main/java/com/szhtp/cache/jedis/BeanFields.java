@@ -0,0 +1,163 @@
+package com.szhtp.cache.jedis;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * bean 属性与 hash 字段的映射，每个类只解析一次并缓存读写方法，字段值按 {@link ValueCodec} 编解码
+ *
+ * @author null
+ */
+public final class BeanFields {
+
+    private static final ConcurrentMap<Class<?>, BeanFields> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 属性名 -> 属性，同时可读写的属性才映射
+     */
+    private final Map<String, Property> properties;
+
+    private final Class<?> type;
+
+    private BeanFields(Class<?> type) {
+        this.type = type;
+        Map<String, Property> map = new LinkedHashMap<>();
+        try {
+            for (PropertyDescriptor pd : Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors()) {
+                if (pd.getReadMethod() != null && pd.getWriteMethod() != null) {
+                    map.put(pd.getName(), new Property(pd.getReadMethod(), pd.getWriteMethod()));
+                }
+            }
+        } catch (IntrospectionException e) {
+            throw new IllegalArgumentException("Cannot introspect " + type.getName(), e);
+        }
+        this.properties = map;
+    }
+
+    /**
+     * 类的属性映射
+     */
+    public static BeanFields of(Class<?> type) {
+        BeanFields fields = CACHE.get(type);
+        if (fields == null) {
+            BeanFields created = new BeanFields(type);
+            fields = CACHE.putIfAbsent(type, created);
+            if (fields == null) {
+                fields = created;
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * 所有字段名
+     */
+    public Collection<String> names() {
+        return properties.keySet();
+    }
+
+    /**
+     * 对象转为 hash 字段
+     *
+     * @param bean  对象
+     * @param names 只转换这些字段，为空时转换所有字段
+     * @return 字段 -> 值，属性值为空时值为 null
+     */
+    public Map<String, String> toHash(Object bean, String... names) {
+        Collection<String> selected = names == null || names.length == 0 ? properties.keySet() : asList(names);
+        Map<String, String> hash = new LinkedHashMap<>();
+        for (String name : selected) {
+            hash.put(name, ValueCodec.encode(property(name).get(bean)));
+        }
+        return hash;
+    }
+
+    /**
+     * hash 字段转为对象，值为空的字段和未映射的字段忽略
+     *
+     * @param hash 字段 -> 值
+     * @return 对象
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T fromHash(Map<String, String> hash) {
+        Object bean;
+        try {
+            bean = type.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot instantiate " + type.getName(), e);
+        }
+        for (Map.Entry<String, String> e : hash.entrySet()) {
+            Property property = properties.get(e.getKey());
+            if (property != null && e.getValue() != null) {
+                property.set(bean, e.getValue());
+            }
+        }
+        return (T) bean;
+    }
+
+    private Property property(String name) {
+        Property property = properties.get(name);
+        if (property == null) {
+            throw new IllegalArgumentException("No property [" + name + "] in " + type.getName());
+        }
+        return property;
+    }
+
+    private static List<String> asList(String[] names) {
+        List<String> list = new ArrayList<>(names.length);
+        for (String name : names) {
+            list.add(name);
+        }
+        return list;
+    }
+
+    private static final class Property {
+
+        private final Method getter;
+
+        private final Method setter;
+
+        private final Class<?> rawType;
+
+        private final Type genericType;
+
+        Property(Method getter, Method setter) {
+            this.getter = getter;
+            this.setter = setter;
+            this.rawType = setter.getParameterTypes()[0];
+            this.genericType = setter.getGenericParameterTypes()[0];
+            getter.setAccessible(true);
+            setter.setAccessible(true);
+        }
+
+        Object get(Object bean) {
+            try {
+                return getter.invoke(bean);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot read " + getter.getName(), e);
+            }
+        }
+
+        void set(Object bean, String text) {
+            Object value = ValueCodec.decode(text, genericType);
+            if (value == null && rawType.isPrimitive()) {
+                return;
+            }
+            try {
+                setter.invoke(bean, value);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot write " + setter.getName(), e);
+            }
+        }
+    }
+}
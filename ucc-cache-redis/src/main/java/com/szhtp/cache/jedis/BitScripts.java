@@ -0,0 +1,41 @@
+package com.szhtp.cache.jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 位图操作使用的脚本，集群客户端不支持 pipeline，多个位在一次调用中完成
+ *
+ * @author null
+ */
+public final class BitScripts {
+
+    /**
+     * 把 ARGV 中的各位置为 1，返回位数
+     */
+    public static final RedisScript SET = new RedisScript(
+            "for i = 1, #ARGV do redis.call('setbit', KEYS[1], ARGV[i], 1) end\n"
+                    + "return #ARGV");
+
+    /**
+     * 读取 ARGV 中的各位，按顺序返回 0 或 1
+     */
+    public static final RedisScript GET = new RedisScript(
+            "local bits = {}\n"
+                    + "for i = 1, #ARGV do bits[i] = redis.call('getbit', KEYS[1], ARGV[i]) end\n"
+                    + "return bits");
+
+    private BitScripts() {
+    }
+
+    /**
+     * 位置参数
+     */
+    static List<String> offsetArgs(long[] offsets) {
+        List<String> args = new ArrayList<>(offsets.length);
+        for (long offset : offsets) {
+            args.add(Long.toString(offset));
+        }
+        return args;
+    }
+}
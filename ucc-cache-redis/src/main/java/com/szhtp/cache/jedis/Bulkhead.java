@@ -0,0 +1,279 @@
+package com.szhtp.cache.jedis;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 舱壁：限制一组 key 的并发调用数，超出时在有界队列中短暂等待，队列满或等待超时立即拒绝，
+ * 避免一个模块占满共用的连接池。
+ * 开启自适应时按加性增、乘性减调整并发上限：调用耗时在目标内且并发接近上限时加一，
+ * 超时或超出调用期限时乘以 0.9，每个目标耗时窗口内最多减一次，一批同时变慢的调用只算一次拥塞。
+ *
+ * @author null
+ */
+public class Bulkhead {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int queueSize;
+
+    private final long queueNanos;
+
+    private final boolean adaptive;
+
+    private final long latencyNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition available = lock.newCondition();
+
+    private volatile int limit;
+
+    private volatile int inFlight;
+
+    private volatile int waiting;
+
+    private int peakInFlight;
+
+    /**
+     * 上次减小并发上限的 System.nanoTime()
+     */
+    private long backoffNanos;
+
+    private final AtomicLong accepted = new AtomicLong();
+
+    private final AtomicLong queued = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    private final long createdNanos = System.nanoTime();
+
+    /**
+     * @param name          名称，即规则前缀
+     * @param limit         并发上限，自适应时为上限的最大值
+     * @param queueSize     排队上限，0 表示不排队
+     * @param queueMillis   最长排队毫秒数
+     * @param adaptive      是否自适应调整并发上限
+     * @param minLimit      自适应时并发上限的最小值
+     * @param latencyMillis 自适应时的目标耗时，毫秒
+     */
+    public Bulkhead(String name, int limit, int queueSize, long queueMillis, boolean adaptive, int minLimit, long latencyMillis) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Bulkhead [" + name + "] limit must be positive");
+        }
+        this.name = name;
+        this.maxLimit = limit;
+        this.minLimit = Math.max(1, Math.min(minLimit, limit));
+        this.queueSize = Math.max(0, queueSize);
+        this.queueNanos = TimeUnit.MILLISECONDS.toNanos(queueMillis);
+        this.adaptive = adaptive;
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        this.limit = limit;
+        this.backoffNanos = createdNanos - this.latencyNanos;
+    }
+
+    /**
+     * 申请一个并发许可，排队时间不超过当前线程的调用期限
+     *
+     * @return 是否取得许可，取得后需调用 {@link #release(long)}
+     */
+    public boolean acquire() {
+        // 已饱和时不加锁直接拒绝
+        if (inFlight >= limit && waiting >= queueSize) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        lock.lock();
+        try {
+            if (inFlight < limit) {
+                enter();
+                return true;
+            }
+            if (waiting >= queueSize) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            long nanos = queueNanos;
+            Deadline deadline = Deadline.current();
+            if (deadline != null) {
+                nanos = Math.min(nanos, TimeUnit.MILLISECONDS.toNanos(deadline.remainingMillis()));
+            }
+            waiting++;
+            queued.incrementAndGet();
+            try {
+                while (inFlight >= limit) {
+                    if (nanos <= 0) {
+                        rejected.incrementAndGet();
+                        return false;
+                    }
+                    nanos = available.awaitNanos(nanos);
+                }
+                enter();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.incrementAndGet();
+                return false;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还许可
+     *
+     * @param startNanos 取得许可时的 System.nanoTime()
+     */
+    public void release(long startNanos) {
+        long now = System.nanoTime();
+        long elapsed = now - startNanos;
+        busyNanos.addAndGet(elapsed);
+        Deadline deadline = Deadline.current();
+        boolean dropped = elapsed > latencyNanos || deadline != null && deadline.isExpired();
+        lock.lock();
+        try {
+            int busy = inFlight;
+            inFlight--;
+            if (adaptive) {
+                if (dropped) {
+                    if (now - backoffNanos >= latencyNanos) {
+                        backoffNanos = now;
+                        limit = Math.max(minLimit, (int) (limit * BACKOFF_RATIO));
+                    }
+                } else if (busy * 2 >= limit && limit < maxLimit) {
+                    limit++;
+                    available.signal();
+                }
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enter() {
+        inFlight++;
+        if (inFlight > peakInFlight) {
+            peakInFlight = inFlight;
+        }
+        accepted.incrementAndGet();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 当前并发上限
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前并发数
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 并发数峰值
+     */
+    public int getPeakInFlight() {
+        lock.lock();
+        try {
+            return peakInFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前排队数
+     */
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取得许可的次数
+     */
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    /**
+     * 经过排队的次数
+     */
+    public long getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * 被拒绝的次数，包括排队已满和排队超时
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * 当前利用率，当前并发数 / 当前并发上限
+     */
+    public double getUtilisation() {
+        lock.lock();
+        try {
+            return (double) inFlight / limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 创建以来的平均利用率，累计占用时间 / (运行时间 * 并发上限的最大值)
+     */
+    public double getAverageUtilisation() {
+        long elapsed = System.nanoTime() - createdNanos;
+        return elapsed <= 0 ? 0 : (double) busyNanos.get() / elapsed / maxLimit;
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return "limit=" + limit + "/" + maxLimit + ", inFlight=" + inFlight + ", peakInFlight=" + peakInFlight
+                    + ", waiting=" + waiting + ", accepted=" + accepted.get() + ", queued=" + queued.get()
+                    + ", rejected=" + rejected.get() + String.format(", utilisation=%.2f", getAverageUtilisation());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,648 @@
+package com.szhtp.cache.jedis;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 舱壁隔离层：按 key 前缀把调用分到各自的 {@link Bulkhead}，限制每组的并发数，
+ * 避免批量任务等慢调用占满共用的连接。被拒绝的调用不访问 redis，按失败返回：
+ * 读返回 null，写返回 false 或 0。未匹配任何规则的 key 不受限制。
+ *
+ * @author null
+ */
+public class BulkheadJedisService extends JedisServiceWrapper {
+
+    private final PrefixRules rules;
+
+    /**
+     * 规则前缀 -> 舱壁
+     */
+    private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+
+    /**
+     * @param target        被包装的实现
+     * @param rules         舱壁规则，格式 前缀=并发上限[/排队上限],...
+     * @param queueSize     规则未指定排队上限时的默认值
+     * @param queueMillis   最长排队毫秒数
+     * @param adaptive      是否自适应调整并发上限
+     * @param minLimit      自适应时并发上限的最小值
+     * @param latencyMillis 自适应时的目标耗时，毫秒
+     */
+    public BulkheadJedisService(JedisService target, String rules, int queueSize, long queueMillis,
+                                boolean adaptive, int minLimit, long latencyMillis) {
+        super(target);
+        this.rules = PrefixRules.parse(rules);
+        for (Map.Entry<String, String> rule : this.rules.asMap().entrySet()) {
+            String[] parts = rule.getValue().split("/");
+            int limit = Integer.parseInt(parts[0].trim());
+            int queue = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : queueSize;
+            bulkheads.put(rule.getKey(), new Bulkhead(rule.getKey(), limit, queue, queueMillis, adaptive, minLimit, latencyMillis));
+        }
+    }
+
+    /**
+     * 所有舱壁
+     *
+     * @return 规则前缀 -> 舱壁
+     */
+    public Map<String, Bulkhead> getBulkheads() {
+        return Collections.unmodifiableMap(bulkheads);
+    }
+
+    @Override
+    public void setString(String key, String value) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            target.setString(key, value);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public boolean setString(String key, String value, int seconds) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return false;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.setString(key, value, seconds);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public Long setnxString(String key, String value, int seconds) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return 0L;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.setnxString(key, value, seconds);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public String getString(String key) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.getString(key);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> void setObject(String key, T obj) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            target.setObject(key, obj);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> boolean setObject(String key, T obj, int seconds) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return false;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.setObject(key, obj, seconds);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> clazz) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.getObject(key, clazz);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> void setList(String key, List<T> objList, int seconds) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            target.setList(key, objList, seconds);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> List<T> getList(String key, Class<T> clazz) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.getList(key, clazz);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> Iterator<T> iterateList(String key, Class<T> clazz) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.iterateList(key, clazz);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> long streamList(String key, Class<T> clazz, ElementConsumer<T> consumer) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return -1;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.streamList(key, clazz, consumer);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public Long append(String key, String str) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return 0L;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.append(key, str);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public Long delKey(String key) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.delKey(key);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public Long expire(String key, int seconds) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.expire(key, seconds);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public Map<String, String> getStrings(List<String> keys) {
+        Bulkhead bulkhead = bulkheadFor(keys == null || keys.isEmpty() ? "" : keys.get(0));
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return rejected(keys);
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.getStrings(keys);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public boolean setStrings(Map<String, String> values, int seconds) {
+        Bulkhead bulkhead = bulkheadFor(values == null || values.isEmpty() ? "" : values.keySet().iterator().next());
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return false;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.setStrings(values, seconds);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public String getSet(String key, String value, int seconds) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.getSet(key, value, seconds);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public Long incr(String key, int expire) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.incr(key, expire);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public Long incr(String key) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.incr(key);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> boolean setObjectAsHash(String key, T obj, int seconds) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return false;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.setObjectAsHash(key, obj, seconds);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> T getObjectFromHash(String key, Class<T> clazz) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.getObjectFromHash(key, clazz);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> T getFields(String key, Class<T> clazz, String... fields) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.getFields(key, clazz, fields);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> boolean updateFields(String key, T obj, String... fields) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return false;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.updateFields(key, obj, fields);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> Long pushList(String key, List<T> elements, int seconds) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.pushList(key, elements, seconds);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> List<T> rangeList(String key, long start, long end, Class<T> clazz) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.rangeList(key, start, end, clazz);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public boolean trimList(String key, long start, long end) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return false;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.trimList(key, start, end);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public Long listSize(String key) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.listSize(key);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> Long addSorted(String key, Map<T, Double> elements, int seconds) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.addSorted(key, elements, seconds);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> List<T> rangeSorted(String key, long start, long end, boolean descending, Class<T> clazz) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.rangeSorted(key, start, end, descending, clazz);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> List<T> rangeSortedByScore(String key, double min, double max, int offset, int count, Class<T> clazz) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.rangeSortedByScore(key, min, max, offset, count, clazz);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public Long trimSorted(String key, long maxSize) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.trimSorted(key, maxSize);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public Long sortedSize(String key) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.sortedSize(key);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> boolean migrateToList(String key, Class<T> clazz) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return false;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.migrateToList(key, clazz);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public boolean setBits(String key, long... offsets) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return false;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return raw().setBits(key, offsets);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public boolean[] getBits(String key, long... offsets) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return raw().getBits(key, offsets);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public byte[] getBytes(String key) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return raw().getBytes(key);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public String getRange(String key, long start, long end) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return raw().getRange(key, start, end);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public Long delKeys(List<String> keys) {
+        Bulkhead bulkhead = bulkheadFor(keys == null || keys.isEmpty() ? "" : keys.get(0));
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return raw().delKeys(keys);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public boolean expireKeys(List<String> keys, int seconds) {
+        Bulkhead bulkhead = bulkheadFor(keys == null || keys.isEmpty() ? "" : keys.get(0));
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return false;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return raw().expireKeys(keys, seconds);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> Versioned<T> getVersioned(String key, Class<T> clazz) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return null;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.getVersioned(key, clazz);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    @Override
+    public <T> long compareAndSet(String key, long expectedVersion, T obj, int seconds) {
+        Bulkhead bulkhead = bulkheadFor(key);
+        if (bulkhead != null && !bulkhead.acquire()) {
+            return -1;
+        }
+        long acquiredAt = System.nanoTime();
+        try {
+            return target.compareAndSet(key, expectedVersion, obj, seconds);
+        } finally {
+            release(bulkhead, acquiredAt);
+        }
+    }
+
+    private Bulkhead bulkheadFor(String key) {
+        return bulkheads.get(rules.match(key));
+    }
+
+    private void release(Bulkhead bulkhead, long acquiredAt) {
+        if (bulkhead != null) {
+            bulkhead.release(acquiredAt);
+        }
+    }
+
+    private Map<String, String> rejected(List<String> keys) {
+        Map<String, String> ret = new LinkedHashMap<>();
+        if (keys != null) {
+            for (String key : keys) {
+                ret.put(key, null);
+            }
+        }
+        return ret;
+    }
+}
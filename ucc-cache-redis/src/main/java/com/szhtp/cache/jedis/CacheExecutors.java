@@ -0,0 +1,56 @@
+package com.szhtp.cache.jedis;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缓存组件共用的后台线程，全部为守护线程，不会阻止应用退出
+ *
+ * @author null
+ */
+public final class CacheExecutors {
+
+    private static volatile ScheduledExecutorService scheduler;
+
+    private CacheExecutors() {
+    }
+
+    /**
+     * 共用的定时任务线程池，用于衰减、刷新、巡检等轻量周期任务
+     *
+     * @return 定时任务线程池
+     */
+    public static ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            synchronized (CacheExecutors.class) {
+                if (scheduler == null) {
+                    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2, threadFactory("ucc-cache-scheduler"));
+                    executor.setRemoveOnCancelPolicy(true);
+                    scheduler = executor;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * 创建守护线程工厂
+     *
+     * @param name 线程名前缀
+     * @return 线程工厂
+     */
+    public static ThreadFactory threadFactory(final String name) {
+        return new ThreadFactory() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, name + "-" + index.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        };
+    }
+}
@@ -0,0 +1,400 @@
+package com.szhtp.cache.jedis;
+
+import com.alibaba.fastjson.JSON;
+import com.szhtp.cache.jedis.WorkloadTrace.Op;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把经过的操作按 key 抽样记录到 {@link WorkloadRecorder}，供 {@link WorkloadReplayer} 回放。
+ * 记录操作、key 哈希、值大小、元素数、过期秒数、开始时间和耗时，不记录值本身；
+ * 对象的大小按序列化后的字符数计算，只对被抽中的 key 计算。按模式删除无法按 key 哈希回放，不记录。
+ *
+ * @author null
+ */
+public class CaptureJedisService extends JedisServiceWrapper {
+
+    private final WorkloadRecorder recorder;
+
+    public CaptureJedisService(JedisService target, WorkloadRecorder recorder) {
+        super(target);
+        this.recorder = recorder;
+    }
+
+    public WorkloadRecorder getRecorder() {
+        return recorder;
+    }
+
+    @Override
+    public void setString(String key, String value) {
+        long start = recorder.now();
+        target.setString(key, value);
+        record(Op.SET_STRING, key, start, value, 0, 0);
+    }
+
+    @Override
+    public boolean setString(String key, String value, int seconds) {
+        long start = recorder.now();
+        boolean ret = target.setString(key, value, seconds);
+        record(Op.SET_STRING, key, start, value, 0, seconds);
+        return ret;
+    }
+
+    @Override
+    public Long setnxString(String key, String value, int seconds) {
+        long start = recorder.now();
+        Long ret = target.setnxString(key, value, seconds);
+        record(Op.SETNX, key, start, value, 0, seconds);
+        return ret;
+    }
+
+    @Override
+    public String getString(String key) {
+        long start = recorder.now();
+        String value = target.getString(key);
+        record(Op.GET_STRING, key, start, value, 0, 0);
+        return value;
+    }
+
+    @Override
+    public <T> void setObject(String key, T obj) {
+        long start = recorder.now();
+        target.setObject(key, obj);
+        record(Op.SET_OBJECT, key, start, obj, 0, 0);
+    }
+
+    @Override
+    public <T> boolean setObject(String key, T obj, int seconds) {
+        long start = recorder.now();
+        boolean ret = target.setObject(key, obj, seconds);
+        record(Op.SET_OBJECT, key, start, obj, 0, seconds);
+        return ret;
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> clazz) {
+        long start = recorder.now();
+        T value = target.getObject(key, clazz);
+        record(Op.GET_OBJECT, key, start, null, 0, 0);
+        return value;
+    }
+
+    @Override
+    public <T> void setList(String key, List<T> objList, int seconds) {
+        long start = recorder.now();
+        target.setList(key, objList, seconds);
+        record(Op.SET_LIST, key, start, objList, count(objList), seconds);
+    }
+
+    @Override
+    public <T> List<T> getList(String key, Class<T> clazz) {
+        long start = recorder.now();
+        List<T> value = target.getList(key, clazz);
+        record(Op.GET_LIST, key, start, null, count(value), 0);
+        return value;
+    }
+
+    /**
+     * 只记录开始迭代，耗时为读取第一页的时间
+     */
+    @Override
+    public <T> Iterator<T> iterateList(String key, Class<T> clazz) {
+        long start = recorder.now();
+        Iterator<T> value = target.iterateList(key, clazz);
+        record(Op.GET_LIST, key, start, null, 0, 0);
+        return value;
+    }
+
+    @Override
+    public <T> long streamList(String key, Class<T> clazz, ElementConsumer<T> consumer) {
+        long start = recorder.now();
+        long count = target.streamList(key, clazz, consumer);
+        record(Op.GET_LIST, key, start, null, (int) Math.max(0, count), 0);
+        return count;
+    }
+
+    @Override
+    public Long append(String key, String str) {
+        long start = recorder.now();
+        Long ret = target.append(key, str);
+        record(Op.APPEND, key, start, str, 0, 0);
+        return ret;
+    }
+
+    @Override
+    public Long delKey(String key) {
+        long start = recorder.now();
+        Long ret = target.delKey(key);
+        record(Op.DEL, key, start, null, 0, 0);
+        return ret;
+    }
+
+    @Override
+    public Long expire(String key, int seconds) {
+        long start = recorder.now();
+        Long ret = target.expire(key, seconds);
+        record(Op.EXPIRE, key, start, null, 0, seconds);
+        return ret;
+    }
+
+    @Override
+    public Map<String, String> getStrings(List<String> keys) {
+        long start = recorder.now();
+        Map<String, String> ret = target.getStrings(keys);
+        if (keys != null && !keys.isEmpty() && recorder.sampled(WorkloadTrace.hash(keys.get(0)))) {
+            long[] hashes = new long[keys.size()];
+            int[] sizes = new int[keys.size()];
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = WorkloadTrace.hash(keys.get(i));
+                sizes[i] = ret == null ? 0 : size(ret.get(keys.get(i)));
+            }
+            recordBatch(Op.GET_STRINGS, start, hashes, sizes, 0);
+        }
+        return ret;
+    }
+
+    /**
+     * 批量操作按第一个 key 抽样，抽中时记录全部 key
+     */
+    @Override
+    public boolean setStrings(Map<String, String> values, int seconds) {
+        long start = recorder.now();
+        boolean result = target.setStrings(values, seconds);
+        if (values == null || values.isEmpty() || !recorder.sampled(WorkloadTrace.hash(values.keySet().iterator().next()))) {
+            return result;
+        }
+        long[] hashes = new long[values.size()];
+        int[] sizes = new int[values.size()];
+        int i = 0;
+        for (Map.Entry<String, String> e : values.entrySet()) {
+            hashes[i] = WorkloadTrace.hash(e.getKey());
+            sizes[i++] = size(e.getValue());
+        }
+        recordBatch(Op.SET_STRINGS, start, hashes, sizes, seconds);
+        return result;
+    }
+
+    @Override
+    public String getSet(String key, String value, int seconds) {
+        long start = recorder.now();
+        String ret = target.getSet(key, value, seconds);
+        record(Op.GET_SET, key, start, value, 0, seconds);
+        return ret;
+    }
+
+    @Override
+    public Long incr(String key, int expire) {
+        long start = recorder.now();
+        Long ret = target.incr(key, expire);
+        record(Op.INCR, key, start, null, 0, expire);
+        return ret;
+    }
+
+    @Override
+    public Long incr(String key) {
+        long start = recorder.now();
+        Long ret = target.incr(key);
+        record(Op.INCR, key, start, null, 0, 0);
+        return ret;
+    }
+
+    @Override
+    public <T> boolean setObjectAsHash(String key, T obj, int seconds) {
+        long start = recorder.now();
+        boolean ret = target.setObjectAsHash(key, obj, seconds);
+        record(Op.SET_HASH, key, start, obj, 0, seconds);
+        return ret;
+    }
+
+    @Override
+    public <T> T getObjectFromHash(String key, Class<T> clazz) {
+        long start = recorder.now();
+        T value = target.getObjectFromHash(key, clazz);
+        record(Op.GET_HASH, key, start, null, 0, 0);
+        return value;
+    }
+
+    @Override
+    public <T> T getFields(String key, Class<T> clazz, String... fields) {
+        long start = recorder.now();
+        T value = target.getFields(key, clazz, fields);
+        record(Op.GET_HASH, key, start, null, fields == null ? 0 : fields.length, 0);
+        return value;
+    }
+
+    @Override
+    public <T> boolean updateFields(String key, T obj, String... fields) {
+        long start = recorder.now();
+        boolean ret = target.updateFields(key, obj, fields);
+        record(Op.UPDATE_FIELDS, key, start, obj, fields == null ? 0 : fields.length, 0);
+        return ret;
+    }
+
+    @Override
+    public <T> Long pushList(String key, List<T> elements, int seconds) {
+        long start = recorder.now();
+        Long ret = target.pushList(key, elements, seconds);
+        record(Op.PUSH_LIST, key, start, elements, count(elements), seconds);
+        return ret;
+    }
+
+    @Override
+    public <T> List<T> rangeList(String key, long start, long end, Class<T> clazz) {
+        long begin = recorder.now();
+        List<T> value = target.rangeList(key, start, end, clazz);
+        record(Op.RANGE_LIST, key, begin, null, range(start, end), 0);
+        return value;
+    }
+
+    @Override
+    public boolean trimList(String key, long start, long end) {
+        long begin = recorder.now();
+        boolean ret = target.trimList(key, start, end);
+        record(Op.TRIM_LIST, key, begin, null, range(start, end), 0);
+        return ret;
+    }
+
+    @Override
+    public Long listSize(String key) {
+        long start = recorder.now();
+        Long ret = target.listSize(key);
+        record(Op.LIST_SIZE, key, start, null, 0, 0);
+        return ret;
+    }
+
+    @Override
+    public <T> Long addSorted(String key, Map<T, Double> elements, int seconds) {
+        long start = recorder.now();
+        Long ret = target.addSorted(key, elements, seconds);
+        record(Op.ADD_SORTED, key, start, elements == null ? null : elements.keySet(),
+                elements == null ? 0 : elements.size(), seconds);
+        return ret;
+    }
+
+    @Override
+    public <T> List<T> rangeSorted(String key, long start, long end, boolean descending, Class<T> clazz) {
+        long begin = recorder.now();
+        List<T> value = target.rangeSorted(key, start, end, descending, clazz);
+        record(Op.RANGE_SORTED, key, begin, null, range(start, end), 0);
+        return value;
+    }
+
+    @Override
+    public <T> List<T> rangeSortedByScore(String key, double min, double max, int offset, int count, Class<T> clazz) {
+        long start = recorder.now();
+        List<T> value = target.rangeSortedByScore(key, min, max, offset, count, clazz);
+        record(Op.RANGE_SORTED, key, start, null, count(value), 0);
+        return value;
+    }
+
+    @Override
+    public Long trimSorted(String key, long maxSize) {
+        long start = recorder.now();
+        Long ret = target.trimSorted(key, maxSize);
+        record(Op.TRIM_SORTED, key, start, null, (int) Math.min(Integer.MAX_VALUE, Math.max(0, maxSize)), 0);
+        return ret;
+    }
+
+    @Override
+    public Long sortedSize(String key) {
+        long start = recorder.now();
+        Long ret = target.sortedSize(key);
+        record(Op.SORTED_SIZE, key, start, null, 0, 0);
+        return ret;
+    }
+
+    @Override
+    public <T> boolean migrateToList(String key, Class<T> clazz) {
+        long start = recorder.now();
+        boolean ret = target.migrateToList(key, clazz);
+        record(Op.MIGRATE_TO_LIST, key, start, null, 0, 0);
+        return ret;
+    }
+
+    @Override
+    public boolean setBits(String key, long... offsets) {
+        long start = recorder.now();
+        boolean ret = raw().setBits(key, offsets);
+        record(Op.SET_BITS, key, start, null, offsets == null ? 0 : offsets.length, 0);
+        return ret;
+    }
+
+    @Override
+    public boolean[] getBits(String key, long... offsets) {
+        long start = recorder.now();
+        boolean[] ret = raw().getBits(key, offsets);
+        record(Op.GET_BITS, key, start, null, offsets == null ? 0 : offsets.length, 0);
+        return ret;
+    }
+
+    @Override
+    public byte[] getBytes(String key) {
+        long start = recorder.now();
+        byte[] value = raw().getBytes(key);
+        record(Op.GET_BYTES, key, start, value, 0, 0);
+        return value;
+    }
+
+    /**
+     * 与 getString 的读写方式相同，按 GET_STRING 记录
+     */
+    @Override
+    public String getRange(String key, long start, long end) {
+        long begin = recorder.now();
+        String value = raw().getRange(key, start, end);
+        record(Op.GET_STRING, key, begin, value, 0, 0);
+        return value;
+    }
+
+    @Override
+    public <T> Versioned<T> getVersioned(String key, Class<T> clazz) {
+        long start = recorder.now();
+        Versioned<T> value = target.getVersioned(key, clazz);
+        record(Op.GET_VERSIONED, key, start, null, 0, 0);
+        return value;
+    }
+
+    @Override
+    public <T> long compareAndSet(String key, long expectedVersion, T obj, int seconds) {
+        long start = recorder.now();
+        long ret = target.compareAndSet(key, expectedVersion, obj, seconds);
+        record(Op.COMPARE_AND_SET, key, start, obj, 0, seconds);
+        return ret;
+    }
+
+    private void record(Op op, String key, long start, Object value, int count, int ttl) {
+        long hash = WorkloadTrace.hash(key);
+        if (recorder.sampled(hash)) {
+            recorder.record(new WorkloadTrace.Record(op, start, recorder.now() - start, hash, size(value), count,
+                    Math.max(0, ttl), null, null));
+        }
+    }
+
+    private void recordBatch(Op op, long start, long[] hashes, int[] sizes, int ttl) {
+        recorder.record(new WorkloadTrace.Record(op, start, recorder.now() - start, hashes[0], 0, hashes.length,
+                Math.max(0, ttl), hashes, sizes));
+    }
+
+    private static int size(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return ((String) value).length();
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        return JSON.toJSONString(value).length();
+    }
+
+    private static int count(List<?> list) {
+        return list == null ? 0 : list.size();
+    }
+
+    private static int range(long start, long end) {
+        return start < 0 || end < start ? 0 : (int) Math.min(Integer.MAX_VALUE, end + 1);
+    }
+}
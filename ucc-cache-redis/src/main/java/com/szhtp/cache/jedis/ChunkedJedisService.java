@@ -0,0 +1,546 @@
+package com.szhtp.cache.jedis;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 大值分块存储：超过阈值的字符串拆成多个分块 key 加一个清单，分块通过 pipeline 写入，读取时并行取回后拼接。
+ * <p>
+ * 每次写入使用新的版本号，分块先写，全部写入成功后才写清单，读者看到的要么是旧值要么是新值；
+ * 旧版本分块改为宽限期后过期，由 redis 删除，读到一半被替换时按新清单重读一次。
+ * 分块的过期时间比清单多出宽限期，清单总是先于分块过期。
+ * <p>
+ * 删除、设置过期和写入只读取值的开头判断是否为清单，不取回完整的值；list 按分块流式解码，不拼接成完整的字符串。
+ * <p>
+ * 被小值覆盖时同样读取旧清单并让旧分块过期；分块的删除和过期各用一次批量操作完成。append、getSet、incr 不支持分块值。
+ *
+ * @author null
+ */
+public class ChunkedJedisService extends JedisServiceWrapper {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedJedisService.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * 清单值的标记，正常业务值不会以 \0 开头
+     */
+    static final String MANIFEST_MARK = "\u0000ucc-chunks:";
+
+    private static final byte[] MANIFEST_MARK_BYTES = MANIFEST_MARK.getBytes(UTF8);
+
+    /**
+     * 清单编码后的最大字节数，读取值的这一段即可判断是否为清单
+     */
+    private static final int MANIFEST_PROBE_BYTES = 64;
+
+    /**
+     * 读取时最多重读清单的次数
+     */
+    private static final int MAX_ATTEMPTS = 2;
+
+    /**
+     * 超过此字符数的值分块存储
+     */
+    private final int threshold;
+
+    /**
+     * 每个分块的字符数
+     */
+    private final int chunkSize;
+
+    /**
+     * 并行读取的分组数
+     */
+    private final int parallelism;
+
+    /**
+     * 旧分块的保留秒数，同时是分块过期时间比清单多出的秒数
+     */
+    private final int graceSeconds;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong chunkedWrites = new AtomicLong();
+
+    private final AtomicLong chunkedReads = new AtomicLong();
+
+    private final AtomicLong rereads = new AtomicLong();
+
+    /**
+     * @param target       被包装的服务
+     * @param threshold    超过此字符数的值分块存储
+     * @param chunkSize    每个分块的字符数
+     * @param readThreads  并行读取分块的最大线程数
+     * @param graceSeconds 旧分块的保留秒数
+     */
+    public ChunkedJedisService(JedisService target, int threshold, int chunkSize, int readThreads, int graceSeconds) {
+        super(target);
+        this.threshold = threshold;
+        this.chunkSize = Math.max(1024, chunkSize);
+        this.parallelism = Math.max(1, readThreads);
+        this.graceSeconds = Math.max(1, graceSeconds);
+        this.executor = new ThreadPoolExecutor(0, parallelism, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), CacheExecutors.threadFactory("ucc-cache-chunk"));
+    }
+
+    @Override
+    public void setString(String key, String value) {
+        if (isLarge(value)) {
+            write(key, value, 0);
+        } else {
+            Manifest previous = probe(key);
+            target.setString(key, value);
+            retire(key, previous);
+        }
+    }
+
+    @Override
+    public boolean setString(String key, String value, int seconds) {
+        if (isLarge(value)) {
+            return write(key, value, seconds);
+        }
+        Manifest previous = probe(key);
+        boolean result = target.setString(key, value, seconds);
+        if (result) {
+            retire(key, previous);
+        }
+        return result;
+    }
+
+    @Override
+    public String getString(String key) {
+        String value = target.getString(key);
+        for (int attempt = 1; ; attempt++) {
+            Manifest manifest = Manifest.parse(value);
+            if (manifest == null) {
+                return value;
+            }
+            chunkedReads.incrementAndGet();
+            List<String> parts = fetchChunks(key, manifest);
+            if (parts != null) {
+                StringBuilder sb = new StringBuilder(manifest.length);
+                for (String part : parts) {
+                    sb.append(part);
+                }
+                return sb.toString();
+            }
+            if (!retry(key, manifest, attempt)) {
+                return null;
+            }
+            value = target.getString(key);
+        }
+    }
+
+    @Override
+    public <T> void setObject(String key, T obj) {
+        setString(key, JSON.toJSONString(obj));
+    }
+
+    @Override
+    public <T> boolean setObject(String key, T obj, int seconds) {
+        return setString(key, JSON.toJSONString(obj), seconds);
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> clazz) {
+        String s = getString(key);
+        if (s != null && !"".equals(s.trim())) {
+            return JSON.parseObject(s, clazz);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> void setList(String key, List<T> objList, int seconds) {
+        setString(key, JSONArray.toJSONString(objList), seconds);
+    }
+
+    @Override
+    public <T> List<T> getList(String key, Class<T> clazz) {
+        String s = getString(key);
+        if (s != null && !"".equals(s.trim())) {
+            return JSONArray.parseArray(s, clazz);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> Iterator<T> iterateList(String key, Class<T> clazz) {
+        try {
+            byte[] raw = raw().getBytes(key);
+            for (int attempt = 1; ; attempt++) {
+                Manifest manifest = Manifest.parse(raw);
+                if (manifest == null) {
+                    // 不是分块值，与各实现的 iterateList 一样直接解码读到的字节，不再读一次
+                    return JsonArrays.iterator(raw, clazz);
+                }
+                chunkedReads.incrementAndGet();
+                List<String> parts = fetchChunks(key, manifest);
+                if (parts != null) {
+                    return JsonArrays.iterator(parts, clazz);
+                }
+                if (!retry(key, manifest, attempt)) {
+                    return null;
+                }
+                raw = raw().getBytes(key);
+            }
+        } catch (Exception e) {
+            log.error("iterateList -> [" + key + "] error : " + e);
+            return null;
+        }
+    }
+
+    @Override
+    public <T> long streamList(String key, Class<T> clazz, ElementConsumer<T> consumer) {
+        try {
+            return JsonArrays.forEach(iterateList(key, clazz), consumer);
+        } catch (Exception e) {
+            log.error("streamList -> [" + key + "] error : " + e);
+            return -1;
+        }
+    }
+
+    @Override
+    public Long delKey(String key) {
+        Manifest manifest = probe(key);
+        Long result = target.delKey(key);
+        if (manifest != null) {
+            raw().delKeys(manifest.chunkKeys(key));
+        }
+        return result;
+    }
+
+    /**
+     * 分块存储的值同时延长各分块的过期时间，分块比清单多保留宽限秒数
+     */
+    @Override
+    public Long expire(String key, int seconds) {
+        Manifest manifest = probe(key);
+        Long result = target.expire(key, seconds);
+        if (manifest != null && result != null && result > 0) {
+            raw().expireKeys(manifest.chunkKeys(key), seconds + graceSeconds);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, String> getStrings(List<String> keys) {
+        Map<String, String> ret = target.getStrings(keys);
+        for (Map.Entry<String, String> e : ret.entrySet()) {
+            if (Manifest.parse(e.getValue()) != null) {
+                e.setValue(getString(e.getKey()));
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public boolean setStrings(Map<String, String> values, int seconds) {
+        if (values == null || values.isEmpty()) {
+            return true;
+        }
+        boolean result = true;
+        Map<String, String> small = new LinkedHashMap<>();
+        Map<String, Manifest> previous = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : values.entrySet()) {
+            if (isLarge(e.getValue())) {
+                result &= write(e.getKey(), e.getValue(), seconds);
+            } else {
+                small.put(e.getKey(), e.getValue());
+                Manifest manifest = probe(e.getKey());
+                if (manifest != null) {
+                    previous.put(e.getKey(), manifest);
+                }
+            }
+        }
+        if (!small.isEmpty()) {
+            boolean written = target.setStrings(small, seconds);
+            if (written) {
+                for (Map.Entry<String, Manifest> e : previous.entrySet()) {
+                    retire(e.getKey(), e.getValue());
+                }
+            }
+            result &= written;
+        }
+        return result;
+    }
+
+    /**
+     * 分块写入的次数
+     */
+    public long getChunkedWrites() {
+        return chunkedWrites.get();
+    }
+
+    /**
+     * 读到分块清单的次数
+     */
+    public long getChunkedReads() {
+        return chunkedReads.get();
+    }
+
+    /**
+     * 读取期间被替换而重读的次数
+     */
+    public long getRereads() {
+        return rereads.get();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private boolean isLarge(String value) {
+        return threshold > 0 && value != null && value.length() > threshold;
+    }
+
+    /**
+     * 先写新版本的分块，全部写入成功后再替换清单，最后让旧版本的分块在宽限期后过期。
+     * 分块写入失败时不写清单，删除已写入的分块，原值保持不变
+     */
+    private boolean write(String key, String value, int seconds) {
+        Manifest previous = probe(key);
+        List<String> parts = split(value);
+        Manifest manifest = new Manifest(Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36),
+                parts.size(), value.length());
+        Map<String, String> chunks = new LinkedHashMap<>();
+        for (int i = 0; i < parts.size(); i++) {
+            chunks.put(manifest.chunkKey(key, i), parts.get(i));
+        }
+        if (!target.setStrings(chunks, seconds > 0 ? seconds + graceSeconds : 0)) {
+            log.error("set -> [" + key + "] error : chunks of version " + manifest.version + " not written");
+            raw().delKeys(manifest.chunkKeys(key));
+            return false;
+        }
+        boolean result;
+        if (seconds > 0) {
+            result = target.setString(key, manifest.encode(), seconds);
+        } else {
+            target.setString(key, manifest.encode());
+            result = true;
+        }
+        chunkedWrites.incrementAndGet();
+        if (previous != null && !previous.version.equals(manifest.version)) {
+            retire(key, previous);
+        }
+        return result;
+    }
+
+    /**
+     * 清单已被替换，旧分块改为宽限期后过期，正在读取旧版本的读者仍能读完；
+     * 过期由 redis 完成，不依赖本进程的定时任务，没有过期时间的旧分块也会被清除
+     */
+    private void retire(String key, Manifest previous) {
+        if (previous != null) {
+            raw().expireKeys(previous.chunkKeys(key), graceSeconds);
+        }
+    }
+
+    /**
+     * 只读取值的开头判断是否为清单，key 不存在、不是字符串或出错时返回 null
+     */
+    private Manifest probe(String key) {
+        return Manifest.parse(raw().getRange(key, 0, MANIFEST_PROBE_BYTES - 1));
+    }
+
+    /**
+     * 分块不完整时是否按新清单重读：读取期间被替换，旧分块已删除
+     */
+    private boolean retry(String key, Manifest manifest, int attempt) {
+        if (attempt >= MAX_ATTEMPTS) {
+            log.error("get -> [" + key + "] error : incomplete chunks of version " + manifest.version);
+            return false;
+        }
+        rereads.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 按字符拆分，不拆开代理对
+     */
+    private List<String> split(String value) {
+        List<String> parts = new ArrayList<>(value.length() / chunkSize + 1);
+        int start = 0;
+        while (start < value.length()) {
+            int end = Math.min(value.length(), start + chunkSize);
+            if (end < value.length() && Character.isHighSurrogate(value.charAt(end - 1))) {
+                end--;
+            }
+            parts.add(value.substring(start, end));
+            start = end;
+        }
+        return parts;
+    }
+
+    /**
+     * 分组并行读取分块，分块缺失或总长度不符时返回 null
+     *
+     * @return 按顺序的各分块
+     */
+    private List<String> fetchChunks(String key, Manifest manifest) {
+        List<String> chunkKeys = manifest.chunkKeys(key);
+        int groupSize = (chunkKeys.size() + parallelism - 1) / parallelism;
+        final Deadline deadline = Deadline.current();
+        List<Future<Map<String, String>>> futures = new ArrayList<>();
+        for (int from = groupSize; from < chunkKeys.size(); from += groupSize) {
+            final List<String> group = chunkKeys.subList(from, Math.min(chunkKeys.size(), from + groupSize));
+            try {
+                futures.add(executor.submit(new Callable<Map<String, String>>() {
+                    @Override
+                    public Map<String, String> call() {
+                        Deadline previous = Deadline.attach(deadline);
+                        try {
+                            return target.getStrings(group);
+                        } finally {
+                            Deadline.attach(previous);
+                        }
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                // 线程耗尽时在当前线程读取
+                futures.add(new Completed<>(target.getStrings(group)));
+            }
+        }
+        Map<String, String> values = new LinkedHashMap<>(target.getStrings(chunkKeys.subList(0, Math.min(groupSize, chunkKeys.size()))));
+        try {
+            for (Future<Map<String, String>> future : futures) {
+                values.putAll(deadline == null ? future.get() : future.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("get -> [" + key + "] chunks error : " + e);
+            return null;
+        }
+        List<String> parts = new ArrayList<>(chunkKeys.size());
+        long length = 0;
+        for (String chunkKey : chunkKeys) {
+            String part = values.get(chunkKey);
+            if (part == null) {
+                return null;
+            }
+            parts.add(part);
+            length += part.length();
+        }
+        return length == manifest.length ? parts : null;
+    }
+
+    /**
+     * 分块清单：版本号、分块数、总字符数
+     */
+    static final class Manifest {
+
+        final String version;
+
+        final int count;
+
+        final int length;
+
+        Manifest(String version, int count, int length) {
+            this.version = version;
+            this.count = count;
+            this.length = length;
+        }
+
+        String chunkKey(String key, int index) {
+            return key + "#chunk:" + version + ":" + index;
+        }
+
+        List<String> chunkKeys(String key) {
+            List<String> keys = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                keys.add(chunkKey(key, i));
+            }
+            return keys;
+        }
+
+        String encode() {
+            return MANIFEST_MARK + version + ":" + count + ":" + length;
+        }
+
+        static Manifest parse(byte[] value) {
+            if (value == null || value.length < MANIFEST_MARK_BYTES.length) {
+                return null;
+            }
+            for (int i = 0; i < MANIFEST_MARK_BYTES.length; i++) {
+                if (value[i] != MANIFEST_MARK_BYTES[i]) {
+                    return null;
+                }
+            }
+            return value.length > MANIFEST_PROBE_BYTES ? null : parse(new String(value, UTF8));
+        }
+
+        static Manifest parse(String value) {
+            if (value == null || !value.startsWith(MANIFEST_MARK)) {
+                return null;
+            }
+            String[] parts = value.substring(MANIFEST_MARK.length()).split(":");
+            if (parts.length != 3) {
+                return null;
+            }
+            try {
+                return new Manifest(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 已在当前线程完成的读取
+     */
+    private static final class Completed<V> implements Future<V> {
+
+        private final V value;
+
+        Completed(V value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return true;
+        }
+
+        @Override
+        public V get() {
+            return value;
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) {
+            return value;
+        }
+    }
+}
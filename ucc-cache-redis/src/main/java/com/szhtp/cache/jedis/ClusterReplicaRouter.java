@@ -0,0 +1,132 @@
+package com.szhtp.cache.jedis;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.JedisClusterCRC16;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 集群模式的读副本路由，定期通过 CLUSTER SLOTS 获取每个 slot 的 master 与副本
+ *
+ * @author null
+ */
+public class ClusterReplicaRouter extends ReplicaRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterReplicaRouter.class);
+
+    private static final int SLOTS = 16384;
+
+    /**
+     * 拓扑查询入口，包括配置的节点和已发现的节点
+     */
+    private final Set<String> seeds = new LinkedHashSet<>();
+
+    private volatile Shard[] slots = new Shard[SLOTS];
+
+    public ClusterReplicaRouter(ReadPolicies policies, String[] serverList, String[] portList,
+                                String password, int timeout, int maxActive) {
+        super(policies, password, timeout, maxActive);
+        for (int i = 0; i < serverList.length; i++) {
+            seeds.add(serverList[i] + ":" + portList[i]);
+        }
+    }
+
+    @Override
+    protected void refresh() {
+        List<String> candidates;
+        synchronized (seeds) {
+            candidates = new ArrayList<>(seeds);
+        }
+        for (String seed : candidates) {
+            Jedis jedis = null;
+            try {
+                int idx = seed.lastIndexOf(':');
+                jedis = new Jedis(seed.substring(0, idx), Integer.parseInt(seed.substring(idx + 1)), timeout);
+                if (StringUtils.isNotBlank(password)) {
+                    jedis.auth(password);
+                }
+                update(jedis.clusterSlots());
+                return;
+            } catch (JedisException e) {
+                log.warn("[replica] cluster node " + seed + " unavailable : " + e);
+            } finally {
+                if (jedis != null) {
+                    jedis.close();
+                }
+            }
+        }
+        log.error("[replica] no cluster node reachable, keep current topology");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void update(List<Object> slotInfos) {
+        Shard[] current = new Shard[SLOTS];
+        Set<String> addresses = new HashSet<>();
+        for (Object info : slotInfos) {
+            List<Object> range = (List<Object>) info;
+            if (range.size() < 3) {
+                continue;
+            }
+            int start = ((Long) range.get(0)).intValue();
+            int end = ((Long) range.get(1)).intValue();
+            RedisNode master = node(range.get(2), false);
+            addresses.add(master.getAddress());
+            List<RedisNode> replicas = new ArrayList<>();
+            for (int i = 3; i < range.size(); i++) {
+                RedisNode replica = node(range.get(i), true);
+                addresses.add(replica.getAddress());
+                replicas.add(replica);
+            }
+            Shard shard = new Shard(master, Collections.unmodifiableList(replicas));
+            for (int slot = start; slot <= end; slot++) {
+                current[slot] = shard;
+            }
+        }
+        slots = current;
+        synchronized (seeds) {
+            seeds.addAll(addresses);
+        }
+        retain(addresses);
+        probeAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisNode node(Object hostInfo, boolean readonly) {
+        List<Object> info = (List<Object>) hostInfo;
+        String host = SafeEncoder.encode((byte[]) info.get(0));
+        int port = ((Long) info.get(1)).intValue();
+        return node(host, port, readonly);
+    }
+
+    @Override
+    protected RedisNode master(String realKey) {
+        Shard shard = slots[JedisClusterCRC16.getSlot(realKey)];
+        return shard == null ? null : shard.master;
+    }
+
+    @Override
+    protected List<RedisNode> replicas(String realKey) {
+        Shard shard = slots[JedisClusterCRC16.getSlot(realKey)];
+        return shard == null ? Collections.<RedisNode>emptyList() : shard.replicas;
+    }
+
+    private static final class Shard {
+        final RedisNode master;
+        final List<RedisNode> replicas;
+
+        Shard(RedisNode master, List<RedisNode> replicas) {
+            this.master = master;
+            this.replicas = replicas;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.szhtp.cache.jedis;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 按页遍历 list 或 sorted set，每页一次 LRANGE / ZRANGE，遍历到不足一页或读取出错时结束。
+ * 遍历期间集合被修改时，页与页之间可能出现重复或遗漏
+ *
+ * @author null
+ */
+public abstract class CollectionPages<T> implements Iterable<List<T>> {
+
+    private final int pageSize;
+
+    protected CollectionPages(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * list 的分页
+     */
+    public static <T> CollectionPages<T> ofList(final JedisService service, final String key, int pageSize, final Class<T> clazz) {
+        return new CollectionPages<T>(pageSize) {
+            @Override
+            protected List<T> fetch(long start, long end) {
+                return service.rangeList(key, start, end, clazz);
+            }
+        };
+    }
+
+    /**
+     * sorted set 按排名的分页
+     */
+    public static <T> CollectionPages<T> ofSorted(final JedisService service, final String key, int pageSize,
+                                                  final boolean descending, final Class<T> clazz) {
+        return new CollectionPages<T>(pageSize) {
+            @Override
+            protected List<T> fetch(long start, long end) {
+                return service.rangeSorted(key, start, end, descending, clazz);
+            }
+        };
+    }
+
+    /**
+     * 读取一页
+     *
+     * @param start 开始下标
+     * @param end   结束下标，包含
+     * @return 元素，出错时返回 null
+     */
+    protected abstract List<T> fetch(long start, long end);
+
+    @Override
+    public Iterator<List<T>> iterator() {
+        return new Iterator<List<T>>() {
+
+            private long offset;
+
+            private List<T> next;
+
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !done) {
+                    List<T> page = fetch(offset, offset + pageSize - 1);
+                    if (page == null || page.isEmpty()) {
+                        done = true;
+                    } else {
+                        next = page;
+                        offset += page.size();
+                        done = page.size() < pageSize;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<T> page = next;
+                next = null;
+                return page;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
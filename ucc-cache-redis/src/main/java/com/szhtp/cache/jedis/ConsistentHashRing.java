@@ -0,0 +1,136 @@
+package com.szhtp.cache.jedis;
+
+import redis.clients.util.Hashing;
+import redis.clients.util.JedisClusterHashTagUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 一致性哈希环。每个分片按名称生成若干虚拟节点，key 落在顺时针方向第一个虚拟节点所属的分片；
+ * key 含 {tag} 时只对 tag 求哈希，同一 tag 的 key 落在同一分片。
+ * 虚拟节点位置只取决于分片名称，增删分片时只有相邻区间的 key 会迁移。
+ *
+ * @author null
+ */
+public class ConsistentHashRing<T> {
+
+    private final int virtualNodes;
+
+    /**
+     * 当前环的不可变快照，增删分片时整体替换，查找不加锁
+     */
+    private volatile Snapshot<T> snapshot = new Snapshot<>(new TreeMap<Long, String>(), new LinkedHashMap<String, T>());
+
+    /**
+     * @param virtualNodes 每个分片的虚拟节点数
+     */
+    public ConsistentHashRing(int virtualNodes) {
+        this.virtualNodes = Math.max(1, virtualNodes);
+    }
+
+    /**
+     * 加入分片，同名分片会被替换
+     *
+     * @param name  分片名称，如 host:port
+     * @param shard 分片
+     */
+    public synchronized void add(String name, T shard) {
+        Snapshot<T> current = snapshot;
+        TreeMap<Long, String> ring = new TreeMap<>(current.ring);
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.put(hash(name + "#" + i), name);
+        }
+        Map<String, T> shards = new LinkedHashMap<>(current.shards);
+        shards.put(name, shard);
+        snapshot = new Snapshot<>(ring, shards);
+    }
+
+    /**
+     * 移除分片
+     *
+     * @param name 分片名称
+     * @return 被移除的分片，不存在时返回 null
+     */
+    public synchronized T remove(String name) {
+        Snapshot<T> current = snapshot;
+        T shard = current.shards.get(name);
+        if (shard != null) {
+            TreeMap<Long, String> ring = new TreeMap<>(current.ring);
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.remove(hash(name + "#" + i));
+            }
+            Map<String, T> shards = new LinkedHashMap<>(current.shards);
+            shards.remove(name);
+            snapshot = new Snapshot<>(ring, shards);
+        }
+        return shard;
+    }
+
+    /**
+     * key 所在分片的名称
+     *
+     * @param key 真实 key
+     * @return 环为空时返回 null
+     */
+    public String locate(String key) {
+        return snapshot.locate(key);
+    }
+
+    /**
+     * key 所在分片
+     *
+     * @param key 真实 key
+     * @return 环为空时返回 null
+     */
+    public T get(String key) {
+        Snapshot<T> current = snapshot;
+        String name = current.locate(key);
+        return name == null ? null : current.shards.get(name);
+    }
+
+    /**
+     * 按分片名称取分片
+     */
+    public T shard(String name) {
+        return snapshot.shards.get(name);
+    }
+
+    /**
+     * 所有分片名称
+     */
+    public List<String> names() {
+        return snapshot.names;
+    }
+
+    private static long hash(String s) {
+        return Hashing.MURMUR_HASH.hash(s);
+    }
+
+    private static final class Snapshot<T> {
+
+        private final TreeMap<Long, String> ring;
+
+        private final Map<String, T> shards;
+
+        private final List<String> names;
+
+        Snapshot(TreeMap<Long, String> ring, Map<String, T> shards) {
+            this.ring = ring;
+            this.shards = shards;
+            this.names = Collections.unmodifiableList(new ArrayList<>(shards.keySet()));
+        }
+
+        String locate(String key) {
+            if (ring.isEmpty()) {
+                return null;
+            }
+            Map.Entry<Long, String> entry = ring.ceilingEntry(hash(JedisClusterHashTagUtil.getHashTag(key)));
+            return entry == null ? ring.firstEntry().getValue() : entry.getValue();
+        }
+    }
+}
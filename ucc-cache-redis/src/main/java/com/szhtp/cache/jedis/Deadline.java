@@ -0,0 +1,185 @@
+package com.szhtp.cache.jedis;
+
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.io.Closeable;
+import java.net.SocketException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 调用期限，绑定在当前线程上，覆盖取连接等待、重试和 socket 读写的全部时间。
+ * 嵌套时取更早的期限：
+ * <pre>
+ * try (Deadline deadline = Deadline.within(200)) {
+ *     helper.getString("config:a");
+ * }
+ * </pre>
+ *
+ * @author null
+ */
+public final class Deadline implements Closeable {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expireNanos;
+
+    private final long budgetMillis;
+
+    private final Deadline previous;
+
+    /**
+     * 因期限已到而失败或超时的次数，对冲线程也会累加
+     */
+    private final AtomicInteger exceeded = new AtomicInteger();
+
+    private Deadline(long expireNanos, long budgetMillis, Deadline previous) {
+        this.expireNanos = expireNanos;
+        this.budgetMillis = budgetMillis;
+        this.previous = previous;
+    }
+
+    /**
+     * 在当前线程上开始一个期限，外层已有更早的期限时沿用外层期限
+     *
+     * @param millis 时间预算，毫秒
+     * @return 期限，结束时关闭
+     */
+    public static Deadline within(long millis) {
+        Deadline previous = CURRENT.get();
+        long expire = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        if (previous != null && previous.expireNanos - expire < 0) {
+            expire = previous.expireNanos;
+        }
+        Deadline deadline = new Deadline(expire, millis, previous);
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * 当前线程的期限
+     *
+     * @return 没有期限时返回 null
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 把期限带到其它线程，返回该线程原来的期限，用完后需再次调用还原
+     *
+     * @param deadline 期限，可为空
+     * @return 原来的期限
+     */
+    static Deadline attach(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+        return previous;
+    }
+
+    /**
+     * 剩余时间，毫秒，向上取整，未到期时至少为 1
+     */
+    public long remainingMillis() {
+        long remaining = expireNanos - System.nanoTime();
+        return remaining <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(remaining + 999999);
+    }
+
+    public boolean isExpired() {
+        return expireNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 已到期时抛出异常
+     *
+     * @param operation 操作名称
+     */
+    public void check(String operation) {
+        if (isExpired()) {
+            throw exceeded(operation);
+        }
+    }
+
+    /**
+     * 记一次因期限已到而失败的操作
+     *
+     * @param operation 操作名称
+     * @return 待抛出的异常
+     */
+    DeadlineExceededException exceeded(String operation) {
+        exceeded.incrementAndGet();
+        return new DeadlineExceededException(operation + " exceeded deadline of " + budgetMillis + " ms");
+    }
+
+    /**
+     * 因期限已到而失败或超时的次数
+     */
+    int exceededCount() {
+        return exceeded.get();
+    }
+
+    /**
+     * 把连接的 socket 超时收紧到剩余时间，归还前需调用 {@link #restore(Jedis)}
+     *
+     * @param jedis 连接
+     */
+    void limit(Jedis jedis) {
+        check("borrow");
+        Client client = jedis.getClient();
+        long remaining = remainingMillis();
+        if (client.isConnected() && (client.getSoTimeout() <= 0 || remaining < client.getSoTimeout())) {
+            try {
+                client.getSocket().setSoTimeout((int) Math.max(1, remaining));
+            } catch (SocketException e) {
+                throw new JedisConnectionException(e);
+            }
+        }
+    }
+
+    /**
+     * 还原连接的 socket 超时。已损坏的连接直接断开，避免销毁时发送 QUIT 再等待一次超时；
+     * 此时期限已到则记为一次超时
+     *
+     * @param jedis 连接
+     */
+    static void restore(Jedis jedis) {
+        Client client = jedis.getClient();
+        if (client.isBroken()) {
+            Deadline deadline = CURRENT.get();
+            if (deadline != null && deadline.isExpired()) {
+                deadline.exceeded.incrementAndGet();
+            }
+            client.disconnect();
+        } else if (client.isConnected()) {
+            try {
+                client.rollbackTimeout();
+            } catch (JedisConnectionException e) {
+                // rollbackTimeout 已把连接标记为损坏，归还时销毁
+            }
+        }
+    }
+
+    /**
+     * 时间预算，毫秒
+     */
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
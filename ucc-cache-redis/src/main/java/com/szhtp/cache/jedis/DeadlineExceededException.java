@@ -0,0 +1,17 @@
+package com.szhtp.cache.jedis;
+
+import redis.clients.jedis.exceptions.JedisException;
+
+/**
+ * 调用超出期限
+ *
+ * @author null
+ */
+public class DeadlineExceededException extends JedisException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
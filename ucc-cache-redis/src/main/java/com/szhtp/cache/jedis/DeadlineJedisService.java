@@ -0,0 +1,574 @@
+package com.szhtp.cache.jedis;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 调用期限层：调用方未设置 {@link Deadline} 时按 key 前缀套用默认期限，
+ * 并按规则前缀分别统计调用次数和因期限已到而失败或超时的次数，与连接失败等其它错误分开计数。
+ *
+ * @author null
+ */
+public class DeadlineJedisService extends JedisServiceWrapper {
+
+    private final PrefixRules rules;
+
+    /**
+     * 规则前缀 -> 默认期限毫秒数
+     */
+    private final Map<String, Long> ruleMillis = new HashMap<>();
+
+    /**
+     * 未匹配任何规则时的默认期限毫秒数，0 表示不限
+     */
+    private final long defaultMillis;
+
+    /**
+     * 规则前缀 -> 统计，未匹配规则的 key 计入空串
+     */
+    private final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * @param target        被包装的实现
+     * @param defaultMillis 默认期限毫秒数，0 表示不限
+     * @param rules         按前缀的期限，格式 前缀=毫秒数,前缀=毫秒数，可为空
+     */
+    public DeadlineJedisService(JedisService target, long defaultMillis, String rules) {
+        super(target);
+        this.defaultMillis = defaultMillis;
+        this.rules = PrefixRules.parse(rules);
+        for (Map.Entry<String, String> rule : this.rules.asMap().entrySet()) {
+            ruleMillis.put(rule.getKey(), Long.parseLong(rule.getValue()));
+        }
+    }
+
+    /**
+     * key 的默认期限
+     *
+     * @param key 未加前缀的 key
+     * @return 毫秒数，0 表示不限
+     */
+    public long millisFor(String key) {
+        Long millis = ruleMillis.get(rules.match(key));
+        return millis == null ? defaultMillis : millis;
+    }
+
+    /**
+     * 按规则前缀的统计，未匹配规则的 key 计入空串
+     */
+    public Map<String, Stats> getStats() {
+        return new LinkedHashMap<String, Stats>(stats);
+    }
+
+    @Override
+    public void setString(String key, String value) {
+        Call call = enter(key);
+        try {
+            target.setString(key, value);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public boolean setString(String key, String value, int seconds) {
+        Call call = enter(key);
+        try {
+            return target.setString(key, value, seconds);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public Long setnxString(String key, String value, int seconds) {
+        Call call = enter(key);
+        try {
+            return target.setnxString(key, value, seconds);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public String getString(String key) {
+        Call call = enter(key);
+        try {
+            return target.getString(key);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> void setObject(String key, T obj) {
+        Call call = enter(key);
+        try {
+            target.setObject(key, obj);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> boolean setObject(String key, T obj, int seconds) {
+        Call call = enter(key);
+        try {
+            return target.setObject(key, obj, seconds);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> clazz) {
+        Call call = enter(key);
+        try {
+            return target.getObject(key, clazz);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> void setList(String key, List<T> objList, int seconds) {
+        Call call = enter(key);
+        try {
+            target.setList(key, objList, seconds);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> List<T> getList(String key, Class<T> clazz) {
+        Call call = enter(key);
+        try {
+            return target.getList(key, clazz);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> Iterator<T> iterateList(String key, Class<T> clazz) {
+        Call call = enter(key);
+        try {
+            return target.iterateList(key, clazz);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> long streamList(String key, Class<T> clazz, ElementConsumer<T> consumer) {
+        Call call = enter(key);
+        try {
+            return target.streamList(key, clazz, consumer);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public Long append(String key, String str) {
+        Call call = enter(key);
+        try {
+            return target.append(key, str);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public Long delKey(String key) {
+        Call call = enter(key);
+        try {
+            return target.delKey(key);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public Long expire(String key, int seconds) {
+        Call call = enter(key);
+        try {
+            return target.expire(key, seconds);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public Map<String, String> getStrings(List<String> keys) {
+        String key = keys == null || keys.isEmpty() ? "" : keys.get(0);
+        Call call = enter(key);
+        try {
+            return target.getStrings(keys);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public boolean setStrings(Map<String, String> values, int seconds) {
+        String key = values == null || values.isEmpty() ? "" : values.keySet().iterator().next();
+        Call call = enter(key);
+        try {
+            return target.setStrings(values, seconds);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public String getSet(String key, String value, int seconds) {
+        Call call = enter(key);
+        try {
+            return target.getSet(key, value, seconds);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public Long incr(String key, int expire) {
+        Call call = enter(key);
+        try {
+            return target.incr(key, expire);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public Long incr(String key) {
+        Call call = enter(key);
+        try {
+            return target.incr(key);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> boolean setObjectAsHash(String key, T obj, int seconds) {
+        Call call = enter(key);
+        try {
+            return target.setObjectAsHash(key, obj, seconds);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> T getObjectFromHash(String key, Class<T> clazz) {
+        Call call = enter(key);
+        try {
+            return target.getObjectFromHash(key, clazz);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> T getFields(String key, Class<T> clazz, String... fields) {
+        Call call = enter(key);
+        try {
+            return target.getFields(key, clazz, fields);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> boolean updateFields(String key, T obj, String... fields) {
+        Call call = enter(key);
+        try {
+            return target.updateFields(key, obj, fields);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> Long pushList(String key, List<T> elements, int seconds) {
+        Call call = enter(key);
+        try {
+            return target.pushList(key, elements, seconds);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> List<T> rangeList(String key, long start, long end, Class<T> clazz) {
+        Call call = enter(key);
+        try {
+            return target.rangeList(key, start, end, clazz);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public boolean trimList(String key, long start, long end) {
+        Call call = enter(key);
+        try {
+            return target.trimList(key, start, end);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public Long listSize(String key) {
+        Call call = enter(key);
+        try {
+            return target.listSize(key);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> Long addSorted(String key, Map<T, Double> elements, int seconds) {
+        Call call = enter(key);
+        try {
+            return target.addSorted(key, elements, seconds);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> List<T> rangeSorted(String key, long start, long end, boolean descending, Class<T> clazz) {
+        Call call = enter(key);
+        try {
+            return target.rangeSorted(key, start, end, descending, clazz);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> List<T> rangeSortedByScore(String key, double min, double max, int offset, int count, Class<T> clazz) {
+        Call call = enter(key);
+        try {
+            return target.rangeSortedByScore(key, min, max, offset, count, clazz);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public Long trimSorted(String key, long maxSize) {
+        Call call = enter(key);
+        try {
+            return target.trimSorted(key, maxSize);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public Long sortedSize(String key) {
+        Call call = enter(key);
+        try {
+            return target.sortedSize(key);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> boolean migrateToList(String key, Class<T> clazz) {
+        Call call = enter(key);
+        try {
+            return target.migrateToList(key, clazz);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public boolean setBits(String key, long... offsets) {
+        Call call = enter(key);
+        try {
+            return raw().setBits(key, offsets);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public boolean[] getBits(String key, long... offsets) {
+        Call call = enter(key);
+        try {
+            return raw().getBits(key, offsets);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public byte[] getBytes(String key) {
+        Call call = enter(key);
+        try {
+            return raw().getBytes(key);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public String getRange(String key, long start, long end) {
+        Call call = enter(key);
+        try {
+            return raw().getRange(key, start, end);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public Long delKeys(List<String> keys) {
+        String key = keys == null || keys.isEmpty() ? "" : keys.get(0);
+        Call call = enter(key);
+        try {
+            return raw().delKeys(keys);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public boolean expireKeys(List<String> keys, int seconds) {
+        String key = keys == null || keys.isEmpty() ? "" : keys.get(0);
+        Call call = enter(key);
+        try {
+            return raw().expireKeys(keys, seconds);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> Versioned<T> getVersioned(String key, Class<T> clazz) {
+        Call call = enter(key);
+        try {
+            return target.getVersioned(key, clazz);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    @Override
+    public <T> long compareAndSet(String key, long expectedVersion, T obj, int seconds) {
+        Call call = enter(key);
+        try {
+            return target.compareAndSet(key, expectedVersion, obj, seconds);
+        } finally {
+            exit(key, call);
+        }
+    }
+
+    /**
+     * 调用方未设置期限时按前缀开始默认期限
+     *
+     * @return 本次调用，没有期限时返回 null
+     */
+    private Call enter(String key) {
+        Deadline current = Deadline.current();
+        if (current != null) {
+            return new Call(current, false);
+        }
+        long millis = millisFor(key);
+        return millis > 0 ? new Call(Deadline.within(millis), true) : null;
+    }
+
+    private void exit(String key, Call call) {
+        if (call != null) {
+            String prefix = rules.match(key);
+            Stats s = stats.get(prefix);
+            if (s == null) {
+                Stats created = new Stats();
+                s = stats.putIfAbsent(prefix, created);
+                if (s == null) {
+                    s = created;
+                }
+            }
+            s.record(call.deadline.exceededCount() != call.exceededBefore);
+            if (call.own) {
+                call.deadline.close();
+            }
+        }
+    }
+
+    /**
+     * 一次带期限的调用
+     */
+    private static final class Call {
+
+        private final Deadline deadline;
+
+        /**
+         * 期限是否由本层开始
+         */
+        private final boolean own;
+
+        /**
+         * 调用开始时期限上已记的失败次数，调用方的期限可能跨多次调用
+         */
+        private final int exceededBefore;
+
+        Call(Deadline deadline, boolean own) {
+            this.deadline = deadline;
+            this.own = own;
+            this.exceededBefore = deadline.exceededCount();
+        }
+    }
+
+    /**
+     * 带期限的调用统计
+     */
+    public static class Stats {
+
+        private final AtomicLong calls = new AtomicLong();
+
+        private final AtomicLong exceeded = new AtomicLong();
+
+        void record(boolean expired) {
+            calls.incrementAndGet();
+            if (expired) {
+                exceeded.incrementAndGet();
+            }
+        }
+
+        /**
+         * 带期限的调用次数
+         */
+        public long getCalls() {
+            return calls.get();
+        }
+
+        /**
+         * 因期限已到而失败或超时的调用次数，期限到达前已完成的调用不计入
+         */
+        public long getExceeded() {
+            return exceeded.get();
+        }
+
+        @Override
+        public String toString() {
+            return "calls=" + calls.get() + ", exceeded=" + exceeded.get();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.szhtp.cache.jedis;
+
+/**
+ * 逐个接收流式解码的元素
+ *
+ * @author null
+ */
+public interface ElementConsumer<T> {
+
+    /**
+     * 接收一个元素
+     *
+     * @param element 元素
+     * @return 返回 false 时停止解码其余元素
+     */
+    boolean accept(T element);
+}
@@ -0,0 +1,184 @@
+package com.szhtp.cache.jedis;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 过期策略：
+ * <ul>
+ * <li>随机抖动：过期秒数随机缩短至多 jitter 比例，同一批写入的 key 不会在同一秒过期</li>
+ * <li>按前缀的默认过期时间：未指定过期时间的写入使用匹配前缀的默认值</li>
+ * <li>滑动过期：匹配前缀的 key 被读取时延长过期时间，同一个 key 在一段时间内只延长一次</li>
+ * <li>最长过期时间：过期时间不超过上限，未指定过期时间且没有默认值的写入也使用上限</li>
+ * </ul>
+ *
+ * @author null
+ */
+public class ExpiryPolicy {
+
+    /**
+     * 记录最近延长时间的 key 数上限，超过时清空重新记录
+     */
+    private static final int MAX_TRACKED_KEYS = 100000;
+
+    /**
+     * 过期秒数随机缩短的最大比例，0 表示不抖动
+     */
+    private final double jitter;
+
+    private final PrefixRules defaultTtls;
+
+    private final PrefixRules slidingTtls;
+
+    /**
+     * 最长过期秒数，0 表示不限
+     */
+    private final int maxTtlSeconds;
+
+    /**
+     * 同一个 key 两次延长的最小间隔占滑动过期时间的比例
+     */
+    private final double slidingThrottle;
+
+    /**
+     * key -> 最近一次写入或延长过期时间的毫秒时间戳
+     */
+    private final ConcurrentHashMap<String, Long> touched = new ConcurrentHashMap<>();
+
+    private final AtomicLong extensions = new AtomicLong();
+
+    /**
+     * @param jitter          过期秒数随机缩短的最大比例，0 到 1
+     * @param defaultTtls     默认过期时间规则，格式 前缀=秒数,...
+     * @param slidingTtls     滑动过期规则，格式 前缀=秒数,...，同时作为这些前缀的默认过期时间
+     * @param maxTtlSeconds   最长过期秒数，0 表示不限
+     * @param slidingThrottle 同一个 key 两次延长的最小间隔占滑动过期时间的比例
+     */
+    public ExpiryPolicy(double jitter, String defaultTtls, String slidingTtls, int maxTtlSeconds, double slidingThrottle) {
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("ttl jitter must be in [0, 1) : " + jitter);
+        }
+        this.jitter = jitter;
+        this.defaultTtls = seconds(defaultTtls);
+        this.slidingTtls = seconds(slidingTtls);
+        this.maxTtlSeconds = Math.max(0, maxTtlSeconds);
+        this.slidingThrottle = Math.max(0, slidingThrottle);
+    }
+
+    /**
+     * 写入使用的过期秒数
+     *
+     * @param key     键
+     * @param seconds 调用方指定的过期秒数，小于等于 0 表示未指定
+     * @return 抖动后的过期秒数，小于等于 0 表示不设置过期时间
+     */
+    public int ttl(String key, int seconds) {
+        return jitter(baseTtl(key, seconds));
+    }
+
+    /**
+     * 应用默认值和上限、未抖动的过期秒数
+     *
+     * @param key     键
+     * @param seconds 调用方指定的过期秒数，小于等于 0 表示未指定
+     * @return 过期秒数，小于等于 0 表示不设置过期时间，此时原样返回 seconds
+     */
+    public int baseTtl(String key, int seconds) {
+        int ttl = seconds;
+        if (ttl <= 0) {
+            ttl = rule(defaultTtls, key);
+        }
+        if (ttl <= 0) {
+            ttl = rule(slidingTtls, key);
+        }
+        if (maxTtlSeconds > 0 && (ttl <= 0 || ttl > maxTtlSeconds)) {
+            ttl = maxTtlSeconds;
+        }
+        return ttl > 0 ? ttl : seconds;
+    }
+
+    /**
+     * 随机缩短过期秒数，结果至少为 1
+     *
+     * @param seconds 过期秒数，小于等于 0 时原样返回
+     * @return 抖动后的过期秒数
+     */
+    public int jitter(int seconds) {
+        int range = (int) (seconds * jitter);
+        if (seconds <= 0 || range <= 0) {
+            return seconds;
+        }
+        return Math.max(1, seconds - ThreadLocalRandom.current().nextInt(range + 1));
+    }
+
+    /**
+     * 读取命中后是否需要延长过期时间，需要时同时记录本次延长
+     *
+     * @param key 键
+     * @return 需要延长时返回抖动后的过期秒数，否则返回 0
+     */
+    public int slide(String key) {
+        int ttl = rule(slidingTtls, key);
+        if (ttl <= 0) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        Long last = touched.get(key);
+        if (last != null && now - last < (long) (ttl * 1000L * slidingThrottle)) {
+            return 0;
+        }
+        track(key, now);
+        extensions.incrementAndGet();
+        return jitter(baseTtl(key, ttl));
+    }
+
+    /**
+     * 写入时刷新了过期时间，之后一段时间内的读取不再延长
+     *
+     * @param key 键
+     */
+    public void written(String key) {
+        if (rule(slidingTtls, key) > 0) {
+            track(key, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * key 被删除
+     *
+     * @param key 键
+     */
+    public void removed(String key) {
+        touched.remove(key);
+    }
+
+    /**
+     * 读取时延长过期时间的次数
+     */
+    public long getExtensions() {
+        return extensions.get();
+    }
+
+    private void track(String key, long now) {
+        if (touched.size() >= MAX_TRACKED_KEYS) {
+            touched.clear();
+        }
+        touched.put(key, now);
+    }
+
+    private static PrefixRules seconds(String text) {
+        PrefixRules rules = PrefixRules.parse(text);
+        for (String value : rules.asMap().values()) {
+            if (Integer.parseInt(value) <= 0) {
+                throw new IllegalArgumentException("ttl rule must be positive seconds : " + text);
+            }
+        }
+        return rules;
+    }
+
+    private static int rule(PrefixRules rules, String key) {
+        String value = rules.valueOf(rules.match(key));
+        return value == null ? 0 : Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,252 @@
+package com.szhtp.cache.jedis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按 {@link ExpiryPolicy} 调整缓存值写入的过期时间，并在滑动过期的 key 读取命中后延长过期时间。
+ * 未指定过期时间的 append 只在 key 新建时设置默认过期时间。
+ * setnx 锁、incr 计数器和 compareAndSet 版本值原样透传，不抖动也不设置默认过期时间，
+ * compareAndSet 未指定过期时间时保留原有的过期时间。
+ *
+ * @author null
+ */
+public class ExpiryPolicyJedisService extends JedisServiceWrapper {
+
+    /**
+     * 批量写入按抖动分成的最大组数，每组一次往返
+     */
+    private static final int JITTER_GROUPS = 8;
+
+    private final ExpiryPolicy policy;
+
+    public ExpiryPolicyJedisService(JedisService target, ExpiryPolicy policy) {
+        super(target);
+        this.policy = policy;
+    }
+
+    public ExpiryPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public void setString(String key, String value) {
+        int ttl = policy.ttl(key, 0);
+        if (ttl > 0) {
+            target.setString(key, value, ttl);
+        } else {
+            target.setString(key, value);
+        }
+        policy.written(key);
+    }
+
+    @Override
+    public boolean setString(String key, String value, int seconds) {
+        policy.written(key);
+        return target.setString(key, value, policy.ttl(key, seconds));
+    }
+
+    @Override
+    public String getString(String key) {
+        String value = target.getString(key);
+        if (value != null && !PenetrationGuardJedisService.NULL_VALUE.equals(value)) {
+            slide(key);
+        }
+        return value;
+    }
+
+    @Override
+    public <T> void setObject(String key, T obj) {
+        int ttl = policy.ttl(key, 0);
+        if (ttl > 0) {
+            target.setObject(key, obj, ttl);
+        } else {
+            target.setObject(key, obj);
+        }
+        policy.written(key);
+    }
+
+    @Override
+    public <T> boolean setObject(String key, T obj, int seconds) {
+        policy.written(key);
+        return target.setObject(key, obj, policy.ttl(key, seconds));
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> clazz) {
+        return slide(key, target.getObject(key, clazz));
+    }
+
+    @Override
+    public <T> void setList(String key, List<T> objList, int seconds) {
+        policy.written(key);
+        target.setList(key, objList, policy.ttl(key, seconds));
+    }
+
+    @Override
+    public <T> List<T> getList(String key, Class<T> clazz) {
+        return slide(key, target.getList(key, clazz));
+    }
+
+    @Override
+    public <T> Iterator<T> iterateList(String key, Class<T> clazz) {
+        return slide(key, target.iterateList(key, clazz));
+    }
+
+    @Override
+    public <T> long streamList(String key, Class<T> clazz, ElementConsumer<T> consumer) {
+        long count = target.streamList(key, clazz, consumer);
+        if (count >= 0) {
+            slide(key);
+        }
+        return count;
+    }
+
+    @Override
+    public Long append(String key, String str) {
+        Long length = target.append(key, str);
+        if (length != null && str != null && length == str.getBytes(StandardCharsets.UTF_8).length) {
+            expireCreated(key);
+        }
+        return length;
+    }
+
+    @Override
+    public Long delKey(String key) {
+        policy.removed(key);
+        return target.delKey(key);
+    }
+
+    @Override
+    public Map<String, String> getStrings(List<String> keys) {
+        Map<String, String> ret = target.getStrings(keys);
+        for (Map.Entry<String, String> e : ret.entrySet()) {
+            if (e.getValue() != null && !PenetrationGuardJedisService.NULL_VALUE.equals(e.getValue())) {
+                slide(e.getKey());
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * 同一个基础过期时间的 key 随机分成若干组，每组使用一个抖动后的过期时间
+     */
+    @Override
+    public boolean setStrings(Map<String, String> values, int seconds) {
+        if (values == null || values.isEmpty()) {
+            return true;
+        }
+        Map<Integer, List<Map<String, String>>> groups = new HashMap<>();
+        for (Map.Entry<String, String> e : values.entrySet()) {
+            int ttl = policy.baseTtl(e.getKey(), seconds);
+            List<Map<String, String>> buckets = groups.get(ttl);
+            if (buckets == null) {
+                buckets = new ArrayList<>(JITTER_GROUPS);
+                for (int i = 0; i < JITTER_GROUPS; i++) {
+                    buckets.add(new LinkedHashMap<String, String>());
+                }
+                groups.put(ttl, buckets);
+            }
+            buckets.get(ttl > 0 ? ThreadLocalRandom.current().nextInt(JITTER_GROUPS) : 0).put(e.getKey(), e.getValue());
+            policy.written(e.getKey());
+        }
+        boolean result = true;
+        for (Map.Entry<Integer, List<Map<String, String>>> group : groups.entrySet()) {
+            for (Map<String, String> bucket : group.getValue()) {
+                if (!bucket.isEmpty() && !target.setStrings(bucket, policy.jitter(group.getKey()))) {
+                    result = false;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String getSet(String key, String value, int seconds) {
+        policy.written(key);
+        return target.getSet(key, value, policy.ttl(key, seconds));
+    }
+
+    @Override
+    public <T> boolean setObjectAsHash(String key, T obj, int seconds) {
+        policy.written(key);
+        return target.setObjectAsHash(key, obj, policy.ttl(key, seconds));
+    }
+
+    @Override
+    public <T> T getObjectFromHash(String key, Class<T> clazz) {
+        return slide(key, target.getObjectFromHash(key, clazz));
+    }
+
+    @Override
+    public <T> T getFields(String key, Class<T> clazz, String... fields) {
+        return slide(key, target.getFields(key, clazz, fields));
+    }
+
+    @Override
+    public <T> Long pushList(String key, List<T> elements, int seconds) {
+        policy.written(key);
+        return target.pushList(key, elements, policy.ttl(key, seconds));
+    }
+
+    @Override
+    public <T> List<T> rangeList(String key, long start, long end, Class<T> clazz) {
+        return slide(key, target.rangeList(key, start, end, clazz));
+    }
+
+    @Override
+    public <T> Long addSorted(String key, Map<T, Double> elements, int seconds) {
+        policy.written(key);
+        return target.addSorted(key, elements, policy.ttl(key, seconds));
+    }
+
+    @Override
+    public <T> List<T> rangeSorted(String key, long start, long end, boolean descending, Class<T> clazz) {
+        return slide(key, target.rangeSorted(key, start, end, descending, clazz));
+    }
+
+    @Override
+    public <T> List<T> rangeSortedByScore(String key, double min, double max, int offset, int count, Class<T> clazz) {
+        return slide(key, target.rangeSortedByScore(key, min, max, offset, count, clazz));
+    }
+
+    @Override
+    public <T> Versioned<T> getVersioned(String key, Class<T> clazz) {
+        Versioned<T> versioned = target.getVersioned(key, clazz);
+        if (versioned != null && versioned.getVersion() > 0) {
+            slide(key);
+        }
+        return versioned;
+    }
+
+    /**
+     * 未指定过期时间的写入新建了 key，按默认值设置过期时间
+     */
+    private void expireCreated(String key) {
+        int ttl = policy.ttl(key, 0);
+        if (ttl > 0) {
+            target.expire(key, ttl);
+            policy.written(key);
+        }
+    }
+
+    private <V> V slide(String key, V value) {
+        if (value != null) {
+            slide(key);
+        }
+        return value;
+    }
+
+    private void slide(String key) {
+        int ttl = policy.slide(key);
+        if (ttl > 0) {
+            target.expire(key, ttl);
+        }
+    }
+}
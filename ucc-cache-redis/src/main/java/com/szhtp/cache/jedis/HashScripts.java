@@ -0,0 +1,70 @@
+package com.szhtp.cache.jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * hash 对象存储使用的脚本，整体替换和部分更新都在服务端原子执行
+ *
+ * @author null
+ */
+public final class HashScripts {
+
+    /**
+     * 删除旧 hash 后写入所有字段并设置过期时间。ARGV[1] 为过期秒数，之后为字段、值交替
+     */
+    public static final RedisScript REPLACE = new RedisScript(
+            "redis.call('del', KEYS[1])\n"
+                    + "if #ARGV > 1 then redis.call('hmset', KEYS[1], unpack(ARGV, 2)) end\n"
+                    + "if tonumber(ARGV[1]) > 0 then redis.call('expire', KEYS[1], ARGV[1]) end\n"
+                    + "return 1");
+
+    /**
+     * hash 存在时更新部分字段，不存在时不创建。ARGV[1] 为写入的字段数 n，
+     * 之后 n 组字段、值交替，其余为需要删除的字段
+     */
+    public static final RedisScript UPDATE = new RedisScript(
+            "if redis.call('exists', KEYS[1]) == 0 then return 0 end\n"
+                    + "local n = tonumber(ARGV[1])\n"
+                    + "if n > 0 then redis.call('hmset', KEYS[1], unpack(ARGV, 2, 1 + n * 2)) end\n"
+                    + "if #ARGV > 1 + n * 2 then redis.call('hdel', KEYS[1], unpack(ARGV, 2 + n * 2)) end\n"
+                    + "return 1");
+
+    private HashScripts() {
+    }
+
+    /**
+     * {@link #REPLACE} 的参数，值为空的字段不写入
+     */
+    static List<String> replaceArgs(Map<String, String> hash, int seconds) {
+        List<String> args = new ArrayList<>(hash.size() * 2 + 1);
+        args.add(Integer.toString(seconds));
+        for (Map.Entry<String, String> e : hash.entrySet()) {
+            if (e.getValue() != null) {
+                args.add(e.getKey());
+                args.add(e.getValue());
+            }
+        }
+        return args;
+    }
+
+    /**
+     * {@link #UPDATE} 的参数，值为空的字段删除
+     */
+    static List<String> updateArgs(Map<String, String> fields) {
+        List<String> set = new ArrayList<>(fields.size() * 2 + 1);
+        List<String> removed = new ArrayList<>();
+        for (Map.Entry<String, String> e : fields.entrySet()) {
+            if (e.getValue() == null) {
+                removed.add(e.getKey());
+            } else {
+                set.add(e.getKey());
+                set.add(e.getValue());
+            }
+        }
+        set.add(0, Integer.toString((set.size()) / 2));
+        set.addAll(removed);
+        return set;
+    }
+}
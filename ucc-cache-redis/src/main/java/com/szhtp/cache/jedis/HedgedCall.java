@@ -0,0 +1,109 @@
+package com.szhtp.cache.jedis;
+
+import redis.clients.jedis.Jedis;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * 一次对冲读中在调用线程上执行的首次读取。引擎取得连接后登记到这里，
+ * 对冲请求先返回时关闭该连接的 socket，让阻塞在读取上的调用线程立即返回。
+ * 被关闭的连接在归还时销毁或在下次使用时重连。
+ *
+ * @author null
+ */
+final class HedgedCall {
+
+    private static final ThreadLocal<HedgedCall> CURRENT = new ThreadLocal<>();
+
+    private Jedis connection;
+
+    private boolean aborted;
+
+    /**
+     * 在当前线程上开始一次首次读取，返回原来的上下文，结束时传给 {@link #end(HedgedCall)}
+     */
+    HedgedCall begin() {
+        HedgedCall previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    static void end(HedgedCall previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * 登记当前线程取得的连接，不在对冲读中时忽略；已被放弃时立即关闭
+     *
+     * @param jedis 连接
+     */
+    static void attach(Jedis jedis) {
+        HedgedCall call = CURRENT.get();
+        if (call != null && jedis != null) {
+            call.register(jedis);
+        }
+    }
+
+    /**
+     * 取消登记，连接归还前调用
+     *
+     * @param jedis 连接
+     */
+    static void detach(Jedis jedis) {
+        HedgedCall call = CURRENT.get();
+        if (call != null && jedis != null) {
+            call.unregister(jedis);
+        }
+    }
+
+    /**
+     * 当前线程的首次读取是否已被对冲请求取代，引擎据此跳过错误日志、故障标记和回退重试
+     */
+    static boolean isAborted() {
+        HedgedCall call = CURRENT.get();
+        return call != null && call.aborted();
+    }
+
+    /**
+     * 放弃首次读取，关闭已登记的连接
+     */
+    synchronized void abort() {
+        aborted = true;
+        if (connection != null) {
+            close(connection);
+        }
+    }
+
+    synchronized boolean aborted() {
+        return aborted;
+    }
+
+    private synchronized void register(Jedis jedis) {
+        connection = jedis;
+        if (aborted) {
+            close(jedis);
+        }
+    }
+
+    private synchronized void unregister(Jedis jedis) {
+        if (connection == jedis) {
+            connection = null;
+        }
+    }
+
+    private static void close(Jedis jedis) {
+        Socket socket = jedis.getClient().getSocket();
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // 已关闭
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.szhtp.cache.jedis;
+
+import com.alibaba.fastjson.JSON;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲读：getString/getObject 的首次读取在调用线程执行，超过近期延迟分位数仍未返回时，
+ * 向副本再发一次读，取先返回的结果；对冲先返回时关闭首次读取的连接，让调用线程立即返回。
+ * 每次读取在专用的定时线程上安排一次对冲，读取完成时取消，没有读取时不占用线程。
+ * 未超过延迟的读取不经过线程切换。需要副本路由，只有一个节点时不应开启。
+ * 对冲次数不超过读请求数的 maxHedgeRatio，避免故障节点被放大负载。
+ *
+ * @author null
+ */
+public class HedgedReadJedisService extends JedisServiceWrapper {
+
+    private static final Logger log = LoggerFactory.getLogger(HedgedReadJedisService.class);
+
+    /**
+     * 令牌以千分之一为单位
+     */
+    private static final long TOKEN = 1000;
+
+    /**
+     * 令牌桶上限，允许的对冲突发数
+     */
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final String prefix;
+
+    /**
+     * 对冲目标
+     */
+    private final ReplicaRouter replicaRouter;
+
+    private final double percentile;
+
+    private final long minDelayMicros;
+
+    private final long tokensPerRead;
+
+    private final LatencyRecorder latency = new LatencyRecorder(2048);
+
+    private final AtomicLong tokens = new AtomicLong(MAX_TOKENS);
+
+    private final AtomicLong reads = new AtomicLong();
+
+    private final AtomicLong hedges = new AtomicLong();
+
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 对冲定时器，每次读取安排一次，读取完成时取消
+     */
+    private final ScheduledThreadPoolExecutor timer;
+
+    private final ScheduledFuture<?> delayTask;
+
+    /**
+     * 当前对冲延迟，微秒
+     */
+    private volatile long delayMicros;
+
+    /**
+     * @param target        被包装的服务
+     * @param prefix        key 前缀，用于组装副本上的真实 key
+     * @param replicaRouter 副本路由
+     * @param percentile    对冲延迟取首次读取耗时的分位数，如 0.95
+     * @param minDelayMillis 对冲延迟下限，毫秒
+     * @param maxHedgeRatio 对冲请求占读请求的最大比例
+     * @param threads       执行对冲读的最大线程数
+     */
+    public HedgedReadJedisService(JedisService target, String prefix, ReplicaRouter replicaRouter, double percentile,
+                                  long minDelayMillis, double maxHedgeRatio, int threads) {
+        super(target);
+        this.prefix = prefix;
+        this.replicaRouter = replicaRouter;
+        this.percentile = percentile;
+        this.minDelayMicros = minDelayMillis * 1000;
+        this.tokensPerRead = Math.max(1, (long) (maxHedgeRatio * TOKEN));
+        this.delayMicros = minDelayMicros;
+        this.executor = new ThreadPoolExecutor(0, Math.max(2, threads), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), CacheExecutors.threadFactory("ucc-cache-hedge"));
+        this.timer = new ScheduledThreadPoolExecutor(1, CacheExecutors.threadFactory("ucc-cache-hedge-timer"));
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.delayTask = CacheExecutors.scheduler().scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                updateDelay();
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public String getString(final String key) {
+        reads.incrementAndGet();
+        refill();
+        long start = System.nanoTime();
+        if (tokens.get() < TOKEN) {
+            // 对冲配额已用完，不安排对冲
+            String value = target.getString(key);
+            latency.record((System.nanoTime() - start) / 1000);
+            return value;
+        }
+        final Race race = new Race(key, Deadline.current());
+        ScheduledFuture<?> hedge;
+        try {
+            hedge = timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    race.fire();
+                }
+            }, delayMicros, TimeUnit.MICROSECONDS);
+        } catch (RejectedExecutionException e) {
+            // 已关闭
+            return target.getString(key);
+        }
+        String value;
+        HedgedCall previous = race.call.begin();
+        try {
+            value = target.getString(key);
+        } finally {
+            HedgedCall.end(previous);
+            hedge.cancel(false);
+        }
+        if (race.state.compareAndSet(Race.RUNNING, Race.PRIMARY)) {
+            latency.record((System.nanoTime() - start) / 1000);
+            return value;
+        }
+        hedgeWins.incrementAndGet();
+        return race.hedgeValue;
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> clazz) {
+        String s = getString(key);
+        if (s != null && !"".equals(s.trim())) {
+            return JSON.parseObject(s, clazz);
+        }
+        return null;
+    }
+
+    /**
+     * 读请求总数
+     */
+    public long getReads() {
+        return reads.get();
+    }
+
+    /**
+     * 发出的对冲请求数
+     */
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    /**
+     * 对冲请求先于首次请求返回的次数
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * 当前对冲延迟，微秒
+     */
+    public long getDelayMicros() {
+        return delayMicros;
+    }
+
+    public void shutdown() {
+        delayTask.cancel(false);
+        timer.shutdownNow();
+        executor.shutdown();
+    }
+
+    private void refill() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current >= MAX_TOKENS) {
+                return;
+            }
+        } while (!tokens.compareAndSet(current, Math.min(MAX_TOKENS, current + tokensPerRead)));
+    }
+
+    private boolean acquire() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    private void updateDelay() {
+        long p = latency.percentile(percentile);
+        delayMicros = Math.max(minDelayMicros, p);
+    }
+
+    /**
+     * 一次对冲读：调用线程执行首次读取，超过对冲延迟仍未返回时由定时器在线程池发出对冲读，
+     * 先成功返回的一方胜出；对冲胜出时关闭首次读取的连接，让调用线程立即返回
+     */
+    private final class Race {
+
+        static final int RUNNING = 0;
+
+        static final int PRIMARY = 1;
+
+        static final int HEDGE = 2;
+
+        private final String key;
+
+        private final Deadline deadline;
+
+        private final HedgedCall call = new HedgedCall();
+
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+
+        private volatile String hedgeValue;
+
+        Race(String key, Deadline deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 对冲延迟到达，发出对冲读
+         */
+        void fire() {
+            if (state.get() != RUNNING || (deadline != null && deadline.isExpired())) {
+                return;
+            }
+            final String realKey = StringUtils.isBlank(prefix) ? key : prefix + key;
+            final RedisNode replica = replicaRouter.hedgeTarget(realKey);
+            if (replica == null || !acquire()) {
+                return;
+            }
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        hedge(replica, realKey);
+                    }
+                });
+                hedges.incrementAndGet();
+            } catch (RejectedExecutionException e) {
+                // 线程耗尽时不做对冲
+            }
+        }
+
+        private void hedge(RedisNode replica, String realKey) {
+            Deadline previous = Deadline.attach(deadline);
+            try {
+                String value = replicaRouter.get(replica, realKey);
+                hedgeValue = value;
+                if (state.compareAndSet(RUNNING, HEDGE)) {
+                    call.abort();
+                }
+            } catch (Exception e) {
+                log.warn("get -> [" + key + "] hedge to " + replica + " error : " + e);
+            } finally {
+                Deadline.attach(previous);
+            }
+        }
+    }
+}
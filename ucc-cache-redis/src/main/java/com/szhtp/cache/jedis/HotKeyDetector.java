@@ -0,0 +1,341 @@
+package com.szhtp.cache.jedis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 热点 key 探测。
+ * 读操作计入 count-min sketch，估计次数达到阈值的 key 进入容量为 topK、按次数排序的集合，计数增加时重新排序；
+ * 每个衰减周期所有计数减半，估计次数低于阈值的 key 视为已冷却并移出。
+ *
+ * @author null
+ */
+public class HotKeyDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(HotKeyDetector.class);
+
+    private static final int DEPTH = 4;
+
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    /**
+     * 真实 key 的前缀，报表中使用
+     */
+    private final String prefix;
+
+    /**
+     * 一个衰减周期内被判定为热点的读次数
+     */
+    private final int threshold;
+
+    /**
+     * 最多跟踪的热点 key 数量
+     */
+    private final int topK;
+
+    /**
+     * 报表分组时的命名空间分隔符，如 config:xxx 归入 config:
+     */
+    private final String separator;
+
+    private final int mask;
+
+    private final AtomicIntegerArray counters;
+
+    private final Map<String, Candidate> hot = new ConcurrentHashMap<>();
+
+    /**
+     * 热点 key 按估计次数升序，次数相同按 key 排序；元素的计数只在移出集合后修改
+     */
+    private final TreeSet<Candidate> ranked;
+
+    /**
+     * 集合满后进入所需的最小估计次数
+     */
+    private volatile long admission;
+
+    private volatile Listener listener;
+
+    private ScheduledFuture<?> decayTask;
+
+    /**
+     * @param prefix      真实 key 的前缀
+     * @param threshold   一个衰减周期内被判定为热点的读次数
+     * @param topK        最多跟踪的热点 key 数量
+     * @param width       sketch 每行的计数器个数，向上取 2 的幂
+     * @param separator   报表分组时的命名空间分隔符
+     */
+    public HotKeyDetector(String prefix, int threshold, int topK, int width, String separator) {
+        this.prefix = prefix == null ? "" : prefix;
+        this.threshold = Math.max(1, threshold);
+        this.topK = Math.max(1, topK);
+        this.separator = separator;
+        int size = Integer.highestOneBit(Math.max(16, width - 1)) << 1;
+        this.mask = size - 1;
+        this.counters = new AtomicIntegerArray(size * DEPTH);
+        this.ranked = new TreeSet<>(new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate a, Candidate b) {
+                if (a.count != b.count) {
+                    return a.count < b.count ? -1 : 1;
+                }
+                return a.key.compareTo(b.key);
+            }
+        });
+        this.admission = this.threshold;
+    }
+
+    /**
+     * 按固定周期衰减计数
+     *
+     * @param decayMillis 衰减周期
+     */
+    public synchronized void start(long decayMillis) {
+        if (decayTask == null) {
+            decayTask = CacheExecutors.scheduler().scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    decay();
+                }
+            }, decayMillis, decayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (decayTask != null) {
+            decayTask.cancel(false);
+            decayTask = null;
+        }
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 记录一次读
+     *
+     * @param key 未加前缀的 key
+     * @return 当前是否为热点 key
+     */
+    public boolean record(String key) {
+        int h = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(i, h)));
+        }
+        Candidate candidate = hot.get(key);
+        if (candidate != null) {
+            if (estimate > candidate.count) {
+                raise(candidate, estimate);
+            }
+            return true;
+        }
+        if (estimate < threshold || estimate <= admission) {
+            return false;
+        }
+        return admit(key, estimate);
+    }
+
+    /**
+     * 是否为热点 key
+     */
+    public boolean isHot(String key) {
+        return hot.containsKey(key);
+    }
+
+    /**
+     * 当前热点 key，按估计次数降序
+     */
+    public List<HotKey> hotKeys() {
+        List<HotKey> list = new ArrayList<>(hot.size());
+        for (Candidate c : hot.values()) {
+            list.add(new HotKey(prefix + c.key, c.count));
+        }
+        Collections.sort(list, new Comparator<HotKey>() {
+            @Override
+            public int compare(HotKey a, HotKey b) {
+                return a.getCount() > b.getCount() ? -1 : (a.getCount() == b.getCount() ? 0 : 1);
+            }
+        });
+        return list;
+    }
+
+    /**
+     * 当前热点 key 按前缀分组，前缀为 key 前缀加第一个分隔符之前的命名空间
+     */
+    public Map<String, List<HotKey>> hotKeysByPrefix() {
+        Map<String, List<HotKey>> grouped = new LinkedHashMap<>();
+        for (HotKey hotKey : hotKeys()) {
+            String key = hotKey.getKey().substring(prefix.length());
+            int idx = separator == null || separator.isEmpty() ? -1 : key.indexOf(separator);
+            String group = prefix + (idx < 0 ? "" : key.substring(0, idx + separator.length()));
+            List<HotKey> list = grouped.get(group);
+            if (list == null) {
+                list = new ArrayList<>();
+                grouped.put(group, list);
+            }
+            list.add(hotKey);
+        }
+        return grouped;
+    }
+
+    /**
+     * 提高已跟踪 key 的计数，先移出集合再放回以保持顺序
+     */
+    private synchronized void raise(Candidate candidate, long estimate) {
+        if (hot.get(candidate.key) != candidate || estimate <= candidate.count) {
+            return;
+        }
+        ranked.remove(candidate);
+        candidate.count = estimate;
+        ranked.add(candidate);
+        admission = ranked.size() >= topK ? ranked.first().count : threshold;
+    }
+
+    private synchronized boolean admit(String key, long estimate) {
+        if (hot.containsKey(key)) {
+            return true;
+        }
+        if (ranked.size() >= topK) {
+            Candidate min = ranked.first();
+            if (min.count >= estimate) {
+                return false;
+            }
+            ranked.pollFirst();
+            hot.remove(min.key);
+            cooled(min.key);
+        }
+        Candidate candidate = new Candidate(key, estimate);
+        ranked.add(candidate);
+        hot.put(key, candidate);
+        admission = ranked.size() >= topK ? ranked.first().count : threshold;
+        Listener current = listener;
+        if (current != null) {
+            current.onHot(key, estimate);
+        }
+        log.info("[hotKey] detected -> [" + prefix + key + "] count : " + estimate);
+        return true;
+    }
+
+    /**
+     * 所有计数减半，移除冷却的 key 并重新排序
+     */
+    synchronized void decay() {
+        // 与 record 并发时可能丢失少量计数，对估计值影响可以忽略
+        for (int i = 0; i < counters.length(); i++) {
+            int v = counters.get(i);
+            if (v != 0) {
+                counters.set(i, v >>> 1);
+            }
+        }
+        ranked.clear();
+        for (Candidate c : new ArrayList<>(hot.values())) {
+            c.count = estimate(c.key);
+            if (c.count < threshold) {
+                hot.remove(c.key);
+                cooled(c.key);
+            } else {
+                ranked.add(c);
+            }
+        }
+        admission = ranked.size() >= topK ? ranked.first().count : threshold;
+    }
+
+    private long estimate(String key) {
+        int h = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            estimate = Math.min(estimate, counters.get(index(i, h)));
+        }
+        return estimate;
+    }
+
+    private void cooled(String key) {
+        Listener current = listener;
+        if (current != null) {
+            current.onCooled(key);
+        }
+        log.info("[hotKey] cooled -> [" + prefix + key + "]");
+    }
+
+    private int index(int row, int hash) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        h *= 0x7FEB352D;
+        h ^= h >>> 15;
+        return row * (mask + 1) + (h & mask);
+    }
+
+    /**
+     * 热点状态变化通知
+     */
+    public interface Listener {
+
+        /**
+         * key 成为热点
+         */
+        void onHot(String key, long count);
+
+        /**
+         * key 冷却或被更热的 key 挤出
+         */
+        void onCooled(String key);
+    }
+
+    /**
+     * 热点 key 报表项
+     */
+    public static class HotKey {
+
+        private final String key;
+
+        private final long count;
+
+        public HotKey(String key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+
+        /**
+         * 真实 key（含前缀）
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * 当前衰减周期内的估计读次数
+         */
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + count;
+        }
+    }
+
+    private static final class Candidate {
+        final String key;
+        volatile long count;
+
+        Candidate(String key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+}
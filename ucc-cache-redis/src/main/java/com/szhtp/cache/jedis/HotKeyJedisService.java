@@ -0,0 +1,284 @@
+package com.szhtp.cache.jedis;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 热点 key 探测层：统计读请求，可选把热点 key 的值提升到本地短时缓存，
+ * 冷却后自动移出。本节点的写操作会同步清除本地副本，其它节点的写入在本地 TTL 到期后可见。
+ *
+ * @author null
+ */
+public class HotKeyJedisService extends JedisServiceWrapper {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final HotKeyDetector detector;
+
+    /**
+     * 热点 key 的本地缓存，为空表示只探测不提升
+     */
+    private final LocalCache localCache;
+
+    /**
+     * 本地缓存存活毫秒数
+     */
+    private final long localTtlMillis;
+
+    /**
+     * 按 key 分段的失效代数，写操作先加一再清除本地副本；读到旧值的 getString 发现代数变化时不放入本地缓存
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * 清空本地缓存时加一
+     */
+    private final AtomicLong clearGeneration = new AtomicLong();
+
+    public HotKeyJedisService(JedisService target, HotKeyDetector detector, LocalCache localCache, long localTtlMillis) {
+        super(target);
+        this.detector = detector;
+        this.localCache = localCache;
+        this.localTtlMillis = localTtlMillis;
+        if (localCache != null) {
+            detector.setListener(new HotKeyDetector.Listener() {
+                @Override
+                public void onHot(String key, long count) {
+                }
+
+                @Override
+                public void onCooled(String key) {
+                    HotKeyJedisService.this.localCache.remove(key);
+                }
+            });
+        }
+    }
+
+    public HotKeyDetector getDetector() {
+        return detector;
+    }
+
+    public LocalCache getLocalCache() {
+        return localCache;
+    }
+
+    /**
+     * 预先把一组值放入本地缓存，用于启动预热
+     *
+     * @param values    键 -> 值，值为空的键忽略
+     * @param ttlMillis 本地缓存存活毫秒数
+     * @return 放入本地缓存的键数量，未开启本地缓存时返回 0
+     */
+    public int preload(Map<String, String> values, long ttlMillis) {
+        if (localCache == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Map.Entry<String, String> e : values.entrySet()) {
+            if (e.getValue() != null) {
+                localCache.put(e.getKey(), e.getValue(), ttlMillis);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String getString(String key) {
+        if (localCache != null) {
+            String local = localCache.get(key);
+            if (local != null) {
+                detector.record(key);
+                return local;
+            }
+        }
+        long generation = localCache == null ? 0 : generation(key);
+        String value = target.getString(key);
+        if (detector.record(key) && localCache != null && generation(key) == generation) {
+            localCache.put(key, value, localTtlMillis);
+            // GET 之后、put 之前到达的写操作可能已经清除过本地副本，再检查一次
+            if (generation(key) != generation) {
+                localCache.remove(key);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> clazz) {
+        String s = getString(key);
+        if (s != null && !"".equals(s.trim())) {
+            return JSON.parseObject(s, clazz);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> List<T> getList(String key, Class<T> clazz) {
+        String s = getString(key);
+        if (s != null && !"".equals(s.trim())) {
+            return JSONArray.parseArray(s, clazz);
+        }
+        return null;
+    }
+
+    @Override
+    public void setString(String key, String value) {
+        target.setString(key, value);
+        invalidate(key);
+    }
+
+    @Override
+    public boolean setString(String key, String value, int seconds) {
+        boolean result = target.setString(key, value, seconds);
+        invalidate(key);
+        return result;
+    }
+
+    @Override
+    public Long setnxString(String key, String value, int seconds) {
+        Long result = target.setnxString(key, value, seconds);
+        invalidate(key);
+        return result;
+    }
+
+    @Override
+    public <T> void setObject(String key, T obj) {
+        target.setObject(key, obj);
+        invalidate(key);
+    }
+
+    @Override
+    public <T> boolean setObject(String key, T obj, int seconds) {
+        boolean result = target.setObject(key, obj, seconds);
+        invalidate(key);
+        return result;
+    }
+
+    @Override
+    public <T> void setList(String key, List<T> objList, int seconds) {
+        target.setList(key, objList, seconds);
+        invalidate(key);
+    }
+
+    @Override
+    public Long append(String key, String str) {
+        Long result = target.append(key, str);
+        invalidate(key);
+        return result;
+    }
+
+    @Override
+    public Long delKey(String key) {
+        Long result = target.delKey(key);
+        invalidate(key);
+        return result;
+    }
+
+    @Override
+    public long deleteByPattern(String pattern) {
+        long result = target.deleteByPattern(pattern);
+        invalidateAll();
+        return result;
+    }
+
+    @Override
+    public long deleteByPrefix(String keyPrefix) {
+        long result = target.deleteByPrefix(keyPrefix);
+        invalidateAll();
+        return result;
+    }
+
+    @Override
+    public boolean setStrings(Map<String, String> values, int seconds) {
+        boolean result = target.setStrings(values, seconds);
+        for (String key : values.keySet()) {
+            invalidate(key);
+        }
+        return result;
+    }
+
+    @Override
+    public String getSet(String key, String value, int seconds) {
+        String result = target.getSet(key, value, seconds);
+        invalidate(key);
+        return result;
+    }
+
+    @Override
+    public Long incr(String key, int expire) {
+        Long result = target.incr(key, expire);
+        invalidate(key);
+        return result;
+    }
+
+    @Override
+    public Long incr(String key) {
+        Long result = target.incr(key);
+        invalidate(key);
+        return result;
+    }
+
+    @Override
+    public <T> boolean migrateToList(String key, Class<T> clazz) {
+        boolean result = target.migrateToList(key, clazz);
+        invalidate(key);
+        return result;
+    }
+
+    @Override
+    public Long delKeys(List<String> keys) {
+        Long result = raw().delKeys(keys);
+        if (keys != null) {
+            for (String key : keys) {
+                invalidate(key);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean setBits(String key, long... offsets) {
+        boolean result = raw().setBits(key, offsets);
+        invalidate(key);
+        return result;
+    }
+
+    @Override
+    public <T> long compareAndSet(String key, long expectedVersion, T obj, int seconds) {
+        long result = target.compareAndSet(key, expectedVersion, obj, seconds);
+        invalidate(key);
+        return result;
+    }
+
+    private void invalidate(String key) {
+        if (localCache != null) {
+            generations.incrementAndGet(stripe(key));
+            localCache.remove(key);
+        }
+    }
+
+    private long generation(String key) {
+        return clearGeneration.get() + generations.get(stripe(key));
+    }
+
+    private static int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    /**
+     * 批量删除后清空本地缓存，不逐个匹配模式
+     */
+    private void invalidateAll() {
+        if (localCache != null) {
+            clearGeneration.incrementAndGet();
+            localCache.clear();
+        }
+    }
+}
@@ -6,20 +6,35 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.SafeEncoder;
 
-import java.io.IOException;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * JedisService 集群实现
  *
  * @author null
  */
-public class JedisClusterServiceImpl implements JedisService {
+public class JedisClusterServiceImpl implements JedisService, RawSupport, PubSubSupport, ProfileSupport, Closeable, Warmable {
 
     private static final Logger log = LoggerFactory.getLogger(JedisClusterServiceImpl.class);
 
@@ -59,6 +74,28 @@ public class JedisClusterServiceImpl implements JedisService {
 
     private JedisCluster jedisCluster;
 
+    private RedisClientRegistry.Lease<JedisCluster> lease;
+
+    /**
+     * 是否与其它前缀共用同一集群的客户端
+     */
+    private boolean shared = true;
+
+    /**
+     * 本前缀的命令统计
+     */
+    private PrefixMetrics metrics = new PrefixMetrics();
+
+    /**
+     * 读副本路由，为空时所有读操作走 master
+     */
+    private ReplicaRouter replicaRouter;
+
+    /**
+     * 批量删除 key 的清理器
+     */
+    private KeySweeper sweeper = new KeySweeper(500, 5000);
+
     public String getPrefix() {
         return prefix;
     }
@@ -68,6 +105,14 @@ public class JedisClusterServiceImpl implements JedisService {
     }
 
     public JedisClusterServiceImpl(String prefix, String[] serverList, String[] portList, String password, int maxActive) {
+        this(prefix, serverList, portList, password, maxActive, true);
+    }
+
+    /**
+     * @param shared 是否与其它前缀共用同一集群的客户端
+     */
+    public JedisClusterServiceImpl(String prefix, String[] serverList, String[] portList, String password, int maxActive, boolean shared) {
+        this.shared = shared;
         if (prefix != null && !"".equals(prefix.trim())) {
             this.prefix = prefix.trim();
         }
@@ -75,7 +120,6 @@ public class JedisClusterServiceImpl implements JedisService {
         this.portList = portList;
         this.password = password;
         this.maxActive = maxActive;
-        this.initialPoolConfig();
     }
 
     /**
@@ -84,44 +128,121 @@ public class JedisClusterServiceImpl implements JedisService {
      * @return Jedis
      */
     public void initialPoolConfig() {
-        Set<HostAndPort> nodes = new HashSet<>();
+        final Set<HostAndPort> nodes = new HashSet<>();
+        Set<String> names = new TreeSet<>();
         for (int i = 0; i < serverList.length; i++) {
             nodes.add(new HostAndPort(serverList[i], Integer.valueOf(portList[i])));
+            names.add(serverList[i] + ":" + Integer.valueOf(portList[i]));
         }
-        if (this.password != null && !"".equals(this.password)) {
-            JedisPoolConfig jedisPoolConfig = new JedisPoolConfig();
-            jedisPoolConfig.setMaxIdle(maxIdle);
-            jedisPoolConfig.setMaxWaitMillis(maxWait);
-            this.jedisCluster = new JedisCluster(nodes, timeout, timeout, 5, password, jedisPoolConfig);
-        } else {
-            this.jedisCluster = new JedisCluster(nodes, timeout);
+        String endpoint = "cluster:" + names;
+        if (!shared) {
+            endpoint = endpoint + "@" + Integer.toHexString(System.identityHashCode(this));
         }
+        this.lease = RedisClientRegistry.acquire(endpoint, password, prefix, new RedisClientRegistry.Factory<JedisCluster>() {
+            @Override
+            public JedisCluster create() {
+                if (password != null && !"".equals(password)) {
+                    JedisPoolConfig jedisPoolConfig = new JedisPoolConfig();
+                    jedisPoolConfig.setMaxIdle(maxIdle);
+                    jedisPoolConfig.setMaxWaitMillis(maxWait);
+                    return new JedisCluster(nodes, timeout, timeout, 5, password, jedisPoolConfig);
+                }
+                return new JedisCluster(nodes, timeout);
+            }
+        });
+        this.jedisCluster = lease.get();
+        this.metrics = lease.getMetrics();
     }
 
     /**
-     * 同步获取Jedis实例
+     * 开启读副本，按 key 前缀的读策略把读请求分散到各分片的副本
+     *
+     * @param policies      读策略
+     * @param refreshMillis 拓扑刷新间隔
+     */
+    public void enableReplicaReads(ReadPolicies policies, long refreshMillis) {
+        ClusterReplicaRouter router = new ClusterReplicaRouter(policies, serverList, portList, password, timeout, maxActive);
+        router.start(refreshMillis);
+        this.replicaRouter = router;
+    }
+
+    public ReplicaRouter getReplicaRouter() {
+        return replicaRouter;
+    }
+
+    public void setSweeper(KeySweeper sweeper) {
+        this.sweeper = sweeper;
+    }
+
+    /**
+     * 同步获取Jedis实例，调用期限已到时抛出 {@link DeadlineExceededException}。
+     * JedisCluster 不支持按次调整 socket 超时，期限只在命令开始前检查
      *
      * @return Jedis
      */
     public synchronized JedisCluster getJedis() {
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            deadline.check("cluster");
+        }
         if (jedisCluster == null) {
             initialPoolConfig();
         }
+        metrics.borrowed();
         return jedisCluster;
     }
 
+    /**
+     * 建立集群客户端并拉取 slot 拓扑，未调用时在第一次操作时建立
+     */
+    @Override
+    public synchronized void prepare() {
+        if (jedisCluster == null) {
+            initialPoolConfig();
+        }
+    }
+
+    @Override
+    public synchronized Collection<JedisPool> pools() {
+        return jedisCluster == null ? Collections.<JedisPool>emptyList() : jedisCluster.getClusterNodes().values();
+    }
+
+    /**
+     * 集群各节点连接池使用默认配置，每个节点预建一个连接
+     */
+    @Override
+    public int warmUpConnections() {
+        return 1;
+    }
+
+    public PrefixMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 释放集群客户端和副本连接
+     */
+    @Override
+    public synchronized void close() {
+        if (replicaRouter != null) {
+            replicaRouter.stop();
+        }
+        jedisCluster = null;
+        if (lease != null) {
+            lease.close();
+            lease = null;
+        }
+    }
+
     /**
      * 释放jedis资源
+     * JedisCluster 每条命令执行完会自行归还连接，这里不能 close，否则会销毁所有节点的连接池
      *
      * @param jedis 资源
      */
     private void returnResource(JedisCluster jedis) {
         if (jedis != null) {
-            try {
-                jedis.close();
-            } catch (IOException e) {
-                log.error(e.getMessage(), e);
-            }
+            metrics.returned();
         }
     }
 
@@ -209,6 +330,19 @@ public class JedisClusterServiceImpl implements JedisService {
      */
     @Override
     public String getString(String key) {
+        if (replicaRouter != null) {
+            RedisNode node = replicaRouter.route(key, realKey(key));
+            if (node != null) {
+                try {
+                    return replicaRouter.get(node, realKey(key));
+                } catch (Exception e) {
+                    if (HedgedCall.isAborted()) {
+                        return null;
+                    }
+                    log.warn("get -> [" + key + "] from replica " + node + " error, fallback to master : " + e);
+                }
+            }
+        }
         String ret = null;
         JedisCluster js = null;
         try {
@@ -276,6 +410,38 @@ public class JedisClusterServiceImpl implements JedisService {
         return null;
     }
 
+    @Override
+    public <T> Iterator<T> iterateList(String key, Class<T> clazz) {
+        byte[] raw = null;
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                raw = js.get(SafeEncoder.encode(realKey(key)));
+            }
+        } catch (Exception e) {
+            log.error("get -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        try {
+            return JsonArrays.iterator(raw, clazz);
+        } catch (Exception e) {
+            log.error("iterateList -> [" + key + "] error : " + e);
+            return null;
+        }
+    }
+
+    @Override
+    public <T> long streamList(String key, Class<T> clazz, ElementConsumer<T> consumer) {
+        try {
+            return JsonArrays.forEach(iterateList(key, clazz), consumer);
+        } catch (Exception e) {
+            log.error("streamList -> [" + key + "] error : " + e);
+            return -1;
+        }
+    }
+
     /**
      * 通过key向指定的value值追加值
      *
@@ -317,6 +483,190 @@ public class JedisClusterServiceImpl implements JedisService {
         return ret;
     }
 
+    @Override
+    public Long expire(String key, int seconds) {
+        Long ret = null;
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                ret = js.expire(realKey(key), seconds);
+            }
+        } catch (Exception e) {
+            log.error("expire -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return ret;
+    }
+
+    /**
+     * 集群下各 key 可能分布在不同 slot，逐个删除
+     */
+    @Override
+    public Long delKeys(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return 0L;
+        }
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                long deleted = 0;
+                for (String key : keys) {
+                    deleted += js.del(realKey(key));
+                }
+                return deleted;
+            }
+        } catch (Exception e) {
+            log.error("del -> " + keys + " error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    /**
+     * 集群下各 key 可能分布在不同 slot，逐个设置
+     */
+    @Override
+    public boolean expireKeys(List<String> keys, int seconds) {
+        if (keys == null || keys.isEmpty()) {
+            return true;
+        }
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                for (String key : keys) {
+                    js.expire(realKey(key), seconds);
+                }
+                return true;
+            }
+        } catch (Exception e) {
+            log.error("expire -> " + keys + " error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return false;
+    }
+
+    @Override
+    public long deleteByPattern(String pattern) {
+        if (StringUtils.isBlank(pattern)) {
+            return -1;
+        }
+        return sweep(KeySweeper.escape(realKey("")) + pattern);
+    }
+
+    @Override
+    public long deleteByPrefix(String keyPrefix) {
+        if (StringUtils.isBlank(keyPrefix)) {
+            return -1;
+        }
+        return sweep(KeySweeper.escape(realKey(keyPrefix)) + "*");
+    }
+
+    /**
+     * 集群内 PUBLISH 会广播到所有节点
+     */
+    @Override
+    public Long publish(String channel, String message) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                return js.publish(realKey(channel), message);
+            }
+        } catch (Exception e) {
+            log.error("publish -> [" + channel + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public void subscribe(JedisPubSub listener, String... channels) {
+        String[] realChannels = new String[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            realChannels[i] = realKey(channels[i]);
+        }
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            js.subscribe(listener, realChannels);
+        } finally {
+            returnResource(js);
+        }
+    }
+
+    /**
+     * 并行清理各 master，副本随复制删除
+     */
+    private long sweep(String pattern) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                return sweeper.sweep(masters(js.getClusterNodes()), pattern);
+            }
+        } catch (Exception e) {
+            log.error("sweep -> [" + pattern + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return -1;
+    }
+
+    /**
+     * 并行分析各 master
+     */
+    @Override
+    public KeyProfile profileKeys(KeyProfiler profiler, String pattern) {
+        String realPattern = KeySweeper.escape(realKey("")) + pattern;
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                return profiler.profile(masters(js.getClusterNodes()), realPattern);
+            }
+        } catch (Exception e) {
+            log.error("profileKeys -> [" + realPattern + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    /**
+     * 通过 CLUSTER SLOTS 从所有节点的连接池中选出 master
+     */
+    @SuppressWarnings("unchecked")
+    static List<JedisPool> masters(Map<String, JedisPool> nodes) {
+        for (Map.Entry<String, JedisPool> node : nodes.entrySet()) {
+            try (Jedis jedis = node.getValue().getResource()) {
+                Set<String> names = new LinkedHashSet<>();
+                for (Object slots : jedis.clusterSlots()) {
+                    List<Object> master = (List<Object>) ((List<Object>) slots).get(2);
+                    names.add(SafeEncoder.encode((byte[]) master.get(0)) + ":" + master.get(1));
+                }
+                List<JedisPool> masters = new ArrayList<>(names.size());
+                for (String name : names) {
+                    JedisPool pool = nodes.get(name);
+                    if (pool == null) {
+                        throw new JedisException("no pool for master " + name);
+                    }
+                    masters.add(pool);
+                }
+                return masters;
+            } catch (JedisConnectionException e) {
+                log.warn("cluster slots -> " + node.getKey() + " unavailable : " + e);
+            }
+        }
+        throw new JedisConnectionException("no cluster node reachable");
+    }
+
     @Override
     public Long incr(String key, int expire) {
         JedisCluster js = null;
@@ -351,6 +701,52 @@ public class JedisClusterServiceImpl implements JedisService {
         return null;
     }
 
+    /**
+     * 批量获取，集群下各 key 可能分布在不同 slot，逐个读取
+     */
+    @Override
+    public Map<String, String> getStrings(List<String> keys) {
+        Map<String, String> ret = new LinkedHashMap<>();
+        if (keys == null) {
+            return ret;
+        }
+        for (String key : keys) {
+            ret.put(key, getString(key));
+        }
+        return ret;
+    }
+
+    /**
+     * 批量设置，集群下各 key 可能分布在不同 slot，逐个写入
+     */
+    @Override
+    public boolean setStrings(Map<String, String> values, int seconds) {
+        if (values == null) {
+            return true;
+        }
+        boolean result = true;
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            for (Map.Entry<String, String> e : values.entrySet()) {
+                String value = StringUtils.isEmpty(e.getValue()) ? "" : e.getValue();
+                try {
+                    String reply = seconds > 0 ? js.setex(realKey(e.getKey()), seconds, value) : js.set(realKey(e.getKey()), value);
+                    result &= "OK".equals(reply);
+                } catch (Exception ex) {
+                    log.error("set -> [" + e.getKey() + "] error : " + ex);
+                    result = false;
+                }
+            }
+        } catch (Exception e) {
+            log.error("mset -> " + values.keySet() + " error : " + e);
+            return false;
+        } finally {
+            returnResource(js);
+        }
+        return result;
+    }
+
     /**
      * @param key
      * @param value
@@ -361,12 +757,12 @@ public class JedisClusterServiceImpl implements JedisService {
         JedisCluster js = null;
         try {
             js = getJedis();
-            if (js != null && js.exists(key.getBytes())) {
+            if (js != null && js.exists(realKey(key))) {
                 if (value == null) {
                     value = "";
                 }
-                ret = js.getSet(key, value);
-                js.expire(key, seconds);
+                ret = js.getSet(realKey(key), value);
+                js.expire(realKey(key), seconds);
             }
         } catch (Exception e) {
             log.error("getSet -> [" + key + "] error : " + e);
@@ -375,4 +771,368 @@ public class JedisClusterServiceImpl implements JedisService {
         }
         return ret;
     }
+
+    @Override
+    public <T> boolean setObjectAsHash(String key, T obj, int seconds) {
+        if (obj == null) {
+            return false;
+        }
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                List<String> args = HashScripts.replaceArgs(BeanFields.of(obj.getClass()).toHash(obj), seconds);
+                return Long.valueOf(1).equals(HashScripts.REPLACE.eval(js, Collections.singletonList(realKey(key)), args));
+            }
+        } catch (Exception e) {
+            log.error("hmset -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return false;
+    }
+
+    @Override
+    public <T> T getObjectFromHash(String key, Class<T> clazz) {
+        return getFields(key, clazz);
+    }
+
+    @Override
+    public <T> T getFields(String key, Class<T> clazz, String... fields) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                Map<String, String> hash;
+                if (fields == null || fields.length == 0) {
+                    hash = js.hgetAll(realKey(key));
+                } else {
+                    hash = AbstractJedisServiceImpl.zip(fields, js.hmget(realKey(key), fields));
+                }
+                return hash.isEmpty() ? null : BeanFields.of(clazz).<T>fromHash(hash);
+            }
+        } catch (Exception e) {
+            log.error("hmget -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> boolean updateFields(String key, T obj, String... fields) {
+        if (obj == null || fields == null || fields.length == 0) {
+            return false;
+        }
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                List<String> args = HashScripts.updateArgs(BeanFields.of(obj.getClass()).toHash(obj, fields));
+                return Long.valueOf(1).equals(HashScripts.UPDATE.eval(js, Collections.singletonList(realKey(key)), args));
+            }
+        } catch (Exception e) {
+            log.error("hupdate -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return false;
+    }
+
+    @Override
+    public <T> Long pushList(String key, List<T> elements, int seconds) {
+        if (elements == null || elements.isEmpty()) {
+            return listSize(key);
+        }
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                List<String> args = ListScripts.pushArgs(ValueCodec.encodeAll(elements), seconds);
+                return (Long) ListScripts.PUSH.eval(js, Collections.singletonList(realKey(key)), args);
+            }
+        } catch (Exception e) {
+            log.error("rpush -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> List<T> rangeList(String key, long start, long end, Class<T> clazz) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                return ValueCodec.decodeAll(js.lrange(realKey(key), start, end), clazz);
+            }
+        } catch (Exception e) {
+            log.error("lrange -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean trimList(String key, long start, long end) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                return "OK".equals(js.ltrim(realKey(key), start, end));
+            }
+        } catch (Exception e) {
+            log.error("ltrim -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return false;
+    }
+
+    @Override
+    public Long listSize(String key) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                return js.llen(realKey(key));
+            }
+        } catch (Exception e) {
+            log.error("llen -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> Long addSorted(String key, Map<T, Double> elements, int seconds) {
+        if (elements == null || elements.isEmpty()) {
+            return 0L;
+        }
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                Map<String, Double> members = new LinkedHashMap<>();
+                for (Map.Entry<T, Double> e : elements.entrySet()) {
+                    members.put(ValueCodec.encode(e.getKey()), e.getValue());
+                }
+                List<String> args = SortedScripts.addArgs(members, seconds);
+                return (Long) SortedScripts.ADD.eval(js, Collections.singletonList(realKey(key)), args);
+            }
+        } catch (Exception e) {
+            log.error("zadd -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> List<T> rangeSorted(String key, long start, long end, boolean descending, Class<T> clazz) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                Set<String> members = descending ? js.zrevrange(realKey(key), start, end) : js.zrange(realKey(key), start, end);
+                return ValueCodec.decodeAll(members, clazz);
+            }
+        } catch (Exception e) {
+            log.error("zrange -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> List<T> rangeSortedByScore(String key, double min, double max, int offset, int count, Class<T> clazz) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                return ValueCodec.decodeAll(js.zrangeByScore(realKey(key), min, max, offset, count), clazz);
+            }
+        } catch (Exception e) {
+            log.error("zrangeByScore -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public Long trimSorted(String key, long maxSize) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                return js.zremrangeByRank(realKey(key), 0, -Math.max(0, maxSize) - 1);
+            }
+        } catch (Exception e) {
+            log.error("zremrangeByRank -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public Long sortedSize(String key) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                return js.zcard(realKey(key));
+            }
+        } catch (Exception e) {
+            log.error("zcard -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> boolean migrateToList(String key, Class<T> clazz) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                String type = js.type(realKey(key));
+                if ("list".equals(type)) {
+                    return true;
+                }
+                if (!"string".equals(type)) {
+                    return false;
+                }
+                String original = js.get(realKey(key));
+                Long ttl = js.pttl(realKey(key));
+                List<T> elements = StringUtils.isBlank(original) ? Collections.<T>emptyList() : JSONArray.parseArray(original, clazz);
+                List<String> args = ListScripts.migrateArgs(original, ttl == null ? -1 : ttl, Arrays.asList(ValueCodec.encodeAll(elements)));
+                return Long.valueOf(1).equals(ListScripts.MIGRATE.eval(js, Collections.singletonList(realKey(key)), args));
+            }
+        } catch (Exception e) {
+            log.error("migrateToList -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean setBits(String key, long... offsets) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                BitScripts.SET.eval(js, Collections.singletonList(realKey(key)), BitScripts.offsetArgs(offsets));
+                return true;
+            }
+        } catch (Exception e) {
+            log.error("setbit -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean[] getBits(String key, long... offsets) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                List<Long> values = (List<Long>) BitScripts.GET.eval(js, Collections.singletonList(realKey(key)), BitScripts.offsetArgs(offsets));
+                boolean[] bits = new boolean[offsets.length];
+                for (int i = 0; i < bits.length; i++) {
+                    bits[i] = Long.valueOf(1).equals(values.get(i));
+                }
+                return bits;
+            }
+        } catch (Exception e) {
+            log.error("getbit -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public byte[] getBytes(String key) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                byte[] value = js.get(SafeEncoder.encode(realKey(key)));
+                return value == null ? new byte[0] : value;
+            }
+        } catch (Exception e) {
+            log.error("get -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public String getRange(String key, long start, long end) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                return js.getrange(realKey(key), start, end);
+            }
+        } catch (Exception e) {
+            if (!AbstractJedisServiceImpl.isWrongType(e)) {
+                log.error("getrange -> [" + key + "] error : " + e);
+            }
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> Versioned<T> getVersioned(String key, Class<T> clazz) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                List<String> values = js.hmget(realKey(key), VersionScripts.VERSION_FIELD, VersionScripts.DATA_FIELD);
+                if (values.get(0) == null) {
+                    return new Versioned<>(0, null);
+                }
+                T value = values.get(1) == null ? null : JSON.parseObject(values.get(1), clazz);
+                return new Versioned<>(Long.parseLong(values.get(0)), value);
+            }
+        } catch (Exception e) {
+            log.error("getVersioned -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> long compareAndSet(String key, long expectedVersion, T obj, int seconds) {
+        JedisCluster js = null;
+        try {
+            js = getJedis();
+            if (js != null) {
+                List<String> args = Arrays.asList(Long.toString(expectedVersion), JSON.toJSONString(obj), Integer.toString(seconds));
+                Object result = VersionScripts.COMPARE_AND_SET.eval(js, Collections.singletonList(realKey(key)), args);
+                return result instanceof Long ? (Long) result : -1;
+            }
+        } catch (Exception e) {
+            log.error("compareAndSet -> [" + key + "] error : " + e);
+        } finally {
+            returnResource(js);
+        }
+        return -1;
+    }
 }
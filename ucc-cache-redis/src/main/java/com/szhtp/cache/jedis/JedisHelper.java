@@ -2,10 +2,30 @@ package com.szhtp.cache.jedis;
 
 
 import lombok.*;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.util.Pool;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 单机redis操作,适用于主备方式
@@ -14,11 +34,10 @@ import java.util.List;
  */
 @Setter
 @Getter
-@ToString
-@EqualsAndHashCode
-@AllArgsConstructor
+@ToString(exclude = {"service", "engine", "readyLatch", "shardedService", "hotKeyService", "hedgedService", "deadlineService", "bulkheadService", "chunkedService", "regionVersions", "expiryService", "localSnapshot", "guardService", "captureService"})
+@EqualsAndHashCode(exclude = {"service", "engine", "readyLatch", "shardedService", "hotKeyService", "hedgedService", "deadlineService", "bulkheadService", "chunkedService", "regionVersions", "expiryService", "localSnapshot", "guardService", "captureService"})
 @NoArgsConstructor
-public class JedisHelper implements JedisService {
+public class JedisHelper implements JedisService, RawSupport {
 
     private static final Logger log = LoggerFactory.getLogger(JedisHelper.class);
 
@@ -43,7 +62,7 @@ public class JedisHelper implements JedisService {
     private String password;
 
     /**
-     * redis 部署模式 standalone sentinel cluster
+     * redis 部署模式 standalone sentinel cluster sharded，local 为进程内存实现，不连接 redis
      */
     private String mode = "standalone";
     /**
@@ -57,24 +76,1010 @@ public class JedisHelper implements JedisService {
      */
     private int maxActive = 100;
 
+    /**
+     * 是否与同一进程内其它 JedisHelper 共用同一端点的连接池或集群客户端，各自保留前缀
+     */
+    private boolean shareClients = true;
+
+    /**
+     * 分片模式下每个分片的虚拟节点数
+     */
+    private int shardVirtualNodes = 160;
+
+    /**
+     * local 模式的最大 key 数，超过时淘汰最近未访问的 key，0 表示不限
+     */
+    private int localMaxEntries = 100000;
+
+    /**
+     * local 模式估算的最大内存字节数，0 表示不限
+     */
+    private long localMaxBytes;
+
+    /**
+     * local 模式时间轮每格的毫秒数，即过期 key 被清除的最大延迟
+     */
+    private long localTickMillis = 100;
+
+    /**
+     * 最大空闲连接数，0 表示按部署模式的默认值
+     */
+    private int poolMaxIdle = 0;
+
+    /**
+     * 最小空闲连接数，-1 表示按部署模式的默认值
+     */
+    private int poolMinIdle = -1;
+
+    /**
+     * 取连接时是否 PING 校验，默认只由后台线程校验空闲连接
+     */
+    private boolean poolTestOnBorrow = false;
+
+    /**
+     * 后台校验空闲连接的间隔，毫秒
+     */
+    private long poolIdleCheckMillis = 10000;
+
+    /**
+     * 是否按取连接等待时间、使用率、错误率自动调整连接数，集群模式不支持
+     */
+    private boolean poolAdaptive = false;
+
+    /**
+     * 自适应时最大连接数的下限
+     */
+    private int poolAdaptiveMinTotal = 8;
+
+    /**
+     * 自适应时最大连接数的上限，0 表示 maxActive 的 4 倍
+     */
+    private int poolAdaptiveMaxTotal = 0;
+
+    /**
+     * 平均取连接等待超过该毫秒数时扩容
+     */
+    private long poolAdaptiveWaitMillis = 5;
+
+    /**
+     * 周期内连接出错比例超过该值时收缩并清理空闲连接
+     */
+    private double poolAdaptiveErrorRate = 0.2;
+
+    /**
+     * 自适应调整周期，毫秒
+     */
+    private long poolAdaptiveIntervalMillis = 5000;
+
+    /**
+     * 是否开启热点 key 探测
+     */
+    private boolean hotKeyDetect = false;
+
+    /**
+     * 是否把热点 key 提升到本地短时缓存，需开启热点 key 探测
+     */
+    private boolean hotKeyPromote = false;
+
+    /**
+     * 一个衰减周期内读次数达到该值即视为热点
+     */
+    private int hotKeyThreshold = 1000;
+
+    /**
+     * 最多跟踪的热点 key 数量
+     */
+    private int hotKeyTopK = 50;
+
+    /**
+     * 热点计数衰减周期，毫秒
+     */
+    private long hotKeyDecayMillis = 10000;
+
+    /**
+     * 热点 key 本地缓存存活时间，毫秒
+     */
+    private long hotKeyLocalTtlMillis = 1000;
+
+    /**
+     * 热点 key 本地缓存的堆外字节预算，大于 0 时值存放在堆外，需 -XX:MaxDirectMemorySize 不小于此值；0 表示存放在堆内
+     */
+    private long hotKeyOffHeapBytes = 0;
+
+    /**
+     * 堆外本地缓存的页字节数，超过的值不进入本地缓存
+     */
+    private int hotKeySlabBytes = 1024 * 1024;
+
+    /**
+     * 热点 key 本地缓存的快照文件，设置后定期保存，重启时后台读回，跳过已过期的条目；
+     * 需开启 hotKeyPromote，且本地缓存存活时间应长于重启耗时才有意义
+     */
+    private String localSnapshotFile;
+
+    /**
+     * 本地缓存快照的保存间隔，毫秒
+     */
+    private long localSnapshotMillis = 60000;
+
+    /**
+     * 本地缓存快照的最大字节数
+     */
+    private long localSnapshotMaxBytes = 64L * 1024 * 1024;
+
+    /**
+     * 热点报表分组使用的命名空间分隔符
+     */
+    private String hotKeySeparator = ":";
+
+    /**
+     * 默认读策略 master replica_preferred nearest round_robin，仅哨兵和集群模式有效
+     */
+    private String readPolicy = "master";
+
+    /**
+     * 按 key 前缀指定读策略，格式 前缀=策略,前缀=策略，未匹配的 key 使用默认读策略
+     */
+    private String readPolicies;
+
+    /**
+     * 副本拓扑刷新间隔，毫秒
+     */
+    private long replicaRefreshMillis = 5000;
+
+    /**
+     * 是否开启对冲读，对冲请求发往副本，只在哨兵和集群模式下生效；单机和分片模式没有副本，开启时忽略
+     */
+    private boolean hedgedReads = false;
+
+    /**
+     * 对冲延迟取近期读耗时的分位数
+     */
+    private double hedgePercentile = 0.95;
+
+    /**
+     * 对冲延迟下限，毫秒
+     */
+    private long hedgeMinDelayMillis = 2;
+
+    /**
+     * 对冲请求占读请求的最大比例
+     */
+    private double hedgeMaxRatio = 0.1;
+
+    /**
+     * 对冲读最大线程数
+     */
+    private int hedgeThreads = 32;
+
+    /**
+     * 默认调用期限，毫秒，覆盖取连接等待、重试和 socket 读写，0 表示不限
+     */
+    private long deadlineMillis = 0;
+
+    /**
+     * 按前缀的调用期限，格式 前缀=毫秒数,前缀=毫秒数，未匹配的 key 使用 deadlineMillis
+     */
+    private String deadlines;
+
+    /**
+     * 舱壁规则，格式 前缀=并发上限[/排队上限],...，各组并发上限之和应小于连接池大小，为空时不隔离
+     */
+    private String bulkheads;
+
+    /**
+     * 规则未指定排队上限时的默认排队上限
+     */
+    private int bulkheadQueueSize = 16;
+
+    /**
+     * 舱壁最长排队时间，毫秒，同时不超过调用期限
+     */
+    private long bulkheadQueueMillis = 20;
+
+    /**
+     * 是否自适应调整舱壁并发上限
+     */
+    private boolean bulkheadAdaptive = false;
+
+    /**
+     * 自适应时舱壁并发上限的最小值
+     */
+    private int bulkheadMinLimit = 1;
+
+    /**
+     * 自适应时的目标耗时，毫秒，超过时降低并发上限
+     */
+    private long bulkheadLatencyMillis = 20;
+
+    /**
+     * 超过此字符数的值分块存储，0 表示不分块
+     */
+    private int chunkThreshold = 0;
+
+    /**
+     * 每个分块的字符数
+     */
+    private int chunkSize = 256 * 1024;
+
+    /**
+     * 并行读取分块的最大线程数
+     */
+    private int chunkReadThreads = 8;
+
+    /**
+     * 被替换的旧分块保留秒数
+     */
+    private int chunkGraceSeconds = 30;
+
+    /**
+     * 批量删除时每次 SCAN 的 key 数
+     */
+    private int sweepBatchSize = 500;
+
+    /**
+     * 批量删除时每个节点每秒最多删除的 key 数，0 表示不限
+     */
+    private int sweepKeysPerSecond = 5000;
+
+    /**
+     * key 分析的抽样比例，0 到 1
+     */
+    private double profileSampleRate = 1;
+
+    /**
+     * key 分析时每个节点每秒最多检查的 key 数，0 表示不限
+     */
+    private int profileKeysPerSecond = 2000;
+
+    /**
+     * key 分析报告最大 key 的个数
+     */
+    private int profileTopN = 20;
+
+    /**
+     * 缓存区域版本号的本地有效期，毫秒，版本变更同时通过发布订阅即时通知
+     */
+    private long regionVersionTtlMillis = 1000;
+
+    /**
+     * 缓存区域内未指定过期时间的写入使用的过期秒数，使失效后的旧版本 key 能被清除
+     */
+    private int regionMaxTtlSeconds = 24 * 3600;
+
+    /**
+     * 过期时间随机缩短的最大比例，0 到 1，避免同一批写入的 key 同时过期，0 表示不抖动
+     */
+    private double ttlJitter = 0;
+
+    /**
+     * 按前缀的默认过期时间，格式 前缀=秒数,...，如 session:=1800，用于未指定过期时间的写入
+     */
+    private String defaultTtls;
+
+    /**
+     * 滑动过期，格式 前缀=秒数,...，匹配的 key 读取命中后把过期时间延长为该秒数
+     */
+    private String slidingTtls;
+
+    /**
+     * 同一个 key 两次滑动延长的最小间隔占滑动过期时间的比例，避免每次读取都发送 EXPIRE
+     */
+    private double slidingThrottle = 0.25;
+
+    /**
+     * 最长过期秒数，超过的过期时间按此截断，未指定过期时间的写入也使用此值，0 表示不限
+     */
+    private int maxTtlSeconds = 0;
+
+    /**
+     * 负载轨迹文件，配置后把按 key 抽样的操作记录到该文件，供 WorkloadReplayer 回放
+     */
+    private String captureFile;
+
+    /**
+     * 负载轨迹按 key 抽样的比例，0 到 1
+     */
+    private double captureSampleRate = 1;
+
+    /**
+     * 负载轨迹待写入记录的队列长度，队列满时丢弃记录
+     */
+    private int captureQueueSize = 65536;
+
+    /**
+     * update 版本冲突时的最多尝试次数
+     */
+    private int casMaxAttempts = 16;
+
+    /**
+     * update 版本冲突后第一次重试的最长退避毫秒数，之后每次加倍，不超过 casMaxBackoffMillis
+     */
+    private long casBackoffMillis = 1;
+
+    /**
+     * update 单次退避的最长毫秒数
+     */
+    private long casMaxBackoffMillis = 50;
+
+    /**
+     * 防穿透布隆过滤器，格式 前缀=预计元素数[/误判率],...，如 user:=1000000/0.01，
+     * 读取过滤器判断不存在的 key 直接返回空；开启前需用 bloomPutAll 登记已有数据的 key
+     */
+    private String bloomFilters;
+
+    /**
+     * 布隆过滤器本地副本的刷新间隔，毫秒，0 表示每次判断都访问 redis
+     */
+    private long bloomMirrorMillis = 0;
+
+    /**
+     * getObject 加载到空值时缓存空值标记的秒数，0 表示不缓存空值
+     */
+    private int nullValueSeconds = 0;
+
+    /**
+     * 是否在 initialPool 时预热：建立连接池、预建连接、拉取集群拓扑
+     */
+    private boolean warmUp = false;
+
+    /**
+     * 是否后台预热，为 false 时 initialPool 等待预热完成
+     */
+    private boolean warmUpAsync = true;
+
+    /**
+     * 每个连接池预建的连接数，0 表示按各模式连接池的最小空闲数
+     */
+    private int warmUpConnections = 0;
+
+    /**
+     * 并行建连的线程数
+     */
+    private int warmUpThreads = 8;
+
+    /**
+     * 预热最长等待时间，毫秒，超时后仍视为就绪
+     */
+    private long warmUpTimeoutMillis = 30000;
+
+    /**
+     * 预热时放入本地缓存的 key，逗号分隔，需开启热点 key 提升
+     */
+    private String warmUpKeys;
+
+    /**
+     * 预热 key 的本地缓存存活时间，毫秒
+     */
+    private long warmUpKeysTtlMillis = 60000;
+
     private String[] serverList;
 
     private String[] portList;
 
     private JedisService service;
 
+    /**
+     * 未经包装的具体实现，关闭时释放客户端
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Closeable engine;
+
+    /**
+     * 预热完成信号
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile CountDownLatch readyLatch;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ShardedJedisServiceImpl shardedService;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private HotKeyJedisService hotKeyService;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private HedgedReadJedisService hedgedService;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private DeadlineJedisService deadlineService;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private BulkheadJedisService bulkheadService;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ChunkedJedisService chunkedService;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile RegionVersions regionVersions;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ExpiryPolicyJedisService expiryService;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private LocalCacheSnapshot localSnapshot;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private PenetrationGuardJedisService guardService;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private CaptureJedisService captureService;
+
+    /**
+     * 与最初的全参构造器参数一致，其余配置项使用默认值，运行时状态不作为构造参数
+     */
+    public JedisHelper(String prefix, String port, String servers, String password, String mode, String masterName,
+                       int maxActive, String[] serverList, String[] portList, JedisService service) {
+        this.prefix = prefix;
+        this.port = port;
+        this.servers = servers;
+        this.password = password;
+        this.mode = mode;
+        this.masterName = masterName;
+        this.maxActive = maxActive;
+        this.serverList = serverList;
+        this.portList = portList;
+        this.service = service;
+    }
+
     /**
      * 初始化Redis连接池
      */
     public void initialPool() {
         log.info("initialPool:mode:{}", mode);
+        ReadPolicies policies = ReadPolicies.parse(readPolicy, readPolicies);
+        ReplicaRouter replicaRouter = null;
+        KeySweeper sweeper = new KeySweeper(sweepBatchSize, sweepKeysPerSecond);
         if ("sentinel".equals(mode)) {
-            service = new JedisSentinelImpl(this.prefix, this.serverList, this.portList, this.password, this.maxActive, this.masterName);
+            JedisSentinelImpl sentinel = new JedisSentinelImpl(this.prefix, this.serverList, this.portList, this.password, poolSettings(PoolSettings.sentinel(maxActive)), this.masterName, shareClients);
+            if (!policies.isMasterOnly() || hedgedReads) {
+                sentinel.enableReplicaReads(policies, replicaRefreshMillis);
+                replicaRouter = sentinel.getReplicaRouter();
+            }
+            sentinel.setSweeper(sweeper);
+            service = sentinel;
         } else if ("cluster".equals(mode)) {
-            service = new JedisClusterServiceImpl(this.prefix, this.serverList, this.portList, this.password, this.maxActive);
+            JedisClusterServiceImpl cluster = new JedisClusterServiceImpl(this.prefix, this.serverList, this.portList, this.password, this.maxActive, shareClients);
+            if (!policies.isMasterOnly() || hedgedReads) {
+                cluster.enableReplicaReads(policies, replicaRefreshMillis);
+                replicaRouter = cluster.getReplicaRouter();
+            }
+            if (!warmUp) {
+                cluster.prepare();
+            }
+            cluster.setSweeper(sweeper);
+            service = cluster;
+        } else if ("sharded".equals(mode)) {
+            if (!policies.isMasterOnly()) {
+                log.warn("initialPool:read policy is ignored in sharded mode");
+            }
+            shardedService = new ShardedJedisServiceImpl(this.prefix, this.serverList, this.portList, this.password, poolSettings(PoolSettings.standalone(maxActive)), shardVirtualNodes, shareClients);
+            shardedService.setSweeper(sweeper);
+            service = shardedService;
+        } else if ("local".equals(mode)) {
+            if (!policies.isMasterOnly()) {
+                log.warn("initialPool:read policy is ignored in local mode");
+            }
+            service = new LocalJedisServiceImpl(this.prefix, localMaxEntries, localMaxBytes, localTickMillis);
+        } else {
+            if (!policies.isMasterOnly()) {
+                log.warn("initialPool:read policy is ignored in standalone mode");
+            }
+            JedisServiceImpl standalone = new JedisServiceImpl(this.prefix, this.serverList, this.portList, this.password, poolSettings(PoolSettings.standalone(maxActive)), shareClients);
+            standalone.setSweeper(sweeper);
+            service = standalone;
+        }
+        engine = (Closeable) service;
+        if (hedgedReads && replicaRouter == null) {
+            log.warn("initialPool:hedgedReads is ignored in {} mode, hedges need replicas", mode);
+        } else if (hedgedReads) {
+            hedgedService = new HedgedReadJedisService(service, this.prefix, replicaRouter, hedgePercentile,
+                    hedgeMinDelayMillis, hedgeMaxRatio, hedgeThreads);
+            service = hedgedService;
+        }
+        if (chunkThreshold > 0) {
+            chunkedService = new ChunkedJedisService(service, chunkThreshold, chunkSize, chunkReadThreads, chunkGraceSeconds);
+            service = chunkedService;
+        }
+        if (StringUtils.isNotBlank(bulkheads)) {
+            bulkheadService = new BulkheadJedisService(service, bulkheads, bulkheadQueueSize, bulkheadQueueMillis,
+                    bulkheadAdaptive, bulkheadMinLimit, bulkheadLatencyMillis);
+            service = bulkheadService;
+        }
+        if (hotKeyDetect) {
+            HotKeyDetector detector = new HotKeyDetector(this.prefix, hotKeyThreshold, hotKeyTopK, 4096, hotKeySeparator);
+            detector.start(hotKeyDecayMillis);
+            LocalCache localCache = null;
+            if (hotKeyPromote) {
+                int maxEntries = hotKeyTopK * 2 + warmUpKeyList().size();
+                localCache = hotKeyOffHeapBytes > 0 ? new OffHeapLocalCache(maxEntries, hotKeyOffHeapBytes, hotKeySlabBytes)
+                        : new LocalCache(maxEntries);
+            }
+            hotKeyService = new HotKeyJedisService(service, detector, localCache, hotKeyLocalTtlMillis);
+            service = hotKeyService;
+        }
+        if (StringUtils.isNotBlank(localSnapshotFile)) {
+            if (hotKeyService == null || hotKeyService.getLocalCache() == null) {
+                log.warn("localSnapshotFile is ignored, local cache requires hotKeyDetect and hotKeyPromote");
+            } else {
+                localSnapshot = new LocalCacheSnapshot(hotKeyService.getLocalCache(), new File(localSnapshotFile), localSnapshotMaxBytes);
+                localSnapshot.start(localSnapshotMillis);
+            }
+        }
+        if (ttlJitter > 0 || StringUtils.isNotBlank(defaultTtls) || StringUtils.isNotBlank(slidingTtls) || maxTtlSeconds > 0) {
+            expiryService = new ExpiryPolicyJedisService(service,
+                    new ExpiryPolicy(ttlJitter, defaultTtls, slidingTtls, maxTtlSeconds, slidingThrottle));
+            service = expiryService;
+        }
+        if (StringUtils.isNotBlank(bloomFilters) || nullValueSeconds > 0) {
+            guardService = new PenetrationGuardJedisService(service, bloomFilters, bloomMirrorMillis, nullValueSeconds);
+            service = guardService;
+        }
+        deadlineService = new DeadlineJedisService(service, deadlineMillis, deadlines);
+        service = deadlineService;
+        if (StringUtils.isNotBlank(captureFile)) {
+            try {
+                captureService = new CaptureJedisService(service, new WorkloadRecorder(new File(captureFile), captureSampleRate, captureQueueSize));
+                service = captureService;
+            } catch (IOException e) {
+                log.error("capture -> [" + captureFile + "] error : " + e);
+            }
+        }
+        readyLatch = new CountDownLatch(1);
+        if (!warmUp) {
+            readyLatch.countDown();
+            return;
+        }
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    warmUp();
+                } catch (RuntimeException e) {
+                    log.error("warmUp error : ", e);
+                } finally {
+                    readyLatch.countDown();
+                }
+            }
+        };
+        if (warmUpAsync) {
+            CacheExecutors.threadFactory("ucc-cache-warmup").newThread(task).start();
         } else {
-            service = new JedisServiceImpl(this.prefix, this.serverList, this.portList, this.password, this.maxActive);
+            task.run();
+        }
+    }
+
+    /**
+     * 在部署模式的默认连接池参数上应用本实例的配置
+     */
+    private PoolSettings poolSettings(PoolSettings settings) {
+        if (poolMaxIdle > 0) {
+            settings.setMaxIdle(poolMaxIdle);
+        }
+        if (poolMinIdle >= 0) {
+            settings.setMinIdle(poolMinIdle);
+        }
+        settings.setTestOnBorrow(poolTestOnBorrow);
+        settings.setIdleCheckMillis(poolIdleCheckMillis);
+        settings.setAdaptive(poolAdaptive);
+        settings.setAdaptiveMinTotal(poolAdaptiveMinTotal);
+        settings.setAdaptiveMaxTotal(poolAdaptiveMaxTotal > 0 ? poolAdaptiveMaxTotal : maxActive * 4);
+        settings.setAdaptiveWaitMillis(poolAdaptiveWaitMillis);
+        settings.setAdaptiveErrorRate(poolAdaptiveErrorRate);
+        settings.setAdaptiveIntervalMillis(poolAdaptiveIntervalMillis);
+        return settings;
+    }
+
+    /**
+     * 连接池自适应调整记录
+     *
+     * @return 连接池 -> 调整记录
+     */
+    public Map<String, List<PoolController.Decision>> getPoolDecisions() {
+        return PoolController.decisions();
+    }
+
+    /**
+     * 预热：建立客户端后并行补足各连接池的连接，再把预热 key 放入本地缓存
+     */
+    private void warmUp() {
+        long start = System.currentTimeMillis();
+        long deadline = start + warmUpTimeoutMillis;
+        Warmable warmable = (Warmable) engine;
+        warmable.prepare();
+        int target = warmUpConnections > 0 ? warmUpConnections : warmable.warmUpConnections();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, warmUpThreads), CacheExecutors.threadFactory("ucc-cache-warmup-conn"));
+        int created = 0;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (final Pool<Jedis> pool : warmable.pools()) {
+                int missing = target - pool.getNumIdle() - pool.getNumActive();
+                for (int i = 0; i < missing; i++) {
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            pool.addObjects(1);
+                        }
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                    created++;
+                } catch (ExecutionException e) {
+                    log.error("warmUp connection error : " + e.getCause());
+                } catch (TimeoutException e) {
+                    log.warn("warmUp timeout after " + warmUpTimeoutMillis + " ms");
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        int preloaded = preload();
+        log.info("warmUp finished in " + (System.currentTimeMillis() - start) + " ms, connections : " + created + ", preloaded keys : " + preloaded);
+    }
+
+    private int preload() {
+        List<String> keys = warmUpKeyList();
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        if (hotKeyService == null || hotKeyService.getLocalCache() == null) {
+            log.warn("warmUp:warmUpKeys is ignored, local cache requires hotKeyDetect and hotKeyPromote");
+            return 0;
+        }
+        return hotKeyService.preload(hotKeyService.getTarget().getStrings(keys), warmUpKeysTtlMillis);
+    }
+
+    private List<String> warmUpKeyList() {
+        List<String> keys = new ArrayList<>();
+        if (StringUtils.isNotBlank(warmUpKeys)) {
+            for (String key : warmUpKeys.split(",")) {
+                if (StringUtils.isNotBlank(key)) {
+                    keys.add(key.trim());
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 是否已就绪，开启预热时预热完成后才就绪
+     */
+    public boolean isReady() {
+        CountDownLatch latch = readyLatch;
+        return latch != null && latch.getCount() == 0;
+    }
+
+    /**
+     * 等待就绪
+     *
+     * @param timeoutMillis 最长等待毫秒数
+     * @return 是否已就绪
+     */
+    public boolean awaitReady(long timeoutMillis) throws InterruptedException {
+        CountDownLatch latch = readyLatch;
+        return latch != null && latch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 关闭本实例，共用的客户端在最后一个使用者关闭时才真正关闭
+     */
+    public void destroy() {
+        if (captureService != null) {
+            captureService.getRecorder().close();
+        }
+        if (localSnapshot != null) {
+            localSnapshot.stop();
+            localSnapshot = null;
+        }
+        if (regionVersions != null) {
+            regionVersions.close();
+            regionVersions = null;
         }
+        if (hotKeyService != null) {
+            hotKeyService.getDetector().stop();
+        }
+        if (hedgedService != null) {
+            hedgedService.shutdown();
+        }
+        if (chunkedService != null) {
+            chunkedService.shutdown();
+        }
+        if (guardService != null) {
+            guardService.shutdown();
+        }
+        if (engine != null) {
+            try {
+                engine.close();
+            } catch (IOException e) {
+                log.error("destroy error : " + e);
+            }
+            engine = null;
+        }
+    }
+
+    /**
+     * 进程内所有共用客户端按前缀的使用统计
+     *
+     * @return 端点 -> 前缀 -> 统计
+     */
+    public Map<String, Map<String, PrefixMetrics>> getClientMetrics() {
+        return RedisClientRegistry.metrics();
+    }
+
+    /**
+     * 带期限调用的统计，按期限规则前缀分组，未匹配规则的 key 计入空串
+     *
+     * @return 规则前缀 -> 统计
+     */
+    public Map<String, DeadlineJedisService.Stats> getDeadlineStats() {
+        if (deadlineService == null) {
+            return Collections.emptyMap();
+        }
+        return deadlineService.getStats();
+    }
+
+    /**
+     * 各舱壁的并发、排队、拒绝和利用率统计，未配置舱壁时返回空
+     *
+     * @return 规则前缀 -> 舱壁
+     */
+    public Map<String, Bulkhead> getBulkheadMetrics() {
+        if (bulkheadService == null) {
+            return Collections.emptyMap();
+        }
+        return bulkheadService.getBulkheads();
+    }
+
+    /**
+     * 缓存区域视图，区域内的 key 带有区域版本号，{@link #invalidateRegion(String)} 后旧版本的 key 不再可见
+     *
+     * @param name 区域名，不能包含 #
+     * @return 区域视图
+     */
+    public JedisService region(String name) {
+        if (StringUtils.isBlank(name) || name.contains("#")) {
+            throw new IllegalArgumentException("Invalid region name [" + name + "]");
+        }
+        return new RegionJedisService(service, name, regionVersions(), regionMaxTtlSeconds);
+    }
+
+    /**
+     * 使缓存区域失效，只需一次 INCR，与区域内 key 的数量无关
+     *
+     * @param name 区域名
+     * @return 新版本号，异常返回 -1
+     */
+    public long invalidateRegion(String name) {
+        return regionVersions().invalidate(name);
+    }
+
+    /**
+     * 第一次使用区域时开始订阅版本变更
+     */
+    private RegionVersions regionVersions() {
+        RegionVersions versions = regionVersions;
+        if (versions == null) {
+            synchronized (this) {
+                if (regionVersions == null) {
+                    RegionVersions created = new RegionVersions((JedisService) engine, (PubSubSupport) engine, regionVersionTtlMillis);
+                    created.start();
+                    regionVersions = created;
+                }
+                versions = regionVersions;
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * 读取对象，未命中时通过 loader 加载并写入缓存；配置了布隆过滤器时过滤器判断不存在的 key 不调用 loader，
+     * 配置了 nullValueSeconds 时加载到的空值也会缓存
+     *
+     * @param key     键
+     * @param clazz   类型
+     * @param seconds 加载到的值的缓存秒数
+     * @param loader  加载器，通常查询数据库
+     * @return 值，不存在时返回 null
+     */
+    public <T> T getObject(String key, Class<T> clazz, int seconds, ValueLoader<T> loader) {
+        if (guardService != null) {
+            return guardService.getObject(key, clazz, seconds, loader);
+        }
+        T value = service.getObject(key, clazz);
+        if (value == null) {
+            value = loader.load(key);
+            if (value != null) {
+                service.setObject(key, value, seconds);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 把 key 登记到布隆过滤器，未配置过滤器时忽略；通过本类写入的 key 会自动登记
+     *
+     * @param key 键
+     * @return 成功或无需登记返回 true
+     */
+    public boolean bloomPut(String key) {
+        return guardService == null || guardService.remember(key);
+    }
+
+    /**
+     * 批量登记 key，用于开启过滤器前按数据库中已有的 id 初始化
+     *
+     * @param keys 键
+     * @return 全部成功返回 true
+     */
+    public boolean bloomPutAll(Collection<String> keys) {
+        return guardService == null || guardService.remember(keys);
+    }
+
+    /**
+     * 被布隆过滤器拦截的读取次数与命中空值缓存的次数，未开启时返回空
+     *
+     * @return rejected / nullHits -> 次数
+     */
+    public Map<String, Long> getPenetrationStats() {
+        if (guardService == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("rejected", guardService.getRejected());
+        stats.put("nullHits", guardService.getNullHits());
+        return stats;
+    }
+
+    /**
+     * 负载轨迹已写入和被丢弃的记录数，未开启时返回空
+     *
+     * @return recorded / dropped -> 记录数
+     */
+    public Map<String, Long> getCaptureStats() {
+        if (captureService == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("recorded", captureService.getRecorder().getRecorded());
+        stats.put("dropped", captureService.getRecorder().getDropped());
+        return stats;
+    }
+
+    /**
+     * 乐观更新带版本号的值：读取当前值和版本号，按 updater 计算新值后 compareAndSet，
+     * 版本冲突时随机退避并重试，每次尝试在服务端原子执行，不需要加锁
+     *
+     * @param key     键
+     * @param clazz   类型
+     * @param updater 根据当前值计算新值，冲突时会被再次调用
+     * @return 写入后的版本号与值；updater 返回 null 时返回当前值；异常或超过重试次数返回 null
+     */
+    public <T> Versioned<T> update(String key, Class<T> clazz, ValueUpdater<T> updater) {
+        return update(key, clazz, 0, updater);
+    }
+
+    /**
+     * 乐观更新带版本号的值
+     *
+     * @param key     键
+     * @param clazz   类型
+     * @param seconds 过期秒数，小于等于 0 时保留原过期时间
+     * @param updater 根据当前值计算新值，冲突时会被再次调用
+     * @return 写入后的版本号与值；updater 返回 null 时返回当前值；异常或超过重试次数返回 null
+     */
+    public <T> Versioned<T> update(String key, Class<T> clazz, int seconds, ValueUpdater<T> updater) {
+        long backoff = Math.max(1, casBackoffMillis);
+        for (int attempt = 1; attempt <= casMaxAttempts; attempt++) {
+            Versioned<T> current = service.getVersioned(key, clazz);
+            if (current == null) {
+                return null;
+            }
+            T value = updater.apply(current.getValue());
+            if (value == null) {
+                return current;
+            }
+            long version = service.compareAndSet(key, current.getVersion(), value, seconds);
+            if (version > 0) {
+                return new Versioned<>(version, value);
+            }
+            if (version < 0) {
+                return null;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(backoff + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            backoff = Math.min(backoff * 2, Math.max(1, casMaxBackoffMillis));
+        }
+        log.warn("update -> [" + key + "] gave up after " + casMaxAttempts + " conflicts");
+        return null;
+    }
+
+    /**
+     * 滑动过期在读取时延长过期时间的次数，未配置过期策略时返回 0
+     */
+    public long getSlidingExtensions() {
+        return expiryService == null ? 0 : expiryService.getPolicy().getExtensions();
+    }
+
+    /**
+     * 抽样分析匹配的 key：按 hotKeySeparator 之前的命名空间汇总 key 数、内存和过期时间分布，
+     * 报告最大的 key 和没有过期时间的 key；遍历所有节点，按 profileKeysPerSecond 限速
+     *
+     * @param pattern 模式，支持 * ? [] 通配，为空时分析全部 key
+     * @return 分析结果，异常返回 null
+     */
+    public KeyProfile profileKeys(String pattern) {
+        // 全局前缀中的分隔符不算作命名空间
+        int depth = 1 + (StringUtils.isEmpty(hotKeySeparator) ? 0 : StringUtils.countMatches(prefix, hotKeySeparator));
+        KeyProfiler profiler = new KeyProfiler(hotKeySeparator, depth, profileSampleRate, profileKeysPerSecond, sweepBatchSize, profileTopN, 0);
+        return ((ProfileSupport) engine).profileKeys(profiler, StringUtils.isBlank(pattern) ? "*" : pattern);
+    }
+
+    /**
+     * 按页遍历 list
+     *
+     * @param key      键
+     * @param pageSize 每页元素数
+     * @param clazz    元素类型
+     * @return 每次迭代读取一页
+     */
+    public <T> Iterable<List<T>> pageList(String key, int pageSize, Class<T> clazz) {
+        return CollectionPages.ofList(service, key, pageSize, clazz);
+    }
+
+    /**
+     * 按排名分页遍历 sorted set
+     *
+     * @param key        键
+     * @param pageSize   每页元素数
+     * @param descending 是否按分数从高到低
+     * @param clazz      元素类型
+     * @return 每次迭代读取一页
+     */
+    public <T> Iterable<List<T>> pageSorted(String key, int pageSize, boolean descending, Class<T> clazz) {
+        return CollectionPages.ofSorted(service, key, pageSize, descending, clazz);
+    }
+
+    /**
+     * 当前热点 key，按前缀分组，未开启热点探测时返回空
+     *
+     * @return 前缀 -> 热点 key 列表
+     */
+    public Map<String, List<HotKeyDetector.HotKey>> getHotKeys() {
+        if (hotKeyService == null) {
+            return Collections.emptyMap();
+        }
+        return hotKeyService.getDetector().hotKeysByPrefix();
+    }
+
+    /**
+     * 热点 key 本地缓存，用于查看命中率等统计；配置了 hotKeyOffHeapBytes 时为 {@link OffHeapLocalCache}
+     *
+     * @return 本地缓存，未开启 hotKeyPromote 时返回 null
+     */
+    public LocalCache getLocalCache() {
+        return hotKeyService == null ? null : hotKeyService.getLocalCache();
     }
 
     public void setPort(String port) {
@@ -131,6 +1136,16 @@ public class JedisHelper implements JedisService {
         return service.getList(key, clazz);
     }
 
+    @Override
+    public <T> Iterator<T> iterateList(String key, Class<T> clazz) {
+        return service.iterateList(key, clazz);
+    }
+
+    @Override
+    public <T> long streamList(String key, Class<T> clazz, ElementConsumer<T> consumer) {
+        return service.streamList(key, clazz, consumer);
+    }
+
     @Override
     public Long append(String key, String str) {
         return service.append(key, str);
@@ -141,6 +1156,31 @@ public class JedisHelper implements JedisService {
         return service.delKey(key);
     }
 
+    @Override
+    public Long expire(String key, int seconds) {
+        return service.expire(key, seconds);
+    }
+
+    @Override
+    public long deleteByPattern(String pattern) {
+        return service.deleteByPattern(pattern);
+    }
+
+    @Override
+    public long deleteByPrefix(String keyPrefix) {
+        return service.deleteByPrefix(keyPrefix);
+    }
+
+    @Override
+    public Map<String, String> getStrings(List<String> keys) {
+        return service.getStrings(keys);
+    }
+
+    @Override
+    public boolean setStrings(Map<String, String> values, int seconds) {
+        return service.setStrings(values, seconds);
+    }
+
     @Override
     public String getSet(String key, String value, int seconds) {
         return service.getSet(key, value, seconds);
@@ -155,5 +1195,113 @@ public class JedisHelper implements JedisService {
     public Long incr(String key) {
         return service.incr(key);
     }
+    @Override
+    public <T> boolean setObjectAsHash(String key, T obj, int seconds) {
+        return service.setObjectAsHash(key, obj, seconds);
+    }
 
+    @Override
+    public <T> T getObjectFromHash(String key, Class<T> clazz) {
+        return service.getObjectFromHash(key, clazz);
+    }
+
+    @Override
+    public <T> T getFields(String key, Class<T> clazz, String... fields) {
+        return service.getFields(key, clazz, fields);
+    }
+
+    @Override
+    public <T> boolean updateFields(String key, T obj, String... fields) {
+        return service.updateFields(key, obj, fields);
+    }
+
+    @Override
+    public <T> Long pushList(String key, List<T> elements, int seconds) {
+        return service.pushList(key, elements, seconds);
+    }
+
+    @Override
+    public <T> List<T> rangeList(String key, long start, long end, Class<T> clazz) {
+        return service.rangeList(key, start, end, clazz);
+    }
+
+    @Override
+    public boolean trimList(String key, long start, long end) {
+        return service.trimList(key, start, end);
+    }
+
+    @Override
+    public Long listSize(String key) {
+        return service.listSize(key);
+    }
+
+    @Override
+    public <T> Long addSorted(String key, Map<T, Double> elements, int seconds) {
+        return service.addSorted(key, elements, seconds);
+    }
+
+    @Override
+    public <T> List<T> rangeSorted(String key, long start, long end, boolean descending, Class<T> clazz) {
+        return service.rangeSorted(key, start, end, descending, clazz);
+    }
+
+    @Override
+    public <T> List<T> rangeSortedByScore(String key, double min, double max, int offset, int count, Class<T> clazz) {
+        return service.rangeSortedByScore(key, min, max, offset, count, clazz);
+    }
+
+    @Override
+    public Long trimSorted(String key, long maxSize) {
+        return service.trimSorted(key, maxSize);
+    }
+
+    @Override
+    public Long sortedSize(String key) {
+        return service.sortedSize(key);
+    }
+
+    @Override
+    public <T> boolean migrateToList(String key, Class<T> clazz) {
+        return service.migrateToList(key, clazz);
+    }
+
+    @Override
+    public boolean setBits(String key, long... offsets) {
+        return JedisServiceWrapper.raw(service).setBits(key, offsets);
+    }
+
+    @Override
+    public boolean[] getBits(String key, long... offsets) {
+        return JedisServiceWrapper.raw(service).getBits(key, offsets);
+    }
+
+    @Override
+    public byte[] getBytes(String key) {
+        return JedisServiceWrapper.raw(service).getBytes(key);
+    }
+
+    @Override
+    public String getRange(String key, long start, long end) {
+        return JedisServiceWrapper.raw(service).getRange(key, start, end);
+    }
+
+    @Override
+    public Long delKeys(List<String> keys) {
+        return JedisServiceWrapper.raw(service).delKeys(keys);
+    }
+
+    @Override
+    public boolean expireKeys(List<String> keys, int seconds) {
+        return JedisServiceWrapper.raw(service).expireKeys(keys, seconds);
+    }
+
+    @Override
+    public <T> Versioned<T> getVersioned(String key, Class<T> clazz) {
+        return service.getVersioned(key, clazz);
+    }
+
+    @Override
+    public <T> long compareAndSet(String key, long expectedVersion, T obj, int seconds) {
+        return service.compareAndSet(key, expectedVersion, obj, seconds);
+    }
 }
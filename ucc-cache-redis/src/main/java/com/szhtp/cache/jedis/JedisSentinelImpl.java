@@ -4,12 +4,14 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPoolConfig;
 import redis.clients.jedis.JedisSentinelPool;
+import redis.clients.jedis.Protocol;
 import redis.clients.jedis.exceptions.JedisException;
 
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * JedisService 哨兵模式实现
@@ -17,7 +19,7 @@ import java.util.Set;
  *
  * @author heguixing
  */
-public class JedisSentinelImpl extends AbstractJedisServiceImpl implements JedisService {
+public class JedisSentinelImpl extends AbstractJedisServiceImpl implements JedisService, Warmable {
 
     private static final Logger log = LoggerFactory.getLogger(JedisSentinelImpl.class);
 
@@ -27,20 +29,34 @@ public class JedisSentinelImpl extends AbstractJedisServiceImpl implements Jedis
 
     private String masterName;
 
-    private JedisSentinelPool jedisPool = null;
+    private volatile JedisSentinelPool jedisPool = null;
+
+    private RedisClientRegistry.Lease<JedisSentinelPool> lease;
 
     private String password;
 
     private int maxActive;
 
+    private final PoolSettings poolSettings;
+
     public JedisSentinelImpl(String prefix, String[] serverList, String[] portList, String password, int maxActive, String masterName) {
+        this(prefix, serverList, portList, password, PoolSettings.sentinel(maxActive), masterName, true);
+    }
+
+    /**
+     * @param poolSettings 连接池参数
+     * @param shared       是否与其它前缀共用同一 master 的连接池
+     */
+    public JedisSentinelImpl(String prefix, String[] serverList, String[] portList, String password, PoolSettings poolSettings, String masterName, boolean shared) {
+        this.shared = shared;
         if (prefix != null && !"".equals(prefix.trim())) {
             this.prefix = prefix.trim();
         }
         this.serverList = serverList;
         this.portList = portList;
         this.password = password;
-        this.maxActive = maxActive;
+        this.maxActive = poolSettings.getMaxTotal();
+        this.poolSettings = poolSettings;
         this.masterName = masterName;
     }
 
@@ -49,32 +65,37 @@ public class JedisSentinelImpl extends AbstractJedisServiceImpl implements Jedis
      */
     private synchronized void initialPool() {
         try {
-            // 建立连接池配置参数
-            JedisPoolConfig config = new JedisPoolConfig();
-            config.setMaxTotal(maxActive);
-            // 设置最大阻塞时间，记住是毫秒数milliseconds
-            config.setMaxWaitMillis(10000);
-            config.setTimeBetweenEvictionRunsMillis(30000);
-            // 设置空间连接
-            config.setMaxIdle(30);
-            //设置最小空闲数 
-            config.setMinIdle(8);
-            // jedis实例是否可用
-            config.setTestOnBorrow(true);
-            Set<String> sentinels = new HashSet<>();
+            final Set<String> sentinels = new TreeSet<>();
             for (int i = 0; i < serverList.length; i++) {
                 sentinels.add(serverList[i] + ":" + Integer.valueOf(portList[i]));
             }
-            if (StringUtils.isBlank(this.password)) {
-                jedisPool = new JedisSentinelPool(masterName, sentinels, config);
-            } else {
-                jedisPool = new JedisSentinelPool(masterName, sentinels, config, password);
-            }
+            final String name = endpoint("sentinel:" + masterName + "@" + sentinels);
+            lease = RedisClientRegistry.acquire(name, password, prefix, new RedisClientRegistry.Factory<JedisSentinelPool>() {
+                @Override
+                public JedisSentinelPool create() {
+                    return new ManagedJedisSentinelPool(name, poolSettings, masterName, sentinels, StringUtils.isBlank(password) ? null : password);
+                }
+            });
+            jedisPool = lease.get();
+            metrics = lease.getMetrics();
         } catch (Exception e) {
             log.error("init pool fail : ", e);
         }
     }
 
+    /**
+     * 开启读副本，副本列表由哨兵查询并定期刷新
+     *
+     * @param policies      读策略
+     * @param refreshMillis 拓扑刷新间隔
+     */
+    public void enableReplicaReads(ReadPolicies policies, long refreshMillis) {
+        SentinelReplicaRouter router = new SentinelReplicaRouter(policies, serverList, portList, masterName,
+                password, Protocol.DEFAULT_TIMEOUT, maxActive);
+        router.start(refreshMillis);
+        this.replicaRouter = router;
+    }
+
     private synchronized void poolInit() {
         if (jedisPool == null) {
             initialPool();
@@ -82,20 +103,45 @@ public class JedisSentinelImpl extends AbstractJedisServiceImpl implements Jedis
     }
 
     @Override
-    public synchronized Jedis getJedis() {
-        if (jedisPool == null) {
+    public Jedis getJedis() {
+        JedisSentinelPool pool = jedisPool;
+        if (pool == null) {
             poolInit();
+            pool = jedisPool;
         }
         Jedis jedis = null;
         try {
-            if (jedisPool != null) {
-                jedis = jedisPool.getResource();
+            if (pool != null) {
+                jedis = borrowFrom(pool);
             }
         } catch (JedisException e) {
             log.error("Get jedis error : ", e);
         }
         return jedis;
     }
-}
 
+    @Override
+    public void prepare() {
+        poolInit();
+    }
+
+    @Override
+    public synchronized Collection<JedisSentinelPool> pools() {
+        return jedisPool == null ? Collections.<JedisSentinelPool>emptyList() : Collections.singletonList(jedisPool);
+    }
+
+    @Override
+    public int warmUpConnections() {
+        return poolSettings.getMinIdle();
+    }
 
+    @Override
+    public synchronized void close() {
+        super.close();
+        jedisPool = null;
+        if (lease != null) {
+            lease.close();
+            lease = null;
+        }
+    }
+}
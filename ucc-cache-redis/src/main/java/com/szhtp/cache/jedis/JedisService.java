@@ -1,6 +1,8 @@
 package com.szhtp.cache.jedis;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Jedis接口
@@ -97,6 +99,26 @@ public interface JedisService {
      */
     <T> List<T> getList(String key, Class<T> clazz);
 
+    /**
+     * 流式读取 {@link #setList} 存储的列表，直接解码 redis 返回的字节，逐个产生元素，
+     * 不构造完整的字符串和 List
+     *
+     * @param key   键
+     * @param clazz 元素类型
+     * @return 元素迭代器，不存在或异常时返回 null，迭代中解码出错时抛出 JSONException
+     */
+    <T> Iterator<T> iterateList(String key, Class<T> clazz);
+
+    /**
+     * 流式读取 {@link #setList} 存储的列表，逐个交给 consumer
+     *
+     * @param key      键
+     * @param clazz    元素类型
+     * @param consumer 接收者，返回 false 时停止
+     * @return 交给 consumer 的元素数，不存在或异常时返回 -1
+     */
+    <T> long streamList(String key, Class<T> clazz, ElementConsumer<T> consumer);
+
 
     /**
      * 通过key向指定的value值追加值
@@ -115,6 +137,48 @@ public interface JedisService {
      */
     Long delKey(String key);
 
+    /**
+     * 设置过期时间
+     *
+     * @param key     键
+     * @param seconds 过期秒数
+     * @return 设置成功返回 1，key 不存在返回 0，异常返回 null
+     */
+    Long expire(String key, int seconds);
+
+    /**
+     * 删除匹配模式的所有 key，用 SCAN 分批删除并限速，不阻塞 redis，集群下并行清理各 master
+     *
+     * @param pattern glob 模式，自动加前缀，如 catalog:*
+     * @return 删除的 key 数，模式为空或异常返回 -1
+     */
+    long deleteByPattern(String pattern);
+
+    /**
+     * 删除以指定前缀开头的所有 key，前缀中的 glob 特殊字符按原样匹配
+     *
+     * @param keyPrefix 键前缀，自动加前缀，不能为空
+     * @return 删除的 key 数，前缀为空或异常返回 -1
+     */
+    long deleteByPrefix(String keyPrefix);
+
+    /**
+     * 批量获取String值
+     *
+     * @param keys 键
+     * @return 键 -> 值，按 keys 的顺序，不存在的键值为 null
+     */
+    Map<String, String> getStrings(List<String> keys);
+
+    /**
+     * 批量设置String值
+     *
+     * @param values  键 -> 值
+     * @param seconds 过期时间秒，小于等于 0 表示不过期
+     * @return 是否全部写入成功
+     */
+    boolean setStrings(Map<String, String> values, int seconds);
+
     /**
      * redis getSet操作
      *
@@ -141,4 +205,164 @@ public interface JedisService {
      * @return 执行 INCR 命令之后 key 的值。
      */
     Long incr(String key);
+
+    /**
+     * 以 hash 存储对象，每个属性一个字段，属性值为空时不存储该字段。整体替换原有的值
+     *
+     * @param key     键
+     * @param obj     对象
+     * @param seconds 过期时间秒，小于等于 0 表示不过期
+     * @return 是否成功
+     */
+    <T> boolean setObjectAsHash(String key, T obj, int seconds);
+
+    /**
+     * 读取以 hash 存储的整个对象
+     *
+     * @param key   键
+     * @param clazz 类型
+     * @return 对象，不存在时返回 null
+     */
+    <T> T getObjectFromHash(String key, Class<T> clazz);
+
+    /**
+     * 只读取以 hash 存储的对象的部分字段，其余属性保持默认值
+     *
+     * @param key    键
+     * @param clazz  类型
+     * @param fields 字段名，即属性名，为空时读取所有字段
+     * @return 对象，不存在时返回 null
+     */
+    <T> T getFields(String key, Class<T> clazz, String... fields);
+
+    /**
+     * 只更新以 hash 存储的对象的部分字段，属性值为空的字段被删除。对象不存在时不创建
+     *
+     * @param key    键
+     * @param obj    取字段值的对象
+     * @param fields 需要更新的字段名
+     * @return 对象存在并已更新时返回 true
+     */
+    <T> boolean updateFields(String key, T obj, String... fields);
+
+    /**
+     * 在 list 尾部追加元素，每个元素单独编码
+     *
+     * @param key      键
+     * @param elements 元素
+     * @param seconds  过期时间秒，小于等于 0 时不修改过期时间
+     * @return 追加后 list 的长度，异常返回 null
+     */
+    <T> Long pushList(String key, List<T> elements, int seconds);
+
+    /**
+     * 读取 list 的一段，下标从 0 开始，负数表示从尾部倒数
+     *
+     * @param key   键
+     * @param start 开始下标
+     * @param end   结束下标，包含
+     * @param clazz 元素类型
+     * @return 元素，不存在时返回空列表，异常返回 null
+     */
+    <T> List<T> rangeList(String key, long start, long end, Class<T> clazz);
+
+    /**
+     * 只保留 list 的一段
+     *
+     * @param key   键
+     * @param start 开始下标
+     * @param end   结束下标，包含
+     * @return 是否成功
+     */
+    boolean trimList(String key, long start, long end);
+
+    /**
+     * list 长度
+     *
+     * @param key 键
+     * @return 长度，不存在时为 0，异常返回 null
+     */
+    Long listSize(String key);
+
+    /**
+     * 向 sorted set 添加元素，元素已存在时更新分数
+     *
+     * @param key      键
+     * @param elements 元素 -> 分数
+     * @param seconds  过期时间秒，小于等于 0 时不修改过期时间
+     * @return 新增的元素数量，异常返回 null
+     */
+    <T> Long addSorted(String key, Map<T, Double> elements, int seconds);
+
+    /**
+     * 按排名读取 sorted set 的一段
+     *
+     * @param key        键
+     * @param start      开始排名，从 0 开始，负数表示从尾部倒数
+     * @param end        结束排名，包含
+     * @param descending 是否按分数从高到低排名
+     * @param clazz      元素类型
+     * @return 元素，异常返回 null
+     */
+    <T> List<T> rangeSorted(String key, long start, long end, boolean descending, Class<T> clazz);
+
+    /**
+     * 按分数读取 sorted set，分数从低到高
+     *
+     * @param key    键
+     * @param min    最小分数，包含
+     * @param max    最大分数，包含
+     * @param offset 跳过的元素数
+     * @param count  最多返回的元素数
+     * @param clazz  元素类型
+     * @return 元素，异常返回 null
+     */
+    <T> List<T> rangeSortedByScore(String key, double min, double max, int offset, int count, Class<T> clazz);
+
+    /**
+     * 删除分数最低的元素，使 sorted set 最多保留 maxSize 个元素
+     *
+     * @param key     键
+     * @param maxSize 最多保留的元素数
+     * @return 删除的元素数，异常返回 null
+     */
+    Long trimSorted(String key, long maxSize);
+
+    /**
+     * sorted set 元素数量
+     *
+     * @param key 键
+     * @return 数量，不存在时为 0，异常返回 null
+     */
+    Long sortedSize(String key);
+
+    /**
+     * 把 {@link #setList} 以 JSON 字符串存储的列表原地转为 list，保留剩余过期时间。
+     * 转换后只能通过 list 方法读写，原值在转换期间被修改时放弃本次转换
+     *
+     * @param key   键
+     * @param clazz 元素类型
+     * @return 已转换或原本就是 list 时返回 true
+     */
+    <T> boolean migrateToList(String key, Class<T> clazz);
+
+    /**
+     * 读取带版本号的值
+     *
+     * @param key   键
+     * @param clazz 类型
+     * @return 版本号与值，key 不存在时版本号为 0，异常返回 null
+     */
+    <T> Versioned<T> getVersioned(String key, Class<T> clazz);
+
+    /**
+     * 当前版本号等于 expectedVersion 时原子地写入新值并把版本号加一
+     *
+     * @param key             键
+     * @param expectedVersion 期望的版本号，0 表示 key 不存在时才写入
+     * @param obj             新值
+     * @param seconds         过期秒数，小于等于 0 时保留原过期时间
+     * @return 成功返回新版本号，版本不符返回 0，异常返回 -1
+     */
+    <T> long compareAndSet(String key, long expectedVersion, T obj, int seconds);
 }
@@ -5,42 +5,41 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.JedisPoolConfig;
 import redis.clients.jedis.exceptions.JedisConnectionException;
 import redis.clients.jedis.exceptions.JedisException;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * JedisService 单机模式实现
  *
  * @author null
  */
-public class JedisServiceImpl extends AbstractJedisServiceImpl implements JedisService {
+public class JedisServiceImpl extends AbstractJedisServiceImpl implements JedisService, Warmable {
 
     private static final Logger log = LoggerFactory.getLogger(JedisServiceImpl.class);
 
     private String password;
 
-    private int maxActive;
-
     private static int SERVER_INDEX = 0;
 
-    private JedisPool jedisPool = null;
+    private volatile JedisPool jedisPool = null;
+
+    private RedisClientRegistry.Lease<JedisPool> lease;
 
-    private JedisPoolConfig config;
+    private final PoolSettings poolSettings;
 
     private String[] serverList;
 
     private String[] portList;
 
     /**
-     * 控制一个pool最多有多少个状态为idle(空闲的)的jedis实例，
-     * 默认值是8。
+     * 各服务器地址上本前缀的统计，主备切换前借出的连接归还时仍计入原服务器的统计
      */
-    private int maxIdle = 10;
-    /**
-     * 等待可用连接的最大时间，单位毫秒，默认值为-1，表示永不超时。如果超过等待时间，则直接抛出JedisConnectionException；
-     */
-    private int maxWait = 10 * 1000;
+    private final ConcurrentHashMap<String, PrefixMetrics> endpointMetrics = new ConcurrentHashMap<>();
+
     /**
      * 超时时间
      */
@@ -57,49 +56,38 @@ public class JedisServiceImpl extends AbstractJedisServiceImpl implements JedisS
     }
 
     public JedisServiceImpl(String prefix, String[] serverList, String[] portList, String password, int maxActive) {
+        this(prefix, serverList, portList, password, PoolSettings.standalone(maxActive), true);
+    }
+
+    /**
+     * @param poolSettings 连接池参数
+     * @param shared       是否与其它前缀共用同一地址的连接池
+     */
+    public JedisServiceImpl(String prefix, String[] serverList, String[] portList, String password, PoolSettings poolSettings, boolean shared) {
+        this.shared = shared;
         if (prefix != null && !"".equals(prefix.trim())) {
             this.prefix = prefix.trim();
         }
         this.serverList = serverList;
         this.portList = portList;
         this.password = password;
-        this.maxActive = maxActive;
-    }
-
-    private void initialPoolConfig() {
-        config = new JedisPoolConfig();
-        // 控制一个pool可分配多少个jedis实例，通过pool.getResource()来获取；
-        // 如果赋值为-1，则表示不限制；如果pool已经分配了maxActive个jedis实例，则此时pool的状态为exhausted(耗尽)。
-        config.setMaxTotal(maxActive);
-        // 控制一个pool最多有多少个状态为idle(空闲的)的jedis实例。
-        config.setMinIdle(5);
-        config.setMaxIdle(maxIdle);
-        // 表示当borrow(引入)一个jedis实例时，最大的等待时间，如果超过等待时间，则直接抛出JedisConnectionException；
-        config.setMaxWaitMillis(maxWait);
-        // 在borrow一个jedis实例时，是否提前进行validate操作；如果为true，则得到的jedis实例均是可用的
-        config.setTestOnBorrow(true);
-        config.setTestOnReturn(true);
-        //Idle时进行连接扫描
-        config.setTestWhileIdle(true);
-        //表示idle object evitor两次扫描之间要sleep的毫秒数
-        config.setTimeBetweenEvictionRunsMillis(30000);
-        //表示idle object evitor每次扫描的最多的对象数
-        config.setNumTestsPerEvictionRun(10);
-        //表示一个对象至少停留在idle状态的最短时间，然后才能被idle object evitor扫描并驱逐；
-        //这一项只有在timeBetweenEvictionRunsMillis大于0时才有意义
-        config.setMinEvictableIdleTimeMillis(60000);
+        this.poolSettings = poolSettings;
     }
 
     private void initialPool() {
         try {
-            if (config == null) {
-                initialPoolConfig();
-            }
-            if (StringUtils.isNotBlank(password)) {
-                jedisPool = new JedisPool(config, serverList[SERVER_INDEX], Integer.parseInt(portList[SERVER_INDEX]), timeout, password);
-            } else {
-                jedisPool = new JedisPool(config, serverList[SERVER_INDEX], Integer.parseInt(portList[SERVER_INDEX]), timeout);
-            }
+            final String host = serverList[SERVER_INDEX];
+            final int port = Integer.parseInt(portList[SERVER_INDEX]);
+            final String name = endpoint(host + ":" + port);
+            lease = RedisClientRegistry.acquire(name, password, prefix, new RedisClientRegistry.Factory<JedisPool>() {
+                @Override
+                public JedisPool create() {
+                    return new ManagedJedisPool(name, poolSettings, host, port, timeout, StringUtils.isNotBlank(password) ? password : null);
+                }
+            });
+            jedisPool = lease.get();
+            metrics = lease.getMetrics();
+            endpointMetrics.put(host + ":" + port, metrics);
             log.info("[initialPool]... -> " + serverList[SERVER_INDEX] + " : " + portList[SERVER_INDEX]);
         } catch (Exception e) {
             log.error("create JedisPool error : " + e);
@@ -113,33 +101,83 @@ public class JedisServiceImpl extends AbstractJedisServiceImpl implements JedisS
     }
 
     /**
-     * 同步获取Jedis实例
+     * 获取Jedis实例，只有建池和主备切换时加锁，取连接不占用锁，等待时间受调用期限约束
      *
      * @return Jedis
      */
     @Override
-    public synchronized Jedis getJedis() {
-        if (jedisPool == null) {
+    public Jedis getJedis() {
+        JedisPool pool = jedisPool;
+        if (pool == null) {
             poolInit();
+            pool = jedisPool;
         }
         Jedis jedis = null;
         try {
-            if (jedisPool != null) {
-                jedis = jedisPool.getResource();
+            if (pool != null) {
+                jedis = borrowFrom(pool);
             }
         } catch (JedisConnectionException e1) {
             log.error("[getJedis] --> JedisConnectionException : " + serverList[SERVER_INDEX] + " : " + portList[SERVER_INDEX]);
-            jedisPool = null;
-            if (SERVER_INDEX < serverList.length - 1) {
-                SERVER_INDEX = SERVER_INDEX + 1;
-                poolInit();
-            } else {
-                SERVER_INDEX = 0;
-            }
+            failover(pool);
         } catch (JedisException e) {
             log.error("Get jedis error", e);
         }
         return jedis;
     }
 
+    /**
+     * 切换到下一台服务器，其它线程已切换过时忽略
+     *
+     * @param failed 出错的连接池
+     */
+    private synchronized void failover(JedisPool failed) {
+        if (jedisPool != failed) {
+            return;
+        }
+        jedisPool = null;
+        releaseLease();
+        if (SERVER_INDEX < serverList.length - 1) {
+            SERVER_INDEX = SERVER_INDEX + 1;
+            poolInit();
+        } else {
+            SERVER_INDEX = 0;
+        }
+    }
+
+    @Override
+    public void prepare() {
+        poolInit();
+    }
+
+    @Override
+    public synchronized Collection<JedisPool> pools() {
+        return jedisPool == null ? Collections.<JedisPool>emptyList() : Collections.singletonList(jedisPool);
+    }
+
+    @Override
+    public int warmUpConnections() {
+        return poolSettings.getMinIdle();
+    }
+
+    @Override
+    protected PrefixMetrics metricsFor(Jedis jedis) {
+        PrefixMetrics owner = endpointMetrics.get(jedis.getClient().getHost() + ":" + jedis.getClient().getPort());
+        return owner == null ? metrics : owner;
+    }
+
+    @Override
+    public synchronized void close() {
+        super.close();
+        jedisPool = null;
+        releaseLease();
+    }
+
+    private void releaseLease() {
+        if (lease != null) {
+            lease.close();
+            lease = null;
+        }
+    }
+
 }
@@ -0,0 +1,259 @@
+package com.szhtp.cache.jedis;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JedisService 装饰基类，默认把所有操作转发给被包装的实现，
+ * 子类只需覆盖关心的方法。JedisHelper 按配置把各功能层叠加在具体实现之上。
+ *
+ * @author null
+ */
+public abstract class JedisServiceWrapper implements JedisService, RawSupport {
+
+    protected final JedisService target;
+
+    protected JedisServiceWrapper(JedisService target) {
+        this.target = target;
+    }
+
+    public JedisService getTarget() {
+        return target;
+    }
+
+    /**
+     * 被包装实现的原始值与位操作
+     */
+    RawSupport raw() {
+        return raw(target);
+    }
+
+    /**
+     * 实现的原始值与位操作，本组件的实现和装饰器都支持
+     *
+     * @param service 实现
+     * @return 原始值与位操作
+     */
+    static RawSupport raw(JedisService service) {
+        if (service instanceof RawSupport) {
+            return (RawSupport) service;
+        }
+        throw new UnsupportedOperationException(service.getClass().getName() + " does not support raw values and bits");
+    }
+
+    @Override
+    public void setString(String key, String value) {
+        target.setString(key, value);
+    }
+
+    @Override
+    public boolean setString(String key, String value, int seconds) {
+        return target.setString(key, value, seconds);
+    }
+
+    @Override
+    public Long setnxString(String key, String value, int seconds) {
+        return target.setnxString(key, value, seconds);
+    }
+
+    @Override
+    public String getString(String key) {
+        return target.getString(key);
+    }
+
+    @Override
+    public <T> void setObject(String key, T obj) {
+        target.setObject(key, obj);
+    }
+
+    @Override
+    public <T> boolean setObject(String key, T obj, int seconds) {
+        return target.setObject(key, obj, seconds);
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> clazz) {
+        return target.getObject(key, clazz);
+    }
+
+    @Override
+    public <T> void setList(String key, List<T> objList, int seconds) {
+        target.setList(key, objList, seconds);
+    }
+
+    @Override
+    public <T> List<T> getList(String key, Class<T> clazz) {
+        return target.getList(key, clazz);
+    }
+
+    @Override
+    public <T> Iterator<T> iterateList(String key, Class<T> clazz) {
+        return target.iterateList(key, clazz);
+    }
+
+    @Override
+    public <T> long streamList(String key, Class<T> clazz, ElementConsumer<T> consumer) {
+        return target.streamList(key, clazz, consumer);
+    }
+
+    @Override
+    public Long append(String key, String str) {
+        return target.append(key, str);
+    }
+
+    @Override
+    public Long delKey(String key) {
+        return target.delKey(key);
+    }
+
+    @Override
+    public Long expire(String key, int seconds) {
+        return target.expire(key, seconds);
+    }
+
+    @Override
+    public long deleteByPattern(String pattern) {
+        return target.deleteByPattern(pattern);
+    }
+
+    @Override
+    public long deleteByPrefix(String keyPrefix) {
+        return target.deleteByPrefix(keyPrefix);
+    }
+
+    @Override
+    public Map<String, String> getStrings(List<String> keys) {
+        return target.getStrings(keys);
+    }
+
+    @Override
+    public boolean setStrings(Map<String, String> values, int seconds) {
+        return target.setStrings(values, seconds);
+    }
+
+    @Override
+    public String getSet(String key, String value, int seconds) {
+        return target.getSet(key, value, seconds);
+    }
+
+    @Override
+    public Long incr(String key, int expire) {
+        return target.incr(key, expire);
+    }
+
+    @Override
+    public Long incr(String key) {
+        return target.incr(key);
+    }
+
+    @Override
+    public <T> boolean setObjectAsHash(String key, T obj, int seconds) {
+        return target.setObjectAsHash(key, obj, seconds);
+    }
+
+    @Override
+    public <T> T getObjectFromHash(String key, Class<T> clazz) {
+        return target.getObjectFromHash(key, clazz);
+    }
+
+    @Override
+    public <T> T getFields(String key, Class<T> clazz, String... fields) {
+        return target.getFields(key, clazz, fields);
+    }
+
+    @Override
+    public <T> boolean updateFields(String key, T obj, String... fields) {
+        return target.updateFields(key, obj, fields);
+    }
+
+    @Override
+    public <T> Long pushList(String key, List<T> elements, int seconds) {
+        return target.pushList(key, elements, seconds);
+    }
+
+    @Override
+    public <T> List<T> rangeList(String key, long start, long end, Class<T> clazz) {
+        return target.rangeList(key, start, end, clazz);
+    }
+
+    @Override
+    public boolean trimList(String key, long start, long end) {
+        return target.trimList(key, start, end);
+    }
+
+    @Override
+    public Long listSize(String key) {
+        return target.listSize(key);
+    }
+
+    @Override
+    public <T> Long addSorted(String key, Map<T, Double> elements, int seconds) {
+        return target.addSorted(key, elements, seconds);
+    }
+
+    @Override
+    public <T> List<T> rangeSorted(String key, long start, long end, boolean descending, Class<T> clazz) {
+        return target.rangeSorted(key, start, end, descending, clazz);
+    }
+
+    @Override
+    public <T> List<T> rangeSortedByScore(String key, double min, double max, int offset, int count, Class<T> clazz) {
+        return target.rangeSortedByScore(key, min, max, offset, count, clazz);
+    }
+
+    @Override
+    public Long trimSorted(String key, long maxSize) {
+        return target.trimSorted(key, maxSize);
+    }
+
+    @Override
+    public Long sortedSize(String key) {
+        return target.sortedSize(key);
+    }
+
+    @Override
+    public <T> boolean migrateToList(String key, Class<T> clazz) {
+        return target.migrateToList(key, clazz);
+    }
+
+    @Override
+    public boolean setBits(String key, long... offsets) {
+        return raw().setBits(key, offsets);
+    }
+
+    @Override
+    public boolean[] getBits(String key, long... offsets) {
+        return raw().getBits(key, offsets);
+    }
+
+    @Override
+    public byte[] getBytes(String key) {
+        return raw().getBytes(key);
+    }
+
+    @Override
+    public String getRange(String key, long start, long end) {
+        return raw().getRange(key, start, end);
+    }
+
+    @Override
+    public Long delKeys(List<String> keys) {
+        return raw().delKeys(keys);
+    }
+
+    @Override
+    public boolean expireKeys(List<String> keys, int seconds) {
+        return raw().expireKeys(keys, seconds);
+    }
+
+    @Override
+    public <T> Versioned<T> getVersioned(String key, Class<T> clazz) {
+        return target.getVersioned(key, clazz);
+    }
+
+    @Override
+    public <T> long compareAndSet(String key, long expectedVersion, T obj, int seconds) {
+        return target.compareAndSet(key, expectedVersion, obj, seconds);
+    }
+}
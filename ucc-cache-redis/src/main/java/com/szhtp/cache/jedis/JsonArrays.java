@@ -0,0 +1,175 @@
+package com.szhtp.cache.jedis;
+
+import com.alibaba.fastjson.JSONReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * JSON 数组的流式解码，直接读取 redis 返回的字节，按块解码，逐个产生元素，
+ * 不需要先构造完整的字符串和 List
+ *
+ * @author null
+ */
+public final class JsonArrays {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private JsonArrays() {
+    }
+
+    /**
+     * 逐个解码数组元素
+     *
+     * @param json  UTF-8 编码的 JSON 数组
+     * @param clazz 元素类型
+     * @return 元素迭代器，json 为空白时返回 null
+     */
+    public static <T> Iterator<T> iterator(byte[] json, Class<T> clazz) {
+        if (isBlank(json)) {
+            return null;
+        }
+        return iterator(new InputStreamReader(new ByteArrayInputStream(json), UTF8), clazz);
+    }
+
+    /**
+     * 逐个解码数组元素
+     *
+     * @param json  JSON 数组
+     * @param clazz 元素类型
+     * @return 元素迭代器，json 为空白时返回 null
+     */
+    public static <T> Iterator<T> iterator(String json, Class<T> clazz) {
+        if (json == null || "".equals(json.trim())) {
+            return null;
+        }
+        return iterator(new StringReader(json), clazz);
+    }
+
+    /**
+     * 逐个解码按顺序拼接的多段 JSON 数组文本，不拼接成完整的字符串
+     *
+     * @param parts 各段文本
+     * @param clazz 元素类型
+     * @return 元素迭代器，parts 为空时返回 null
+     */
+    static <T> Iterator<T> iterator(List<String> parts, Class<T> clazz) {
+        if (parts == null || parts.isEmpty()) {
+            return null;
+        }
+        return iterator(new PartsReader(parts), clazz);
+    }
+
+    private static <T> Iterator<T> iterator(Reader in, final Class<T> clazz) {
+        final JSONReader reader = new JSONReader(in);
+        reader.startArray();
+        return new Iterator<T>() {
+
+            private boolean ended;
+
+            @Override
+            public boolean hasNext() {
+                if (ended) {
+                    return false;
+                }
+                if (reader.hasNext()) {
+                    return true;
+                }
+                reader.endArray();
+                reader.close();
+                ended = true;
+                return false;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return reader.readObject(clazz);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * 把元素逐个交给 consumer
+     *
+     * @param elements 元素，可为空
+     * @param consumer 接收者，返回 false 时停止
+     * @return 交给 consumer 的元素数，elements 为空时返回 -1
+     */
+    public static <T> long forEach(Iterator<T> elements, ElementConsumer<T> consumer) {
+        if (elements == null) {
+            return -1;
+        }
+        long count = 0;
+        while (elements.hasNext()) {
+            count++;
+            if (!consumer.accept(elements.next())) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isBlank(byte[] json) {
+        if (json == null) {
+            return true;
+        }
+        for (byte b : json) {
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 依次读取多段文本
+     */
+    private static final class PartsReader extends Reader {
+
+        private final Iterator<String> parts;
+
+        private String current = "";
+
+        private int position;
+
+        PartsReader(List<String> parts) {
+            this.parts = parts.iterator();
+        }
+
+        @Override
+        public int read(char[] buf, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            while (position >= current.length()) {
+                if (!parts.hasNext()) {
+                    return -1;
+                }
+                current = parts.next();
+                position = 0;
+            }
+            int n = Math.min(len, current.length() - position);
+            current.getChars(position, position + n, buf, off);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.szhtp.cache.jedis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * {@link KeyProfiler} 的结果：按前缀汇总的 key 数、内存、过期时间分布，最大的 key 和没有过期时间的最大 key。
+ * 抽样时按抽样比例估算前缀的 key 数和内存
+ *
+ * @author null
+ */
+public class KeyProfile {
+
+    /**
+     * 内存分布的上界，字节
+     */
+    static final long[] SIZE_BOUNDS = {1024, 10 * 1024, 100 * 1024, 1024 * 1024};
+
+    static final String[] SIZE_LABELS = {"<1K", "<10K", "<100K", "<1M", ">=1M"};
+
+    /**
+     * 过期时间分布的上界，毫秒
+     */
+    static final long[] TTL_BOUNDS = {60000L, 3600000L, 86400000L, 7 * 86400000L};
+
+    static final String[] TTL_LABELS = {"none", "<1m", "<1h", "<1d", "<7d", ">=7d"};
+
+    private static final Comparator<KeyInfo> BY_SIZE = new Comparator<KeyInfo>() {
+        @Override
+        public int compare(KeyInfo a, KeyInfo b) {
+            return Long.compare(a.getBytes(), b.getBytes());
+        }
+    };
+
+    private final int topN;
+
+    private final Map<String, PrefixStats> prefixes = new TreeMap<>();
+
+    private final PriorityQueue<KeyInfo> biggest = new PriorityQueue<>(16, BY_SIZE);
+
+    private final PriorityQueue<KeyInfo> biggestWithoutTtl = new PriorityQueue<>(16, BY_SIZE);
+
+    private int nodes;
+
+    private long scanned;
+
+    private long sampled;
+
+    /**
+     * 无法获取 MEMORY USAGE 的 key 数
+     */
+    private long unknownSize;
+
+    private long elapsedMillis;
+
+    public KeyProfile(int topN) {
+        this.topN = Math.max(1, topN);
+    }
+
+    /**
+     * 记录一个抽样的 key
+     *
+     * @param prefix 前缀
+     * @param key    key
+     * @param type   类型
+     * @param ttl    剩余毫秒数，没有过期时间为 -1
+     * @param bytes  内存字节数，未知为 -1
+     */
+    public void add(String prefix, String key, String type, long ttl, long bytes) {
+        PrefixStats stats = prefixes.get(prefix);
+        if (stats == null) {
+            stats = new PrefixStats(prefix);
+            prefixes.put(prefix, stats);
+        }
+        stats.add(type, ttl, bytes);
+        sampled++;
+        if (bytes < 0) {
+            unknownSize++;
+            return;
+        }
+        KeyInfo info = new KeyInfo(key, type, ttl, bytes);
+        offer(biggest, info);
+        if (ttl < 0) {
+            offer(biggestWithoutTtl, info);
+        }
+    }
+
+    /**
+     * 合并其它节点的结果
+     *
+     * @param other 其它节点的结果
+     */
+    public void merge(KeyProfile other) {
+        for (PrefixStats stats : other.prefixes.values()) {
+            PrefixStats mine = prefixes.get(stats.prefix);
+            if (mine == null) {
+                mine = new PrefixStats(stats.prefix);
+                prefixes.put(stats.prefix, mine);
+            }
+            mine.merge(stats);
+        }
+        for (KeyInfo info : other.biggest) {
+            offer(biggest, info);
+        }
+        for (KeyInfo info : other.biggestWithoutTtl) {
+            offer(biggestWithoutTtl, info);
+        }
+        nodes += other.nodes;
+        scanned += other.scanned;
+        sampled += other.sampled;
+        unknownSize += other.unknownSize;
+        elapsedMillis = Math.max(elapsedMillis, other.elapsedMillis);
+    }
+
+    void scanned(long count) {
+        scanned += count;
+    }
+
+    void finish(int nodes, long elapsedMillis) {
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * 各前缀的统计，按估算内存从大到小
+     */
+    public List<PrefixStats> getPrefixes() {
+        List<PrefixStats> list = new ArrayList<>(prefixes.values());
+        Collections.sort(list, new Comparator<PrefixStats>() {
+            @Override
+            public int compare(PrefixStats a, PrefixStats b) {
+                return Long.compare(b.bytes, a.bytes);
+            }
+        });
+        return list;
+    }
+
+    /**
+     * 最大的 key，从大到小
+     */
+    public List<KeyInfo> getBiggest() {
+        return sorted(biggest);
+    }
+
+    /**
+     * 没有过期时间的最大的 key，从大到小
+     */
+    public List<KeyInfo> getBiggestWithoutTtl() {
+        return sorted(biggestWithoutTtl);
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * SCAN 遍历到的 key 数
+     */
+    public long getScanned() {
+        return scanned;
+    }
+
+    /**
+     * 抽样检查的 key 数
+     */
+    public long getSampled() {
+        return sampled;
+    }
+
+    public long getUnknownSize() {
+        return unknownSize;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 抽样比例的倒数，用于估算总量
+     */
+    public double getScale() {
+        return sampled == 0 ? 0 : (double) scanned / sampled;
+    }
+
+    /**
+     * 文本报表
+     */
+    public String report() {
+        double scale = getScale();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("nodes %d, scanned %d, sampled %d, unknown size %d, %d ms%n",
+                nodes, scanned, sampled, unknownSize, elapsedMillis));
+        sb.append(String.format("%n%-32s %10s %12s %10s %10s %8s  %s%n",
+                "prefix", "est.keys", "est.bytes", "avg", "max", "no-ttl", "ttl / size / type"));
+        for (PrefixStats p : getPrefixes()) {
+            sb.append(String.format("%-32s %10d %12d %10d %10d %8d  %s / %s / %s%n",
+                    p.prefix.isEmpty() ? "(none)" : p.prefix, Math.round(p.count * scale), Math.round(p.bytes * scale),
+                    p.getAverageBytes(), p.maxBytes, Math.round(p.getNoTtl() * scale),
+                    histogram(TTL_LABELS, p.ttls), histogram(SIZE_LABELS, p.sizes), p.types));
+        }
+        sb.append(String.format("%nbiggest keys%n"));
+        for (KeyInfo info : getBiggest()) {
+            sb.append("  ").append(info).append(String.format("%n"));
+        }
+        sb.append(String.format("%nbiggest keys without ttl%n"));
+        for (KeyInfo info : getBiggestWithoutTtl()) {
+            sb.append("  ").append(info).append(String.format("%n"));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+
+    private void offer(PriorityQueue<KeyInfo> queue, KeyInfo info) {
+        if (queue.size() < topN) {
+            queue.add(info);
+        } else if (queue.peek().getBytes() < info.getBytes()) {
+            queue.poll();
+            queue.add(info);
+        }
+    }
+
+    private static List<KeyInfo> sorted(PriorityQueue<KeyInfo> queue) {
+        List<KeyInfo> list = new ArrayList<>(queue);
+        Collections.sort(list, Collections.reverseOrder(BY_SIZE));
+        return list;
+    }
+
+    private static String histogram(String[] labels, long[] counts) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                sb.append(sb.length() == 0 ? "" : " ").append(labels[i]).append('=').append(counts[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int bucket(long[] bounds, long value) {
+        int i = 0;
+        while (i < bounds.length && value >= bounds[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 一个前缀的抽样统计，数量均为抽样值
+     */
+    public static class PrefixStats {
+
+        private final String prefix;
+
+        private long count;
+
+        private long bytes;
+
+        private long maxBytes;
+
+        /**
+         * 过期时间分布，下标对应 {@link #TTL_LABELS}
+         */
+        private final long[] ttls = new long[TTL_LABELS.length];
+
+        /**
+         * 内存分布，下标对应 {@link #SIZE_LABELS}
+         */
+        private final long[] sizes = new long[SIZE_LABELS.length];
+
+        private final Map<String, Long> types = new TreeMap<>();
+
+        PrefixStats(String prefix) {
+            this.prefix = prefix;
+        }
+
+        void add(String type, long ttl, long size) {
+            count++;
+            ttls[ttl < 0 ? 0 : 1 + bucket(TTL_BOUNDS, ttl)]++;
+            if (size >= 0) {
+                bytes += size;
+                maxBytes = Math.max(maxBytes, size);
+                sizes[bucket(SIZE_BOUNDS, size)]++;
+            }
+            Long n = types.get(type);
+            types.put(type, n == null ? 1 : n + 1);
+        }
+
+        void merge(PrefixStats other) {
+            count += other.count;
+            bytes += other.bytes;
+            maxBytes = Math.max(maxBytes, other.maxBytes);
+            for (int i = 0; i < ttls.length; i++) {
+                ttls[i] += other.ttls[i];
+            }
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] += other.sizes[i];
+            }
+            for (Map.Entry<String, Long> e : other.types.entrySet()) {
+                Long n = types.get(e.getKey());
+                types.put(e.getKey(), n == null ? e.getValue() : n + e.getValue());
+            }
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public long getAverageBytes() {
+            long known = 0;
+            for (long n : sizes) {
+                known += n;
+            }
+            return known == 0 ? 0 : bytes / known;
+        }
+
+        /**
+         * 没有过期时间的 key 数
+         */
+        public long getNoTtl() {
+            return ttls[0];
+        }
+
+        /**
+         * 过期时间分布，下标对应 none、&lt;1m、&lt;1h、&lt;1d、&lt;7d、&gt;=7d
+         */
+        public long[] getTtls() {
+            return ttls.clone();
+        }
+
+        /**
+         * 内存分布，下标对应 &lt;1K、&lt;10K、&lt;100K、&lt;1M、&gt;=1M
+         */
+        public long[] getSizes() {
+            return sizes.clone();
+        }
+
+        public Map<String, Long> getTypes() {
+            return Collections.unmodifiableMap(types);
+        }
+    }
+
+    /**
+     * 一个 key 的抽样结果
+     */
+    public static class KeyInfo {
+
+        private final String key;
+
+        private final String type;
+
+        private final long ttl;
+
+        private final long bytes;
+
+        public KeyInfo(String key, String type, long ttl, long bytes) {
+            this.key = key;
+            this.type = type;
+            this.ttl = ttl;
+            this.bytes = bytes;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * 剩余毫秒数，没有过期时间为 -1
+         */
+        public long getTtl() {
+            return ttl;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return key + " " + type + " " + bytes + " bytes, ttl " + (ttl < 0 ? "none" : ttl / 1000 + "s");
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.szhtp.cache.jedis;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * key 与内存分析：用 SCAN 遍历各节点，按比例抽样 key，通过 pipeline 批量获取类型、剩余过期时间和
+ * MEMORY USAGE（redis 4 以下字符串退回 STRLEN，其它类型记为未知），按命名空间前缀汇总为 {@link KeyProfile}。
+ * 每个节点按每秒 SCAN 返回的 key 数限速（含未抽中的 key），多个节点并行分析。
+ * <p>
+ * 命令行：java -cp ... com.szhtp.cache.jedis.KeyProfiler host:port[,host:port...] [-a password] [--cluster]
+ * [--match pattern] [--sample rate] [--rate keysPerSecond] [--top n] [--depth n] [--separator s] [--max-keys n]
+ *
+ * @author null
+ */
+public class KeyProfiler {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyProfiler.class);
+
+    /**
+     * 单 key 的类型、剩余毫秒数和内存字节数，内存未知时为 -1
+     */
+    public static final RedisScript PROBE = new RedisScript(
+            "local t = redis.call('TYPE', KEYS[1])['ok'] "
+                    + "if t == 'none' then return {t, -2, -1} end "
+                    + "local m = redis.pcall('MEMORY', 'USAGE', KEYS[1]) "
+                    + "if type(m) ~= 'number' then "
+                    + "if t == 'string' then m = redis.call('STRLEN', KEYS[1]) else m = -1 end end "
+                    + "return {t, redis.call('PTTL', KEYS[1]), m}");
+
+    /**
+     * 命名空间分隔符
+     */
+    private final String separator;
+
+    /**
+     * 前缀包含的命名空间层数
+     */
+    private final int depth;
+
+    /**
+     * 抽样比例，0 到 1
+     */
+    private final double sampleRate;
+
+    /**
+     * 每个节点每秒最多 SCAN 的 key 数，0 表示不限
+     */
+    private final int keysPerSecond;
+
+    /**
+     * 每次 SCAN 的 COUNT
+     */
+    private final int batchSize;
+
+    private final int topN;
+
+    /**
+     * 每个节点最多检查的 key 数，0 表示不限，达到后停止遍历
+     */
+    private final long maxKeysPerNode;
+
+    /**
+     * @param separator      命名空间分隔符
+     * @param depth          前缀包含的命名空间层数
+     * @param sampleRate     抽样比例，0 到 1
+     * @param keysPerSecond  每个节点每秒最多 SCAN 的 key 数，0 表示不限
+     * @param batchSize      每次 SCAN 的 COUNT
+     * @param topN           报告最大 key 的个数
+     * @param maxKeysPerNode 每个节点最多检查的 key 数，0 表示不限
+     */
+    public KeyProfiler(String separator, int depth, double sampleRate, int keysPerSecond, int batchSize, int topN, long maxKeysPerNode) {
+        if (sampleRate <= 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sample rate must be in (0, 1] : " + sampleRate);
+        }
+        this.separator = separator;
+        this.depth = Math.max(1, depth);
+        this.sampleRate = sampleRate;
+        this.keysPerSecond = Math.max(0, keysPerSecond);
+        this.batchSize = Math.max(1, batchSize);
+        this.topN = Math.max(1, topN);
+        this.maxKeysPerNode = Math.max(0, maxKeysPerNode);
+    }
+
+    /**
+     * key 所属的前缀：前 depth 个分隔符之前的部分（含分隔符），没有分隔符时为空串
+     *
+     * @param key 键
+     * @return 前缀
+     */
+    public String prefixOf(String key) {
+        if (StringUtils.isEmpty(separator)) {
+            return "";
+        }
+        int end = -1;
+        int from = 0;
+        for (int i = 0; i < depth; i++) {
+            int idx = key.indexOf(separator, from);
+            if (idx < 0) {
+                break;
+            }
+            end = idx + separator.length();
+            from = end;
+        }
+        return end < 0 ? "" : key.substring(0, end);
+    }
+
+    /**
+     * 分析一个节点上匹配的 key
+     *
+     * @param jedis   节点连接
+     * @param pattern 已包含前缀的模式
+     * @return 分析结果，线程被中断时返回已检查部分的结果
+     */
+    public KeyProfile profile(Jedis jedis, String pattern) {
+        long start = System.nanoTime();
+        KeyProfile profile = new KeyProfile(topN);
+        byte[] sha = SafeEncoder.encode(jedis.scriptLoad(PROBE.getScript()));
+        ScanParams params = new ScanParams().match(pattern).count(batchSize);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        long issued = 0;
+        long paced = 0;
+        do {
+            ScanResult<String> page = jedis.scan(cursor, params);
+            cursor = page.getStringCursor();
+            List<String> keys = new ArrayList<>();
+            for (String key : page.getResult()) {
+                if (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                    keys.add(key);
+                }
+            }
+            profile.scanned(page.getResult().size());
+            // 按 SCAN 返回的 key 数限速，空页也计一次，稀疏的模式不会连续打满 SCAN
+            paced += Math.max(1, page.getResult().size());
+            if (!keys.isEmpty()) {
+                Pipeline pipeline = jedis.pipelined();
+                List<Response<Object>> responses = new ArrayList<>(keys.size());
+                for (String key : keys) {
+                    responses.add(pipeline.evalsha(sha, 1, SafeEncoder.encode(key)));
+                }
+                pipeline.sync();
+                for (int i = 0; i < keys.size(); i++) {
+                    List<?> probe = (List<?>) responses.get(i).get();
+                    String type = SafeEncoder.encode((byte[]) probe.get(0));
+                    if (!"none".equals(type)) {
+                        String key = keys.get(i);
+                        profile.add(prefixOf(key), key, type, (Long) probe.get(1), (Long) probe.get(2));
+                    }
+                }
+                issued += keys.size();
+                if (maxKeysPerNode > 0 && issued >= maxKeysPerNode) {
+                    break;
+                }
+            }
+            if (!pace(paced, start)) {
+                log.warn("profile -> [" + pattern + "] interrupted after " + issued + " keys");
+                break;
+            }
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        profile.finish(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return profile;
+    }
+
+    /**
+     * 分析进程内已取得类型、过期时间和大小的 key，用于不经过 redis 的实现，不限速
+     *
+     * @param keys 匹配的 key
+     * @return 分析结果
+     */
+    public KeyProfile profile(Iterator<KeyProfile.KeyInfo> keys) {
+        long start = System.nanoTime();
+        KeyProfile profile = new KeyProfile(topN);
+        long issued = 0;
+        while (keys.hasNext() && (maxKeysPerNode == 0 || issued < maxKeysPerNode)) {
+            KeyProfile.KeyInfo info = keys.next();
+            profile.scanned(1);
+            if (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                profile.add(prefixOf(info.getKey()), info.getKey(), info.getType(), info.getTtl(), info.getBytes());
+                issued++;
+            }
+        }
+        profile.finish(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return profile;
+    }
+
+    /**
+     * 在多个节点上并行分析匹配的 key 并合并结果，失败的节点记录错误日志，不计入结果
+     *
+     * @param pools   各节点连接池
+     * @param pattern 已包含前缀的模式
+     * @return 合并后的分析结果
+     */
+    public KeyProfile profile(Collection<JedisPool> pools, final String pattern) {
+        KeyProfile merged = new KeyProfile(topN);
+        if (pools.isEmpty()) {
+            return merged;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(pools.size(), CacheExecutors.threadFactory("ucc-cache-profile"));
+        try {
+            List<Future<KeyProfile>> futures = new ArrayList<>(pools.size());
+            for (final JedisPool pool : pools) {
+                futures.add(executor.submit(new Callable<KeyProfile>() {
+                    @Override
+                    public KeyProfile call() {
+                        try (Jedis jedis = pool.getResource()) {
+                            return profile(jedis, pattern);
+                        }
+                    }
+                }));
+            }
+            for (Future<KeyProfile> future : futures) {
+                try {
+                    merged.merge(future.get());
+                } catch (ExecutionException e) {
+                    log.error("profile -> [" + pattern + "] error : " + e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return merged;
+    }
+
+    /**
+     * 按限速等待，线程被中断时返回 false
+     *
+     * @param paced 已 SCAN 的 key 数
+     * @param start 开始时间，纳秒
+     */
+    private boolean pace(long paced, long start) {
+        if (keysPerSecond == 0) {
+            return !Thread.currentThread().isInterrupted();
+        }
+        long ahead = paced * 1000000000L / keysPerSecond - (System.nanoTime() - start);
+        if (ahead > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(ahead);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 命令行入口，结果输出到标准输出
+     */
+    public static void main(String[] args) {
+        if (args.length == 0 || args[0].startsWith("-")) {
+            System.err.println("usage: KeyProfiler host:port[,host:port...] [-a password] [--cluster] [--match pattern]"
+                    + " [--sample rate] [--rate keysPerSecond] [--top n] [--depth n] [--separator s] [--max-keys n]");
+            System.exit(2);
+        }
+        String password = null;
+        boolean cluster = false;
+        String pattern = "*";
+        double sample = 1;
+        int rate = 2000;
+        int top = 20;
+        int depth = 1;
+        String separator = ":";
+        long maxKeys = 0;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if ("--cluster".equals(arg)) {
+                cluster = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("missing value for " + arg);
+            }
+            String value = args[++i];
+            if ("-a".equals(arg)) {
+                password = value;
+            } else if ("--match".equals(arg)) {
+                pattern = value;
+            } else if ("--sample".equals(arg)) {
+                sample = Double.parseDouble(value);
+            } else if ("--rate".equals(arg)) {
+                rate = Integer.parseInt(value);
+            } else if ("--top".equals(arg)) {
+                top = Integer.parseInt(value);
+            } else if ("--depth".equals(arg)) {
+                depth = Integer.parseInt(value);
+            } else if ("--separator".equals(arg)) {
+                separator = value;
+            } else if ("--max-keys".equals(arg)) {
+                maxKeys = Long.parseLong(value);
+            } else {
+                throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+        KeyProfiler profiler = new KeyProfiler(separator, depth, sample, rate, 500, top, maxKeys);
+        Set<HostAndPort> nodes = new HashSet<>();
+        for (String node : args[0].split(",")) {
+            String[] hostPort = node.trim().split(":");
+            nodes.add(new HostAndPort(hostPort[0], hostPort.length > 1 ? Integer.parseInt(hostPort[1]) : Protocol.DEFAULT_PORT));
+        }
+        int timeout = 10000;
+        if (cluster) {
+            JedisCluster js = new JedisCluster(nodes, timeout, timeout, 3, password, new JedisPoolConfig());
+            try {
+                System.out.print(profiler.profile(JedisClusterServiceImpl.masters(js.getClusterNodes()), pattern).report());
+            } finally {
+                try {
+                    js.close();
+                } catch (Exception e) {
+                    log.warn("close cluster error : " + e);
+                }
+            }
+            return;
+        }
+        List<JedisPool> pools = new ArrayList<>();
+        try {
+            for (HostAndPort node : nodes) {
+                pools.add(new JedisPool(new JedisPoolConfig(), node.getHost(), node.getPort(), timeout, password));
+            }
+            System.out.print(profiler.profile(pools, pattern).report());
+        } finally {
+            for (JedisPool pool : pools) {
+                pool.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.szhtp.cache.jedis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按模式批量删除 key：用 SCAN 遍历，每页通过 pipeline 批量 UNLINK（redis 4 以下退回 DEL），
+ * 每个节点按每秒删除数限速，多个节点并行清理
+ *
+ * @author null
+ */
+public class KeySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(KeySweeper.class);
+
+    /**
+     * 单 key 的 UNLINK，集群下逐个 key 执行不会跨 slot
+     */
+    public static final RedisScript UNLINK = new RedisScript(
+            "local r = redis.pcall('UNLINK', KEYS[1]) "
+                    + "if type(r) == 'table' and r.err then return redis.call('DEL', KEYS[1]) end "
+                    + "return r");
+
+    /**
+     * 每次 SCAN 的 COUNT，同时是每个 pipeline 的最大 key 数
+     */
+    private final int batchSize;
+
+    /**
+     * 每个节点每秒最多删除的 key 数，0 表示不限
+     */
+    private final int keysPerSecond;
+
+    public KeySweeper(int batchSize, int keysPerSecond) {
+        this.batchSize = Math.max(1, batchSize);
+        this.keysPerSecond = Math.max(0, keysPerSecond);
+    }
+
+    /**
+     * 转义 glob 特殊字符，使字符串按原样匹配
+     *
+     * @param literal 字符串
+     * @return 转义后的模式
+     */
+    public static String escape(String literal) {
+        if (literal == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(literal.length() + 8);
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 在一个节点上删除匹配的 key
+     *
+     * @param jedis   节点连接
+     * @param pattern 已包含前缀的模式
+     * @return 删除的 key 数，线程被中断时返回已删除数
+     */
+    public long sweep(Jedis jedis, String pattern) {
+        byte[] sha = SafeEncoder.encode(jedis.scriptLoad(UNLINK.getScript()));
+        ScanParams params = new ScanParams().match(pattern).count(batchSize);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        long deleted = 0;
+        long issued = 0;
+        long start = System.nanoTime();
+        do {
+            ScanResult<String> page = jedis.scan(cursor, params);
+            cursor = page.getStringCursor();
+            List<String> keys = page.getResult();
+            if (keys.isEmpty()) {
+                continue;
+            }
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Object>> responses = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                responses.add(pipeline.evalsha(sha, 1, SafeEncoder.encode(key)));
+            }
+            pipeline.sync();
+            for (Response<Object> response : responses) {
+                Object removed = response.get();
+                if (removed instanceof Long) {
+                    deleted += (Long) removed;
+                }
+            }
+            issued += keys.size();
+            if (!pace(issued, start)) {
+                log.warn("sweep -> [" + pattern + "] interrupted after " + deleted + " keys");
+                break;
+            }
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        return deleted;
+    }
+
+    /**
+     * 在多个节点上并行删除匹配的 key，失败的节点记录错误日志，不计入返回值
+     *
+     * @param pools   各节点连接池
+     * @param pattern 已包含前缀的模式
+     * @return 删除的 key 数
+     */
+    public long sweep(Collection<JedisPool> pools, final String pattern) {
+        if (pools.isEmpty()) {
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(pools.size(), CacheExecutors.threadFactory("ucc-cache-sweep"));
+        try {
+            List<Future<Long>> futures = new ArrayList<>(pools.size());
+            for (final JedisPool pool : pools) {
+                futures.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() {
+                        try (Jedis jedis = pool.getResource()) {
+                            return sweep(jedis, pattern);
+                        }
+                    }
+                }));
+            }
+            long deleted = 0;
+            for (Future<Long> future : futures) {
+                try {
+                    deleted += future.get();
+                } catch (ExecutionException e) {
+                    log.error("sweep -> [" + pattern + "] error : " + e.getCause());
+                }
+            }
+            return deleted;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 按限速等待，线程被中断时返回 false
+     */
+    private boolean pace(long issued, long start) {
+        if (keysPerSecond == 0) {
+            return !Thread.currentThread().isInterrupted();
+        }
+        long ahead = issued * 1000000000L / keysPerSecond - (System.nanoTime() - start);
+        if (ahead > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(ahead);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
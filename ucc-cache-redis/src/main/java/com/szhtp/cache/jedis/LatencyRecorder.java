@@ -0,0 +1,61 @@
+package com.szhtp.cache.jedis;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 最近 N 次耗时的滑动窗口，用于计算延迟分位数
+ *
+ * @author null
+ */
+public class LatencyRecorder {
+
+    private final AtomicLongArray samples;
+
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * @param capacity 窗口大小
+     */
+    public LatencyRecorder(int capacity) {
+        this.samples = new AtomicLongArray(Math.max(1, capacity));
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param micros 微秒
+     */
+    public void record(long micros) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % samples.length()), micros);
+    }
+
+    /**
+     * 累计记录次数
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * 窗口内耗时的分位数
+     *
+     * @param percentile 0~1，如 0.99
+     * @return 微秒，尚无样本时返回 -1
+     */
+    public long percentile(double percentile) {
+        int size = (int) Math.min(count.get(), samples.length());
+        if (size == 0) {
+            return -1;
+        }
+        long[] copy = new long[size];
+        for (int i = 0; i < size; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        int idx = (int) Math.ceil(percentile * size) - 1;
+        return copy[Math.max(0, Math.min(size - 1, idx))];
+    }
+}
@@ -0,0 +1,61 @@
+package com.szhtp.cache.jedis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * list 存储使用的脚本，写入和设置过期时间在服务端原子执行
+ *
+ * @author null
+ */
+public final class ListScripts {
+
+    /**
+     * 把 JSON 字符串整体存储的列表原地转为 list，值在读取后被修改时放弃。
+     * ARGV[1] 为读取到的原值，ARGV[2] 为剩余毫秒数，之后为各元素
+     */
+    public static final RedisScript MIGRATE = new RedisScript(
+            "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end\n"
+                    + "redis.call('del', KEYS[1])\n"
+                    + "for i = 3, #ARGV, 1000 do\n"
+                    + "  redis.call('rpush', KEYS[1], unpack(ARGV, i, math.min(i + 999, #ARGV)))\n"
+                    + "end\n"
+                    + "if tonumber(ARGV[2]) > 0 then redis.call('pexpire', KEYS[1], ARGV[2]) end\n"
+                    + "return 1");
+
+    /**
+     * 追加元素并设置过期时间，返回追加后的长度。ARGV[1] 为过期秒数，之后为各元素
+     */
+    public static final RedisScript PUSH = new RedisScript(
+            "local n = 0\n"
+                    + "for i = 2, #ARGV, 1000 do\n"
+                    + "  n = redis.call('rpush', KEYS[1], unpack(ARGV, i, math.min(i + 999, #ARGV)))\n"
+                    + "end\n"
+                    + "if tonumber(ARGV[1]) > 0 then redis.call('expire', KEYS[1], ARGV[1]) end\n"
+                    + "return n");
+
+    private ListScripts() {
+    }
+
+    /**
+     * {@link #MIGRATE} 的参数
+     */
+    static List<String> migrateArgs(String original, long ttlMillis, List<String> elements) {
+        List<String> args = new ArrayList<>(elements.size() + 2);
+        args.add(original);
+        args.add(Long.toString(ttlMillis));
+        args.addAll(elements);
+        return args;
+    }
+
+    /**
+     * {@link #PUSH} 的参数
+     */
+    static List<String> pushArgs(String[] elements, int seconds) {
+        List<String> args = new ArrayList<>(elements.length + 1);
+        args.add(Integer.toString(seconds));
+        args.addAll(Arrays.asList(elements));
+        return args;
+    }
+}
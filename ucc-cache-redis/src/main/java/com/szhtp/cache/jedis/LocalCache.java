@@ -0,0 +1,189 @@
+package com.szhtp.cache.jedis;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内短时缓存，保存 redis 中的原始字符串值，读取时再按需解码。
+ * 条目到期即失效，数量超过上限时优先淘汰已过期的条目。
+ *
+ * @author null
+ */
+public class LocalCache {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 最大条目数
+     */
+    private final int maxEntries;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public LocalCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 获取未过期的值
+     *
+     * @param key 键
+     * @return 值，不存在或已过期返回 null
+     */
+    public String get(String key) {
+        Entry e = entries.get(key);
+        if (e == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (e.expireAt <= System.currentTimeMillis()) {
+            entries.remove(key, e);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return e.value;
+    }
+
+    /**
+     * 写入
+     *
+     * @param key        键
+     * @param value      值，null 不缓存
+     * @param ttlMillis  存活毫秒数
+     */
+    public void put(String key, String value, long ttlMillis) {
+        if (value == null || ttlMillis <= 0) {
+            return;
+        }
+        putUntil(key, value, System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * 写入并指定绝对过期时间
+     *
+     * @param key      键
+     * @param value    值
+     * @param expireAt 过期时间点，毫秒
+     */
+    public void putUntil(String key, String value, long expireAt) {
+        if (value == null || expireAt <= System.currentTimeMillis()) {
+            return;
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            evict();
+        }
+        entries.put(key, new Entry(value, expireAt));
+    }
+
+    public boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * 遍历未过期的条目，用于保存快照
+     *
+     * @param visitor 访问者
+     */
+    public void forEach(Visitor visitor) {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (entry.expireAt > now && !visitor.visit(e.getKey(), entry.value, entry.expireAt)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 命中率，没有读取时返回 0
+     */
+    public double getHitRate() {
+        long hit = getHits();
+        long total = hit + getMisses();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * 腾出空间：先清理过期条目，仍然超限则随机淘汰一个
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        boolean removed = false;
+        while (it.hasNext()) {
+            if (it.next().getValue().expireAt <= now) {
+                it.remove();
+                removed = true;
+            }
+        }
+        if (!removed) {
+            it = entries.entrySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 条目访问者
+     */
+    public interface Visitor {
+
+        /**
+         * 访问一个条目
+         *
+         * @param key      键
+         * @param value    值
+         * @param expireAt 过期时间点，毫秒
+         * @return 返回 false 时停止遍历
+         */
+        boolean visit(String key, String value, long expireAt);
+    }
+
+    private static final class Entry {
+        final String value;
+        final long expireAt;
+
+        Entry(String value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
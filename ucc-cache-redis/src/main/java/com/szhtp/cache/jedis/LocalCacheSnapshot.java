@@ -0,0 +1,286 @@
+package com.szhtp.cache.jedis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 本地缓存快照：定期把本地缓存中未过期的条目连同过期时间写入文件，
+ * 重启后在后台线程读回，使本地缓存不必从空开始。读回和定期保存都在快照自己的单个线程执行，
+ * 文件读写不占用共享的调度线程；不使用内存映射，替换或删除文件时没有未释放的映射。
+ * <p>
+ * 文件格式：魔数、格式版本、条目数、数据长度、数据的 CRC32，之后为各条目的
+ * key 长度、key、过期时间点、值长度、值（UTF-8）。先写临时文件再原子替换；
+ * 魔数、版本、长度或校验和不符的文件视为损坏，记录日志后删除，不影响启动。
+ *
+ * @author null
+ */
+public class LocalCacheSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalCacheSnapshot.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int MAGIC = 0x55434353;
+
+    /**
+     * 格式版本，格式变化时加一，旧版本的文件不再读取
+     */
+    static final int VERSION = 1;
+
+    /**
+     * 文件头字节数：魔数、版本、条目数、数据长度、CRC32
+     */
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 8;
+
+    /**
+     * 写入时合并小条目的缓冲区字节数
+     */
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    private final LocalCache cache;
+
+    private final File file;
+
+    /**
+     * 快照数据的最大字节数，超过时其余条目不保存
+     */
+    private final long maxBytes;
+
+    private ScheduledThreadPoolExecutor executor;
+
+    private ScheduledFuture<?> saveTask;
+
+    /**
+     * @param cache    本地缓存
+     * @param file     快照文件
+     * @param maxBytes 快照数据的最大字节数
+     */
+    public LocalCacheSnapshot(LocalCache cache, File file, long maxBytes) {
+        this.cache = cache;
+        this.file = file;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 后台读回快照，之后按间隔定期保存
+     *
+     * @param intervalMillis 保存间隔，毫秒
+     */
+    public synchronized void start(long intervalMillis) {
+        if (saveTask != null) {
+            return;
+        }
+        executor = new ScheduledThreadPoolExecutor(1, CacheExecutors.threadFactory("ucc-cache-snapshot"));
+        executor.setRemoveOnCancelPolicy(true);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                load();
+            }
+        });
+        saveTask = executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                save();
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止定期保存并保存最后一次
+     */
+    public synchronized void stop() {
+        if (saveTask != null) {
+            saveTask.cancel(false);
+            saveTask = null;
+            executor.shutdown();
+            executor = null;
+            save();
+        }
+    }
+
+    /**
+     * 保存快照
+     *
+     * @return 保存的条目数，失败返回 -1
+     */
+    public synchronized int save() {
+        final List<byte[]> records = new ArrayList<>();
+        final long[] length = {0};
+        cache.forEach(new LocalCache.Visitor() {
+            @Override
+            public boolean visit(String key, String value, long expireAt) {
+                byte[] k = key.getBytes(UTF8);
+                byte[] v = value.getBytes(UTF8);
+                int size = 4 + k.length + 8 + 4 + v.length;
+                if (length[0] + size > maxBytes) {
+                    return false;
+                }
+                byte[] record = new byte[size];
+                ByteBuffer buf = ByteBuffer.wrap(record);
+                buf.putInt(k.length).put(k).putLong(expireAt).putInt(v.length).put(v);
+                records.add(record);
+                length[0] += size;
+                return true;
+            }
+        });
+        CRC32 crc = new CRC32();
+        for (byte[] record : records) {
+            crc.update(record);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp); FileChannel channel = out.getChannel()) {
+            ByteBuffer buf = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(records.size()).putLong(length[0]).putLong(crc.getValue());
+            for (byte[] record : records) {
+                if (record.length > buf.remaining()) {
+                    flush(channel, buf);
+                }
+                if (record.length > buf.remaining()) {
+                    writeFully(channel, ByteBuffer.wrap(record));
+                } else {
+                    buf.put(record);
+                }
+            }
+            flush(channel, buf);
+            channel.force(true);
+        } catch (IOException e) {
+            log.error("snapshot save -> [" + file + "] error : " + e);
+            return -1;
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("snapshot save -> [" + file + "] error : " + e);
+            return -1;
+        }
+        return records.size();
+    }
+
+    /**
+     * 读回快照，跳过已过期和启动后已缓存的条目；文件不存在返回 0，损坏或版本不符时删除文件并返回 -1
+     *
+     * @return 放入本地缓存的条目数
+     */
+    public int load() {
+        if (!file.exists()) {
+            return 0;
+        }
+        ByteBuffer buf;
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            buf = readFully(channel);
+        } catch (IOException e) {
+            log.error("snapshot load -> [" + file + "] error : " + e);
+            return -1;
+        }
+        // 文件已关闭后再校验，损坏时可以直接删除
+        long size = buf.limit();
+        if (size < HEADER_BYTES) {
+            return corrupt("truncated header");
+        }
+        try {
+            if (buf.getInt() != MAGIC) {
+                return corrupt("bad magic");
+            }
+            int version = buf.getInt();
+            if (version != VERSION) {
+                return corrupt("unsupported version " + version);
+            }
+            int count = buf.getInt();
+            long length = buf.getLong();
+            long checksum = buf.getLong();
+            if (count < 0 || length != size - HEADER_BYTES) {
+                return corrupt("length mismatch");
+            }
+            CRC32 crc = new CRC32();
+            ByteBuffer data = buf.slice();
+            update(crc, data.duplicate());
+            if (crc.getValue() != checksum) {
+                return corrupt("checksum mismatch");
+            }
+            long now = System.currentTimeMillis();
+            int loaded = 0;
+            for (int i = 0; i < count; i++) {
+                String key = readString(data);
+                long expireAt = data.getLong();
+                String value = readString(data);
+                if (expireAt > now && !cache.contains(key)) {
+                    cache.putUntil(key, value, expireAt);
+                    loaded++;
+                }
+            }
+            log.info("snapshot load -> [" + file + "] " + loaded + " of " + count + " entries");
+            return loaded;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return corrupt(e.toString());
+        }
+    }
+
+    private int corrupt(String reason) {
+        log.warn("snapshot load -> [" + file + "] ignored, " + reason);
+        if (!file.delete()) {
+            log.warn("snapshot load -> [" + file + "] delete failed");
+        }
+        return -1;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        writeFully(channel, buf);
+        buf.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    /**
+     * 读取整个文件，超过 2G 的部分不读取，按长度不符处理
+     */
+    private static ByteBuffer readFully(FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(channel.size(), Integer.MAX_VALUE));
+        while (buf.hasRemaining() && channel.read(buf) >= 0) {
+            continue;
+        }
+        buf.flip();
+        return buf;
+    }
+
+    private static void update(CRC32 crc, ByteBuffer buf) {
+        byte[] block = new byte[64 * 1024];
+        while (buf.hasRemaining()) {
+            int n = Math.min(block.length, buf.remaining());
+            buf.get(block, 0, n);
+            crc.update(block, 0, n);
+        }
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0 || length > buf.remaining()) {
+            throw new IllegalArgumentException("bad length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, UTF8);
+    }
+}
@@ -0,0 +1,1601 @@
+package com.szhtp.cache.jedis;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.Pool;
+
+import java.io.Closeable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内存实现，用于单节点部署、本地开发和测试，不需要 redis。
+ * <p>
+ * 字符串、list、hash、sorted set 和位图的读写与 redis 实现的返回值一致，incr、setnx、getSet、append
+ * 和 compareAndSet 在 key 的分段锁内原子执行。过期时间由时间轮定期清除，读取时也会检查；
+ * 超过最大 key 数或估算的最大字节数时按 CLOCK（二次机会）淘汰最近未访问的 key。
+ * 发布订阅只在进程内投递。
+ *
+ * @author null
+ */
+public class LocalJedisServiceImpl implements JedisService, RawSupport, PubSubSupport, ProfileSupport, Warmable, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalJedisServiceImpl.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * 时间轮的槽数
+     */
+    private static final int WHEEL_SLOTS = 512;
+
+    private static final int LOCK_STRIPES = 256;
+
+    /**
+     * SETBIT 允许的最大位置，与 redis 的 512MB 上限一致
+     */
+    private static final long MAX_BIT_OFFSET = (1L << 32) - 1;
+
+    private static final String WRONG_TYPE = "WRONGTYPE Operation against a key holding the wrong kind of value";
+
+    private final String prefix;
+
+    /**
+     * 最大 key 数，0 表示不限
+     */
+    private final int maxEntries;
+
+    /**
+     * 估算的最大字节数，0 表示不限
+     */
+    private final long maxBytes;
+
+    private final long tickMillis;
+
+    private final ConcurrentHashMap<String, Entry> data = new ConcurrentHashMap<>();
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * 时间轮，每个槽保存到期时间落在该槽的 key
+     */
+    private final List<ConcurrentLinkedQueue<Entry>> wheel = new ArrayList<>(WHEEL_SLOTS);
+
+    /**
+     * 已处理到的时间轮刻度
+     */
+    private volatile long currentTick;
+
+    /**
+     * CLOCK 淘汰队列，按写入顺序，每个 key 一个节点
+     */
+    private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<>();
+
+    /**
+     * CLOCK 队列中已删除 key 的节点数，超过 key 数时整理队列
+     */
+    private final AtomicInteger deadNodes = new AtomicInteger();
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong expirations = new AtomicLong();
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    private final ScheduledFuture<?> tickTask;
+
+    /**
+     * @param prefix     key 前缀
+     * @param maxEntries 最大 key 数，0 表示不限
+     * @param maxBytes   估算的最大字节数，0 表示不限
+     * @param tickMillis 时间轮每格的毫秒数，即过期 key 被清除的最大延迟
+     */
+    public LocalJedisServiceImpl(String prefix, int maxEntries, long maxBytes, long tickMillis) {
+        this.prefix = prefix;
+        this.maxEntries = Math.max(0, maxEntries);
+        this.maxBytes = Math.max(0, maxBytes);
+        this.tickMillis = Math.max(1, tickMillis);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel.add(new ConcurrentLinkedQueue<Entry>());
+        }
+        this.currentTick = System.currentTimeMillis() / this.tickMillis;
+        this.tickTask = CacheExecutors.scheduler().scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    tick(System.currentTimeMillis());
+                } catch (RuntimeException e) {
+                    log.error("local expire error : " + e);
+                }
+            }
+        }, this.tickMillis, this.tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    protected String realKey(String key) {
+        return StringUtils.isBlank(prefix) ? key : prefix + key;
+    }
+
+    /**
+     * 当前 key 数，包含已过期尚未清除的 key
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * 估算的已用字节数，未限制字节数时只统计字符串
+     */
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * 时间轮清除的过期 key 数
+     */
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    @Override
+    public void close() {
+        tickTask.cancel(false);
+        closed.countDown();
+    }
+
+    @Override
+    public void prepare() {
+    }
+
+    @Override
+    public Collection<? extends Pool<Jedis>> pools() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public int warmUpConnections() {
+        return 0;
+    }
+
+    @Override
+    public void setString(String key, String value) {
+        String k = realKey(key);
+        try {
+            synchronized (lock(k)) {
+                put(k, StringUtils.isBlank(value) ? "" : value, 0);
+            }
+        } catch (Exception e) {
+            log.error("set -> [" + key + "] error : " + e);
+        }
+        evict();
+    }
+
+    @Override
+    public boolean setString(String key, String value, int seconds) {
+        String k = realKey(key);
+        try {
+            if (seconds <= 0) {
+                throw new JedisDataException("ERR invalid expire time in setex");
+            }
+            synchronized (lock(k)) {
+                put(k, StringUtils.isEmpty(value) ? "" : value, expireAt(seconds));
+            }
+            evict();
+            return true;
+        } catch (Exception e) {
+            log.error("setex -> [" + key + "] error : " + e);
+        }
+        return false;
+    }
+
+    /**
+     * 与 redis 实现一致，不论是否写入都按 seconds 重设过期时间
+     */
+    @Override
+    public Long setnxString(String key, String value, int seconds) {
+        String k = realKey(key);
+        Long ret = 0L;
+        try {
+            synchronized (lock(k)) {
+                if (live(k) == null) {
+                    put(k, StringUtils.isEmpty(value) ? "" : value, 0);
+                    ret = 1L;
+                }
+                expireLocked(k, seconds);
+            }
+        } catch (Exception e) {
+            log.error("set -> [" + key + "] error : " + e);
+        }
+        evict();
+        return ret;
+    }
+
+    @Override
+    public String getString(String key) {
+        String k = realKey(key);
+        try {
+            synchronized (lock(k)) {
+                Object value = read(k);
+                return value == null ? null : text(value);
+            }
+        } catch (Exception e) {
+            log.error("get -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> void setObject(String key, T obj) {
+        setString(key, JSON.toJSONString(obj));
+    }
+
+    @Override
+    public <T> boolean setObject(String key, T obj, int seconds) {
+        return setString(key, JSON.toJSONString(obj), seconds);
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> clazz) {
+        String s = getString(key);
+        if (s != null && !"".equals(s.trim())) {
+            return JSON.parseObject(s, clazz);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> void setList(String key, List<T> objList, int seconds) {
+        setString(key, JSONArray.toJSONString(objList), seconds);
+    }
+
+    @Override
+    public <T> List<T> getList(String key, Class<T> clazz) {
+        String s = getString(key);
+        if (s != null && !"".equals(s.trim())) {
+            return JSONArray.parseArray(s, clazz);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> Iterator<T> iterateList(String key, Class<T> clazz) {
+        try {
+            return JsonArrays.iterator(getBytes(key), clazz);
+        } catch (Exception e) {
+            log.error("iterateList -> [" + key + "] error : " + e);
+            return null;
+        }
+    }
+
+    @Override
+    public <T> long streamList(String key, Class<T> clazz, ElementConsumer<T> consumer) {
+        try {
+            return JsonArrays.forEach(iterateList(key, clazz), consumer);
+        } catch (Exception e) {
+            log.error("streamList -> [" + key + "] error : " + e);
+            return -1;
+        }
+    }
+
+    /**
+     * 返回追加后的字节数，保留原过期时间
+     */
+    @Override
+    public Long append(String key, String str) {
+        String k = realKey(key);
+        Long res = 0L;
+        try {
+            synchronized (lock(k)) {
+                Entry entry = live(k);
+                String value = str == null ? "" : str;
+                if (entry == null) {
+                    put(k, value, 0);
+                    res = (long) value.getBytes(UTF8).length;
+                } else {
+                    byte[] current = bytes(entry.value);
+                    byte[] appended = value.getBytes(UTF8);
+                    byte[] joined = Arrays.copyOf(current, current.length + appended.length);
+                    System.arraycopy(appended, 0, joined, current.length, appended.length);
+                    update(entry, entry.value instanceof String ? new String(joined, UTF8) : joined);
+                    res = (long) joined.length;
+                }
+            }
+        } catch (Exception e) {
+            log.error("append -> [" + k + "] error : " + e);
+        }
+        evict();
+        return res;
+    }
+
+    @Override
+    public Long delKey(String key) {
+        String k = realKey(key);
+        synchronized (lock(k)) {
+            return live(k) != null && remove(k) ? 1L : 0L;
+        }
+    }
+
+    @Override
+    public Long expire(String key, int seconds) {
+        String k = realKey(key);
+        synchronized (lock(k)) {
+            return expireLocked(k, seconds);
+        }
+    }
+
+    @Override
+    public Long delKeys(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return 0L;
+        }
+        long deleted = 0;
+        for (String key : keys) {
+            deleted += delKey(key);
+        }
+        return deleted;
+    }
+
+    @Override
+    public boolean expireKeys(List<String> keys, int seconds) {
+        if (keys == null || keys.isEmpty()) {
+            return true;
+        }
+        for (String key : keys) {
+            expire(key, seconds);
+        }
+        return true;
+    }
+
+    @Override
+    public long deleteByPattern(String pattern) {
+        if (StringUtils.isBlank(pattern)) {
+            return -1;
+        }
+        return sweep(KeySweeper.escape(realKey("")) + pattern);
+    }
+
+    @Override
+    public long deleteByPrefix(String keyPrefix) {
+        if (StringUtils.isBlank(keyPrefix)) {
+            return -1;
+        }
+        return sweep(KeySweeper.escape(realKey(keyPrefix)) + "*");
+    }
+
+    @Override
+    public Map<String, String> getStrings(List<String> keys) {
+        Map<String, String> ret = new LinkedHashMap<>();
+        if (keys == null || keys.isEmpty()) {
+            return ret;
+        }
+        for (String key : keys) {
+            String k = realKey(key);
+            synchronized (lock(k)) {
+                Entry entry = live(k);
+                // 与 MGET 一致，非字符串类型返回 null
+                ret.put(key, entry == null || !isString(entry.value) ? null : text(entry.value));
+                if (entry != null) {
+                    entry.visited = true;
+                }
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public boolean setStrings(Map<String, String> values, int seconds) {
+        if (values == null || values.isEmpty()) {
+            return true;
+        }
+        for (Map.Entry<String, String> e : values.entrySet()) {
+            String k = realKey(e.getKey());
+            synchronized (lock(k)) {
+                put(k, StringUtils.isEmpty(e.getValue()) ? "" : e.getValue(), seconds > 0 ? expireAt(seconds) : 0);
+            }
+        }
+        evict();
+        return true;
+    }
+
+    /**
+     * 与 redis 实现一致，key 不存在时不写入
+     */
+    @Override
+    public String getSet(String key, String value, int seconds) {
+        String k = realKey(key);
+        String ret = null;
+        try {
+            synchronized (lock(k)) {
+                Entry entry = live(k);
+                if (entry != null) {
+                    ret = text(string(entry));
+                    Entry replaced = put(k, value == null ? "" : value, 0);
+                    replaced.visited = true;
+                    expireLocked(k, seconds);
+                }
+            }
+        } catch (Exception e) {
+            log.error("getSet -> [" + key + "] error : " + e);
+        }
+        evict();
+        return ret;
+    }
+
+    /**
+     * 与 redis 实现一致，先设置过期时间再自增，key 不存在时新建的 key 不过期
+     */
+    @Override
+    public Long incr(String key, int expire) {
+        String k = realKey(key);
+        try {
+            synchronized (lock(k)) {
+                expireLocked(k, expire);
+                return increment(k);
+            }
+        } catch (Exception e) {
+            log.error("delKey -> [" + key + "] error : " + e);
+        } finally {
+            evict();
+        }
+        return null;
+    }
+
+    @Override
+    public Long incr(String key) {
+        String k = realKey(key);
+        try {
+            synchronized (lock(k)) {
+                return increment(k);
+            }
+        } catch (Exception e) {
+            log.error("delKey -> [" + key + "] error : " + e);
+        } finally {
+            evict();
+        }
+        return null;
+    }
+
+    @Override
+    public <T> boolean setObjectAsHash(String key, T obj, int seconds) {
+        if (obj == null) {
+            return false;
+        }
+        String k = realKey(key);
+        try {
+            Map<String, String> fields = BeanFields.of(obj.getClass()).toHash(obj);
+            HashMap<String, String> hash = new HashMap<>();
+            for (Map.Entry<String, String> e : fields.entrySet()) {
+                if (e.getValue() != null) {
+                    hash.put(e.getKey(), e.getValue());
+                }
+            }
+            synchronized (lock(k)) {
+                remove(k);
+                if (!hash.isEmpty()) {
+                    put(k, hash, seconds > 0 ? expireAt(seconds) : 0);
+                }
+            }
+            evict();
+            return true;
+        } catch (Exception e) {
+            log.error("hmset -> [" + key + "] error : " + e);
+        }
+        return false;
+    }
+
+    @Override
+    public <T> T getObjectFromHash(String key, Class<T> clazz) {
+        return getFields(key, clazz);
+    }
+
+    @Override
+    public <T> T getFields(String key, Class<T> clazz, String... fields) {
+        String k = realKey(key);
+        try {
+            Map<String, String> hash = new LinkedHashMap<>();
+            synchronized (lock(k)) {
+                Map<String, String> current = hash(read(k));
+                if (current != null) {
+                    if (fields == null || fields.length == 0) {
+                        hash.putAll(current);
+                    } else {
+                        for (String field : fields) {
+                            if (current.get(field) != null) {
+                                hash.put(field, current.get(field));
+                            }
+                        }
+                    }
+                }
+            }
+            return hash.isEmpty() ? null : BeanFields.of(clazz).<T>fromHash(hash);
+        } catch (Exception e) {
+            log.error("hmget -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> boolean updateFields(String key, T obj, String... fields) {
+        if (obj == null || fields == null || fields.length == 0) {
+            return false;
+        }
+        String k = realKey(key);
+        try {
+            Map<String, String> values = BeanFields.of(obj.getClass()).toHash(obj, fields);
+            synchronized (lock(k)) {
+                Entry entry = live(k);
+                if (entry == null) {
+                    return false;
+                }
+                Map<String, String> hash = hash(entry.value);
+                for (Map.Entry<String, String> e : values.entrySet()) {
+                    if (e.getValue() == null) {
+                        hash.remove(e.getKey());
+                    } else {
+                        hash.put(e.getKey(), e.getValue());
+                    }
+                }
+                changed(k, entry);
+            }
+            evict();
+            return true;
+        } catch (Exception e) {
+            log.error("hupdate -> [" + key + "] error : " + e);
+        }
+        return false;
+    }
+
+    @Override
+    public <T> Long pushList(String key, List<T> elements, int seconds) {
+        if (elements == null || elements.isEmpty()) {
+            return listSize(key);
+        }
+        String k = realKey(key);
+        try {
+            Long size;
+            synchronized (lock(k)) {
+                Entry entry = live(k);
+                if (entry == null) {
+                    entry = put(k, new ArrayList<String>(), 0);
+                }
+                List<String> list = list(entry.value);
+                list.addAll(Arrays.asList(ValueCodec.encodeAll(elements)));
+                size = (long) list.size();
+                changed(k, entry);
+                if (seconds > 0) {
+                    expireLocked(k, seconds);
+                }
+            }
+            evict();
+            return size;
+        } catch (Exception e) {
+            log.error("rpush -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> List<T> rangeList(String key, long start, long end, Class<T> clazz) {
+        String k = realKey(key);
+        try {
+            List<String> range;
+            synchronized (lock(k)) {
+                List<String> list = list(read(k));
+                int[] bounds = list == null ? null : bounds(start, end, list.size());
+                range = bounds == null ? Collections.<String>emptyList() : new ArrayList<>(list.subList(bounds[0], bounds[1] + 1));
+            }
+            return ValueCodec.decodeAll(range, clazz);
+        } catch (Exception e) {
+            log.error("lrange -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean trimList(String key, long start, long end) {
+        String k = realKey(key);
+        try {
+            synchronized (lock(k)) {
+                Entry entry = live(k);
+                if (entry == null) {
+                    return true;
+                }
+                List<String> list = list(entry.value);
+                int[] bounds = bounds(start, end, list.size());
+                if (bounds == null) {
+                    remove(k);
+                } else {
+                    update(entry, new ArrayList<>(list.subList(bounds[0], bounds[1] + 1)));
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("ltrim -> [" + key + "] error : " + e);
+        }
+        return false;
+    }
+
+    @Override
+    public Long listSize(String key) {
+        String k = realKey(key);
+        try {
+            synchronized (lock(k)) {
+                List<String> list = list(read(k));
+                return list == null ? 0L : (long) list.size();
+            }
+        } catch (Exception e) {
+            log.error("llen -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> Long addSorted(String key, Map<T, Double> elements, int seconds) {
+        if (elements == null || elements.isEmpty()) {
+            return 0L;
+        }
+        String k = realKey(key);
+        try {
+            long added = 0;
+            synchronized (lock(k)) {
+                Entry entry = live(k);
+                if (entry == null) {
+                    entry = put(k, new SortedMembers(), 0);
+                }
+                SortedMembers sorted = sorted(entry.value);
+                for (Map.Entry<T, Double> e : elements.entrySet()) {
+                    if (sorted.add(ValueCodec.encode(e.getKey()), e.getValue())) {
+                        added++;
+                    }
+                }
+                changed(k, entry);
+                if (seconds > 0) {
+                    expireLocked(k, seconds);
+                }
+            }
+            evict();
+            return added;
+        } catch (Exception e) {
+            log.error("zadd -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> List<T> rangeSorted(String key, long start, long end, boolean descending, Class<T> clazz) {
+        String k = realKey(key);
+        try {
+            List<String> members;
+            synchronized (lock(k)) {
+                SortedMembers sorted = sorted(read(k));
+                members = sorted == null ? Collections.<String>emptyList() : sorted.range(start, end, descending);
+            }
+            return ValueCodec.decodeAll(members, clazz);
+        } catch (Exception e) {
+            log.error("zrange -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> List<T> rangeSortedByScore(String key, double min, double max, int offset, int count, Class<T> clazz) {
+        String k = realKey(key);
+        try {
+            List<String> members;
+            synchronized (lock(k)) {
+                SortedMembers sorted = sorted(read(k));
+                members = sorted == null ? Collections.<String>emptyList() : sorted.rangeByScore(min, max, offset, count);
+            }
+            return ValueCodec.decodeAll(members, clazz);
+        } catch (Exception e) {
+            log.error("zrangeByScore -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public Long trimSorted(String key, long maxSize) {
+        String k = realKey(key);
+        try {
+            synchronized (lock(k)) {
+                Entry entry = live(k);
+                if (entry == null) {
+                    return 0L;
+                }
+                SortedMembers sorted = sorted(entry.value);
+                long removed = sorted.removeRange(0, -Math.max(0, maxSize) - 1);
+                if (sorted.size() == 0) {
+                    remove(k);
+                } else {
+                    changed(k, entry);
+                }
+                return removed;
+            }
+        } catch (Exception e) {
+            log.error("zremrangeByRank -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public Long sortedSize(String key) {
+        String k = realKey(key);
+        try {
+            synchronized (lock(k)) {
+                SortedMembers sorted = sorted(read(k));
+                return sorted == null ? 0L : (long) sorted.size();
+            }
+        } catch (Exception e) {
+            log.error("zcard -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> boolean migrateToList(String key, Class<T> clazz) {
+        String k = realKey(key);
+        try {
+            synchronized (lock(k)) {
+                Entry entry = live(k);
+                if (entry != null && entry.value instanceof List) {
+                    return true;
+                }
+                if (entry == null || !isString(entry.value)) {
+                    return false;
+                }
+                String original = text(entry.value);
+                List<T> elements = StringUtils.isBlank(original) ? Collections.<T>emptyList() : JSONArray.parseArray(original, clazz);
+                if (elements.isEmpty()) {
+                    remove(k);
+                } else {
+                    update(entry, new ArrayList<>(Arrays.asList(ValueCodec.encodeAll(elements))));
+                }
+                return true;
+            }
+        } catch (Exception e) {
+            log.error("migrateToList -> [" + key + "] error : " + e);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean setBits(String key, long... offsets) {
+        String k = realKey(key);
+        try {
+            synchronized (lock(k)) {
+                Entry entry = live(k);
+                byte[] bits = entry == null ? new byte[0] : bytes(string(entry));
+                for (long offset : offsets) {
+                    if (offset < 0 || offset > MAX_BIT_OFFSET) {
+                        throw new JedisDataException("ERR bit offset is not an integer or out of range");
+                    }
+                    int index = (int) (offset >>> 3);
+                    if (index >= bits.length) {
+                        bits = Arrays.copyOf(bits, index + 1);
+                    }
+                    bits[index] |= (byte) (0x80 >>> (offset & 7));
+                }
+                if (entry == null) {
+                    put(k, bits, 0);
+                } else {
+                    update(entry, bits);
+                }
+            }
+            evict();
+            return true;
+        } catch (Exception e) {
+            log.error("setbit -> [" + key + "] error : " + e);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean[] getBits(String key, long... offsets) {
+        String k = realKey(key);
+        try {
+            byte[] bits;
+            synchronized (lock(k)) {
+                Object value = read(k);
+                if (value != null && !isString(value)) {
+                    throw new JedisDataException(WRONG_TYPE);
+                }
+                bits = value == null ? new byte[0] : bytes(value);
+            }
+            boolean[] ret = new boolean[offsets.length];
+            for (int i = 0; i < offsets.length; i++) {
+                long index = offsets[i] >>> 3;
+                ret[i] = offsets[i] >= 0 && index < bits.length && (bits[(int) index] & (0x80 >>> (offsets[i] & 7))) != 0;
+            }
+            return ret;
+        } catch (Exception e) {
+            log.error("getbit -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public byte[] getBytes(String key) {
+        String k = realKey(key);
+        try {
+            synchronized (lock(k)) {
+                Object value = read(k);
+                if (value != null && !isString(value)) {
+                    throw new JedisDataException(WRONG_TYPE);
+                }
+                return value == null ? new byte[0] : bytes(value).clone();
+            }
+        } catch (Exception e) {
+            log.error("get -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    /**
+     * 与 GETRANGE 一致，结束下标倒数超过开头时按 0 处理
+     */
+    @Override
+    public String getRange(String key, long start, long end) {
+        String k = realKey(key);
+        try {
+            byte[] value;
+            synchronized (lock(k)) {
+                Object current = read(k);
+                if (current != null && !isString(current)) {
+                    return null;
+                }
+                value = current == null ? new byte[0] : bytes(current);
+            }
+            int[] range = bounds(start, end < 0 ? Math.max(0, value.length + end) : end, value.length);
+            return range == null ? "" : new String(value, range[0], range[1] - range[0] + 1, UTF8);
+        } catch (Exception e) {
+            log.error("getrange -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> Versioned<T> getVersioned(String key, Class<T> clazz) {
+        String k = realKey(key);
+        try {
+            String version;
+            String value;
+            synchronized (lock(k)) {
+                Map<String, String> hash = hash(read(k));
+                version = hash == null ? null : hash.get(VersionScripts.VERSION_FIELD);
+                value = hash == null ? null : hash.get(VersionScripts.DATA_FIELD);
+            }
+            if (version == null) {
+                return new Versioned<>(0, null);
+            }
+            return new Versioned<>(Long.parseLong(version), value == null ? null : JSON.parseObject(value, clazz));
+        } catch (Exception e) {
+            log.error("getVersioned -> [" + key + "] error : " + e);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> long compareAndSet(String key, long expectedVersion, T obj, int seconds) {
+        String k = realKey(key);
+        try {
+            String json = JSON.toJSONString(obj);
+            long version;
+            synchronized (lock(k)) {
+                Entry entry = live(k);
+                Map<String, String> hash = entry == null ? null : hash(entry.value);
+                String current = hash == null ? null : hash.get(VersionScripts.VERSION_FIELD);
+                version = current == null ? 0 : Long.parseLong(current);
+                if (version != expectedVersion) {
+                    return 0;
+                }
+                if (entry == null) {
+                    entry = put(k, new HashMap<String, String>(), 0);
+                    hash = hash(entry.value);
+                }
+                hash.put(VersionScripts.VERSION_FIELD, Long.toString(version + 1));
+                hash.put(VersionScripts.DATA_FIELD, json);
+                changed(k, entry);
+                if (seconds > 0) {
+                    expireLocked(k, seconds);
+                }
+            }
+            evict();
+            return version + 1;
+        } catch (Exception e) {
+            log.error("compareAndSet -> [" + key + "] error : " + e);
+        }
+        return -1;
+    }
+
+    /**
+     * 只投递给本进程内的订阅者
+     */
+    @Override
+    public Long publish(String channel, String message) {
+        String realChannel = realKey(channel);
+        long received = 0;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.channels.contains(realChannel)) {
+                try {
+                    subscription.listener.onMessage(realChannel, message);
+                    received++;
+                } catch (RuntimeException e) {
+                    log.error("publish -> [" + channel + "] error : " + e);
+                }
+            }
+        }
+        return received;
+    }
+
+    /**
+     * 阻塞到关闭或线程被中断
+     */
+    @Override
+    public void subscribe(JedisPubSub listener, String... channels) {
+        Set<String> realChannels = new java.util.HashSet<>();
+        for (String channel : channels) {
+            realChannels.add(realKey(channel));
+        }
+        Subscription subscription = new Subscription(listener, realChannels);
+        subscriptions.add(subscription);
+        try {
+            int count = 0;
+            for (String channel : realChannels) {
+                listener.onSubscribe(channel, ++count);
+            }
+            closed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            subscriptions.remove(subscription);
+        }
+    }
+
+    @Override
+    public KeyProfile profileKeys(KeyProfiler profiler, String pattern) {
+        String realPattern = KeySweeper.escape(realKey("")) + pattern;
+        long now = System.currentTimeMillis();
+        List<KeyProfile.KeyInfo> keys = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : data.entrySet()) {
+            if (!matches(realPattern, e.getKey())) {
+                continue;
+            }
+            synchronized (lock(e.getKey())) {
+                Entry entry = e.getValue();
+                if (data.get(e.getKey()) == entry && !expired(entry, now)) {
+                    keys.add(new KeyProfile.KeyInfo(e.getKey(), type(entry.value), entry.expireAt == 0 ? -1 : entry.expireAt - now,
+                            measure(e.getKey(), entry.value)));
+                }
+            }
+        }
+        return profiler.profile(keys.iterator());
+    }
+
+    /**
+     * 清除时间轮中已到期的 key，调度线程调用
+     *
+     * @param now 当前毫秒时间戳
+     */
+    void tick(long now) {
+        long target = now / tickMillis;
+        // 落后超过一圈时每个槽只处理一次
+        long from = Math.max(currentTick + 1, target - WHEEL_SLOTS + 1);
+        for (long t = from; t <= target; t++) {
+            ConcurrentLinkedQueue<Entry> slot = wheel.get((int) (t % WHEEL_SLOTS));
+            // 只处理开始时已在槽内的 key，处理期间加入的留到下一圈
+            for (int n = slot.size(); n > 0; n--) {
+                Entry entry = slot.poll();
+                if (entry == null) {
+                    break;
+                }
+                if (entry.wheelTick % WHEEL_SLOTS != t % WHEEL_SLOTS) {
+                    // 过期时间已改到其它槽
+                    continue;
+                }
+                synchronized (lock(entry.key)) {
+                    if (data.get(entry.key) != entry || entry.expireAt == 0) {
+                        continue;
+                    }
+                    if (entry.expireAt <= now) {
+                        remove(entry.key);
+                        expirations.incrementAndGet();
+                    } else if (entry.wheelTick > t) {
+                        slot.offer(entry);
+                    }
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, target);
+        purgeClock();
+    }
+
+    private Object lock(String key) {
+        int h = key.hashCode();
+        return locks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private long expireAt(int seconds) {
+        return System.currentTimeMillis() + seconds * 1000L;
+    }
+
+    /**
+     * 未过期的 key，已过期时删除并返回 null，需持有 key 的锁
+     */
+    private Entry live(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && expired(entry, System.currentTimeMillis())) {
+            remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * 读取未过期的值并标记为最近访问，需持有 key 的锁
+     */
+    private Object read(String key) {
+        Entry entry = live(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.visited = true;
+        return entry.value;
+    }
+
+    private static boolean expired(Entry entry, long now) {
+        return entry.expireAt != 0 && entry.expireAt <= now;
+    }
+
+    /**
+     * 写入新值替换原有的 key，覆盖时复用原条目和它的 CLOCK 节点并视为一次访问，需持有 key 的锁
+     */
+    private Entry put(String key, Object value, long expireAt) {
+        long bytes = measure(key, value);
+        Entry entry = data.get(key);
+        if (entry == null) {
+            entry = new Entry(key, value);
+            data.put(key, entry);
+            clock.offer(entry);
+            usedBytes.addAndGet(bytes);
+        } else {
+            entry.value = value;
+            entry.visited = true;
+            usedBytes.addAndGet(bytes - entry.bytes);
+        }
+        entry.bytes = bytes;
+        schedule(entry, expireAt);
+        return entry;
+    }
+
+    /**
+     * 替换值，保留过期时间，需持有 key 的锁
+     */
+    private void update(Entry entry, Object value) {
+        entry.value = value;
+        changed(entry.key, entry);
+    }
+
+    /**
+     * 值已原地修改，重新估算大小；未限制字节数时集合类型不重新估算
+     */
+    private void changed(String key, Entry entry) {
+        if (maxBytes > 0 || isString(entry.value)) {
+            long bytes = measure(key, entry.value);
+            usedBytes.addAndGet(bytes - entry.bytes);
+            entry.bytes = bytes;
+        }
+    }
+
+    private boolean remove(String key) {
+        Entry old = data.remove(key);
+        if (old == null) {
+            return false;
+        }
+        usedBytes.addAndGet(-old.bytes);
+        old.value = null;
+        deadNodes.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 与 EXPIRE 一致：key 不存在返回 0，秒数小于等于 0 时删除 key，需持有 key 的锁
+     */
+    private long expireLocked(String key, int seconds) {
+        Entry entry = live(key);
+        if (entry == null) {
+            return 0L;
+        }
+        if (seconds <= 0) {
+            remove(key);
+        } else {
+            schedule(entry, expireAt(seconds));
+        }
+        return 1L;
+    }
+
+    private void schedule(Entry entry, long expireAt) {
+        entry.expireAt = expireAt;
+        if (expireAt == 0) {
+            return;
+        }
+        long tick = Math.max(expireAt / tickMillis, currentTick + 1);
+        if (tick != entry.wheelTick) {
+            entry.wheelTick = tick;
+            wheel.get((int) (tick % WHEEL_SLOTS)).offer(entry);
+        }
+    }
+
+    private Long increment(String key) {
+        Entry entry = live(key);
+        long value = 0;
+        if (entry != null) {
+            try {
+                value = Long.parseLong(text(string(entry)));
+            } catch (NumberFormatException e) {
+                throw new JedisDataException("ERR value is not an integer or out of range");
+            }
+            if (value == Long.MAX_VALUE) {
+                throw new JedisDataException("ERR increment or decrement would overflow");
+            }
+        }
+        value++;
+        if (entry == null) {
+            put(key, Long.toString(value), 0);
+        } else {
+            update(entry, Long.toString(value));
+        }
+        return value;
+    }
+
+    /**
+     * 超过最大 key 数或字节数时按 CLOCK 淘汰，同一时间只有一个线程执行
+     */
+    private void evict() {
+        purgeClock();
+        if (!overLimit() || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long budget = 2L * data.size() + 16;
+            while (overLimit() && budget-- > 0) {
+                Entry entry = clock.poll();
+                if (entry == null) {
+                    return;
+                }
+                if (data.get(entry.key) != entry) {
+                    deadNodes.decrementAndGet();
+                    continue;
+                }
+                if (entry.visited) {
+                    entry.visited = false;
+                    clock.offer(entry);
+                    continue;
+                }
+                synchronized (lock(entry.key)) {
+                    if (data.get(entry.key) == entry && remove(entry.key)) {
+                        // 节点已出队
+                        deadNodes.decrementAndGet();
+                        evictions.incrementAndGet();
+                    }
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * 已删除 key 的节点多于 key 数时整理 CLOCK 队列，与淘汰互斥；已删除的条目不会再写回，无需持有 key 的锁
+     */
+    private void purgeClock() {
+        if (deadNodes.get() <= data.size() + 16 || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Iterator<Entry> it = clock.iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (data.get(entry.key) != entry) {
+                    it.remove();
+                    deadNodes.decrementAndGet();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * CLOCK 队列的节点数，包含已删除 key 的节点
+     */
+    int clockNodes() {
+        return clock.size();
+    }
+
+    private boolean overLimit() {
+        return (maxEntries > 0 && data.size() > maxEntries) || (maxBytes > 0 && usedBytes.get() > maxBytes);
+    }
+
+    private long sweep(String pattern) {
+        long deleted = 0;
+        for (String key : data.keySet()) {
+            if (matches(pattern, key)) {
+                synchronized (lock(key)) {
+                    if (live(key) != null && remove(key)) {
+                        deleted++;
+                    }
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private static boolean isString(Object value) {
+        return value instanceof String || value instanceof byte[];
+    }
+
+    private static Object string(Entry entry) {
+        if (!isString(entry.value)) {
+            throw new JedisDataException(WRONG_TYPE);
+        }
+        return entry.value;
+    }
+
+    private static String text(Object value) {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof byte[]) {
+            return new String((byte[]) value, UTF8);
+        }
+        throw new JedisDataException(WRONG_TYPE);
+    }
+
+    private static byte[] bytes(Object value) {
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        if (value instanceof String) {
+            return ((String) value).getBytes(UTF8);
+        }
+        throw new JedisDataException(WRONG_TYPE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> list(Object value) {
+        if (value == null || value instanceof List) {
+            return (List<String>) value;
+        }
+        throw new JedisDataException(WRONG_TYPE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> hash(Object value) {
+        if (value == null || value instanceof Map) {
+            return (Map<String, String>) value;
+        }
+        throw new JedisDataException(WRONG_TYPE);
+    }
+
+    private static SortedMembers sorted(Object value) {
+        if (value == null || value instanceof SortedMembers) {
+            return (SortedMembers) value;
+        }
+        throw new JedisDataException(WRONG_TYPE);
+    }
+
+    private static String type(Object value) {
+        if (isString(value)) {
+            return "string";
+        }
+        if (value instanceof List) {
+            return "list";
+        }
+        if (value instanceof Map) {
+            return "hash";
+        }
+        return "zset";
+    }
+
+    /**
+     * 估算的内存字节数：字符按 2 字节，另加对象开销
+     */
+    @SuppressWarnings("unchecked")
+    private static long measure(String key, Object value) {
+        long bytes = 64 + 2L * key.length();
+        if (value instanceof String) {
+            bytes += 40 + 2L * ((String) value).length();
+        } else if (value instanceof byte[]) {
+            bytes += 16 + ((byte[]) value).length;
+        } else if (value instanceof List) {
+            for (String element : (List<String>) value) {
+                bytes += 48 + 2L * element.length();
+            }
+        } else if (value instanceof Map) {
+            for (Map.Entry<String, String> e : ((Map<String, String>) value).entrySet()) {
+                bytes += 112 + 2L * (e.getKey().length() + e.getValue().length());
+            }
+        } else if (value instanceof SortedMembers) {
+            bytes += ((SortedMembers) value).bytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 按 LRANGE 的规则换算下标，负数从末尾计，范围为空时返回 null
+     */
+    static int[] bounds(long start, long end, int size) {
+        if (start < 0) {
+            start = size + start;
+        }
+        if (end < 0) {
+            end = size + end;
+        }
+        if (start < 0) {
+            start = 0;
+        }
+        if (start > end || start >= size) {
+            return null;
+        }
+        if (end >= size) {
+            end = size - 1;
+        }
+        return new int[]{(int) start, (int) end};
+    }
+
+    /**
+     * glob 匹配，支持 * ? [abc] [^a] [a-z] 和反斜杠转义，与 KEYS、SCAN 的 MATCH 一致
+     */
+    static boolean matches(String pattern, String text) {
+        return matches(pattern, 0, text, 0);
+    }
+
+    private static boolean matches(String p, int pi, String s, int si) {
+        while (pi < p.length()) {
+            char c = p.charAt(pi);
+            if (c == '*') {
+                while (pi < p.length() && p.charAt(pi) == '*') {
+                    pi++;
+                }
+                if (pi == p.length()) {
+                    return true;
+                }
+                for (int i = si; i <= s.length(); i++) {
+                    if (matches(p, pi, s, i)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (si >= s.length()) {
+                return false;
+            }
+            if (c == '?') {
+                pi++;
+            } else if (c == '[') {
+                int end = pi + 1;
+                boolean negate = end < p.length() && p.charAt(end) == '^';
+                if (negate) {
+                    end++;
+                }
+                boolean matched = false;
+                char ch = s.charAt(si);
+                while (end < p.length() && p.charAt(end) != ']') {
+                    if (p.charAt(end) == '\\' && end + 1 < p.length()) {
+                        end++;
+                        matched |= p.charAt(end) == ch;
+                    } else if (end + 2 < p.length() && p.charAt(end + 1) == '-' && p.charAt(end + 2) != ']') {
+                        char lo = (char) Math.min(p.charAt(end), p.charAt(end + 2));
+                        char hi = (char) Math.max(p.charAt(end), p.charAt(end + 2));
+                        matched |= ch >= lo && ch <= hi;
+                        end += 2;
+                    } else {
+                        matched |= p.charAt(end) == ch;
+                    }
+                    end++;
+                }
+                if (matched == negate) {
+                    return false;
+                }
+                pi = Math.min(end + 1, p.length());
+            } else {
+                if (c == '\\' && pi + 1 < p.length()) {
+                    c = p.charAt(++pi);
+                }
+                if (c != s.charAt(si)) {
+                    return false;
+                }
+                pi++;
+            }
+            si++;
+        }
+        return si == s.length();
+    }
+
+    /**
+     * 一个 key 的值与元数据，值和过期时间在 key 的锁内读写
+     */
+    private static final class Entry {
+
+        private final String key;
+
+        /**
+         * String 或 byte[]（字符串）、List（list）、Map（hash）、SortedMembers（sorted set）
+         */
+        private Object value;
+
+        /**
+         * 过期时间点，0 表示不过期
+         */
+        private long expireAt;
+
+        /**
+         * 所在的时间轮刻度
+         */
+        private volatile long wheelTick;
+
+        /**
+         * CLOCK 访问标记
+         */
+        private volatile boolean visited;
+
+        private long bytes;
+
+        Entry(String key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * sorted set：按分数排序，分数相同按成员排序，与 redis 一致
+     */
+    static final class SortedMembers {
+
+        private final HashMap<String, Double> scores = new HashMap<>();
+
+        private final TreeSet<Member> order = new TreeSet<>();
+
+        /**
+         * @return 新增成员返回 true，更新分数返回 false
+         */
+        boolean add(String member, double score) {
+            Double old = scores.put(member, score);
+            if (old != null) {
+                order.remove(new Member(member, old));
+            }
+            order.add(new Member(member, score));
+            return old == null;
+        }
+
+        int size() {
+            return scores.size();
+        }
+
+        List<String> range(long start, long end, boolean descending) {
+            int[] bounds = bounds(start, end, order.size());
+            List<String> members = new ArrayList<>();
+            if (bounds == null) {
+                return members;
+            }
+            Iterator<Member> it = descending ? order.descendingIterator() : order.iterator();
+            for (int i = 0; i <= bounds[1] && it.hasNext(); i++) {
+                Member m = it.next();
+                if (i >= bounds[0]) {
+                    members.add(m.member);
+                }
+            }
+            return members;
+        }
+
+        List<String> rangeByScore(double min, double max, int offset, int count) {
+            List<String> members = new ArrayList<>();
+            if (offset < 0) {
+                return members;
+            }
+            int skipped = 0;
+            for (Member m : order.tailSet(new Member("", min), true)) {
+                if (m.score > max || (count >= 0 && members.size() >= count)) {
+                    break;
+                }
+                if (m.score >= min && skipped++ >= offset) {
+                    members.add(m.member);
+                }
+            }
+            return members;
+        }
+
+        long removeRange(long start, long end) {
+            List<String> removed = range(start, end, false);
+            for (String member : removed) {
+                order.remove(new Member(member, scores.remove(member)));
+            }
+            return removed.size();
+        }
+
+        long bytes() {
+            long bytes = 0;
+            for (String member : scores.keySet()) {
+                bytes += 160 + 2L * member.length();
+            }
+            return bytes;
+        }
+    }
+
+    private static final class Member implements Comparable<Member> {
+
+        private final String member;
+
+        private final double score;
+
+        Member(String member, double score) {
+            this.member = member;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Member o) {
+            int c = Double.compare(score, o.score);
+            return c != 0 ? c : member.compareTo(o.member);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Member && compareTo((Member) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return member.hashCode();
+        }
+    }
+
+    private static final class Subscription {
+
+        private final JedisPubSub listener;
+
+        private final Set<String> channels;
+
+        Subscription(JedisPubSub listener, Set<String> channels) {
+            this.listener = listener;
+            this.channels = channels;
+        }
+    }
+}
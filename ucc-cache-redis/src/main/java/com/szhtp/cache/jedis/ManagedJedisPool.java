@@ -0,0 +1,101 @@
+package com.szhtp.cache.jedis;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.NoSuchElementException;
+
+/**
+ * 可按 {@link PoolSettings} 自适应调整大小的 JedisPool
+ *
+ * @author null
+ */
+public class ManagedJedisPool extends JedisPool implements ManagedPool {
+
+    private final PoolController controller;
+
+    /**
+     * @param name     连接池名称，用于统计和日志
+     * @param settings 连接池参数
+     * @param host     地址
+     * @param port     端口
+     * @param timeout  超时时间，毫秒
+     * @param password 密码，可为空
+     */
+    public ManagedJedisPool(String name, PoolSettings settings, String host, int port, int timeout, String password) {
+        super(settings.toConfig(), host, port, timeout, password);
+        this.controller = settings.isAdaptive() ? PoolController.start(name, internalPool, settings) : null;
+    }
+
+    @Override
+    public Jedis getResource() {
+        try {
+            return super.getResource();
+        } catch (JedisConnectionException e) {
+            borrowFailed(controller);
+            throw e;
+        }
+    }
+
+    @Override
+    public Jedis getResource(long maxWaitMillis) {
+        Jedis jedis = borrow(internalPool, controller, maxWaitMillis);
+        jedis.setDataSource(this);
+        return jedis;
+    }
+
+    /**
+     * 连接已损坏，由 {@link Jedis#close()} 调用
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public void returnBrokenResource(Jedis resource) {
+        if (resource != null && controller != null) {
+            controller.broken();
+        }
+        super.returnBrokenResource(resource);
+    }
+
+    @Override
+    public GenericObjectPool<Jedis> getInternalPool() {
+        return internalPool;
+    }
+
+    @Override
+    public PoolController getController() {
+        return controller;
+    }
+
+    /**
+     * 限时从内部连接池取连接，异常与 {@link redis.clients.util.Pool#getResource()} 一致，建立连接失败时计入出错
+     */
+    static Jedis borrow(GenericObjectPool<Jedis> pool, PoolController controller, long maxWaitMillis) {
+        long configured = pool.getMaxWaitMillis();
+        long wait = configured < 0 ? maxWaitMillis : Math.min(configured, maxWaitMillis);
+        try {
+            return pool.borrowObject(wait);
+        } catch (NoSuchElementException e) {
+            throw new JedisException("Could not get a resource from the pool", e);
+        } catch (Exception e) {
+            borrowFailed(controller);
+            throw new JedisConnectionException("Could not get a resource from the pool", e);
+        }
+    }
+
+    static void borrowFailed(PoolController controller) {
+        if (controller != null) {
+            controller.borrowFailed();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (controller != null) {
+            controller.stop();
+        }
+        super.close();
+    }
+}
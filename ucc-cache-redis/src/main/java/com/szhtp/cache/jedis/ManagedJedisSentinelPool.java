@@ -0,0 +1,98 @@
+package com.szhtp.cache.jedis;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisSentinelPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.Set;
+
+/**
+ * 可按 {@link PoolSettings} 自适应调整大小的 JedisSentinelPool，
+ * master 切换时内部连接池保持不变，调整结果继续有效
+ *
+ * @author null
+ */
+public class ManagedJedisSentinelPool extends JedisSentinelPool implements ManagedPool {
+
+    private final PoolController controller;
+
+    /**
+     * @param name       连接池名称，用于统计和日志
+     * @param settings   连接池参数
+     * @param masterName master 名称
+     * @param sentinels  哨兵地址
+     * @param password   密码，可为空
+     */
+    public ManagedJedisSentinelPool(String name, PoolSettings settings, String masterName, Set<String> sentinels, String password) {
+        super(masterName, sentinels, settings.toConfig(), password);
+        this.controller = settings.isAdaptive() ? PoolController.start(name, internalPool, settings) : null;
+    }
+
+    @Override
+    public Jedis getResource() {
+        try {
+            return super.getResource();
+        } catch (JedisConnectionException e) {
+            ManagedJedisPool.borrowFailed(controller);
+            throw e;
+        }
+    }
+
+    @Override
+    public Jedis getResource(long maxWaitMillis) {
+        while (true) {
+            Jedis jedis = ManagedJedisPool.borrow(internalPool, controller, maxWaitMillis);
+            jedis.setDataSource(this);
+            // 与 JedisSentinelPool.getResource 相同，丢弃 master 切换前建立的连接
+            HostAndPort master = getCurrentHostMaster();
+            if (master.equals(new HostAndPort(jedis.getClient().getHost(), jedis.getClient().getPort()))) {
+                return jedis;
+            }
+            discard(jedis);
+        }
+    }
+
+    /**
+     * 连接已损坏，由 {@link Jedis#close()} 调用
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public void returnBrokenResource(Jedis resource) {
+        if (resource != null && controller != null) {
+            controller.broken();
+        }
+        super.returnBrokenResource(resource);
+    }
+
+    /**
+     * 销毁 master 切换前建立的连接，不计入出错，不经过已废弃的 returnBrokenResource
+     */
+    private void discard(Jedis jedis) {
+        try {
+            internalPool.invalidateObject(jedis);
+        } catch (Exception e) {
+            throw new JedisException("Could not return the broken resource to the pool", e);
+        }
+    }
+
+    @Override
+    public GenericObjectPool<Jedis> getInternalPool() {
+        return internalPool;
+    }
+
+    @Override
+    public PoolController getController() {
+        return controller;
+    }
+
+    @Override
+    public void close() {
+        if (controller != null) {
+            controller.stop();
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,27 @@
+package com.szhtp.cache.jedis;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import redis.clients.jedis.Jedis;
+
+/**
+ * 由本组件创建、可调整和限时取连接的连接池
+ *
+ * @author null
+ */
+public interface ManagedPool {
+
+    /**
+     * 限时取连接
+     *
+     * @param maxWaitMillis 最长等待毫秒数，超过连接池配置的等待时间时按连接池配置
+     * @return 连接
+     */
+    Jedis getResource(long maxWaitMillis);
+
+    GenericObjectPool<Jedis> getInternalPool();
+
+    /**
+     * 自适应调整器，未开启时为 null
+     */
+    PoolController getController();
+}
@@ -0,0 +1,469 @@
+package com.szhtp.cache.jedis;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 堆外本地缓存：值按 UTF-8 编码存放在 direct 内存中，读取时再解码，大值不进入老年代。
+ * <p>
+ * 内存按 slab 页管理：页大小固定，按需分配直到字节预算用完；每页只属于一个块大小等级，
+ * 值放入不小于其长度的最小块。预算用完后某一等级没有空闲块时，比较各等级最久未访问的条目：
+ * 淘汰本等级最久未访问的条目；其中其它等级的最旧条目比本等级的更旧的淘汰累计满一页的块数时，
+ * 改为回收那个等级最旧条目所在的整页，使页随访问模式在等级间迁移。本等级没有条目时直接回收一页。超过页大小的值不缓存。
+ * <p>
+ * 预算应远大于页大小与常用块大小等级数的乘积，否则页会在等级间频繁回收。
+ * 字节预算与 -Xmx 无关，但 direct 内存受 -XX:MaxDirectMemorySize 限制，需不小于预算。
+ *
+ * @author null
+ */
+public class OffHeapLocalCache extends LocalCache {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * 最小块字节数
+     */
+    private static final int MIN_CHUNK = 64;
+
+    /**
+     * 相邻等级块大小的比例
+     */
+    private static final double GROWTH = 1.25;
+
+    /**
+     * 页字节数
+     */
+    private final int slabSize;
+
+    /**
+     * 最多分配的页数
+     */
+    private final int maxPages;
+
+    private final List<ByteBuffer> pages = new ArrayList<>();
+
+    private final SlabClass[] classes;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private long usedBytes;
+
+    private long chunkBytes;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long rejected;
+
+    /**
+     * @param maxEntries 最大条目数
+     * @param maxBytes   堆外字节预算
+     * @param slabSize   页字节数，也是可缓存的最大值长度
+     */
+    public OffHeapLocalCache(int maxEntries, long maxBytes, int slabSize) {
+        super(maxEntries);
+        if (slabSize < MIN_CHUNK || maxBytes < slabSize) {
+            throw new IllegalArgumentException("Invalid off-heap cache size, maxBytes=" + maxBytes + ", slabSize=" + slabSize);
+        }
+        this.slabSize = slabSize;
+        this.maxPages = (int) Math.min(Integer.MAX_VALUE, maxBytes / slabSize);
+        List<SlabClass> list = new ArrayList<>();
+        int size = MIN_CHUNK;
+        while (size < slabSize) {
+            list.add(new SlabClass(size));
+            size = Math.max(size + 8, (int) (size * GROWTH + 7) & ~7);
+        }
+        list.add(new SlabClass(slabSize));
+        this.classes = list.toArray(new SlabClass[list.size()]);
+    }
+
+    @Override
+    public String get(String key) {
+        byte[] bytes;
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if (e == null) {
+                misses++;
+                return null;
+            }
+            if (e.expireAt <= System.currentTimeMillis()) {
+                release(key, e);
+                misses++;
+                return null;
+            }
+            classes[e.cls].lru.get(key);
+            e.accessedAt = System.nanoTime();
+            bytes = new byte[e.length];
+            ByteBuffer page = pages.get(e.page).duplicate();
+            page.position(e.offset);
+            page.get(bytes);
+            hits++;
+        }
+        return new String(bytes, UTF8);
+    }
+
+    @Override
+    public void putUntil(String key, String value, long expireAt) {
+        if (value == null || expireAt <= System.currentTimeMillis()) {
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF8);
+        synchronized (this) {
+            Entry old = entries.get(key);
+            if (old != null) {
+                release(key, old);
+            }
+            if (bytes.length > slabSize) {
+                rejected++;
+                return;
+            }
+            if (entries.size() >= getMaxEntries()) {
+                evictAny();
+            }
+            int cls = classOf(bytes.length);
+            long ref = allocate(cls);
+            if (ref < 0) {
+                rejected++;
+                return;
+            }
+            Entry e = new Entry((int) (ref >>> 32), (int) ref, bytes.length, cls, expireAt);
+            ByteBuffer page = pages.get(e.page).duplicate();
+            page.position(e.offset);
+            page.put(bytes);
+            entries.put(key, e);
+            classes[cls].lru.put(key, e);
+            usedBytes += bytes.length;
+            chunkBytes += classes[cls].chunkSize;
+        }
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        Entry e = entries.get(key);
+        if (e != null) {
+            release(key, e);
+        }
+    }
+
+    /**
+     * 清空条目，已分配的页保留复用
+     */
+    @Override
+    public synchronized void clear() {
+        for (Map.Entry<String, Entry> e : new ArrayList<>(entries.entrySet())) {
+            release(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * 先在锁内复制出未过期条目的字节，再在锁外解码并访问
+     */
+    @Override
+    public void forEach(Visitor visitor) {
+        List<String> keys = new ArrayList<>();
+        List<byte[]> values = new ArrayList<>();
+        List<Long> expires = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                if (entry.expireAt > now) {
+                    byte[] bytes = new byte[entry.length];
+                    ByteBuffer page = pages.get(entry.page).duplicate();
+                    page.position(entry.offset);
+                    page.get(bytes);
+                    keys.add(e.getKey());
+                    values.add(bytes);
+                    expires.add(entry.expireAt);
+                }
+            }
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (!visitor.visit(keys.get(i), new String(values.get(i), UTF8), expires.get(i))) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    @Override
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * 因超过页大小或无法腾出空间而未缓存的次数
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * 已分配的堆外字节数
+     */
+    public synchronized long getAllocatedBytes() {
+        return (long) pages.size() * slabSize;
+    }
+
+    /**
+     * 字节预算
+     */
+    public long getMaxBytes() {
+        return (long) maxPages * slabSize;
+    }
+
+    /**
+     * 条目值的总字节数
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * 条目占用的块的总字节数
+     */
+    public synchronized long getChunkBytes() {
+        return chunkBytes;
+    }
+
+    /**
+     * 块内碎片率：块中未被值使用的字节占条目所占块字节的比例
+     */
+    public synchronized double getFragmentation() {
+        return chunkBytes == 0 ? 0 : 1 - (double) usedBytes / chunkBytes;
+    }
+
+    /**
+     * 空间利用率：条目值的总字节数占已分配字节的比例
+     */
+    public synchronized double getUtilization() {
+        return pages.isEmpty() ? 0 : (double) usedBytes / ((long) pages.size() * slabSize);
+    }
+
+    /**
+     * 各等级的块大小 -> 页数
+     */
+    public synchronized Map<Integer, Integer> getSlabPages() {
+        Map<Integer, Integer> ret = new LinkedHashMap<>();
+        for (SlabClass c : classes) {
+            if (c.pages > 0) {
+                ret.put(c.chunkSize, c.pages);
+            }
+        }
+        return ret;
+    }
+
+    private int classOf(int length) {
+        int low = 0;
+        int high = classes.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (classes[mid].chunkSize < length) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 分配一个块：空闲块、新页、淘汰本等级最旧条目或回收其它等级的页，依次尝试
+     *
+     * @return 页序号 << 32 | 页内偏移，无法分配返回 -1
+     */
+    private long allocate(int cls) {
+        SlabClass c = classes[cls];
+        if (c.free.isEmpty() && pages.size() < maxPages) {
+            pages.add(ByteBuffer.allocateDirect(slabSize));
+            carve(pages.size() - 1, cls);
+        }
+        if (c.free.isEmpty()) {
+            SlabClass victim = null;
+            for (SlabClass other : classes) {
+                if (other != c && other.pages > 0 && (victim == null || eldestAccess(other) < eldestAccess(victim))) {
+                    victim = other;
+                }
+            }
+            boolean older = victim != null && eldestAccess(victim) < eldestAccess(c);
+            if (victim != null && (c.lru.isEmpty() || older && ++c.pressure >= slabSize / c.chunkSize)) {
+                c.pressure = 0;
+                reassignPage(victim, cls);
+            } else if (!c.lru.isEmpty()) {
+                evict(c);
+            }
+        }
+        if (c.free.isEmpty()) {
+            return -1;
+        }
+        return c.free.pop();
+    }
+
+    /**
+     * 等级中最久未访问条目的访问时间，没有条目时返回 Long.MIN_VALUE
+     */
+    private static long eldestAccess(SlabClass c) {
+        return c.lru.isEmpty() ? Long.MIN_VALUE : c.lru.values().iterator().next().accessedAt;
+    }
+
+    private void carve(int page, int cls) {
+        SlabClass c = classes[cls];
+        c.pages++;
+        for (int offset = 0; offset + c.chunkSize <= slabSize; offset += c.chunkSize) {
+            c.free.push((long) page << 32 | offset);
+        }
+    }
+
+    /**
+     * 回收 victim 等级最久未访问条目所在的页，淘汰页内所有条目后划分给 cls 等级
+     */
+    private void reassignPage(SlabClass victim, int cls) {
+        int page;
+        if (!victim.lru.isEmpty()) {
+            page = victim.lru.values().iterator().next().page;
+        } else {
+            page = (int) (victim.free.peek() >>> 32);
+        }
+        Iterator<Map.Entry<String, Entry>> it = victim.lru.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            if (e.getValue().page == page) {
+                it.remove();
+                entries.remove(e.getKey());
+                usedBytes -= e.getValue().length;
+                chunkBytes -= victim.chunkSize;
+                evictions++;
+            }
+        }
+        ArrayDeque<Long> free = new ArrayDeque<>(victim.free.size());
+        for (Long ref : victim.free) {
+            if ((int) (ref >>> 32) != page) {
+                free.add(ref);
+            }
+        }
+        victim.free.clear();
+        victim.free.addAll(free);
+        victim.pages--;
+        carve(page, cls);
+    }
+
+    /**
+     * 条目数超限时淘汰一个：只看各等级最久未访问的条目，优先已过期的，否则淘汰条目最多的等级中最久未访问的
+     */
+    private void evictAny() {
+        long now = System.currentTimeMillis();
+        SlabClass largest = null;
+        for (SlabClass c : classes) {
+            if (c.lru.isEmpty()) {
+                continue;
+            }
+            Map.Entry<String, Entry> eldest = c.lru.entrySet().iterator().next();
+            if (eldest.getValue().expireAt <= now) {
+                release(eldest.getKey(), eldest.getValue());
+                return;
+            }
+            if (largest == null || c.lru.size() > largest.lru.size()) {
+                largest = c;
+            }
+        }
+        if (largest != null) {
+            evict(largest);
+        }
+    }
+
+    private void evict(SlabClass c) {
+        Map.Entry<String, Entry> eldest = c.lru.entrySet().iterator().next();
+        release(eldest.getKey(), eldest.getValue());
+        evictions++;
+    }
+
+    private void release(String key, Entry e) {
+        entries.remove(key);
+        SlabClass c = classes[e.cls];
+        c.lru.remove(key);
+        c.free.push((long) e.page << 32 | e.offset);
+        usedBytes -= e.length;
+        chunkBytes -= c.chunkSize;
+    }
+
+    private static final class SlabClass {
+
+        final int chunkSize;
+
+        /**
+         * 空闲块，页序号 << 32 | 页内偏移
+         */
+        final ArrayDeque<Long> free = new ArrayDeque<>();
+
+        /**
+         * 本等级的条目，按访问顺序
+         */
+        final LinkedHashMap<String, Entry> lru = new LinkedHashMap<>(16, 0.75f, true);
+
+        int pages;
+
+        /**
+         * 其它等级有更旧条目时本等级的淘汰次数，满一页的块数时回收一页
+         */
+        int pressure;
+
+        SlabClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    private static final class Entry {
+
+        final int page;
+
+        final int offset;
+
+        final int length;
+
+        final int cls;
+
+        final long expireAt;
+
+        /**
+         * 最近访问时间，纳秒
+         */
+        long accessedAt = System.nanoTime();
+
+        Entry(int page, int offset, int length, int cls, long expireAt) {
+            this.page = page;
+            this.offset = offset;
+            this.length = length;
+            this.cls = cls;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.szhtp.cache.jedis;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缓存穿透防护层：
+ * <ul>
+ * <li>按 key 前缀维护布隆过滤器，写入时登记 key，读取时过滤器判断不存在的 key 直接返回空，不访问 redis 和数据库；
+ * 开启前需用 {@link #remember(Collection)} 按数据库中的全部 id 初始化，否则已有数据会被判为不存在</li>
+ * <li>空值缓存：{@link #getObject(String, Class, int, ValueLoader)} 加载到空值时缓存一个短时的空值标记</li>
+ * </ul>
+ *
+ * @author null
+ */
+public class PenetrationGuardJedisService extends JedisServiceWrapper {
+
+    /**
+     * 空值标记
+     */
+    static final String NULL_VALUE = "\u0000null";
+
+    /**
+     * 布隆过滤器位图 key 的前缀
+     */
+    static final String BLOOM_PREFIX = "__bloom:";
+
+    private final PrefixRules rules;
+
+    /**
+     * 规则前缀 -> 过滤器
+     */
+    private final Map<String, RedisBloomFilter> filters = new LinkedHashMap<>();
+
+    /**
+     * 空值缓存秒数，0 表示不缓存空值
+     */
+    private final int nullTtlSeconds;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong nullHits = new AtomicLong();
+
+    /**
+     * @param target         被包装的服务
+     * @param bloomFilters   布隆过滤器规则，格式 前缀=预计元素数[/误判率],...，为空时不过滤
+     * @param mirrorMillis   本地位图副本刷新间隔，毫秒，0 表示不保存本地副本
+     * @param nullTtlSeconds 空值缓存秒数，0 表示不缓存空值
+     */
+    public PenetrationGuardJedisService(JedisService target, String bloomFilters, long mirrorMillis, int nullTtlSeconds) {
+        super(target);
+        this.rules = PrefixRules.parse(bloomFilters);
+        this.nullTtlSeconds = nullTtlSeconds;
+        for (Map.Entry<String, String> rule : rules.asMap().entrySet()) {
+            String[] parts = rule.getValue().split("/");
+            long expected = Long.parseLong(parts[0].trim());
+            double fpp = parts.length > 1 ? Double.parseDouble(parts[1].trim()) : 0.01;
+            RedisBloomFilter filter = new RedisBloomFilter(target, BLOOM_PREFIX + rule.getKey(), expected, fpp);
+            if (mirrorMillis > 0) {
+                filter.startMirror(mirrorMillis);
+            }
+            filters.put(rule.getKey(), filter);
+        }
+    }
+
+    /**
+     * 规则前缀 -> 过滤器
+     */
+    public Map<String, RedisBloomFilter> getFilters() {
+        return Collections.unmodifiableMap(filters);
+    }
+
+    /**
+     * 被过滤器拦截的读取次数
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * 命中空值缓存的次数
+     */
+    public long getNullHits() {
+        return nullHits.get();
+    }
+
+    /**
+     * 把 key 登记到所属前缀的过滤器，不属于任何过滤器时忽略
+     *
+     * @param key 键
+     * @return 成功或无需登记返回 true
+     */
+    public boolean remember(String key) {
+        RedisBloomFilter filter = filterFor(key);
+        return filter == null || filter.put(key);
+    }
+
+    /**
+     * 批量登记 key，每个过滤器一次往返
+     *
+     * @param keys 键
+     * @return 全部成功返回 true
+     */
+    public boolean remember(Collection<String> keys) {
+        Map<RedisBloomFilter, List<String>> grouped = new LinkedHashMap<>();
+        for (String key : keys) {
+            RedisBloomFilter filter = filterFor(key);
+            if (filter == null) {
+                continue;
+            }
+            List<String> list = grouped.get(filter);
+            if (list == null) {
+                list = new ArrayList<>();
+                grouped.put(filter, list);
+            }
+            list.add(key);
+        }
+        boolean result = true;
+        for (Map.Entry<RedisBloomFilter, List<String>> e : grouped.entrySet()) {
+            result &= e.getKey().putAll(e.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * 读取对象，未命中时通过 loader 加载并写入缓存。过滤器判断不存在时直接返回空，不调用 loader；
+     * 加载到空值且开启空值缓存时缓存空值标记
+     *
+     * @param key     键
+     * @param clazz   类型
+     * @param seconds 加载到的值的缓存秒数
+     * @param loader  加载器
+     * @return 值，不存在时返回 null
+     */
+    public <T> T getObject(String key, Class<T> clazz, int seconds, ValueLoader<T> loader) {
+        if (absent(key)) {
+            return null;
+        }
+        String s = target.getString(key);
+        if (NULL_VALUE.equals(s)) {
+            nullHits.incrementAndGet();
+            return null;
+        }
+        if (s != null && !"".equals(s.trim())) {
+            return JSON.parseObject(s, clazz);
+        }
+        T value = loader.load(key);
+        if (value == null) {
+            if (nullTtlSeconds > 0) {
+                target.setString(key, NULL_VALUE, nullTtlSeconds);
+            }
+            return null;
+        }
+        setObject(key, value, seconds);
+        return value;
+    }
+
+    @Override
+    public String getString(String key) {
+        if (absent(key)) {
+            return null;
+        }
+        String value = target.getString(key);
+        if (NULL_VALUE.equals(value)) {
+            nullHits.incrementAndGet();
+            return null;
+        }
+        return value;
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> clazz) {
+        String s = getString(key);
+        if (s != null && !"".equals(s.trim())) {
+            return JSON.parseObject(s, clazz);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> List<T> getList(String key, Class<T> clazz) {
+        String s = getString(key);
+        if (s != null && !"".equals(s.trim())) {
+            return JSONArray.parseArray(s, clazz);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> Iterator<T> iterateList(String key, Class<T> clazz) {
+        return absent(key) ? null : target.iterateList(key, clazz);
+    }
+
+    @Override
+    public <T> long streamList(String key, Class<T> clazz, ElementConsumer<T> consumer) {
+        return absent(key) ? -1 : target.streamList(key, clazz, consumer);
+    }
+
+    @Override
+    public Map<String, String> getStrings(List<String> keys) {
+        Map<String, String> ret = new LinkedHashMap<>();
+        if (keys == null || keys.isEmpty()) {
+            return ret;
+        }
+        List<String> present = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            ret.put(key, null);
+            if (!absent(key)) {
+                present.add(key);
+            }
+        }
+        if (!present.isEmpty()) {
+            for (Map.Entry<String, String> e : target.getStrings(present).entrySet()) {
+                ret.put(e.getKey(), NULL_VALUE.equals(e.getValue()) ? null : e.getValue());
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public <T> T getObjectFromHash(String key, Class<T> clazz) {
+        return absent(key) ? null : target.getObjectFromHash(key, clazz);
+    }
+
+    @Override
+    public <T> T getFields(String key, Class<T> clazz, String... fields) {
+        return absent(key) ? null : target.getFields(key, clazz, fields);
+    }
+
+    @Override
+    public void setString(String key, String value) {
+        remember(key);
+        target.setString(key, value);
+    }
+
+    @Override
+    public boolean setString(String key, String value, int seconds) {
+        remember(key);
+        return target.setString(key, value, seconds);
+    }
+
+    @Override
+    public Long setnxString(String key, String value, int seconds) {
+        remember(key);
+        return target.setnxString(key, value, seconds);
+    }
+
+    @Override
+    public <T> void setObject(String key, T obj) {
+        remember(key);
+        target.setObject(key, obj);
+    }
+
+    @Override
+    public <T> boolean setObject(String key, T obj, int seconds) {
+        remember(key);
+        return target.setObject(key, obj, seconds);
+    }
+
+    @Override
+    public <T> void setList(String key, List<T> objList, int seconds) {
+        remember(key);
+        target.setList(key, objList, seconds);
+    }
+
+    @Override
+    public Long append(String key, String str) {
+        remember(key);
+        return target.append(key, str);
+    }
+
+    @Override
+    public boolean setStrings(Map<String, String> values, int seconds) {
+        if (values == null || values.isEmpty()) {
+            return true;
+        }
+        remember(values.keySet());
+        return target.setStrings(values, seconds);
+    }
+
+    @Override
+    public String getSet(String key, String value, int seconds) {
+        remember(key);
+        return target.getSet(key, value, seconds);
+    }
+
+    @Override
+    public Long incr(String key, int expire) {
+        remember(key);
+        return target.incr(key, expire);
+    }
+
+    @Override
+    public Long incr(String key) {
+        remember(key);
+        return target.incr(key);
+    }
+
+    @Override
+    public <T> boolean setObjectAsHash(String key, T obj, int seconds) {
+        remember(key);
+        return target.setObjectAsHash(key, obj, seconds);
+    }
+
+    @Override
+    public <T> Long pushList(String key, List<T> elements, int seconds) {
+        remember(key);
+        return target.pushList(key, elements, seconds);
+    }
+
+    @Override
+    public <T> Long addSorted(String key, Map<T, Double> elements, int seconds) {
+        remember(key);
+        return target.addSorted(key, elements, seconds);
+    }
+
+    @Override
+    public <T> Versioned<T> getVersioned(String key, Class<T> clazz) {
+        return absent(key) ? new Versioned<T>(0, null) : target.getVersioned(key, clazz);
+    }
+
+    @Override
+    public <T> long compareAndSet(String key, long expectedVersion, T obj, int seconds) {
+        remember(key);
+        return target.compareAndSet(key, expectedVersion, obj, seconds);
+    }
+
+    public void shutdown() {
+        for (RedisBloomFilter filter : filters.values()) {
+            filter.stopMirror();
+        }
+    }
+
+    private RedisBloomFilter filterFor(String key) {
+        return filters.isEmpty() ? null : filters.get(rules.match(key));
+    }
+
+    private boolean absent(String key) {
+        RedisBloomFilter filter = filterFor(key);
+        if (filter != null && !filter.mightContain(key)) {
+            rejected.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+}
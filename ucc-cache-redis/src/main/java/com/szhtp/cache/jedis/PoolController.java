@@ -0,0 +1,359 @@
+package com.szhtp.cache.jedis;
+
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 连接池自适应调整。每个周期根据取连接等待时间、连接使用率和连接出错比例，
+ * 在 {@link PoolSettings} 给定的范围内调整最大连接数和空闲连接数：
+ * 有等待时扩容，持续低使用率时缓慢收缩，出错比例过高时收缩并清理空闲连接，避免故障时放大连接风暴。
+ * 每次决策都会记录，可通过 {@link #decisions()} 导出。
+ *
+ * @author null
+ */
+public class PoolController {
+
+    private static final Logger log = LoggerFactory.getLogger(PoolController.class);
+
+    /**
+     * 每个连接池保留的决策记录数
+     */
+    private static final int HISTORY = 100;
+
+    /**
+     * 周期内取连接次数达到该值才按出错比例判断
+     */
+    private static final int MIN_ERROR_SAMPLES = 20;
+
+    /**
+     * 连续低使用率多少个周期后收缩
+     */
+    private static final int LOW_TICKS = 3;
+
+    private static final double LOW_UTILIZATION = 0.25;
+
+    private static final Map<String, PoolController> CONTROLLERS = new ConcurrentHashMap<>();
+
+    private final String name;
+
+    private final GenericObjectPool<Jedis> pool;
+
+    private final PoolSettings settings;
+
+    private final Deque<Decision> history = new ArrayDeque<>();
+
+    /**
+     * 建立连接失败导致取连接失败的次数，由连接池计入，不在连接池的取连接计数中
+     */
+    private final AtomicLong borrowFailures = new AtomicLong();
+
+    /**
+     * 归还时已损坏的连接数，由连接池计入。
+     * 不使用连接池的销毁计数，其中包含本调整器收缩空闲连接和清理连接池销毁的连接
+     */
+    private final AtomicLong broken = new AtomicLong();
+
+    private ScheduledFuture<?> task;
+
+    private long lastBorrowed;
+
+    private long lastBorrowFailures;
+
+    private long lastBroken;
+
+    private int lowTicks;
+
+    private volatile Decision last;
+
+    private PoolController(String name, GenericObjectPool<Jedis> pool, PoolSettings settings) {
+        this.name = name;
+        this.pool = pool;
+        this.settings = settings;
+    }
+
+    /**
+     * 为连接池启动自适应调整
+     *
+     * @param name     连接池名称
+     * @param pool     连接池
+     * @param settings 调整范围
+     * @return 调整器
+     */
+    public static PoolController start(String name, GenericObjectPool<Jedis> pool, PoolSettings settings) {
+        final PoolController controller = new PoolController(name, pool, settings);
+        controller.lastBorrowed = pool.getBorrowedCount();
+        controller.task = CacheExecutors.scheduler().scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    controller.adjust();
+                } catch (RuntimeException e) {
+                    log.error("[poolController] " + controller.name + " adjust error : ", e);
+                }
+            }
+        }, settings.getAdaptiveIntervalMillis(), settings.getAdaptiveIntervalMillis(), TimeUnit.MILLISECONDS);
+        PoolController previous = CONTROLLERS.put(name, controller);
+        if (previous != null) {
+            previous.stop();
+        }
+        return controller;
+    }
+
+    /**
+     * 所有连接池的决策记录，按连接池分组，时间升序
+     */
+    public static Map<String, List<Decision>> decisions() {
+        Map<String, List<Decision>> all = new ConcurrentHashMap<>();
+        for (PoolController controller : CONTROLLERS.values()) {
+            all.put(controller.name, controller.history());
+        }
+        return all;
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel(false);
+        }
+        CONTROLLERS.remove(name, this);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 计入一次取连接失败
+     */
+    void borrowFailed() {
+        borrowFailures.incrementAndGet();
+    }
+
+    /**
+     * 计入一次归还损坏的连接
+     */
+    void broken() {
+        broken.incrementAndGet();
+    }
+
+    /**
+     * 最近一次决策，含 HOLD
+     */
+    public Decision getLast() {
+        return last;
+    }
+
+    /**
+     * 最近的调整记录，不含 HOLD
+     */
+    public List<Decision> history() {
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    /**
+     * 执行一次调整
+     */
+    synchronized Decision adjust() {
+        long borrowed = pool.getBorrowedCount();
+        long borrowFailed = borrowFailures.get();
+        long brokenNow = broken.get();
+        long failedBorrows = borrowFailed - lastBorrowFailures;
+        long borrows = borrowed - lastBorrowed + failedBorrows;
+        long failed = failedBorrows + brokenNow - lastBroken;
+        lastBorrowed = borrowed;
+        lastBorrowFailures = borrowFailed;
+        lastBroken = brokenNow;
+
+        int maxTotal = pool.getMaxTotal();
+        int maxIdle = pool.getMaxIdle();
+        int minIdle = pool.getMinIdle();
+        int active = pool.getNumActive();
+        int waiters = pool.getNumWaiters();
+        long meanWait = pool.getMeanBorrowWaitTimeMillis();
+        double errorRate = borrows == 0 ? 0 : (double) failed / borrows;
+        double utilization = maxTotal <= 0 ? 0 : (double) active / maxTotal;
+
+        Action action = Action.HOLD;
+        String reason = "stable";
+        int newTotal = maxTotal;
+        if (borrows >= MIN_ERROR_SAMPLES && errorRate >= settings.getAdaptiveErrorRate()) {
+            action = Action.SHRINK;
+            reason = "error rate " + format(errorRate);
+            newTotal = Math.max(settings.getAdaptiveMinTotal(), maxTotal * 3 / 4);
+            // 出错多为服务端重启或网络中断，空闲连接大概率已失效
+            pool.clear();
+            lowTicks = 0;
+        } else if (borrows > 0 && (waiters > 0 || meanWait >= settings.getAdaptiveWaitMillis())) {
+            lowTicks = 0;
+            if (maxTotal < settings.getAdaptiveMaxTotal()) {
+                action = Action.GROW;
+                reason = "waiters " + waiters + ", mean wait " + meanWait + " ms";
+                newTotal = Math.min(settings.getAdaptiveMaxTotal(), maxTotal + Math.max(1, maxTotal / 4));
+            } else {
+                reason = "at max total, waiters " + waiters + ", mean wait " + meanWait + " ms";
+            }
+        } else if (utilization < LOW_UTILIZATION && maxTotal > settings.getAdaptiveMinTotal()) {
+            if (++lowTicks >= LOW_TICKS) {
+                action = Action.SHRINK;
+                reason = "utilization " + format(utilization);
+                newTotal = Math.max(settings.getAdaptiveMinTotal(), maxTotal - Math.max(1, maxTotal / 10));
+                lowTicks = 0;
+            }
+        } else {
+            lowTicks = 0;
+        }
+
+        // 空闲连接跟随当前并发，保证下个周期的突发不需要新建连接
+        int newMinIdle = Math.min(newTotal, Math.max(settings.getMinIdle(), active));
+        int newMaxIdle = Math.min(newTotal, Math.max(newMinIdle, Math.max(settings.getMaxIdle(), active + waiters)));
+        if (newTotal != maxTotal) {
+            pool.setMaxTotal(newTotal);
+        }
+        if (newMaxIdle != maxIdle) {
+            pool.setMaxIdle(newMaxIdle);
+        }
+        if (newMinIdle != minIdle) {
+            pool.setMinIdle(newMinIdle);
+        }
+
+        Decision decision = new Decision(System.currentTimeMillis(), name, action, reason, maxTotal, newTotal,
+                newMaxIdle, newMinIdle, active, pool.getNumIdle(), waiters, meanWait, borrows, failed);
+        last = decision;
+        if (action != Action.HOLD) {
+            synchronized (history) {
+                if (history.size() >= HISTORY) {
+                    history.removeFirst();
+                }
+                history.addLast(decision);
+            }
+            log.info("[poolController] " + decision);
+        }
+        return decision;
+    }
+
+    private static String format(double ratio) {
+        return String.format("%.2f", ratio);
+    }
+
+    /**
+     * 调整动作
+     */
+    public enum Action {
+        GROW, SHRINK, HOLD
+    }
+
+    /**
+     * 一次调整决策
+     */
+    public static class Decision {
+
+        private final long time;
+        private final String pool;
+        private final Action action;
+        private final String reason;
+        private final int oldMaxTotal;
+        private final int maxTotal;
+        private final int maxIdle;
+        private final int minIdle;
+        private final int active;
+        private final int idle;
+        private final int waiters;
+        private final long meanWaitMillis;
+        private final long borrows;
+        private final long errors;
+
+        Decision(long time, String pool, Action action, String reason, int oldMaxTotal, int maxTotal, int maxIdle,
+                 int minIdle, int active, int idle, int waiters, long meanWaitMillis, long borrows, long errors) {
+            this.time = time;
+            this.pool = pool;
+            this.action = action;
+            this.reason = reason;
+            this.oldMaxTotal = oldMaxTotal;
+            this.maxTotal = maxTotal;
+            this.maxIdle = maxIdle;
+            this.minIdle = minIdle;
+            this.active = active;
+            this.idle = idle;
+            this.waiters = waiters;
+            this.meanWaitMillis = meanWaitMillis;
+            this.borrows = borrows;
+            this.errors = errors;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public String getPool() {
+            return pool;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public int getOldMaxTotal() {
+            return oldMaxTotal;
+        }
+
+        public int getMaxTotal() {
+            return maxTotal;
+        }
+
+        public int getMaxIdle() {
+            return maxIdle;
+        }
+
+        public int getMinIdle() {
+            return minIdle;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getWaiters() {
+            return waiters;
+        }
+
+        public long getMeanWaitMillis() {
+            return meanWaitMillis;
+        }
+
+        public long getBorrows() {
+            return borrows;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        @Override
+        public String toString() {
+            return pool + " " + action + " (" + reason + ") maxTotal " + oldMaxTotal + " -> " + maxTotal
+                    + ", maxIdle " + maxIdle + ", minIdle " + minIdle + ", active " + active + ", idle " + idle
+                    + ", borrows " + borrows + ", errors " + errors;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.szhtp.cache.jedis;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import redis.clients.jedis.JedisPoolConfig;
+
+/**
+ * 连接池参数及自适应调整的边界
+ *
+ * @author null
+ */
+@Getter
+@Setter
+@ToString
+public class PoolSettings {
+
+    /**
+     * 最大连接数，开启自适应时为初始值
+     */
+    private int maxTotal = 100;
+
+    /**
+     * 最大空闲连接数
+     */
+    private int maxIdle = 10;
+
+    /**
+     * 最小空闲连接数，开启自适应时为下限
+     */
+    private int minIdle = 5;
+
+    /**
+     * 等待可用连接的最大时间，毫秒
+     */
+    private long maxWaitMillis = 10 * 1000;
+
+    /**
+     * 取连接时是否 PING 校验，默认只在后台校验空闲连接
+     */
+    private boolean testOnBorrow = false;
+
+    /**
+     * 归还连接时是否 PING 校验
+     */
+    private boolean testOnReturn = false;
+
+    /**
+     * 后台空闲连接校验与驱逐的间隔，毫秒
+     */
+    private long idleCheckMillis = 10000;
+
+    /**
+     * 空闲多久的连接可被驱逐，毫秒
+     */
+    private long minEvictableIdleMillis = 60000;
+
+    /**
+     * 是否按等待时间、使用率、错误率自动调整连接数
+     */
+    private boolean adaptive = false;
+
+    /**
+     * 自适应时最大连接数的下限
+     */
+    private int adaptiveMinTotal = 8;
+
+    /**
+     * 自适应时最大连接数的上限
+     */
+    private int adaptiveMaxTotal = 400;
+
+    /**
+     * 平均取连接等待超过该毫秒数时扩容
+     */
+    private long adaptiveWaitMillis = 5;
+
+    /**
+     * 周期内连接出错比例超过该值时收缩并清理空闲连接
+     */
+    private double adaptiveErrorRate = 0.2;
+
+    /**
+     * 自适应调整周期，毫秒
+     */
+    private long adaptiveIntervalMillis = 5000;
+
+    /**
+     * 单机模式默认参数
+     */
+    public static PoolSettings standalone(int maxActive) {
+        PoolSettings settings = new PoolSettings();
+        settings.setMaxTotal(maxActive);
+        settings.setMaxIdle(10);
+        settings.setMinIdle(5);
+        return settings;
+    }
+
+    /**
+     * 哨兵模式默认参数
+     */
+    public static PoolSettings sentinel(int maxActive) {
+        PoolSettings settings = new PoolSettings();
+        settings.setMaxTotal(maxActive);
+        settings.setMaxIdle(30);
+        settings.setMinIdle(8);
+        return settings;
+    }
+
+    /**
+     * 生成 commons-pool 配置
+     */
+    public JedisPoolConfig toConfig() {
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setMaxTotal(maxTotal);
+        config.setMaxIdle(maxIdle);
+        config.setMinIdle(minIdle);
+        config.setMaxWaitMillis(maxWaitMillis);
+        config.setTestOnBorrow(testOnBorrow);
+        config.setTestOnReturn(testOnReturn);
+        // 空闲连接由驱逐线程定期 PING，每次检查全部空闲连接
+        config.setTestWhileIdle(true);
+        config.setTimeBetweenEvictionRunsMillis(idleCheckMillis);
+        config.setNumTestsPerEvictionRun(-1);
+        config.setMinEvictableIdleTimeMillis(minEvictableIdleMillis);
+        return config;
+    }
+}
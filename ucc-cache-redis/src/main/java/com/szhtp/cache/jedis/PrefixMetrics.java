@@ -0,0 +1,81 @@
+package com.szhtp.cache.jedis;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个前缀在共享客户端上的使用统计
+ *
+ * @author null
+ */
+public class PrefixMetrics {
+
+    private final AtomicLong borrows = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicInteger inUse = new AtomicInteger();
+
+    private final AtomicInteger peakInUse = new AtomicInteger();
+
+    /**
+     * 取得一次连接
+     */
+    public void borrowed() {
+        borrows.incrementAndGet();
+        int current = inUse.incrementAndGet();
+        int peak;
+        while (current > (peak = peakInUse.get())) {
+            if (peakInUse.compareAndSet(peak, current)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 归还一次连接
+     */
+    public void returned() {
+        inUse.decrementAndGet();
+    }
+
+    /**
+     * 取连接失败一次
+     */
+    public void failed() {
+        failures.incrementAndGet();
+    }
+
+    /**
+     * 累计取连接次数
+     */
+    public long getBorrows() {
+        return borrows.get();
+    }
+
+    /**
+     * 累计取连接失败次数
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * 当前占用的连接数
+     */
+    public int getInUse() {
+        return inUse.get();
+    }
+
+    /**
+     * 占用连接数峰值
+     */
+    public int getPeakInUse() {
+        return peakInUse.get();
+    }
+
+    @Override
+    public String toString() {
+        return "borrows=" + borrows + ", failures=" + failures + ", inUse=" + inUse + ", peakInUse=" + peakInUse;
+    }
+}
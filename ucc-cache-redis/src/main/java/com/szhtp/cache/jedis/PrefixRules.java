@@ -0,0 +1,94 @@
+package com.szhtp.cache.jedis;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按 key 前缀配置的规则，格式 前缀=值,前缀=值，最长前缀优先匹配
+ *
+ * @author null
+ */
+public class PrefixRules {
+
+    /**
+     * 按前缀长度降序
+     */
+    private final List<String[]> rules;
+
+    private PrefixRules(List<String[]> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * 解析配置
+     *
+     * @param text 规则，如 config:=200,report:=5000，可为空
+     * @return 规则
+     */
+    public static PrefixRules parse(String text) {
+        List<String[]> parsed = new ArrayList<>();
+        if (StringUtils.isNotBlank(text)) {
+            for (String rule : text.split(",")) {
+                int idx = rule.lastIndexOf('=');
+                if (idx <= 0) {
+                    throw new IllegalArgumentException("Invalid prefix rule [" + rule + "], expected prefix=value");
+                }
+                parsed.add(new String[]{rule.substring(0, idx).trim(), rule.substring(idx + 1).trim()});
+            }
+        }
+        Collections.sort(parsed, new Comparator<String[]>() {
+            @Override
+            public int compare(String[] a, String[] b) {
+                return b[0].length() - a[0].length();
+            }
+        });
+        return new PrefixRules(parsed);
+    }
+
+    /**
+     * key 匹配的规则前缀
+     *
+     * @param key 未加前缀的 key
+     * @return 规则前缀，未匹配时返回空串
+     */
+    public String match(String key) {
+        for (String[] rule : rules) {
+            if (key.startsWith(rule[0])) {
+                return rule[0];
+            }
+        }
+        return "";
+    }
+
+    /**
+     * 规则前缀对应的值
+     *
+     * @param prefix 规则前缀
+     * @return 值，未配置时返回 null
+     */
+    public String valueOf(String prefix) {
+        for (String[] rule : rules) {
+            if (rule[0].equals(prefix)) {
+                return rule[1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 所有规则，按前缀长度降序
+     */
+    public Map<String, String> asMap() {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (String[] rule : rules) {
+            map.put(rule[0], rule[1]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,18 @@
+package com.szhtp.cache.jedis;
+
+/**
+ * 支持 key 与内存分析的具体实现，模式自动加前缀，遍历所有节点
+ *
+ * @author null
+ */
+public interface ProfileSupport {
+
+    /**
+     * 抽样分析匹配的 key
+     *
+     * @param profiler 分析参数
+     * @param pattern  模式，支持 * ? [] 通配
+     * @return 分析结果，异常返回 null
+     */
+    KeyProfile profileKeys(KeyProfiler profiler, String pattern);
+}
@@ -0,0 +1,28 @@
+package com.szhtp.cache.jedis;
+
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * 支持发布订阅的具体实现，频道名自动加前缀
+ *
+ * @author null
+ */
+public interface PubSubSupport {
+
+    /**
+     * 发布消息
+     *
+     * @param channel 频道
+     * @param message 消息
+     * @return 收到消息的订阅者数量，异常返回 null
+     */
+    Long publish(String channel, String message);
+
+    /**
+     * 订阅频道，阻塞到取消订阅或连接断开，连接断开时抛出异常
+     *
+     * @param listener 监听器
+     * @param channels 频道
+     */
+    void subscribe(JedisPubSub listener, String... channels);
+}
@@ -0,0 +1,65 @@
+package com.szhtp.cache.jedis;
+
+import java.util.List;
+
+/**
+ * 布隆过滤器和分块存储使用的原始值与位操作，不属于 {@link JedisService} 的公开接口。
+ * 各具体实现和 {@link JedisServiceWrapper} 实现，通过 {@link JedisServiceWrapper#raw(JedisService)} 取得
+ *
+ * @author null
+ */
+interface RawSupport {
+
+    /**
+     * 把位图中的多个位置为 1，一次往返完成
+     *
+     * @param key     键
+     * @param offsets 位置
+     * @return 成功返回 true，异常返回 false
+     */
+    boolean setBits(String key, long... offsets);
+
+    /**
+     * 读取位图中的多个位，一次往返完成
+     *
+     * @param key     键
+     * @param offsets 位置
+     * @return 与 offsets 对应的各位，key 不存在时全为 false，异常返回 null
+     */
+    boolean[] getBits(String key, long... offsets);
+
+    /**
+     * 获取原始字节值，用于位图等二进制值
+     *
+     * @param key 键
+     * @return 值，key 不存在时返回长度为 0 的数组，异常返回 null
+     */
+    byte[] getBytes(String key);
+
+    /**
+     * 获取字符串值的一段，按字节下标，负数从尾部倒数
+     *
+     * @param key   键
+     * @param start 起始下标
+     * @param end   结束下标，包含
+     * @return 值的一段，key 不存在时返回空串，不是字符串类型或异常时返回 null
+     */
+    String getRange(String key, long start, long end);
+
+    /**
+     * 批量删除，单机和分片一次往返完成
+     *
+     * @param keys 键
+     * @return 删除的个数，异常返回 null
+     */
+    Long delKeys(List<String> keys);
+
+    /**
+     * 批量设置过期时间，单机和分片通过 pipeline 一次往返完成
+     *
+     * @param keys    键
+     * @param seconds 过期秒数
+     * @return 成功返回 true，异常返回 false
+     */
+    boolean expireKeys(List<String> keys, int seconds);
+}
@@ -0,0 +1,72 @@
+package com.szhtp.cache.jedis;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按 key 前缀配置的读策略，最长前缀优先匹配
+ *
+ * @author null
+ */
+public class ReadPolicies {
+
+    private final ReadPolicy defaultPolicy;
+
+    private final PrefixRules rules;
+
+    /**
+     * 规则前缀 -> 读策略
+     */
+    private final Map<String, ReadPolicy> rulePolicies;
+
+    private ReadPolicies(ReadPolicy defaultPolicy, PrefixRules rules, Map<String, ReadPolicy> rulePolicies) {
+        this.defaultPolicy = defaultPolicy;
+        this.rules = rules;
+        this.rulePolicies = rulePolicies;
+    }
+
+    /**
+     * 解析配置
+     *
+     * @param defaultPolicy 默认策略，为空时为 master
+     * @param prefixRules   前缀规则，格式 前缀=策略,前缀=策略，如 config:=replica_preferred,home:=nearest
+     * @return 读策略
+     */
+    public static ReadPolicies parse(String defaultPolicy, String prefixRules) {
+        ReadPolicy fallback = StringUtils.isBlank(defaultPolicy) ? ReadPolicy.MASTER : ReadPolicy.of(defaultPolicy);
+        PrefixRules rules = PrefixRules.parse(prefixRules);
+        Map<String, ReadPolicy> policies = new HashMap<>();
+        for (Map.Entry<String, String> rule : rules.asMap().entrySet()) {
+            policies.put(rule.getKey(), ReadPolicy.of(rule.getValue()));
+        }
+        return new ReadPolicies(fallback, rules, policies);
+    }
+
+    /**
+     * 获取 key 对应的读策略
+     *
+     * @param key 未加前缀的 key
+     * @return 读策略
+     */
+    public ReadPolicy policyFor(String key) {
+        ReadPolicy policy = rulePolicies.get(rules.match(key));
+        return policy == null ? defaultPolicy : policy;
+    }
+
+    /**
+     * 是否所有 key 都只读 master
+     */
+    public boolean isMasterOnly() {
+        if (defaultPolicy != ReadPolicy.MASTER) {
+            return false;
+        }
+        for (ReadPolicy policy : rulePolicies.values()) {
+            if (policy != ReadPolicy.MASTER) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,47 @@
+package com.szhtp.cache.jedis;
+
+import java.util.Locale;
+
+/**
+ * 读操作路由策略，写操作始终发往 master
+ *
+ * @author null
+ */
+public enum ReadPolicy {
+
+    /**
+     * 只读 master
+     */
+    MASTER,
+
+    /**
+     * 优先读副本，副本均不可用时读 master
+     */
+    REPLICA_PREFERRED,
+
+    /**
+     * 读实测延迟最低的节点（含 master）
+     */
+    NEAREST,
+
+    /**
+     * 在 master 与所有可用副本之间轮询
+     */
+    ROUND_ROBIN;
+
+    /**
+     * 按名称解析，忽略大小写，支持 - 与 _
+     *
+     * @param name 策略名称
+     * @return 策略
+     */
+    public static ReadPolicy of(String name) {
+        String normalized = name.trim().toUpperCase(Locale.ENGLISH).replace('-', '_');
+        for (ReadPolicy policy : values()) {
+            if (policy.name().equals(normalized)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Invalid read policy [" + name + "]. Must be one of master, replica_preferred, nearest, round_robin.");
+    }
+}
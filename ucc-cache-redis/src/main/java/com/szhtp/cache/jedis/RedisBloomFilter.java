@@ -0,0 +1,233 @@
+package com.szhtp.cache.jedis;
+
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 存放在 redis 位图中的布隆过滤器，多个哈希位通过一次往返读写。
+ * 可选在本地保存位图副本并定期刷新，判断不存在时不访问 redis；
+ * 其它节点新加入的元素在下次刷新前可能被本地副本误判为不存在。
+ *
+ * @author null
+ */
+public class RedisBloomFilter {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * redis 位图最多 2^32 位
+     */
+    private static final long MAX_BITS = 1L << 32;
+
+    private final RawSupport service;
+
+    /**
+     * 位图 key
+     */
+    private final String key;
+
+    private final long bits;
+
+    private final int hashes;
+
+    private final Object mirrorLock = new Object();
+
+    /**
+     * 本地位图副本，为空表示未开启或尚未加载
+     */
+    private volatile byte[] mirror;
+
+    private ScheduledFuture<?> refreshTask;
+
+    /**
+     * @param service            读写位图的服务
+     * @param key                位图 key
+     * @param expectedInsertions 预计元素数
+     * @param fpp                期望误判率，如 0.01
+     */
+    public RedisBloomFilter(JedisService service, String key, long expectedInsertions, double fpp) {
+        this.service = JedisServiceWrapper.raw(service);
+        this.key = key;
+        long n = Math.max(1, expectedInsertions);
+        this.bits = Math.min(MAX_BITS, Math.max(64, (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)))));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getBits() {
+        return bits;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    /**
+     * 是否已加载本地副本
+     */
+    public boolean isMirrored() {
+        return mirror != null;
+    }
+
+    /**
+     * 加入元素
+     *
+     * @param id 元素
+     * @return 成功返回 true
+     */
+    public boolean put(String id) {
+        long[] offsets = offsets(id);
+        boolean result = service.setBits(key, offsets);
+        mark(offsets);
+        return result;
+    }
+
+    /**
+     * 批量加入元素，所有哈希位通过一次往返写入
+     *
+     * @param ids 元素
+     * @return 成功返回 true
+     */
+    public boolean putAll(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return true;
+        }
+        long[] offsets = new long[ids.size() * hashes];
+        int i = 0;
+        for (String id : ids) {
+            System.arraycopy(offsets(id), 0, offsets, i, hashes);
+            i += hashes;
+        }
+        boolean result = service.setBits(key, offsets);
+        mark(offsets);
+        return result;
+    }
+
+    /**
+     * 元素是否可能存在，返回 false 时一定不存在；读取位图失败时按可能存在处理
+     *
+     * @param id 元素
+     * @return 可能存在返回 true
+     */
+    public boolean mightContain(String id) {
+        long[] offsets = offsets(id);
+        byte[] local = mirror;
+        if (local != null) {
+            for (long offset : offsets) {
+                if (!isSet(local, offset)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        boolean[] values = service.getBits(key, offsets);
+        if (values == null) {
+            return true;
+        }
+        for (boolean value : values) {
+            if (!value) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 从 redis 重新加载本地副本，保留本节点已加入的位。
+     * 读取失败时保留原副本，尚未加载过时继续直接读 redis，不会用全零的副本把所有元素判为不存在
+     *
+     * @return 是否加载成功
+     */
+    public boolean refresh() {
+        byte[] fetched = service.getBytes(key);
+        if (fetched == null) {
+            return false;
+        }
+        int length = (int) ((bits + 7) / 8);
+        byte[] fresh = new byte[length];
+        System.arraycopy(fetched, 0, fresh, 0, Math.min(length, fetched.length));
+        synchronized (mirrorLock) {
+            byte[] old = mirror;
+            if (old != null) {
+                for (int i = 0; i < length; i++) {
+                    fresh[i] |= old[i];
+                }
+            }
+            mirror = fresh;
+        }
+        return true;
+    }
+
+    /**
+     * 开启本地副本，立即加载一次，之后定期刷新
+     *
+     * @param refreshMillis 刷新间隔，毫秒
+     */
+    public synchronized void startMirror(long refreshMillis) {
+        if (refreshTask != null) {
+            return;
+        }
+        refreshTask = CacheExecutors.scheduler().scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        }, 0, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopMirror() {
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
+        mirror = null;
+    }
+
+    /**
+     * 双重哈希得到各位的位置
+     */
+    long[] offsets(String id) {
+        byte[] data = id.getBytes(UTF8);
+        long h = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        long h1 = mix(h);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L);
+        long[] offsets = new long[hashes];
+        for (int i = 0; i < hashes; i++) {
+            offsets[i] = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+        }
+        return offsets;
+    }
+
+    private void mark(long[] offsets) {
+        synchronized (mirrorLock) {
+            byte[] local = mirror;
+            if (local == null) {
+                return;
+            }
+            for (long offset : offsets) {
+                // redis 位图中第 0 位是第一个字节的最高位
+                local[(int) (offset >>> 3)] |= (byte) (0x80 >>> (offset & 7));
+            }
+        }
+    }
+
+    private static boolean isSet(byte[] bitmap, long offset) {
+        int index = (int) (offset >>> 3);
+        return index < bitmap.length && (bitmap[index] & (0x80 >>> (offset & 7))) != 0;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
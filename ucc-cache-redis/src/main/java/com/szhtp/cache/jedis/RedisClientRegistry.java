@@ -0,0 +1,152 @@
+package com.szhtp.cache.jedis;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 进程内共享的 redis 客户端注册表。
+ * 同一物理端点（单机地址、哨兵 master、集群节点集合）只创建一个连接池或 JedisCluster，
+ * 各前缀的 JedisService 通过 {@link Lease} 引用计数共用，最后一个引用释放时关闭客户端。
+ * 共用客户端的连接池参数以第一个创建者为准。
+ *
+ * @author null
+ */
+public final class RedisClientRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisClientRegistry.class);
+
+    private static final Map<String, Entry> CLIENTS = new HashMap<>();
+
+    private RedisClientRegistry() {
+    }
+
+    /**
+     * 获取或创建客户端
+     *
+     * @param endpoint 端点名称，如 host:port
+     * @param password 密码，参与端点区分，不同密码不共用客户端
+     * @param prefix   使用方的 key 前缀，用于分前缀统计
+     * @param factory  端点尚无客户端时的创建方法
+     * @return 客户端租约，不再使用时调用 {@link Lease#close()}
+     */
+    public static synchronized <T extends Closeable> Lease<T> acquire(String endpoint, String password, String prefix, Factory<T> factory) {
+        String id = StringUtils.isBlank(password) ? endpoint : endpoint + "#" + Integer.toHexString(password.hashCode());
+        Entry entry = CLIENTS.get(id);
+        if (entry == null) {
+            entry = new Entry(factory.create());
+            CLIENTS.put(id, entry);
+            log.info("[clientRegistry] create client -> " + id);
+        }
+        entry.refCount++;
+        String name = prefix == null ? "" : prefix;
+        PrefixMetrics metrics = entry.metrics.get(name);
+        if (metrics == null) {
+            metrics = new PrefixMetrics();
+            entry.metrics.put(name, metrics);
+        }
+        @SuppressWarnings("unchecked")
+        T client = (T) entry.client;
+        return new Lease<>(id, client, metrics);
+    }
+
+    /**
+     * 端点当前的引用数，未创建时返回 0
+     */
+    public static synchronized int refCount(String id) {
+        Entry entry = CLIENTS.get(id);
+        return entry == null ? 0 : entry.refCount;
+    }
+
+    /**
+     * 各端点按前缀的使用统计
+     *
+     * @return 端点 -> 前缀 -> 统计
+     */
+    public static synchronized Map<String, Map<String, PrefixMetrics>> metrics() {
+        Map<String, Map<String, PrefixMetrics>> snapshot = new LinkedHashMap<>();
+        for (Map.Entry<String, Entry> e : CLIENTS.entrySet()) {
+            snapshot.put(e.getKey(), Collections.unmodifiableMap(new LinkedHashMap<>(e.getValue().metrics)));
+        }
+        return snapshot;
+    }
+
+    private static synchronized void release(String id) {
+        Entry entry = CLIENTS.get(id);
+        if (entry == null || --entry.refCount > 0) {
+            return;
+        }
+        CLIENTS.remove(id);
+        try {
+            entry.client.close();
+            log.info("[clientRegistry] close client -> " + id);
+        } catch (IOException | RuntimeException e) {
+            log.error("[clientRegistry] close client -> " + id + " error : " + e);
+        }
+    }
+
+    /**
+     * 客户端创建方法
+     */
+    public interface Factory<T extends Closeable> {
+
+        T create();
+    }
+
+    /**
+     * 客户端租约，关闭时释放一次引用
+     */
+    public static final class Lease<T extends Closeable> implements Closeable {
+
+        private final String id;
+
+        private final T client;
+
+        private final PrefixMetrics metrics;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(String id, T client, PrefixMetrics metrics) {
+            this.id = id;
+            this.client = client;
+            this.metrics = metrics;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public T get() {
+            return client;
+        }
+
+        public PrefixMetrics getMetrics() {
+            return metrics;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(id);
+            }
+        }
+    }
+
+    private static final class Entry {
+        final Closeable client;
+        final Map<String, PrefixMetrics> metrics = new LinkedHashMap<>();
+        int refCount;
+
+        Entry(Closeable client) {
+            this.client = client;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.szhtp.cache.jedis;
+
+import org.apache.commons.lang3.StringUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * 读路由中的单个 redis 节点，持有独立连接池，并记录实测延迟和可用状态
+ *
+ * @author null
+ */
+public class RedisNode {
+
+    /**
+     * 延迟指数平均的权重
+     */
+    private static final double ALPHA = 0.2;
+
+    private final String host;
+
+    private final int port;
+
+    private final JedisPool pool;
+
+    /**
+     * 集群副本需要在连接上执行 READONLY 才能处理读请求
+     */
+    private final boolean readonly;
+
+    /**
+     * 已执行过 READONLY 的连接
+     */
+    private final Set<Jedis> readonlyConnections = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<Jedis, Boolean>()));
+
+    /**
+     * 实测延迟的指数平均，微秒，小于 0 表示尚未测量
+     */
+    private volatile double latencyMicros = -1;
+
+    /**
+     * 出错后在该时间点之前不参与路由
+     */
+    private volatile long unavailableUntil;
+
+    public RedisNode(String host, int port, String password, int timeout, int maxActive, boolean readonly) {
+        this.host = host;
+        this.port = port;
+        this.readonly = readonly;
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setMaxTotal(maxActive);
+        config.setMaxIdle(10);
+        config.setMinIdle(0);
+        config.setMaxWaitMillis(timeout);
+        config.setTestWhileIdle(true);
+        config.setTimeBetweenEvictionRunsMillis(30000);
+        if (StringUtils.isNotBlank(password)) {
+            this.pool = new JedisPool(config, host, port, timeout, password);
+        } else {
+            this.pool = new JedisPool(config, host, port, timeout);
+        }
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getAddress() {
+        return host + ":" + port;
+    }
+
+    public double getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    /**
+     * 从节点连接池获取连接
+     */
+    public Jedis getResource() {
+        Jedis jedis = pool.getResource();
+        if (readonly && !readonlyConnections.contains(jedis)) {
+            try {
+                jedis.readonly();
+            } catch (JedisException e) {
+                jedis.close();
+                throw e;
+            }
+            readonlyConnections.add(jedis);
+        }
+        return jedis;
+    }
+
+    /**
+     * 当前是否可参与路由
+     */
+    public boolean isAvailable() {
+        return unavailableUntil <= System.currentTimeMillis();
+    }
+
+    /**
+     * 记录一次成功请求的耗时
+     */
+    public void recordLatency(long nanos) {
+        double micros = nanos / 1000.0;
+        double current = latencyMicros;
+        latencyMicros = current < 0 ? micros : current + ALPHA * (micros - current);
+        unavailableUntil = 0;
+    }
+
+    /**
+     * 标记出错，在退避时间内不参与路由
+     */
+    public void markFailed(long backoffMillis) {
+        unavailableUntil = System.currentTimeMillis() + backoffMillis;
+    }
+
+    /**
+     * 探测延迟
+     *
+     * @return 是否可用
+     */
+    public boolean probe(long backoffMillis) {
+        long start = System.nanoTime();
+        Jedis jedis = null;
+        try {
+            jedis = getResource();
+            jedis.ping();
+            recordLatency(System.nanoTime() - start);
+            return true;
+        } catch (JedisException e) {
+            markFailed(backoffMillis);
+            return false;
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+    }
+
+    public void close() {
+        pool.destroy();
+    }
+
+    @Override
+    public String toString() {
+        return getAddress();
+    }
+}
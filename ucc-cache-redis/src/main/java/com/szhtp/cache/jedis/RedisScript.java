@@ -0,0 +1,64 @@
+package com.szhtp.cache.jedis;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * lua 脚本，优先用 EVALSHA 执行，服务端未缓存时退回 EVAL 并由服务端缓存
+ *
+ * @author null
+ */
+public final class RedisScript {
+
+    private final String script;
+
+    private final String sha;
+
+    public RedisScript(String script) {
+        this.script = script;
+        this.sha = sha1(script);
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public String getSha() {
+        return sha;
+    }
+
+    public Object eval(Jedis jedis, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(sha, keys, args);
+        } catch (JedisNoScriptException e) {
+            return jedis.eval(script, keys, args);
+        }
+    }
+
+    public Object eval(JedisCluster cluster, List<String> keys, List<String> args) {
+        try {
+            return cluster.evalsha(sha, keys, args);
+        } catch (JedisNoScriptException e) {
+            return cluster.eval(script, keys, args);
+        }
+    }
+
+    private static String sha1(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(Charset.forName("UTF-8")));
+            StringBuilder sb = new StringBuilder(40);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.szhtp.cache.jedis;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 缓存区域视图：区域内的 key 加上 区域名#版本号: 前缀后交给被包装的服务，
+ * 区域失效只需把版本号加一，旧版本的 key 不再可见。
+ * 为使旧版本的 key 能随过期时间清除，未指定过期时间的写入使用区域最长过期时间；append 不设置过期时间。
+ *
+ * @author null
+ */
+public class RegionJedisService extends JedisServiceWrapper {
+
+    private final String name;
+
+    private final RegionVersions versions;
+
+    /**
+     * 未指定过期时间的写入使用的过期秒数
+     */
+    private final int maxTtlSeconds;
+
+    /**
+     * @param target        被包装的服务
+     * @param name          区域名
+     * @param versions      区域版本号
+     * @param maxTtlSeconds 未指定过期时间的写入使用的过期秒数
+     */
+    public RegionJedisService(JedisService target, String name, RegionVersions versions, int maxTtlSeconds) {
+        super(target);
+        this.name = name;
+        this.versions = versions;
+        this.maxTtlSeconds = maxTtlSeconds;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 区域当前版本号
+     */
+    public long getVersion() {
+        return versions.version(name);
+    }
+
+    @Override
+    public void setString(String key, String value) {
+        target.setString(key(key), value, maxTtlSeconds);
+    }
+
+    @Override
+    public boolean setString(String key, String value, int seconds) {
+        return target.setString(key(key), value, ttl(seconds));
+    }
+
+    @Override
+    public Long setnxString(String key, String value, int seconds) {
+        return target.setnxString(key(key), value, ttl(seconds));
+    }
+
+    @Override
+    public String getString(String key) {
+        return target.getString(key(key));
+    }
+
+    @Override
+    public <T> void setObject(String key, T obj) {
+        target.setObject(key(key), obj, maxTtlSeconds);
+    }
+
+    @Override
+    public <T> boolean setObject(String key, T obj, int seconds) {
+        return target.setObject(key(key), obj, ttl(seconds));
+    }
+
+    @Override
+    public <T> T getObject(String key, Class<T> clazz) {
+        return target.getObject(key(key), clazz);
+    }
+
+    @Override
+    public <T> void setList(String key, List<T> objList, int seconds) {
+        target.setList(key(key), objList, ttl(seconds));
+    }
+
+    @Override
+    public <T> List<T> getList(String key, Class<T> clazz) {
+        return target.getList(key(key), clazz);
+    }
+
+    @Override
+    public <T> Iterator<T> iterateList(String key, Class<T> clazz) {
+        return target.iterateList(key(key), clazz);
+    }
+
+    @Override
+    public <T> long streamList(String key, Class<T> clazz, ElementConsumer<T> consumer) {
+        return target.streamList(key(key), clazz, consumer);
+    }
+
+    @Override
+    public Long append(String key, String str) {
+        return target.append(key(key), str);
+    }
+
+    @Override
+    public Long delKey(String key) {
+        return target.delKey(key(key));
+    }
+
+    @Override
+    public Long expire(String key, int seconds) {
+        return target.expire(key(key), ttl(seconds));
+    }
+
+    /**
+     * 只删除当前版本中匹配的 key
+     */
+    @Override
+    public long deleteByPattern(String pattern) {
+        return target.deleteByPattern(KeySweeper.escape(prefix()) + pattern);
+    }
+
+    @Override
+    public long deleteByPrefix(String keyPrefix) {
+        return target.deleteByPrefix(prefix() + keyPrefix);
+    }
+
+    @Override
+    public Map<String, String> getStrings(List<String> keys) {
+        Map<String, String> ret = new LinkedHashMap<>();
+        if (keys == null || keys.isEmpty()) {
+            return ret;
+        }
+        String prefix = prefix();
+        List<String> realKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            realKeys.add(prefix + key);
+        }
+        Map<String, String> values = target.getStrings(realKeys);
+        for (int i = 0; i < keys.size(); i++) {
+            ret.put(keys.get(i), values.get(realKeys.get(i)));
+        }
+        return ret;
+    }
+
+    @Override
+    public boolean setStrings(Map<String, String> values, int seconds) {
+        if (values == null || values.isEmpty()) {
+            return true;
+        }
+        String prefix = prefix();
+        Map<String, String> real = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : values.entrySet()) {
+            real.put(prefix + e.getKey(), e.getValue());
+        }
+        return target.setStrings(real, ttl(seconds));
+    }
+
+    @Override
+    public String getSet(String key, String value, int seconds) {
+        return target.getSet(key(key), value, ttl(seconds));
+    }
+
+    @Override
+    public Long incr(String key, int expire) {
+        return target.incr(key(key), ttl(expire));
+    }
+
+    @Override
+    public Long incr(String key) {
+        return target.incr(key(key), maxTtlSeconds);
+    }
+
+    @Override
+    public <T> boolean setObjectAsHash(String key, T obj, int seconds) {
+        return target.setObjectAsHash(key(key), obj, ttl(seconds));
+    }
+
+    @Override
+    public <T> T getObjectFromHash(String key, Class<T> clazz) {
+        return target.getObjectFromHash(key(key), clazz);
+    }
+
+    @Override
+    public <T> T getFields(String key, Class<T> clazz, String... fields) {
+        return target.getFields(key(key), clazz, fields);
+    }
+
+    @Override
+    public <T> boolean updateFields(String key, T obj, String... fields) {
+        return target.updateFields(key(key), obj, fields);
+    }
+
+    @Override
+    public <T> Long pushList(String key, List<T> elements, int seconds) {
+        return target.pushList(key(key), elements, ttl(seconds));
+    }
+
+    @Override
+    public <T> List<T> rangeList(String key, long start, long end, Class<T> clazz) {
+        return target.rangeList(key(key), start, end, clazz);
+    }
+
+    @Override
+    public boolean trimList(String key, long start, long end) {
+        return target.trimList(key(key), start, end);
+    }
+
+    @Override
+    public Long listSize(String key) {
+        return target.listSize(key(key));
+    }
+
+    @Override
+    public <T> Long addSorted(String key, Map<T, Double> elements, int seconds) {
+        return target.addSorted(key(key), elements, ttl(seconds));
+    }
+
+    @Override
+    public <T> List<T> rangeSorted(String key, long start, long end, boolean descending, Class<T> clazz) {
+        return target.rangeSorted(key(key), start, end, descending, clazz);
+    }
+
+    @Override
+    public <T> List<T> rangeSortedByScore(String key, double min, double max, int offset, int count, Class<T> clazz) {
+        return target.rangeSortedByScore(key(key), min, max, offset, count, clazz);
+    }
+
+    @Override
+    public Long trimSorted(String key, long maxSize) {
+        return target.trimSorted(key(key), maxSize);
+    }
+
+    @Override
+    public Long sortedSize(String key) {
+        return target.sortedSize(key(key));
+    }
+
+    @Override
+    public <T> boolean migrateToList(String key, Class<T> clazz) {
+        return target.migrateToList(key(key), clazz);
+    }
+
+    @Override
+    public boolean setBits(String key, long... offsets) {
+        return raw().setBits(key(key), offsets);
+    }
+
+    @Override
+    public boolean[] getBits(String key, long... offsets) {
+        return raw().getBits(key(key), offsets);
+    }
+
+    @Override
+    public byte[] getBytes(String key) {
+        return raw().getBytes(key(key));
+    }
+
+    @Override
+    public String getRange(String key, long start, long end) {
+        return raw().getRange(key(key), start, end);
+    }
+
+    @Override
+    public Long delKeys(List<String> keys) {
+        return raw().delKeys(keys(keys));
+    }
+
+    @Override
+    public boolean expireKeys(List<String> keys, int seconds) {
+        return raw().expireKeys(keys(keys), ttl(seconds));
+    }
+
+    @Override
+    public <T> Versioned<T> getVersioned(String key, Class<T> clazz) {
+        return target.getVersioned(key(key), clazz);
+    }
+
+    @Override
+    public <T> long compareAndSet(String key, long expectedVersion, T obj, int seconds) {
+        return target.compareAndSet(key(key), expectedVersion, obj, ttl(seconds));
+    }
+
+    private String prefix() {
+        return RegionVersions.KEY_PREFIX + name + "#" + versions.version(name) + ":";
+    }
+
+    private String key(String key) {
+        return prefix() + key;
+    }
+
+    private List<String> keys(List<String> keys) {
+        if (keys == null) {
+            return null;
+        }
+        String prefix = prefix();
+        List<String> realKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            realKeys.add(prefix + key);
+        }
+        return realKeys;
+    }
+
+    private int ttl(int seconds) {
+        return seconds > 0 ? seconds : maxTtlSeconds;
+    }
+}
@@ -0,0 +1,233 @@
+package com.szhtp.cache.jedis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.JedisPubSub;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存区域的版本号：存放在 redis 的计数 key 中，本地缓存一小段时间；
+ * 区域失效时 INCR 版本号并通过发布订阅通知其它节点立即刷新。
+ * 本地版本号只增不减，订阅断开期间可能漏掉通知，重新订阅后本地版本号全部过期重读。
+ *
+ * @author null
+ */
+public class RegionVersions implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RegionVersions.class);
+
+    /**
+     * 版本号 key 与区域数据 key 的前缀
+     */
+    static final String KEY_PREFIX = "__region:";
+
+    /**
+     * 版本变更通知频道，消息格式 版本号:区域名
+     */
+    static final String CHANNEL = "__region:invalidate";
+
+    /**
+     * 订阅断开后的重试间隔，毫秒
+     */
+    private static final long RETRY_MILLIS = 1000;
+
+    private final JedisService service;
+
+    private final PubSubSupport pubSub;
+
+    /**
+     * 本地版本号的有效期，毫秒
+     */
+    private final long ttlMillis;
+
+    private final ConcurrentMap<String, Entry> versions = new ConcurrentHashMap<>();
+
+    private final JedisPubSub listener = new JedisPubSub() {
+        @Override
+        public void onMessage(String channel, String message) {
+            apply(message);
+        }
+
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            expireAll();
+        }
+    };
+
+    private volatile boolean running;
+
+    private Thread subscriber;
+
+    /**
+     * @param service   读写版本号的服务
+     * @param pubSub    发布订阅
+     * @param ttlMillis 本地版本号的有效期，毫秒
+     */
+    public RegionVersions(JedisService service, PubSubSupport pubSub, long ttlMillis) {
+        this.service = service;
+        this.pubSub = pubSub;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 启动订阅线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        subscriber = CacheExecutors.threadFactory("ucc-cache-region").newThread(new Runnable() {
+            @Override
+            public void run() {
+                subscribeLoop();
+            }
+        });
+        subscriber.start();
+    }
+
+    /**
+     * 区域当前版本号，本地缓存过期时从 redis 读取；版本号 key 不存在时 INCR 创建，
+     * 读取失败也按不存在处理，最坏情况是多失效一次
+     *
+     * @param region 区域名
+     * @return 版本号，从未读取成功时返回 -1
+     */
+    public long version(String region) {
+        long now = System.currentTimeMillis();
+        Entry entry = versions.get(region);
+        if (entry != null && entry.expireAt > now) {
+            return entry.version;
+        }
+        String key = KEY_PREFIX + region;
+        String value = service.getString(key);
+        Long loaded = null;
+        if (value != null) {
+            try {
+                loaded = Long.valueOf(value);
+            } catch (NumberFormatException e) {
+                log.error("[region] invalid version of " + region + " : " + value);
+            }
+        }
+        if (loaded == null) {
+            loaded = service.incr(key);
+        }
+        if (loaded == null) {
+            // 无法读取时沿用本地版本号
+            return entry == null ? -1 : entry.version;
+        }
+        return update(region, loaded, now);
+    }
+
+    /**
+     * 使区域失效：版本号加一并通知其它节点，旧版本的 key 不再可见，随各自过期时间清除
+     *
+     * @param region 区域名
+     * @return 新版本号，异常返回 -1
+     */
+    public long invalidate(String region) {
+        Long version = service.incr(KEY_PREFIX + region);
+        if (version == null) {
+            return -1;
+        }
+        update(region, version, System.currentTimeMillis());
+        if (pubSub.publish(CHANNEL, version + ":" + region) == null) {
+            log.warn("[region] publish invalidation of " + region + " failed, other nodes refresh in " + ttlMillis + " ms");
+        }
+        return version;
+    }
+
+    /**
+     * 停止订阅
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (listener.isSubscribed()) {
+            try {
+                listener.unsubscribe();
+            } catch (Exception e) {
+                log.warn("[region] unsubscribe error : " + e);
+            }
+        }
+        if (subscriber != null) {
+            subscriber.interrupt();
+        }
+    }
+
+    private void subscribeLoop() {
+        while (running) {
+            try {
+                pubSub.subscribe(listener, CHANNEL);
+            } catch (Exception e) {
+                if (running) {
+                    log.warn("[region] subscribe error, retry in " + RETRY_MILLIS + " ms : " + e);
+                }
+            }
+            if (!running) {
+                return;
+            }
+            expireAll();
+            try {
+                TimeUnit.MILLISECONDS.sleep(RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void apply(String message) {
+        int idx = message.indexOf(':');
+        if (idx <= 0) {
+            return;
+        }
+        try {
+            update(message.substring(idx + 1), Long.parseLong(message.substring(0, idx)), System.currentTimeMillis());
+        } catch (NumberFormatException e) {
+            log.warn("[region] invalid message : " + message);
+        }
+    }
+
+    /**
+     * 保留较大的版本号并刷新有效期
+     */
+    private long update(String region, long version, long now) {
+        long expireAt = now + ttlMillis;
+        while (true) {
+            Entry current = versions.get(region);
+            if (current == null) {
+                if (versions.putIfAbsent(region, new Entry(version, expireAt)) == null) {
+                    return version;
+                }
+                continue;
+            }
+            long kept = Math.max(current.version, version);
+            if (versions.replace(region, current, new Entry(kept, expireAt))) {
+                return kept;
+            }
+        }
+    }
+
+    private void expireAll() {
+        for (Map.Entry<String, Entry> e : versions.entrySet()) {
+            versions.replace(e.getKey(), e.getValue(), new Entry(e.getValue().version, 0));
+        }
+    }
+
+    private static final class Entry {
+
+        final long version;
+
+        final long expireAt;
+
+        Entry(long version, long expireAt) {
+            this.version = version;
+            this.expireAt = expireAt;
+        }
+    }
+}
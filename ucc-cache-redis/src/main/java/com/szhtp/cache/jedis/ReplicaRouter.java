@@ -0,0 +1,284 @@
+package com.szhtp.cache.jedis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读副本路由：按 key 的读策略在 master 与副本之间选择节点，并定期刷新拓扑和探测延迟。
+ * 选中 master 时返回 null，由调用方走原有的 master 连接。
+ *
+ * @author null
+ */
+public abstract class ReplicaRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    /**
+     * 节点出错后的退避时间
+     */
+    protected static final long FAILURE_BACKOFF_MILLIS = 5000;
+
+    protected final ReadPolicies policies;
+
+    protected final String password;
+
+    protected final int timeout;
+
+    protected final int maxActive;
+
+    /**
+     * 地址 -> 节点，拓扑变化时复用仍存在的节点
+     */
+    private final Map<String, RedisNode> nodes = new HashMap<>();
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private ScheduledFuture<?> refreshTask;
+
+    protected ReplicaRouter(ReadPolicies policies, String password, int timeout, int maxActive) {
+        this.policies = policies;
+        this.password = password;
+        this.timeout = timeout;
+        this.maxActive = maxActive;
+    }
+
+    /**
+     * 立即刷新一次拓扑，之后按固定间隔刷新
+     *
+     * @param refreshMillis 刷新间隔
+     */
+    public synchronized void start(long refreshMillis) {
+        safeRefresh();
+        if (refreshTask == null) {
+            refreshTask = CacheExecutors.scheduler().scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    safeRefresh();
+                }
+            }, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 停止刷新并关闭所有节点连接池
+     */
+    public synchronized void stop() {
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
+        synchronized (nodes) {
+            for (RedisNode node : nodes.values()) {
+                node.close();
+            }
+            nodes.clear();
+        }
+    }
+
+    /**
+     * 选择读节点
+     *
+     * @param key     未加前缀的 key，用于匹配读策略
+     * @param realKey 真实 key，用于定位分片
+     * @return 需要读副本时返回副本，读 master 时返回 null
+     */
+    public RedisNode route(String key, String realKey) {
+        ReadPolicy policy = policies.policyFor(key);
+        if (policy == ReadPolicy.MASTER) {
+            return null;
+        }
+        List<RedisNode> replicas = available(replicas(realKey));
+        if (replicas.isEmpty()) {
+            return null;
+        }
+        switch (policy) {
+            case REPLICA_PREFERRED:
+                return replicas.get(next(replicas.size()));
+            case ROUND_ROBIN: {
+                int idx = next(replicas.size() + 1);
+                return idx == replicas.size() ? null : replicas.get(idx);
+            }
+            case NEAREST: {
+                RedisNode master = master(realKey);
+                RedisNode nearest = master;
+                double best = master == null || master.getLatencyMicros() < 0 ? Double.MAX_VALUE : master.getLatencyMicros();
+                for (RedisNode replica : replicas) {
+                    double latency = replica.getLatencyMicros();
+                    if (latency >= 0 && latency < best) {
+                        best = latency;
+                        nearest = replica;
+                    }
+                }
+                return nearest == master ? null : nearest;
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 对冲读的目标节点，不考虑读策略，取延迟最低的可用副本
+     *
+     * @param realKey 真实 key
+     * @return 没有可用副本时返回 null
+     */
+    public RedisNode hedgeTarget(String realKey) {
+        RedisNode best = null;
+        double bestLatency = Double.MAX_VALUE;
+        for (RedisNode replica : available(replicas(realKey))) {
+            double latency = replica.getLatencyMicros() < 0 ? Double.MAX_VALUE : replica.getLatencyMicros();
+            if (best == null || latency < bestLatency) {
+                best = replica;
+                bestLatency = latency;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 在副本上执行 GET
+     *
+     * @param node    副本
+     * @param realKey 真实 key
+     * @return 值
+     */
+    public String get(RedisNode node, String realKey) {
+        long start = System.nanoTime();
+        Jedis jedis = null;
+        Deadline deadline = Deadline.current();
+        try {
+            jedis = node.getResource();
+            HedgedCall.attach(jedis);
+            if (deadline != null) {
+                deadline.limit(jedis);
+            }
+            String value = jedis.get(realKey);
+            node.recordLatency(System.nanoTime() - start);
+            return value;
+        } catch (JedisMovedDataException e) {
+            // 副本已不再负责该 slot，尽快刷新拓扑
+            CacheExecutors.scheduler().execute(new Runnable() {
+                @Override
+                public void run() {
+                    safeRefresh();
+                }
+            });
+            throw e;
+        } catch (JedisConnectionException e) {
+            // 期限到达或被对冲请求取代导致的中断不计为节点故障
+            if ((deadline == null || !deadline.isExpired()) && !HedgedCall.isAborted()) {
+                node.markFailed(FAILURE_BACKOFF_MILLIS);
+            }
+            throw e;
+        } finally {
+            if (jedis != null) {
+                HedgedCall.detach(jedis);
+                if (deadline != null) {
+                    Deadline.restore(jedis);
+                }
+                jedis.close();
+            }
+        }
+    }
+
+    /**
+     * 刷新拓扑，实现类需调用 {@link #node(String, int, boolean)} 取得节点并最终调用 {@link #retain(Set)}
+     */
+    protected abstract void refresh();
+
+    /**
+     * key 所在分片的 master 节点，未知时返回 null
+     */
+    protected abstract RedisNode master(String realKey);
+
+    /**
+     * key 所在分片的副本节点
+     */
+    protected abstract List<RedisNode> replicas(String realKey);
+
+    /**
+     * 按地址获取或创建节点
+     */
+    protected RedisNode node(String host, int port, boolean readonly) {
+        String address = host + ":" + port;
+        synchronized (nodes) {
+            RedisNode node = nodes.get(address);
+            if (node == null) {
+                node = new RedisNode(host, port, password, timeout, maxActive, readonly);
+                nodes.put(address, node);
+                log.info("[replica] add node -> " + address);
+            }
+            return node;
+        }
+    }
+
+    /**
+     * 关闭不在拓扑中的节点
+     *
+     * @param addresses 当前拓扑中的节点地址
+     */
+    protected void retain(Set<String> addresses) {
+        synchronized (nodes) {
+            Iterator<Map.Entry<String, RedisNode>> it = nodes.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, RedisNode> e = it.next();
+                if (!addresses.contains(e.getKey())) {
+                    e.getValue().close();
+                    it.remove();
+                    log.info("[replica] remove node -> " + e.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * 探测所有节点延迟
+     */
+    protected void probeAll() {
+        List<RedisNode> snapshot;
+        synchronized (nodes) {
+            snapshot = new ArrayList<>(nodes.values());
+        }
+        for (RedisNode node : snapshot) {
+            node.probe(FAILURE_BACKOFF_MILLIS);
+        }
+    }
+
+    private void safeRefresh() {
+        try {
+            refresh();
+        } catch (JedisException e) {
+            log.error("[replica] refresh topology error : " + e);
+        } catch (RuntimeException e) {
+            log.error("[replica] refresh topology error : ", e);
+        }
+    }
+
+    private static List<RedisNode> available(List<RedisNode> candidates) {
+        List<RedisNode> list = new ArrayList<>(candidates.size());
+        for (RedisNode node : candidates) {
+            if (node.isAvailable()) {
+                list.add(node);
+            }
+        }
+        return list;
+    }
+
+    private int next(int bound) {
+        return (sequence.getAndIncrement() & Integer.MAX_VALUE) % bound;
+    }
+}
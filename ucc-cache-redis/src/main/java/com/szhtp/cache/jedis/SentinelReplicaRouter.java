@@ -0,0 +1,96 @@
+package com.szhtp.cache.jedis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 哨兵模式的读副本路由，定期向哨兵查询 master 与可用副本，副本增减或主从切换后同步更新连接池
+ *
+ * @author heguixing
+ */
+public class SentinelReplicaRouter extends ReplicaRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(SentinelReplicaRouter.class);
+
+    private final String[] serverList;
+
+    private final String[] portList;
+
+    private final String masterName;
+
+    private volatile RedisNode master;
+
+    private volatile List<RedisNode> replicas = Collections.emptyList();
+
+    public SentinelReplicaRouter(ReadPolicies policies, String[] serverList, String[] portList, String masterName,
+                                 String password, int timeout, int maxActive) {
+        super(policies, password, timeout, maxActive);
+        this.serverList = serverList;
+        this.portList = portList;
+        this.masterName = masterName;
+    }
+
+    @Override
+    protected void refresh() {
+        for (int i = 0; i < serverList.length; i++) {
+            Jedis sentinel = null;
+            try {
+                sentinel = new Jedis(serverList[i], Integer.parseInt(portList[i]), timeout);
+                List<String> masterAddr = sentinel.sentinelGetMasterAddrByName(masterName);
+                if (masterAddr == null || masterAddr.size() < 2) {
+                    continue;
+                }
+                update(masterAddr, sentinel.sentinelSlaves(masterName));
+                return;
+            } catch (JedisException e) {
+                log.warn("[replica] sentinel " + serverList[i] + ":" + portList[i] + " unavailable : " + e);
+            } finally {
+                if (sentinel != null) {
+                    sentinel.close();
+                }
+            }
+        }
+        log.error("[replica] no sentinel knows master [" + masterName + "], keep current topology");
+    }
+
+    private void update(List<String> masterAddr, List<Map<String, String>> slaves) {
+        Set<String> addresses = new HashSet<>();
+        RedisNode currentMaster = node(masterAddr.get(0), Integer.parseInt(masterAddr.get(1)), false);
+        addresses.add(currentMaster.getAddress());
+        List<RedisNode> currentReplicas = new ArrayList<>();
+        for (Map<String, String> slave : slaves) {
+            String flags = String.valueOf(slave.get("flags"));
+            if (flags.contains("s_down") || flags.contains("o_down") || flags.contains("disconnected")
+                    || !"ok".equals(slave.get("master-link-status"))) {
+                continue;
+            }
+            RedisNode replica = node(slave.get("ip"), Integer.parseInt(slave.get("port")), false);
+            if (addresses.add(replica.getAddress())) {
+                currentReplicas.add(replica);
+            }
+        }
+        master = currentMaster;
+        replicas = Collections.unmodifiableList(currentReplicas);
+        retain(addresses);
+        probeAll();
+    }
+
+    @Override
+    protected RedisNode master(String realKey) {
+        return master;
+    }
+
+    @Override
+    protected List<RedisNode> replicas(String realKey) {
+        return replicas;
+    }
+}
@@ -0,0 +1,435 @@
+package com.szhtp.cache.jedis;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JedisService 分片模式实现，用一致性哈希把 key 分布到多台独立的 redis，每个分片单独一个连接池。
+ * 分片不做主备切换，分片不可用时其上的 key 读写失败，按缓存未命中处理。
+ *
+ * @author null
+ */
+public class ShardedJedisServiceImpl extends AbstractJedisServiceImpl implements JedisService, Warmable {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedJedisServiceImpl.class);
+
+    /**
+     * 并行执行批量操作的最大线程数，超出时在调用线程执行
+     */
+    private static final int BATCH_THREADS = 64;
+
+    private final String password;
+
+    private final PoolSettings poolSettings;
+
+    private final ConsistentHashRing<JedisPool> ring;
+
+    /**
+     * 分片名称 -> 注册表租约
+     */
+    private final Map<String, RedisClientRegistry.Lease<JedisPool>> leases = new ConcurrentHashMap<>();
+
+    /**
+     * 超时时间
+     */
+    private int timeout = 3000;
+
+    /**
+     * 批量操作按分片并行执行
+     */
+    private final ThreadPoolExecutor batchExecutor = new ThreadPoolExecutor(0, BATCH_THREADS, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>(), CacheExecutors.threadFactory("ucc-cache-shard"));
+
+    /**
+     * @param prefix       前缀
+     * @param serverList   分片地址
+     * @param portList     分片端口，与 serverList 一一对应，只配置一个时所有分片共用
+     * @param password     密码
+     * @param poolSettings 每个分片的连接池参数
+     * @param virtualNodes 每个分片的虚拟节点数
+     * @param shared       是否与其它前缀共用同一地址的连接池
+     */
+    public ShardedJedisServiceImpl(String prefix, String[] serverList, String[] portList, String password, PoolSettings poolSettings,
+                                   int virtualNodes, boolean shared) {
+        this.shared = shared;
+        if (prefix != null && !"".equals(prefix.trim())) {
+            this.prefix = prefix.trim();
+        }
+        this.password = password;
+        this.poolSettings = poolSettings;
+        this.ring = new ConsistentHashRing<>(virtualNodes);
+        for (int i = 0; i < serverList.length; i++) {
+            String port = portList.length > i ? portList[i] : portList[0];
+            addShard(serverList[i].trim(), Integer.parseInt(port.trim()));
+        }
+    }
+
+    /**
+     * 加入分片，只有落在新分片虚拟节点区间内的 key 会迁移到新分片
+     *
+     * @param host 地址
+     * @param port 端口
+     */
+    public synchronized void addShard(final String host, final int port) {
+        String name = host + ":" + port;
+        if (leases.containsKey(name)) {
+            return;
+        }
+        final String endpoint = endpoint(name);
+        RedisClientRegistry.Lease<JedisPool> lease = RedisClientRegistry.acquire(endpoint, password, prefix,
+                new RedisClientRegistry.Factory<JedisPool>() {
+                    @Override
+                    public JedisPool create() {
+                        return new ManagedJedisPool(endpoint, poolSettings, host, port, timeout, StringUtils.isNotBlank(password) ? password : null);
+                    }
+                });
+        leases.put(name, lease);
+        ring.add(name, lease.get());
+        log.info("[sharded] add shard -> " + name);
+    }
+
+    /**
+     * 移除分片并关闭其连接池，该分片上的 key 之后按未命中处理
+     *
+     * @param host 地址
+     * @param port 端口
+     */
+    public synchronized void removeShard(String host, int port) {
+        String name = host + ":" + port;
+        ring.remove(name);
+        RedisClientRegistry.Lease<JedisPool> lease = leases.remove(name);
+        if (lease != null) {
+            lease.close();
+            log.info("[sharded] remove shard -> " + name);
+        }
+    }
+
+    /**
+     * 所有分片，格式 host:port
+     */
+    public List<String> getShards() {
+        return ring.names();
+    }
+
+    /**
+     * key 所在分片
+     *
+     * @param key 未加前缀的 key
+     * @return host:port
+     */
+    public String shardOf(String key) {
+        return ring.locate(realKey(key));
+    }
+
+    /**
+     * 第一个分片的Jedis实例，按 key 的操作使用 {@link #getJedis(String)}
+     *
+     * @return Jedis
+     */
+    @Override
+    public Jedis getJedis() {
+        List<String> names = ring.names();
+        return names.isEmpty() ? null : resource(names.get(0));
+    }
+
+    @Override
+    protected Jedis getJedis(String realKey) {
+        String name = ring.locate(realKey);
+        return name == null ? null : resource(name);
+    }
+
+    @Override
+    public Map<String, String> getStrings(List<String> keys) {
+        Map<String, String> ret = new LinkedHashMap<>();
+        if (keys == null || keys.isEmpty()) {
+            return ret;
+        }
+        for (String key : keys) {
+            ret.put(key, null);
+        }
+        List<Map<String, String>> parts = perShard(groupByShard(keys), new ShardBatch<Map<String, String>>() {
+            @Override
+            public Map<String, String> run(String shard, List<String> group) {
+                Map<String, String> part = new LinkedHashMap<>();
+                Jedis js = null;
+                try {
+                    js = track(resource(shard));
+                    if (js != null) {
+                        mget(js, group, part);
+                    }
+                } catch (Exception e) {
+                    log.error("mget -> " + group + " on " + shard + " error : " + e);
+                } finally {
+                    release(js);
+                }
+                return part;
+            }
+        });
+        for (Map<String, String> part : parts) {
+            ret.putAll(part);
+        }
+        return ret;
+    }
+
+    @Override
+    public boolean setStrings(final Map<String, String> values, final int seconds) {
+        if (values == null || values.isEmpty()) {
+            return true;
+        }
+        Map<String, List<String>> groups = groupByShard(new ArrayList<>(values.keySet()));
+        List<Boolean> results = perShard(groups, new ShardBatch<Boolean>() {
+            @Override
+            public Boolean run(String shard, List<String> group) {
+                Map<String, String> part = new LinkedHashMap<>();
+                for (String key : group) {
+                    part.put(key, values.get(key));
+                }
+                Jedis js = null;
+                try {
+                    js = track(resource(shard));
+                    if (js != null) {
+                        return pipelineSet(js, part, seconds);
+                    }
+                } catch (Exception e) {
+                    log.error("mset -> " + group + " on " + shard + " error : " + e);
+                } finally {
+                    release(js);
+                }
+                return false;
+            }
+        });
+        // 出错或被中断的分组没有结果
+        return results.size() == groups.size() && !results.contains(Boolean.FALSE);
+    }
+
+    @Override
+    public Long delKeys(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return 0L;
+        }
+        Map<String, List<String>> groups = groupByShard(keys);
+        List<Long> results = perShard(groups, new ShardBatch<Long>() {
+            @Override
+            public Long run(String shard, List<String> group) {
+                Jedis js = null;
+                try {
+                    js = track(resource(shard));
+                    if (js != null) {
+                        return js.del(realKeys(group));
+                    }
+                } catch (Exception e) {
+                    log.error("del -> " + group + " on " + shard + " error : " + e);
+                } finally {
+                    release(js);
+                }
+                return null;
+            }
+        });
+        if (results.size() != groups.size() || results.contains(null)) {
+            return null;
+        }
+        long deleted = 0;
+        for (Long n : results) {
+            deleted += n;
+        }
+        return deleted;
+    }
+
+    @Override
+    public boolean expireKeys(List<String> keys, final int seconds) {
+        if (keys == null || keys.isEmpty()) {
+            return true;
+        }
+        Map<String, List<String>> groups = groupByShard(keys);
+        List<Boolean> results = perShard(groups, new ShardBatch<Boolean>() {
+            @Override
+            public Boolean run(String shard, List<String> group) {
+                Jedis js = null;
+                try {
+                    js = track(resource(shard));
+                    if (js != null) {
+                        return pipelineExpire(js, group, seconds);
+                    }
+                } catch (Exception e) {
+                    log.error("expire -> " + group + " on " + shard + " error : " + e);
+                } finally {
+                    release(js);
+                }
+                return false;
+            }
+        });
+        return results.size() == groups.size() && !results.contains(Boolean.FALSE);
+    }
+
+    /**
+     * 并行清理各分片
+     */
+    @Override
+    protected long sweep(String pattern) {
+        try {
+            return sweeper.sweep(pools(), pattern);
+        } catch (Exception e) {
+            log.error("sweep -> [" + pattern + "] error : " + e);
+            return -1;
+        }
+    }
+
+    /**
+     * 并行分析各分片
+     */
+    @Override
+    public KeyProfile profileKeys(KeyProfiler profiler, String pattern) {
+        String realPattern = KeySweeper.escape(realKey("")) + pattern;
+        try {
+            return profiler.profile(pools(), realPattern);
+        } catch (Exception e) {
+            log.error("profileKeys -> [" + realPattern + "] error : " + e);
+            return null;
+        }
+    }
+
+    /**
+     * 分片连接池在构造时已建立
+     */
+    @Override
+    public void prepare() {
+    }
+
+    @Override
+    public Collection<JedisPool> pools() {
+        List<JedisPool> pools = new ArrayList<>();
+        for (RedisClientRegistry.Lease<JedisPool> lease : leases.values()) {
+            pools.add(lease.get());
+        }
+        return pools;
+    }
+
+    @Override
+    public int warmUpConnections() {
+        return poolSettings.getMinIdle();
+    }
+
+    @Override
+    protected PrefixMetrics metricsFor(Jedis jedis) {
+        RedisClientRegistry.Lease<JedisPool> lease = leases.get(jedis.getClient().getHost() + ":" + jedis.getClient().getPort());
+        return lease == null ? metrics : lease.getMetrics();
+    }
+
+    @Override
+    public synchronized void close() {
+        super.close();
+        batchExecutor.shutdown();
+        for (String name : ring.names()) {
+            ring.remove(name);
+        }
+        for (RedisClientRegistry.Lease<JedisPool> lease : leases.values()) {
+            lease.close();
+        }
+        leases.clear();
+    }
+
+    /**
+     * 按所在分片给 key 分组，组内保持原有顺序
+     */
+    private Map<String, List<String>> groupByShard(List<String> keys) {
+        Map<String, List<String>> grouped = new LinkedHashMap<>();
+        for (String key : keys) {
+            String name = ring.locate(realKey(key));
+            List<String> list = grouped.get(name);
+            if (list == null) {
+                list = new ArrayList<>();
+                grouped.put(name, list);
+            }
+            list.add(key);
+        }
+        return grouped;
+    }
+
+    /**
+     * 对每个分片的 key 执行批量操作，多个分片时并行，最后一组在调用线程执行；调用期限带到执行线程
+     *
+     * @return 各分片的结果
+     */
+    private <R> List<R> perShard(Map<String, List<String>> groups, final ShardBatch<R> batch) {
+        if (groups.size() == 1) {
+            Map.Entry<String, List<String>> group = groups.entrySet().iterator().next();
+            return Collections.singletonList(batch.run(group.getKey(), group.getValue()));
+        }
+        final Deadline deadline = Deadline.current();
+        List<Future<R>> futures = new ArrayList<>(groups.size());
+        List<R> results = new ArrayList<>(groups.size());
+        int remaining = groups.size();
+        for (final Map.Entry<String, List<String>> group : groups.entrySet()) {
+            if (--remaining > 0) {
+                try {
+                    futures.add(batchExecutor.submit(new Callable<R>() {
+                        @Override
+                        public R call() {
+                            Deadline previous = Deadline.attach(deadline);
+                            try {
+                                return batch.run(group.getKey(), group.getValue());
+                            } finally {
+                                Deadline.attach(previous);
+                            }
+                        }
+                    }));
+                    continue;
+                } catch (RejectedExecutionException e) {
+                    // 线程耗尽时在调用线程执行
+                }
+            }
+            results.add(batch.run(group.getKey(), group.getValue()));
+        }
+        for (Future<R> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                log.error("[sharded] batch error : " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 一个分片上的批量操作
+     */
+    private interface ShardBatch<R> {
+
+        R run(String shard, List<String> keys);
+    }
+
+    private Jedis resource(String name) {
+        JedisPool pool = ring.shard(name);
+        if (pool == null) {
+            return null;
+        }
+        try {
+            return borrowFrom(pool);
+        } catch (JedisException e) {
+            log.error("[getJedis] --> shard " + name + " error : " + e);
+            return null;
+        }
+    }
+}
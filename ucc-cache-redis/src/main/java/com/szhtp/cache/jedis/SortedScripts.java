@@ -0,0 +1,41 @@
+package com.szhtp.cache.jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * sorted set 存储使用的脚本，写入和设置过期时间在服务端原子执行
+ *
+ * @author null
+ */
+public final class SortedScripts {
+
+    /**
+     * 添加成员并设置过期时间，返回新增的成员数。ARGV[1] 为过期秒数，之后为分数、成员交替
+     */
+    public static final RedisScript ADD = new RedisScript(
+            "local n = 0\n"
+                    + "for i = 2, #ARGV, 1000 do\n"
+                    + "  n = n + redis.call('zadd', KEYS[1], unpack(ARGV, i, math.min(i + 999, #ARGV)))\n"
+                    + "end\n"
+                    + "if tonumber(ARGV[1]) > 0 then redis.call('expire', KEYS[1], ARGV[1]) end\n"
+                    + "return n");
+
+    private SortedScripts() {
+    }
+
+    /**
+     * {@link #ADD} 的参数，无穷大按 redis 的写法传递
+     */
+    static List<String> addArgs(Map<String, Double> members, int seconds) {
+        List<String> args = new ArrayList<>(members.size() * 2 + 1);
+        args.add(Integer.toString(seconds));
+        for (Map.Entry<String, Double> e : members.entrySet()) {
+            double score = e.getValue();
+            args.add(Double.isInfinite(score) ? (score > 0 ? "+inf" : "-inf") : Double.toString(score));
+            args.add(e.getKey());
+        }
+        return args;
+    }
+}
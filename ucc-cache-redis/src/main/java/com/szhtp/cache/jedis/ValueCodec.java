@@ -0,0 +1,85 @@
+package com.szhtp.cache.jedis;
+
+import com.alibaba.fastjson.JSON;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 单个值与 redis 字符串之间的编解码，用于 hash 字段、list 和 sorted set 元素。
+ * 字符串原样存储，数字、布尔按 toString，枚举按名称，其它类型按 JSON
+ *
+ * @author null
+ */
+public final class ValueCodec {
+
+    private ValueCodec() {
+    }
+
+    public static String encode(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return value.toString();
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        return JSON.toJSONString(value);
+    }
+
+    /**
+     * 解码
+     *
+     * @param text 字符串
+     * @param type 类型，可为泛型类型
+     * @return 值，text 为空时返回 null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> T decode(String text, Type type) {
+        if (text == null) {
+            return null;
+        }
+        Class<?> raw = type instanceof Class ? (Class<?>) type : null;
+        if (raw == String.class) {
+            return (T) text;
+        }
+        if (raw != null && raw.isEnum()) {
+            return (T) Enum.valueOf((Class<Enum>) raw, text);
+        }
+        if (raw == char.class || raw == Character.class) {
+            return text.isEmpty() ? null : (T) Character.valueOf(text.charAt(0));
+        }
+        return JSON.parseObject(text, type);
+    }
+
+    /**
+     * 编码一组值，空值忽略
+     */
+    public static String[] encodeAll(Collection<?> values) {
+        List<String> encoded = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value != null) {
+                encoded.add(encode(value));
+            }
+        }
+        return encoded.toArray(new String[encoded.size()]);
+    }
+
+    /**
+     * 按顺序解码一组值
+     */
+    public static <T> List<T> decodeAll(Collection<String> texts, Class<T> clazz) {
+        List<T> values = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            values.add(ValueCodec.<T>decode(text, clazz));
+        }
+        return values;
+    }
+}
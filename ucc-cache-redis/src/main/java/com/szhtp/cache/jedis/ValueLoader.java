@@ -0,0 +1,17 @@
+package com.szhtp.cache.jedis;
+
+/**
+ * 缓存未命中时加载值，通常查询数据库
+ *
+ * @author null
+ */
+public interface ValueLoader<T> {
+
+    /**
+     * 加载值
+     *
+     * @param key 键
+     * @return 值，不存在时返回 null
+     */
+    T load(String key);
+}
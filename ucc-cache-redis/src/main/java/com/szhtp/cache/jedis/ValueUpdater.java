@@ -0,0 +1,17 @@
+package com.szhtp.cache.jedis;
+
+/**
+ * 根据当前值计算新值，冲突重试时可能被调用多次，不应有副作用
+ *
+ * @author null
+ */
+public interface ValueUpdater<T> {
+
+    /**
+     * 计算新值
+     *
+     * @param current 当前值，key 不存在时为 null
+     * @return 新值，返回 null 表示放弃更新
+     */
+    T apply(T current);
+}
@@ -0,0 +1,27 @@
+package com.szhtp.cache.jedis;
+
+/**
+ * 带版本号的值使用的脚本。值存放在 hash 中，字段 v 为版本号，字段 d 为 JSON
+ *
+ * @author null
+ */
+public final class VersionScripts {
+
+    static final String VERSION_FIELD = "v";
+
+    static final String DATA_FIELD = "d";
+
+    /**
+     * 当前版本号等于 ARGV[1] 时写入 ARGV[2] 并把版本号加一，key 不存在时版本号为 0。
+     * ARGV[3] 为过期秒数，小于等于 0 时保留原过期时间。成功返回新版本号，版本不符返回 0
+     */
+    public static final RedisScript COMPARE_AND_SET = new RedisScript(
+            "local v = tonumber(redis.call('hget', KEYS[1], 'v') or '0')\n"
+                    + "if v ~= tonumber(ARGV[1]) then return 0 end\n"
+                    + "redis.call('hmset', KEYS[1], 'v', v + 1, 'd', ARGV[2])\n"
+                    + "if tonumber(ARGV[3]) > 0 then redis.call('expire', KEYS[1], ARGV[3]) end\n"
+                    + "return v + 1");
+
+    private VersionScripts() {
+    }
+}
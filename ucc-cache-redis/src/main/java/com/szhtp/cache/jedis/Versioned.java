@@ -0,0 +1,37 @@
+package com.szhtp.cache.jedis;
+
+/**
+ * 带版本号的值，用于 {@link JedisService#compareAndSet(String, long, Object, int)}
+ *
+ * @author null
+ */
+public class Versioned<T> {
+
+    private final long version;
+
+    private final T value;
+
+    public Versioned(long version, T value) {
+        this.version = version;
+        this.value = value;
+    }
+
+    /**
+     * 版本号，每次写入加一，key 不存在时为 0
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 值，key 不存在时为 null
+     */
+    public T getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return version + ":" + value;
+    }
+}
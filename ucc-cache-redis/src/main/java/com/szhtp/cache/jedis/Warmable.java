@@ -0,0 +1,33 @@
+package com.szhtp.cache.jedis;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.util.Pool;
+
+import java.util.Collection;
+
+/**
+ * 支持启动预热的具体实现
+ *
+ * @author null
+ */
+public interface Warmable {
+
+    /**
+     * 建立客户端，集群模式下同时拉取 slot 拓扑
+     */
+    void prepare();
+
+    /**
+     * 需要预建连接的连接池，在 {@link #prepare()} 之后调用
+     *
+     * @return 连接池
+     */
+    Collection<? extends Pool<Jedis>> pools();
+
+    /**
+     * 每个连接池默认预建的连接数
+     *
+     * @return 连接数
+     */
+    int warmUpConnections();
+}
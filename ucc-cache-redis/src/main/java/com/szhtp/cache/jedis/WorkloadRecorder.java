@@ -0,0 +1,167 @@
+package com.szhtp.cache.jedis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 把操作记录写入 {@link WorkloadTrace} 文件：调用线程只把记录放入有界队列，由后台线程顺序写入，
+ * 队列满时丢弃记录并计数，不阻塞调用方。按 key 哈希抽样，被抽中的 key 的所有操作都会记录，
+ * 回放时同一个 key 的读写顺序保持完整。
+ *
+ * @author null
+ */
+public class WorkloadRecorder implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkloadRecorder.class);
+
+    private final File file;
+
+    private final double sampleRate;
+
+    /**
+     * 哈希小于该值的 key 被抽中
+     */
+    private final long sampleBound;
+
+    private final BlockingQueue<WorkloadTrace.Record> queue;
+
+    private final DataOutputStream out;
+
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong recorded = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Thread writer;
+
+    private volatile boolean closed;
+
+    /**
+     * @param file       轨迹文件，已存在时覆盖
+     * @param sampleRate 按 key 抽样的比例，0 到 1
+     * @param queueSize  待写入记录的队列长度
+     */
+    public WorkloadRecorder(File file, double sampleRate, int queueSize) throws IOException {
+        if (sampleRate <= 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sample rate must be in (0, 1] : " + sampleRate);
+        }
+        this.file = file;
+        this.sampleRate = sampleRate;
+        this.sampleBound = (long) (sampleRate * (1L << 53));
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+        WorkloadTrace.writeHeader(out, System.currentTimeMillis(), sampleRate);
+        this.writer = CacheExecutors.threadFactory("ucc-cache-capture").newThread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        });
+        writer.start();
+    }
+
+    /**
+     * key 是否被抽中
+     *
+     * @param keyHash {@link WorkloadTrace#hash(String)}
+     */
+    public boolean sampled(long keyHash) {
+        if (sampleRate >= 1) {
+            return true;
+        }
+        // 再混合一次，FNV 哈希的高位对相近的 key 分布不够均匀
+        long h = keyHash * 0x9e3779b97f4a7c15L;
+        return (h ^ (h >>> 32)) >>> 11 < sampleBound;
+    }
+
+    /**
+     * 相对轨迹开始的微秒数
+     */
+    public long now() {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 放入一条记录，已关闭或队列满时丢弃
+     *
+     * @param record 记录
+     */
+    public void record(WorkloadTrace.Record record) {
+        if (closed || !queue.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * 已写入的记录数
+     */
+    public long getRecorded() {
+        return recorded.get();
+    }
+
+    /**
+     * 因队列满或已关闭被丢弃的记录数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 写完队列中剩余的记录后关闭文件
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        long previousTime = 0;
+        try {
+            while (!closed || !queue.isEmpty()) {
+                WorkloadTrace.Record record = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (record == null) {
+                    out.flush();
+                    continue;
+                }
+                WorkloadTrace.write(out, record, previousTime);
+                previousTime = record.getTime();
+                recorded.incrementAndGet();
+            }
+        } catch (IOException e) {
+            log.error("capture -> [" + file + "] error : " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.error("capture -> [" + file + "] close error : " + e);
+            }
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package com.szhtp.cache.jedis;
+
+import com.szhtp.cache.jedis.WorkloadTrace.Op;
+import com.szhtp.cache.jedis.WorkloadTrace.Record;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 按 {@link WorkloadTrace} 轨迹回放操作：保持记录间的时间间隔，可按倍速加快，倍速为 0 时不等待。
+ * key 为前缀加 key 哈希的十六进制，值为记录大小的填充字符串；同一个 key 的操作由同一个线程按顺序执行。
+ * 回放结束后报告吞吐量、延迟分位数和相对计划时间的最大滞后。
+ *
+ * @author null
+ */
+public class WorkloadReplayer {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkloadReplayer.class);
+
+    /**
+     * 延迟窗口大小，超过后按最近的记录计算分位数
+     */
+    private static final int LATENCY_SAMPLES = 1 << 20;
+
+    private static final Record END = new Record(Op.GET_STRING, 0, 0, 0, 0, 0, 0, null, null);
+
+    private final JedisService service;
+
+    private final String keyPrefix;
+
+    /**
+     * 回放倍速，0 表示不等待
+     */
+    private final double speed;
+
+    private final int threads;
+
+    private volatile char[] padding = new char[0];
+
+    /**
+     * key 哈希 -> 最近读到的版本号，用于回放 compareAndSet
+     */
+    private final ConcurrentHashMap<Long, Long> versions = new ConcurrentHashMap<>();
+
+    /**
+     * @param service   回放的目标
+     * @param keyPrefix 回放 key 的前缀，与线上数据隔开
+     * @param speed     回放倍速，1 为原速，0 表示不等待
+     * @param threads   回放线程数
+     */
+    public WorkloadReplayer(JedisService service, String keyPrefix, double speed, int threads) {
+        if (speed < 0) {
+            throw new IllegalArgumentException("speed must not be negative : " + speed);
+        }
+        this.service = service;
+        this.keyPrefix = keyPrefix == null ? "" : keyPrefix;
+        this.speed = speed;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * 回放轨迹文件，阻塞到全部操作执行完
+     *
+     * @param trace 轨迹文件
+     * @return 回放结果
+     */
+    public Report replay(File trace) throws IOException {
+        final Report report = new Report();
+        List<BlockingQueue<Record>> queues = new ArrayList<>(threads);
+        List<Thread> workers = new ArrayList<>(threads);
+        final long startNanos = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(4096);
+            queues.add(queue);
+            Thread worker = CacheExecutors.threadFactory("ucc-cache-replay").newThread(new Runnable() {
+                @Override
+                public void run() {
+                    work(queue, startNanos, report);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        try (WorkloadTrace.Reader reader = new WorkloadTrace.Reader(trace)) {
+            Record record;
+            while ((record = reader.next()) != null) {
+                long h = record.getKey() * 0x9e3779b97f4a7c15L;
+                queues.get((int) ((h >>> 33) % threads)).put(record);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (BlockingQueue<Record> queue : queues) {
+                try {
+                    queue.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    worker.interrupt();
+                }
+            }
+        }
+        report.elapsedNanos = System.nanoTime() - startNanos;
+        return report;
+    }
+
+    private void work(BlockingQueue<Record> queue, long startNanos, Report report) {
+        try {
+            while (true) {
+                Record record = queue.take();
+                if (record == END) {
+                    return;
+                }
+                long lag = 0;
+                if (speed > 0) {
+                    long due = startNanos + (long) (TimeUnit.MICROSECONDS.toNanos(record.getTime()) / speed);
+                    long wait = due - System.nanoTime();
+                    while (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                        wait = due - System.nanoTime();
+                    }
+                    lag = -wait;
+                }
+                long begin = System.nanoTime();
+                boolean failed = false;
+                try {
+                    execute(record);
+                } catch (RuntimeException e) {
+                    failed = true;
+                    log.debug("replay -> [" + record.getOp() + "] error : " + e);
+                }
+                report.add(record.getOp(), TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin), lag, failed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void execute(Record r) {
+        String key = key(r.getKey());
+        int ttl = r.getTtl();
+        switch (r.getOp()) {
+            case SET_STRING:
+                if (ttl > 0) {
+                    service.setString(key, value(r.getSize()), ttl);
+                } else {
+                    service.setString(key, value(r.getSize()));
+                }
+                break;
+            case SETNX:
+                service.setnxString(key, value(r.getSize()), ttl);
+                break;
+            case GET_STRING:
+                service.getString(key);
+                break;
+            case SET_OBJECT:
+                if (ttl > 0) {
+                    service.setObject(key, value(r.getSize()), ttl);
+                } else {
+                    service.setObject(key, value(r.getSize()));
+                }
+                break;
+            case GET_OBJECT:
+                service.getObject(key, String.class);
+                break;
+            case SET_LIST:
+                service.setList(key, elements(r), ttl);
+                break;
+            case GET_LIST:
+                service.getList(key, String.class);
+                break;
+            case APPEND:
+                service.append(key, value(r.getSize()));
+                break;
+            case DEL:
+                service.delKey(key);
+                break;
+            case EXPIRE:
+                service.expire(key, ttl);
+                break;
+            case GET_STRINGS:
+                List<String> keys = new ArrayList<>(r.getCount());
+                for (long hash : r.getBatchKeys()) {
+                    keys.add(key(hash));
+                }
+                service.getStrings(keys);
+                break;
+            case SET_STRINGS:
+                Map<String, String> values = new LinkedHashMap<>();
+                for (int i = 0; i < r.getCount(); i++) {
+                    values.put(key(r.getBatchKeys()[i]), value(r.getBatchSizes()[i]));
+                }
+                service.setStrings(values, ttl);
+                break;
+            case GET_SET:
+                service.getSet(key, value(r.getSize()), ttl);
+                break;
+            case INCR:
+                if (ttl > 0) {
+                    service.incr(key, ttl);
+                } else {
+                    service.incr(key);
+                }
+                break;
+            case SET_HASH:
+                service.setObjectAsHash(key, new ReplayValue(value(r.getSize())), ttl);
+                break;
+            case GET_HASH:
+                service.getObjectFromHash(key, ReplayValue.class);
+                break;
+            case UPDATE_FIELDS:
+                service.updateFields(key, new ReplayValue(value(r.getSize())), "data");
+                break;
+            case PUSH_LIST:
+                service.pushList(key, elements(r), ttl);
+                break;
+            case RANGE_LIST:
+                service.rangeList(key, 0, r.getCount() - 1, String.class);
+                break;
+            case TRIM_LIST:
+                service.trimList(key, 0, r.getCount() - 1);
+                break;
+            case LIST_SIZE:
+                service.listSize(key);
+                break;
+            case ADD_SORTED:
+                Map<String, Double> scored = new LinkedHashMap<>();
+                for (String element : elements(r)) {
+                    scored.put(element + scored.size(), (double) System.currentTimeMillis());
+                }
+                service.addSorted(key, scored, ttl);
+                break;
+            case RANGE_SORTED:
+                service.rangeSorted(key, 0, r.getCount() - 1, false, String.class);
+                break;
+            case TRIM_SORTED:
+                service.trimSorted(key, r.getCount());
+                break;
+            case SORTED_SIZE:
+                service.sortedSize(key);
+                break;
+            case MIGRATE_TO_LIST:
+                service.migrateToList(key, String.class);
+                break;
+            case SET_BITS:
+                JedisServiceWrapper.raw(service).setBits(key, offsets(r));
+                break;
+            case GET_BITS:
+                JedisServiceWrapper.raw(service).getBits(key, offsets(r));
+                break;
+            case GET_BYTES:
+                JedisServiceWrapper.raw(service).getBytes(key);
+                break;
+            case GET_VERSIONED:
+                Versioned<String> versioned = service.getVersioned(key, String.class);
+                if (versioned != null) {
+                    versions.put(r.getKey(), versioned.getVersion());
+                }
+                break;
+            case COMPARE_AND_SET:
+                Long version = versions.get(r.getKey());
+                if (service.compareAndSet(key, version == null ? 0 : version, value(r.getSize()), ttl) > 0) {
+                    versions.put(r.getKey(), (version == null ? 0 : version) + 1);
+                }
+                break;
+            default:
+                throw new IllegalStateException("unsupported op " + r.getOp());
+        }
+    }
+
+    private String key(long hash) {
+        return keyPrefix + Long.toHexString(hash);
+    }
+
+    /**
+     * 指定字符数的填充字符串
+     */
+    private String value(int size) {
+        char[] chars = padding;
+        if (chars.length < size) {
+            chars = new char[Math.max(size, chars.length * 2)];
+            Arrays.fill(chars, 'x');
+            padding = chars;
+        }
+        return new String(chars, 0, size);
+    }
+
+    /**
+     * 元素数按记录的 count，总大小平分到每个元素
+     */
+    private List<String> elements(Record r) {
+        int count = Math.max(1, r.getCount());
+        String element = value(Math.max(1, r.getSize() / count));
+        List<String> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(element);
+        }
+        return list;
+    }
+
+    private static long[] offsets(Record r) {
+        long[] offsets = new long[Math.max(1, r.getCount())];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = (r.getKey() >>> 40) + i * 7919L;
+        }
+        return offsets;
+    }
+
+    /**
+     * 回放 hash 操作使用的对象
+     */
+    public static class ReplayValue {
+
+        private String data;
+
+        public ReplayValue() {
+        }
+
+        public ReplayValue(String data) {
+            this.data = data;
+        }
+
+        public String getData() {
+            return data;
+        }
+
+        public void setData(String data) {
+            this.data = data;
+        }
+    }
+
+    /**
+     * 回放结果
+     */
+    public static class Report {
+
+        private final LatencyRecorder latency = new LatencyRecorder(LATENCY_SAMPLES);
+
+        private final Map<Op, AtomicLong> counts = new EnumMap<>(Op.class);
+
+        private final AtomicLongArray totals = new AtomicLongArray(2);
+
+        private final AtomicLong maxLag = new AtomicLong();
+
+        private long elapsedNanos;
+
+        Report() {
+            for (Op op : Op.values()) {
+                counts.put(op, new AtomicLong());
+            }
+        }
+
+        void add(Op op, long micros, long lagNanos, boolean failed) {
+            latency.record(micros);
+            counts.get(op).incrementAndGet();
+            totals.incrementAndGet(0);
+            if (failed) {
+                totals.incrementAndGet(1);
+            }
+            long max = maxLag.get();
+            while (lagNanos > max && !maxLag.compareAndSet(max, lagNanos)) {
+                max = maxLag.get();
+            }
+        }
+
+        /**
+         * 执行的操作数
+         */
+        public long getOperations() {
+            return totals.get(0);
+        }
+
+        /**
+         * 抛出异常的操作数，实现内部处理的异常不计入
+         */
+        public long getErrors() {
+            return totals.get(1);
+        }
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        /**
+         * 每秒操作数
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : getOperations() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * 延迟分位数
+         *
+         * @param percentile 0~1，如 0.99
+         * @return 微秒，尚无样本时返回 -1
+         */
+        public long percentile(double percentile) {
+            return latency.percentile(percentile);
+        }
+
+        /**
+         * 操作开始时间相对计划时间的最大滞后，毫秒，持续增大说明目标跟不上回放速度
+         */
+        public long getMaxLagMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxLag.get());
+        }
+
+        /**
+         * 各操作的执行次数，不含次数为 0 的操作
+         */
+        public Map<Op, Long> getCounts() {
+            Map<Op, Long> map = new LinkedHashMap<>();
+            for (Map.Entry<Op, AtomicLong> e : counts.entrySet()) {
+                if (e.getValue().get() > 0) {
+                    map.put(e.getKey(), e.getValue().get());
+                }
+            }
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ops %d, errors %d, %d ms, %.1f ops/s, latency us p50 %d p90 %d p99 %d p999 %d max %d, max lag %d ms%n%s",
+                    getOperations(), getErrors(), getElapsedMillis(), getThroughput(), percentile(0.5), percentile(0.9),
+                    percentile(0.99), percentile(0.999), percentile(1), getMaxLagMillis(), getCounts());
+        }
+    }
+}
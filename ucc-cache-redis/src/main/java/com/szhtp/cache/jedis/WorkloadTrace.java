@@ -0,0 +1,366 @@
+package com.szhtp.cache.jedis;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 负载轨迹文件格式：文件头为魔数、格式版本、开始时间（毫秒时间戳）和抽样比例；
+ * 之后每条记录依次为操作码、与上一条记录开始时间的差（微秒，zigzag 变长整数）、耗时（微秒）、
+ * key 的 64 位哈希、值大小、元素数、过期秒数，批量操作再跟每个 key 的哈希和值大小。
+ * 除 key 哈希外均为变长整数，一条单 key 记录通常 15 字节左右。key 只保存哈希，轨迹不含业务数据。
+ *
+ * @author null
+ */
+public final class WorkloadTrace {
+
+    static final int MAGIC = 0x55435754;
+
+    /**
+     * 格式版本，格式变化时加一，旧版本的文件不再读取
+     */
+    static final int VERSION = 1;
+
+    private WorkloadTrace() {
+    }
+
+    /**
+     * 记录的操作，同一个操作码可能对应多个读写方式相同的方法
+     */
+    public enum Op {
+        SET_STRING(1, true),
+        SETNX(2, true),
+        GET_STRING(3, false),
+        SET_OBJECT(4, true),
+        GET_OBJECT(5, false),
+        SET_LIST(6, true),
+        GET_LIST(7, false),
+        APPEND(8, true),
+        DEL(9, true),
+        EXPIRE(10, true),
+        GET_STRINGS(11, false),
+        SET_STRINGS(12, true),
+        GET_SET(13, true),
+        INCR(14, true),
+        SET_HASH(15, true),
+        GET_HASH(16, false),
+        UPDATE_FIELDS(17, true),
+        PUSH_LIST(18, true),
+        RANGE_LIST(19, false),
+        TRIM_LIST(20, true),
+        LIST_SIZE(21, false),
+        ADD_SORTED(22, true),
+        RANGE_SORTED(23, false),
+        TRIM_SORTED(24, true),
+        SORTED_SIZE(25, false),
+        MIGRATE_TO_LIST(26, true),
+        SET_BITS(27, true),
+        GET_BITS(28, false),
+        GET_BYTES(29, false),
+        GET_VERSIONED(30, false),
+        COMPARE_AND_SET(31, true);
+
+        private static final Op[] BY_CODE = new Op[64];
+
+        static {
+            for (Op op : values()) {
+                BY_CODE[op.code] = op;
+            }
+        }
+
+        private final int code;
+
+        private final boolean write;
+
+        Op(int code, boolean write) {
+            this.code = code;
+            this.write = write;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public boolean isWrite() {
+            return write;
+        }
+
+        /**
+         * 是否为多 key 操作
+         */
+        public boolean isBatch() {
+            return this == GET_STRINGS || this == SET_STRINGS;
+        }
+
+        static Op of(int code) {
+            Op op = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+            if (op == null) {
+                throw new IllegalArgumentException("unknown op code " + code);
+            }
+            return op;
+        }
+    }
+
+    /**
+     * 一条操作记录
+     */
+    public static class Record {
+
+        private final Op op;
+
+        /**
+         * 开始时间，相对轨迹开始的微秒数
+         */
+        private final long time;
+
+        private final long latency;
+
+        private final long key;
+
+        private final int size;
+
+        private final int count;
+
+        private final int ttl;
+
+        private final long[] batchKeys;
+
+        private final int[] batchSizes;
+
+        public Record(Op op, long time, long latency, long key, int size, int count, int ttl, long[] batchKeys, int[] batchSizes) {
+            this.op = op;
+            this.time = time;
+            this.latency = latency;
+            this.key = key;
+            this.size = size;
+            this.count = count;
+            this.ttl = ttl;
+            this.batchKeys = batchKeys;
+            this.batchSizes = batchSizes;
+        }
+
+        public Op getOp() {
+            return op;
+        }
+
+        /**
+         * 开始时间，相对轨迹开始的微秒数
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * 原始调用的耗时，微秒
+         */
+        public long getLatency() {
+            return latency;
+        }
+
+        /**
+         * key 的哈希，批量操作为第一个 key 的哈希
+         */
+        public long getKey() {
+            return key;
+        }
+
+        /**
+         * 写入或读到的值的字符数，未知为 0
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * 元素数：list、zset、位图和批量操作的元素个数，范围读取的结束下标加一
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * 过期秒数，0 表示未指定
+         */
+        public int getTtl() {
+            return ttl;
+        }
+
+        /**
+         * 批量操作各 key 的哈希，非批量操作为 null
+         */
+        public long[] getBatchKeys() {
+            return batchKeys;
+        }
+
+        /**
+         * 批量操作各 key 的值大小，非批量操作为 null
+         */
+        public int[] getBatchSizes() {
+            return batchSizes;
+        }
+    }
+
+    /**
+     * key 的 64 位 FNV-1a 哈希
+     *
+     * @param key 键
+     * @return 哈希
+     */
+    public static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    static void writeHeader(DataOutputStream out, long startMillis, double sampleRate) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(startMillis);
+        out.writeDouble(sampleRate);
+    }
+
+    static void write(DataOutputStream out, Record record, long previousTime) throws IOException {
+        out.writeByte(record.op.code);
+        long delta = record.time - previousTime;
+        writeVarLong(out, (delta << 1) ^ (delta >> 63));
+        writeVarLong(out, record.latency);
+        out.writeLong(record.key);
+        writeVarLong(out, record.size);
+        writeVarLong(out, record.count);
+        writeVarLong(out, record.ttl);
+        if (record.op.isBatch()) {
+            for (int i = 0; i < record.count; i++) {
+                out.writeLong(record.batchKeys[i]);
+                writeVarLong(out, record.batchSizes[i]);
+            }
+        }
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    private static int readVarInt(InputStream in) throws IOException {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("bad length " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * 顺序读取轨迹文件
+     */
+    public static class Reader implements Closeable {
+
+        private final DataInputStream in;
+
+        private final long startMillis;
+
+        private final double sampleRate;
+
+        private long time;
+
+        public Reader(File file) throws IOException {
+            this(new FileInputStream(file));
+        }
+
+        public Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+            try {
+                if (this.in.readInt() != MAGIC) {
+                    throw new IOException("not a workload trace");
+                }
+                int version = this.in.readInt();
+                if (version != VERSION) {
+                    throw new IOException("unsupported trace version " + version);
+                }
+                this.startMillis = this.in.readLong();
+                this.sampleRate = this.in.readDouble();
+            } catch (IOException e) {
+                this.in.close();
+                throw e;
+            }
+        }
+
+        /**
+         * 轨迹开始的毫秒时间戳
+         */
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        /**
+         * 读取下一条记录
+         *
+         * @return 记录，文件结束返回 null；最后一条记录不完整时同样返回 null
+         */
+        public Record next() throws IOException {
+            int code = in.read();
+            if (code < 0) {
+                return null;
+            }
+            try {
+                Op op = Op.of(code);
+                long zigzag = readVarLong(in);
+                time += (zigzag >>> 1) ^ -(zigzag & 1);
+                long latency = readVarLong(in);
+                long key = in.readLong();
+                int size = readVarInt(in);
+                int count = readVarInt(in);
+                int ttl = readVarInt(in);
+                long[] batchKeys = null;
+                int[] batchSizes = null;
+                if (op.isBatch()) {
+                    batchKeys = new long[count];
+                    batchSizes = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        batchKeys[i] = in.readLong();
+                        batchSizes[i] = readVarInt(in);
+                    }
+                }
+                return new Record(op, time, latency, key, size, count, ttl, batchKeys, batchSizes);
+            } catch (EOFException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.szhtp.cache.jedis;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author null
+ */
+public class HotKeyDetectorTest {
+
+    @Test
+    public void skewedStreamKeepsTopK() {
+        HotKeyDetector detector = new HotKeyDetector("p_", 10, 3, 1 << 16, ":");
+        // 热点 key 先进入集合，之后计数持续增长
+        for (int i = 0; i < 1000; i++) {
+            detector.record("a");
+            if (i % 2 == 0) {
+                detector.record("b");
+            }
+            if (i % 3 == 0) {
+                detector.record("c");
+            }
+        }
+        // 较冷的 key 不能挤掉任何一个热点 key
+        for (int k = 0; k < 20; k++) {
+            for (int i = 0; i < 100; i++) {
+                detector.record("d" + k);
+            }
+        }
+        assertEquals(Arrays.asList("p_a", "p_b", "p_c"), keys(detector));
+        assertFalse(detector.isHot("d0"));
+
+        // 更热的新 key 挤掉最冷的
+        for (int i = 0; i < 600; i++) {
+            detector.record("e");
+        }
+        assertEquals(Arrays.asList("p_a", "p_e", "p_b"), keys(detector));
+        assertFalse(detector.isHot("c"));
+    }
+
+    @Test
+    public void keyHeatingUpAfterAdmissionIsNotEvicted() {
+        HotKeyDetector detector = new HotKeyDetector("", 10, 3, 1 << 16, ":");
+        record(detector, "a", 12);
+        record(detector, "b", 13);
+        // 最后进入时计数最小，之后成为最热的 key
+        record(detector, "x", 11);
+        record(detector, "x", 1000);
+        record(detector, "n", 1100);
+        assertEquals(Arrays.asList("n", "x", "b"), keys(detector));
+        assertFalse(detector.isHot("a"));
+    }
+
+    @Test
+    public void decayRemovesCooledKeys() {
+        HotKeyDetector detector = new HotKeyDetector("", 10, 3, 1 << 16, ":");
+        for (int i = 0; i < 15; i++) {
+            detector.record("warm");
+        }
+        for (int i = 0; i < 100; i++) {
+            detector.record("hot");
+        }
+        detector.decay();
+        assertEquals(Arrays.asList("hot"), keys(detector));
+    }
+
+    private static void record(HotKeyDetector detector, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            detector.record(key);
+        }
+    }
+
+    private static List<String> keys(HotKeyDetector detector) {
+        List<String> keys = new ArrayList<>();
+        for (HotKeyDetector.HotKey hotKey : detector.hotKeys()) {
+            keys.add(hotKey.getKey());
+        }
+        return keys;
+    }
+}
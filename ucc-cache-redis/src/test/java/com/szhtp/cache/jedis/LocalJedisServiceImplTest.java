@@ -0,0 +1,74 @@
+package com.szhtp.cache.jedis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author null
+ */
+public class LocalJedisServiceImplTest {
+
+    private LocalJedisServiceImpl local;
+
+    @Before
+    public void setUp() {
+        local = new LocalJedisServiceImpl("test_", 0, 0, 10);
+    }
+
+    @After
+    public void tearDown() {
+        local.close();
+    }
+
+    @Test
+    public void overwriteKeepsOneClockNodePerKey() {
+        for (int i = 0; i < 200000; i++) {
+            local.setString("k" + (i % 10), "v" + i, 600);
+        }
+        assertEquals(10, local.size());
+        assertEquals(10, local.clockNodes());
+        assertEquals("v199999", local.getString("k9"));
+    }
+
+    @Test
+    public void deletedKeysDoNotAccumulateInClock() {
+        for (int i = 0; i < 200000; i++) {
+            local.setString("k" + i, "v");
+            local.delKey("k" + i);
+        }
+        assertEquals(0, local.size());
+        assertTrue(local.clockNodes() <= 32);
+        assertEquals(0, local.getUsedBytes());
+        assertNull(local.getString("k0"));
+    }
+
+    @Test
+    public void expiredKeysDoNotAccumulateInClock() {
+        for (int i = 0; i < 1000; i++) {
+            local.setString("k" + i, "v", 1);
+        }
+        local.tick(System.currentTimeMillis() + 2000);
+        assertEquals(0, local.size());
+        assertTrue(local.clockNodes() <= 32);
+    }
+
+    @Test
+    public void evictionStillBoundsEntries() {
+        LocalJedisServiceImpl bounded = new LocalJedisServiceImpl("test_", 100, 0, 10);
+        try {
+            for (int i = 0; i < 10000; i++) {
+                bounded.setString("k" + i, "v");
+                bounded.setString("k" + (i / 2), "w");
+            }
+            assertTrue(bounded.size() <= 100);
+            assertTrue(bounded.clockNodes() <= 2 * 100 + 16);
+        } finally {
+            bounded.close();
+        }
+    }
+}